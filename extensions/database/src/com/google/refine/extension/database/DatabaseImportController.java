@@ -55,6 +55,7 @@ import com.google.refine.importing.ImportingController;
 import com.google.refine.importing.ImportingJob;
 import com.google.refine.importing.ImportingManager;
 import com.google.refine.model.Project;
+import com.google.refine.process.ProcessExecutor;
 import com.google.refine.util.JSONUtilities;
 import com.google.refine.util.ParsingUtilities;
 
@@ -321,7 +322,7 @@ public class DatabaseImportController implements ImportingController {
 
             final Project project = new Project();
 
-            new Thread() {
+            ProcessExecutor.getDefault().submit(new Runnable() {
 
                 @Override
                 public void run() {
@@ -359,7 +360,7 @@ public class DatabaseImportController implements ImportingController {
                         job.updating = false;
                     }
                 }
-            }.start();
+            }, ProcessExecutor.Priority.INTERACTIVE);
 
             HttpUtilities.respond(response, "ok", "done");
         } catch (IOException e) {
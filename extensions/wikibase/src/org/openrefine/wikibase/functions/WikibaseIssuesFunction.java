@@ -125,5 +125,4 @@ public class WikibaseIssuesFunction implements Function {
         }
         return null;
     }
-
 }
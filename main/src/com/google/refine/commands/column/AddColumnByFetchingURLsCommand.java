@@ -59,6 +59,8 @@ public class AddColumnByFetchingURLsCommand extends EngineDependentCommand {
         String newColumnName = request.getParameter("newColumnName");
         int columnInsertIndex = Integer.parseInt(request.getParameter("columnInsertIndex"));
         int delay = Integer.parseInt(request.getParameter("delay"));
+        String concurrencyParameter = request.getParameter("concurrency");
+        int concurrency = concurrencyParameter == null ? 0 : Integer.parseInt(concurrencyParameter);
         String onError = request.getParameter("onError");
         boolean cacheResponses = Boolean.parseBoolean(request.getParameter("cacheResponses"));
         ObjectMapper mapper = new ObjectMapper();
@@ -72,6 +74,7 @@ public class AddColumnByFetchingURLsCommand extends EngineDependentCommand {
                 newColumnName,
                 columnInsertIndex,
                 delay,
+                concurrency,
                 cacheResponses,
                 headers);
     }
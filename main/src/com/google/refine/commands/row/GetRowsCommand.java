@@ -48,6 +48,7 @@ import com.fasterxml.jackson.annotation.JsonUnwrapped;
 
 import com.google.refine.browsing.Engine;
 import com.google.refine.browsing.Engine.Mode;
+import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.FilteredRecords;
 import com.google.refine.browsing.FilteredRows;
 import com.google.refine.browsing.RecordVisitor;
@@ -59,6 +60,8 @@ import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
 import com.google.refine.model.Record;
 import com.google.refine.model.Row;
+import com.google.refine.sorting.SortedIndexCache;
+import com.google.refine.sorting.SortedIndexCache.SortedIndices;
 import com.google.refine.sorting.SortingConfig;
 import com.google.refine.sorting.SortingRecordVisitor;
 import com.google.refine.sorting.SortingRowVisitor;
@@ -73,6 +76,11 @@ import com.google.refine.util.Pool;
  */
 public class GetRowsCommand extends Command {
 
+    /**
+     * Sorted views of projects, shared by all requests so that paging through a sorted view only sorts it once.
+     */
+    static final SortedIndexCache sortedIndexCache = new SortedIndexCache();
+
     protected static class WrappedRow {
 
         @JsonUnwrapped
@@ -205,7 +213,9 @@ public class GetRowsCommand extends Command {
                 project = getProject(request);
             }
 
-            Engine engine = getEngine(request, project);
+            // the engine configuration also identifies the sorted views in the cache
+            EngineConfig engineConfig = getEngineConfig(request);
+            Engine engine = getEngine(engineConfig, project);
 
             int start = getIntegerParameter(request, "start", -1);
             int end = getIntegerParameter(request, "end", -1);
@@ -231,7 +241,29 @@ public class GetRowsCommand extends Command {
                 return;
             }
 
-            if (engine.getMode() == Mode.RowBased) {
+            // the rows of importing jobs are not versioned by the history, so their sorted views cannot be cached
+            boolean useSortCache = importingJobID == null && sortingConfig != null
+                    && sortingConfig.getCriteria() != null && sortingConfig.getCriteria().length > 0;
+
+            if (useSortCache && engine.getMode() == Mode.RowBased) {
+                SortedIndices sorted = sortedIndexCache.getSortedRows(project, engineConfig,
+                        engine.getAllFilteredRows(), sortingConfig);
+                int[] page = sorted.getPage(start, end, limit);
+                for (int k = page[0]; k < page[1]; k++) {
+                    int rowIndex = sorted.indices[k];
+                    rwv.visit(project, rowIndex, k, project.rows.get(rowIndex));
+                }
+                rwv.total = sorted.size();
+            } else if (useSortCache) {
+                SortedIndices sorted = sortedIndexCache.getSortedRecords(project, engineConfig,
+                        engine.getFilteredRecords(), sortingConfig);
+                int[] page = sorted.getPage(start, end, limit);
+                for (int k = page[0]; k < page[1]; k++) {
+                    Record record = project.recordModel.getRecord(sorted.indices[k]);
+                    rwv.visit(project, sorted.paginationIndices[k], record);
+                }
+                rwv.total = sorted.size();
+            } else if (engine.getMode() == Mode.RowBased) {
                 FilteredRows filteredRows = engine.getAllFilteredRows();
                 RowVisitor visitor = rwv;
 
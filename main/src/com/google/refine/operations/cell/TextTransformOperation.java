@@ -47,6 +47,7 @@ import com.google.refine.browsing.EngineConfig;
 import com.google.refine.browsing.RowVisitor;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.MemoizedEvaluable;
 import com.google.refine.expr.MetaParser;
 import com.google.refine.expr.ParsingException;
 import com.google.refine.expr.WrappedCell;
@@ -59,6 +60,7 @@ import com.google.refine.model.changes.CellChange;
 import com.google.refine.operations.EngineDependentMassCellOperation;
 import com.google.refine.operations.OnError;
 import com.google.refine.operations.OperationDescription;
+import com.google.refine.operations.ParallelRowEvaluator;
 
 public class TextTransformOperation extends EngineDependentMassCellOperation {
 
@@ -162,11 +164,35 @@ public class TextTransformOperation extends EngineDependentMassCellOperation {
                 _repeatCount);
     }
 
+    @Override
+    protected boolean canVisitRowsConcurrently(Project project) {
+        try {
+            return ParallelRowEvaluator.canEvaluateConcurrently(MetaParser.parse(_expression));
+        } catch (ParsingException e) {
+            return false;
+        }
+    }
+
+    @Override
+    protected ParallelRowEvaluator.VisitorFactory<CellChange> createRowVisitorFactory(Project project, long historyEntryID) {
+        // the chunks share the results of the expression
+        Evaluable eval;
+        try {
+            eval = MemoizedEvaluable.wrap(MetaParser.parse(_expression));
+        } catch (ParsingException e) {
+            return changes -> createRowVisitor(project, changes, historyEntryID);
+        }
+        return changes -> createRowVisitor(project, changes, eval);
+    }
+
     @Override
     protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception {
+        return createRowVisitor(project, cellChanges, MemoizedEvaluable.wrap(MetaParser.parse(_expression)));
+    }
+
+    private RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, Evaluable eval) {
         Column column = project.columnModel.getColumnByName(_columnName);
 
-        Evaluable eval = MetaParser.parse(_expression);
         Properties bindings = ExpressionUtils.createBindings(project);
 
         return new RowVisitor() {
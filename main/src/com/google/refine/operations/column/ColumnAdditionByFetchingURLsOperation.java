@@ -43,9 +43,15 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
@@ -77,7 +83,10 @@ import com.google.refine.operations.OnError;
 import com.google.refine.operations.OperationDescription;
 import com.google.refine.process.LongRunningProcess;
 import com.google.refine.process.Process;
+import com.google.refine.process.ProcessExecutor;
+import com.google.refine.process.ProcessExecutor.Priority;
 import com.google.refine.util.HttpClient;
+import com.google.refine.util.HttpResponseCache;
 
 public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperation {
 
@@ -104,11 +113,32 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
     final protected String _newColumnName;
     final protected int _columnInsertIndex;
     final protected int _delay;
+    final protected int _concurrency;
     final protected boolean _cacheResponses;
     final protected List<HttpHeader> _httpHeadersJson;
     private Header[] httpHeaders = new Header[0];
     private HttpClient _httpClient;
 
+    public ColumnAdditionByFetchingURLsOperation(
+            EngineConfig engineConfig,
+            String baseColumnName,
+            String urlExpression,
+            OnError onError,
+            String newColumnName,
+            int columnInsertIndex,
+            int delay,
+            boolean cacheResponses,
+            List<HttpHeader> httpHeadersJson) {
+        this(engineConfig, baseColumnName, urlExpression, onError, newColumnName, columnInsertIndex, delay, 0,
+                cacheResponses, httpHeadersJson);
+    }
+
+    /**
+     * @param delay
+     *            minimum delay between the start of two requests to the same host, in milliseconds
+     * @param concurrency
+     *            maximum number of requests in flight at the same time, or 0 to fetch URLs one after the other
+     */
     @JsonCreator
     public ColumnAdditionByFetchingURLsOperation(
             @JsonProperty("engineConfig") EngineConfig engineConfig,
@@ -118,6 +148,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             @JsonProperty("newColumnName") String newColumnName,
             @JsonProperty("columnInsertIndex") int columnInsertIndex,
             @JsonProperty("delay") int delay,
+            @JsonProperty("concurrency") int concurrency,
             @JsonProperty("cacheResponses") boolean cacheResponses,
             @JsonProperty("httpHeadersJson") List<HttpHeader> httpHeadersJson) {
         super(engineConfig);
@@ -130,6 +161,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         _columnInsertIndex = columnInsertIndex;
 
         _delay = delay;
+        _concurrency = concurrency;
         _cacheResponses = cacheResponses;
         _httpHeadersJson = httpHeadersJson;
 
@@ -143,7 +175,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             }
         }
         httpHeaders = headers.toArray(httpHeaders);
-        _httpClient = new HttpClient(_delay);
+        _httpClient = new HttpClient(_delay, Math.max(_delay, 200), effectiveConcurrency(concurrency));
 
     }
 
@@ -160,6 +192,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         Validate.notNull(_onError, "Missing 'on error' behaviour");
         Validate.notNull(_newColumnName, "Missing new column name");
         Validate.isTrue(_columnInsertIndex >= 0, "Invalid column insert index");
+        Validate.isTrue(_concurrency >= 0, "Invalid concurrency");
     }
 
     @JsonProperty("newColumnName")
@@ -192,6 +225,20 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         return _delay;
     }
 
+    @JsonProperty("concurrency")
+    @JsonInclude(Include.NON_DEFAULT)
+    public int getConcurrency() {
+        return _concurrency;
+    }
+
+    protected int getEffectiveConcurrency() {
+        return effectiveConcurrency(_concurrency);
+    }
+
+    private static int effectiveConcurrency(int concurrency) {
+        return Math.max(1, concurrency);
+    }
+
     @JsonProperty("httpHeadersJson")
     public List<HttpHeader> getHttpHeadersJson() {
         return _httpHeadersJson;
@@ -246,6 +293,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
                 newColumnNames.getOrDefault(_newColumnName, _newColumnName),
                 _columnInsertIndex,
                 _delay,
+                _concurrency,
                 _cacheResponses,
                 _httpHeadersJson);
     }
@@ -273,6 +321,7 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         final protected long _historyEntryID;
         protected int _cellIndex;
         protected LoadingCache<String, Serializable> _urlCache;
+        protected HttpResponseCache _responseCache;
 
         public ColumnAdditionByFetchingURLsProcess(
                 Project project,
@@ -286,7 +335,10 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             _eval = eval;
             _historyEntryID = HistoryEntry.allocateID();
             _urlCache = null;
+            _responseCache = null;
             if (cacheResponses) {
+                // if enabled, successful responses are also kept in the workspace, for other operations and later runs
+                _responseCache = HttpResponseCache.getWorkspaceCache();
                 _urlCache = CacheBuilder.newBuilder()
                         .maximumSize(2048)
                         .expireAfterWrite(10, TimeUnit.MINUTES)
@@ -328,34 +380,30 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             filteredRows.accept(_project, createRowVisitor(urls));
 
             int count = urls.size();
-            List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(count);
-            int i = 0;
-            for (CellAtRow urlData : urls) {
-                String urlString = urlData.cell.value.toString();
-
-                Serializable response = null;
-                if (_urlCache != null) {
-                    response = cachedFetch(urlString);
-                } else {
-                    response = fetch(urlString, httpHeaders);
-                }
-
-                if (response != null) {
-                    CellAtRow cellAtRow = new CellAtRow(
-                            urlData.row,
-                            new Cell(response, null));
-
-                    responseBodies.add(cellAtRow);
-                }
+            Serializable[] responses = new Serializable[count];
+            if (getEffectiveConcurrency() > 1) {
+                fetchConcurrently(urls, responses);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    responses[i] = fetch(urls.get(i));
 
-                _progress = i++ * 100 / count;
+                    _progress = i * 100 / count;
 
-                if (_canceled) {
-                    break;
+                    if (_canceled) {
+                        break;
+                    }
                 }
             }
 
             if (!_canceled) {
+                // responses are collected in row order, whatever the order they were received in
+                List<CellAtRow> responseBodies = new ArrayList<CellAtRow>(count);
+                for (int i = 0; i < count; i++) {
+                    if (responses[i] != null) {
+                        responseBodies.add(new CellAtRow(urls.get(i).row, new Cell(responses[i], null)));
+                    }
+                }
+
                 HistoryEntry historyEntry = new HistoryEntry(
                         _historyEntryID,
                         _project,
@@ -371,6 +419,63 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
             }
         }
 
+        /**
+         * Fetches the URLs on the workers shared by all processes to send requests, keeping at most
+         * {@link #getEffectiveConcurrency()} requests in flight. As many workers are reserved for the process, so that
+         * it is not limited by the size of the pool or by other processes fetching URLs. Returns early if the process
+         * is canceled.
+         */
+        void fetchConcurrently(List<CellAtRow> urls, Serializable[] responses) {
+            int count = urls.size();
+            AtomicInteger next = new AtomicInteger();
+            AtomicInteger fetched = new AtomicInteger();
+            Runnable worker = () -> {
+                int index;
+                while (!_canceled && (index = next.getAndIncrement()) < count) {
+                    responses[index] = fetch(urls.get(index));
+                    _progress = fetched.incrementAndGet() * 100 / count;
+                }
+            };
+            ProcessExecutor executor = ProcessExecutor.getDefault();
+            int workerCount = Math.min(getEffectiveConcurrency(), count);
+            List<Future<?>> workers = new ArrayList<>();
+            executor.reserveThreads(Priority.FETCH, workerCount);
+            try {
+                for (int i = 0; i < workerCount; i++) {
+                    workers.add(executor.submit(worker, Priority.FETCH));
+                }
+                for (Future<?> future : workers) {
+                    while (!_canceled) {
+                        try {
+                            future.get(100, TimeUnit.MILLISECONDS);
+                            break;
+                        } catch (TimeoutException e) {
+                            // checks whether the process was canceled
+                        } catch (ExecutionException e) {
+                            // already logged by the executor, the other workers fetch the remaining URLs
+                            break;
+                        }
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                _canceled = true;
+            } finally {
+                // abandons the requests in flight if the process was canceled
+                workers.forEach(future -> future.cancel(true));
+                executor.releaseThreads(Priority.FETCH, workerCount);
+            }
+        }
+
+        Serializable fetch(CellAtRow urlData) {
+            String urlString = urlData.cell.value.toString();
+            if (_urlCache != null) {
+                return cachedFetch(urlString);
+            } else {
+                return fetch(urlString, httpHeaders);
+            }
+        }
+
         Serializable cachedFetch(String urlString) {
             try {
                 return _urlCache.get(urlString);
@@ -382,6 +487,9 @@ public class ColumnAdditionByFetchingURLsOperation extends EngineDependentOperat
         Serializable fetch(String urlString, Header[] headers) {
             try { // HttpClients.createDefault()) {
                 try {
+                    if (_responseCache != null) {
+                        return _responseCache.getAsString(_httpClient, urlString, headers);
+                    }
                     return _httpClient.getAsString(urlString, headers);
                 } catch (IOException e) {
                     return _onError == OnError.StoreError ? new EvalError(e) : null;
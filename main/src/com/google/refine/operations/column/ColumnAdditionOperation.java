@@ -67,6 +67,7 @@ import com.google.refine.model.changes.ColumnAdditionChange;
 import com.google.refine.operations.EngineDependentOperation;
 import com.google.refine.operations.OnError;
 import com.google.refine.operations.OperationDescription;
+import com.google.refine.operations.ParallelRowEvaluator;
 
 public class ColumnAdditionOperation extends EngineDependentOperation {
 
@@ -192,8 +193,13 @@ public class ColumnAdditionOperation extends EngineDependentOperation {
 
         List<CellAtRow> cellsAtRows = new ArrayList<CellAtRow>(project.rows.size());
 
+        Evaluable eval = MetaParser.parse(_expression);
         FilteredRows filteredRows = engine.getAllFilteredRows();
-        filteredRows.accept(project, createRowVisitor(project, cellsAtRows));
+        if (ParallelRowEvaluator.isEnabled() && ParallelRowEvaluator.canEvaluateConcurrently(eval)) {
+            cellsAtRows.addAll(ParallelRowEvaluator.visit(project, filteredRows, cells -> createRowVisitor(project, cells, eval)));
+        } else {
+            filteredRows.accept(project, createRowVisitor(project, cellsAtRows, eval));
+        }
 
         String description = createDescription(column, cellsAtRows);
 
@@ -203,10 +209,9 @@ public class ColumnAdditionOperation extends EngineDependentOperation {
                 historyEntryID, project, description, this, change);
     }
 
-    protected RowVisitor createRowVisitor(Project project, List<CellAtRow> cellsAtRows) throws Exception {
+    protected RowVisitor createRowVisitor(Project project, List<CellAtRow> cellsAtRows, Evaluable eval) {
         Column column = project.columnModel.getColumnByName(_baseColumnName);
 
-        Evaluable eval = MetaParser.parse(_expression);
         Properties bindings = ExpressionUtils.createBindings(project);
 
         return new RowVisitor() {
@@ -47,6 +47,10 @@ import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import com.google.refine.browsing.Engine;
 import com.google.refine.browsing.EngineConfig;
@@ -62,6 +66,7 @@ import com.google.refine.model.ReconType;
 import com.google.refine.model.Row;
 import com.google.refine.model.changes.CellAtRow;
 import com.google.refine.model.changes.DataExtensionChange;
+import com.google.refine.model.recon.ReconCheckpoint;
 import com.google.refine.model.recon.ReconciledDataExtensionJob;
 import com.google.refine.model.recon.ReconciledDataExtensionJob.ColumnInfo;
 import com.google.refine.model.recon.ReconciledDataExtensionJob.DataExtension;
@@ -70,6 +75,7 @@ import com.google.refine.operations.EngineDependentOperation;
 import com.google.refine.operations.OperationDescription;
 import com.google.refine.process.LongRunningProcess;
 import com.google.refine.process.Process;
+import com.google.refine.util.ParsingUtilities;
 
 public class ExtendDataOperation extends EngineDependentOperation {
 
@@ -193,6 +199,10 @@ public class ExtendDataOperation extends EngineDependentOperation {
         final protected long _historyEntryID;
         protected int _cellIndex;
         protected ReconciledDataExtensionJob _job;
+        protected ReconCheckpoint _checkpoint;
+        // entities whose data was restored from the checkpoint
+        protected Set<String> _restoredIds = Set.of();
+        protected Map<String, DataExtension> _restored = Map.of();
 
         public ExtendDataProcess(
                 Project project,
@@ -268,14 +278,21 @@ public class ExtendDataOperation extends EngineDependentOperation {
                 Row row = _project.rows.get(index);
                 Cell cell = row.getCell(_cellIndex);
 
-                ids.add(cell.recon.match.id);
+                // entities restored from the checkpoint are not fetched again
+                if (!_restoredIds.contains(cell.recon.match.id)) {
+                    ids.add(cell.recon.match.id);
+                }
             }
 
-            Map<String, DataExtension> map = null;
-            try {
-                map = _job.extend(ids, reconCandidateMap);
-            } catch (Exception e) {
-                map = new HashMap<String, DataExtension>();
+            Map<String, DataExtension> map = new HashMap<String, DataExtension>();
+            if (!ids.isEmpty()) {
+                try {
+                    ObjectNode response = _job.fetch(ids);
+                    map = _job.collectResults(response, ids, reconCandidateMap);
+                    saveCheckpoint(response, ids);
+                } catch (Exception e) {
+                    map = new HashMap<String, DataExtension>();
+                }
             }
 
             for (int i = from; i < end; i++) {
@@ -287,13 +304,56 @@ public class ExtendDataOperation extends EngineDependentOperation {
                 if (map.containsKey(guid)) {
                     dataExtensions.add(map.get(guid));
                 } else {
-                    dataExtensions.add(null);
+                    dataExtensions.add(_restored.get(guid));
                 }
             }
 
             return end;
         }
 
+        /**
+         * Reads the results of a previous, interrupted run of the same operation.
+         */
+        protected void restoreCheckpoint(Map<String, ReconCandidate> reconCandidateMap) {
+            if (!ReconCheckpoint.isAvailable()) {
+                return;
+            }
+            try {
+                _checkpoint = ReconCheckpoint.open(_project, "extend " + _endpoint + " " + _identifierSpace + " "
+                        + ParsingUtilities.mapper.writeValueAsString(_extension));
+            } catch (JsonProcessingException e) {
+                return;
+            }
+            if (_checkpoint == null || _checkpoint.getMetadata() == null) {
+                return;
+            }
+            _job.setColumnMetadata(_checkpoint.getMetadata());
+            ObjectNode response = ParsingUtilities.mapper.createObjectNode();
+            ObjectNode records = response.putObject("rows");
+            for (Map.Entry<String, JsonNode> entry : _checkpoint.getEntries().entrySet()) {
+                records.set(entry.getKey(), entry.getValue());
+            }
+            _restoredIds = _checkpoint.getEntries().keySet();
+            _restored = _job.collectResults(response, _restoredIds, reconCandidateMap);
+        }
+
+        protected void saveCheckpoint(ObjectNode response, Set<String> ids) {
+            if (_checkpoint == null) {
+                return;
+            }
+            if (_checkpoint.getMetadata() == null) {
+                _checkpoint.setMetadata(response.get("meta"));
+            }
+            JsonNode records = response.get("rows");
+            Map<String, JsonNode> entries = new HashMap<>();
+            for (String id : ids) {
+                JsonNode record = records == null ? null : records.get(id);
+                // entities without data are saved as well, so that they are not fetched again
+                entries.put(id, record instanceof ObjectNode ? record : NullNode.getInstance());
+            }
+            _checkpoint.addEntries(entries);
+        }
+
         @Override
         public void run() {
             List<Integer> rowIndices = new ArrayList<Integer>();
@@ -308,19 +368,27 @@ public class ExtendDataOperation extends EngineDependentOperation {
 
             int start = 0;
             Map<String, ReconCandidate> reconCandidateMap = new HashMap<String, ReconCandidate>();
+            restoreCheckpoint(reconCandidateMap);
 
-            while (start < rowIndices.size()) {
-                int end = extendRows(rowIndices, dataExtensions, start, rowIndices.size(), reconCandidateMap);
-                start = end;
-
-                _progress = end * 100 / rowIndices.size();
-                try {
-                    Thread.sleep(200);
-                } catch (InterruptedException e) {
-                    if (_canceled) {
-                        break;
+            try {
+                while (start < rowIndices.size()) {
+                    int end = extendRows(rowIndices, dataExtensions, start, rowIndices.size(), reconCandidateMap);
+                    start = end;
+
+                    _progress = end * 100 / rowIndices.size();
+                    try {
+                        Thread.sleep(200);
+                    } catch (InterruptedException e) {
+                        if (_canceled) {
+                            break;
+                        }
                     }
                 }
+            } finally {
+                if (_checkpoint != null) {
+                    // partial results are kept when canceled, and reused if the operation is run again
+                    _checkpoint.close();
+                }
             }
 
             if (!_canceled) {
@@ -355,6 +423,9 @@ public class ExtendDataOperation extends EngineDependentOperation {
                                 _historyEntryID));
 
                 _project.history.addEntry(historyEntry);
+                if (_checkpoint != null) {
+                    _checkpoint.delete();
+                }
                 _project.processManager.onDoneProcess(this);
             }
         }
@@ -42,9 +42,11 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,9 +64,12 @@ import com.google.refine.model.Column;
 import com.google.refine.model.ColumnsDiff;
 import com.google.refine.model.Project;
 import com.google.refine.model.Recon;
+import com.google.refine.model.Recon.Judgment;
 import com.google.refine.model.Row;
 import com.google.refine.model.changes.CellChange;
 import com.google.refine.model.changes.ReconChange;
+import com.google.refine.model.recon.PipelinedBatchExecutor;
+import com.google.refine.model.recon.ReconCheckpoint;
 import com.google.refine.model.recon.ReconConfig;
 import com.google.refine.model.recon.ReconJob;
 import com.google.refine.model.recon.StandardReconConfig;
@@ -159,6 +164,13 @@ public class ReconOperation extends EngineDependentOperation {
         }
     }
 
+    /**
+     * A batch is considered failed, and the service overloaded, when none of its queries could be reconciled.
+     */
+    static boolean isFailedBatch(List<Recon> recons) {
+        return !recons.isEmpty() && recons.stream().allMatch(recon -> recon != null && recon.judgment == Judgment.Error);
+    }
+
     public class ReconProcess extends LongRunningProcess implements Runnable {
 
         final protected Project _project;
@@ -289,70 +301,68 @@ public class ReconOperation extends EngineDependentOperation {
                 group.entries.add(entry);
             }
 
-            int batchSize = _reconConfig.getBatchSize(_project.rows.size());
-            int done = 0;
-
+            // results of a previous, interrupted run of the same operation
+            ReconCheckpoint checkpoint = openCheckpoint();
             List<CellChange> cellChanges = new ArrayList<CellChange>(_entries.size());
-            List<JobGroup> groups = new ArrayList<JobGroup>(jobKeyToGroup.values());
-
-            List<ReconJob> jobs = new ArrayList<ReconJob>(batchSize);
-            Map<ReconJob, JobGroup> jobToGroup = new HashMap<ReconJob, ReconOperation.JobGroup>();
-
-            for (int i = 0; i < groups.size(); /* don't increment here */) {
-                while (jobs.size() < batchSize && i < groups.size()) {
-                    JobGroup group = groups.get(i++);
-
-                    jobs.add(group.job);
-                    jobToGroup.put(group.job, group);
+            List<JobGroup> groups = new ArrayList<JobGroup>(jobKeyToGroup.size());
+            int[] done = { 0 };
+            for (JobGroup group : jobKeyToGroup.values()) {
+                JsonNode saved = checkpoint == null ? null : checkpoint.getEntries().get(group.job.getStringKey());
+                if (saved != null) {
+                    try {
+                        addCellChanges(cellChanges, group, Recon.loadStreaming(saved.toString()).dup(_historyEntryID));
+                        done[0]++;
+                        continue;
+                    } catch (IOException e) {
+                        logger.warn("Could not restore reconciliation result from checkpoint", e);
+                    }
                 }
+                groups.add(group);
+            }
+            int total = done[0] + groups.size();
 
-                List<Recon> recons = _reconConfig.batchRecon(jobs, _historyEntryID);
-                for (int j = jobs.size() - 1; j >= 0; j--) {
-                    ReconJob job = jobs.get(j);
-                    Recon recon = j < recons.size() ? recons.get(j) : null;
-                    JobGroup group = jobToGroup.get(job);
-                    List<ReconEntry> entries = group.entries;
-
-                    jobToGroup.remove(job);
-                    jobs.remove(j);
-                    done++;
-
-                    if (recon != null) {
-                        recon.judgmentBatchSize = entries.size();
-                    }
+            int batchSize = _reconConfig.getBatchSize(_project.rows.size());
+            List<List<JobGroup>> batches = new ArrayList<>();
+            for (int i = 0; i < groups.size(); i += batchSize) {
+                batches.add(groups.subList(i, Math.min(groups.size(), i + batchSize)));
+            }
 
-                    for (ReconEntry entry : entries) {
-                        if (recon == null) {
-                            // TODO add EvalError instead? That is not so convenient
-                            // for users because they would lose the cell contents.
-                            // Better leave the cell unreconciled so they can be reconciled again later.
-                            Cell oldCell = entry.cell;
-                            logger.warn("We have a null recon here" + " " + oldCell + " " + entry.rowIndex);
-                            continue;
+            PipelinedBatchExecutor<List<JobGroup>, List<Recon>> executor = new PipelinedBatchExecutor<>(
+                    _reconConfig.getMaxConcurrentBatches(),
+                    batch -> _reconConfig.batchRecon(batch.stream().map(group -> group.job).collect(Collectors.toList()),
+                            _historyEntryID),
+                    ReconOperation::isFailedBatch);
+            try {
+                executor.setSequentialPause(50).run(batches.iterator(), (batch, recons) -> {
+                    Map<String, JsonNode> completed = new HashMap<>();
+                    for (int j = 0; j < batch.size(); j++) {
+                        Recon recon = j < recons.size() ? recons.get(j) : null;
+                        JobGroup group = batch.get(j);
+                        done[0]++;
+
+                        addCellChanges(cellChanges, group, recon);
+                        // errors are not saved, so that they are retried when resuming
+                        if (checkpoint != null && recon != null && recon.judgment != Judgment.Error) {
+                            try {
+                                completed.put(group.job.getStringKey(),
+                                        ParsingUtilities.mapper.readTree(ParsingUtilities.saveWriter.writeValueAsString(recon)));
+                            } catch (JsonProcessingException e) {
+                                logger.warn("Could not save reconciliation result to checkpoint", e);
+                            }
                         }
-                        Cell oldCell = entry.cell;
-                        Cell newCell = new Cell(oldCell.value, recon);
-
-                        CellChange cellChange = new CellChange(
-                                entry.rowIndex,
-                                _cellIndex,
-                                oldCell,
-                                newCell);
-                        cellChanges.add(cellChange);
                     }
-                }
-
-                _progress = done * 100 / groups.size();
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    if (_canceled) {
-                        break;
+                    if (checkpoint != null) {
+                        checkpoint.addEntries(completed);
                     }
+                    _progress = done[0] * 100 / total;
+                }, () -> _canceled);
+            } finally {
+                if (checkpoint != null) {
+                    checkpoint.close();
                 }
             }
 
-            // TODO: Option to keep partial results after cancellation?
+            // partial results are kept in the checkpoint when canceled, and reused if the operation is run again
             if (!_canceled) {
                 Change reconChange = new ReconChange(
                         cellChanges,
@@ -368,8 +378,49 @@ public class ReconOperation extends EngineDependentOperation {
                         reconChange);
 
                 _project.history.addEntry(historyEntry);
+                if (checkpoint != null) {
+                    checkpoint.delete();
+                }
                 _project.processManager.onDoneProcess(this);
             }
         }
+
+        protected ReconCheckpoint openCheckpoint() {
+            if (!ReconCheckpoint.isAvailable()) {
+                return null;
+            }
+            try {
+                return ReconCheckpoint.open(_project, "recon " + ParsingUtilities.mapper.writeValueAsString(_reconConfig));
+            } catch (JsonProcessingException e) {
+                return null;
+            }
+        }
+
+        private void addCellChanges(List<CellChange> cellChanges, JobGroup group, Recon recon) {
+            List<ReconEntry> entries = group.entries;
+            if (recon != null) {
+                recon.judgmentBatchSize = entries.size();
+            }
+
+            for (ReconEntry entry : entries) {
+                if (recon == null) {
+                    // TODO add EvalError instead? That is not so convenient
+                    // for users because they would lose the cell contents.
+                    // Better leave the cell unreconciled so they can be reconciled again later.
+                    Cell oldCell = entry.cell;
+                    logger.warn("We have a null recon here" + " " + oldCell + " " + entry.rowIndex);
+                    continue;
+                }
+                Cell oldCell = entry.cell;
+                Cell newCell = new Cell(oldCell.value, recon);
+
+                CellChange cellChange = new CellChange(
+                        entry.rowIndex,
+                        _cellIndex,
+                        oldCell,
+                        newCell);
+                cellChanges.add(cellChange);
+            }
+        }
     }
 }
@@ -29,6 +29,7 @@ package com.google.refine.commands.row;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
+import static org.testng.Assert.assertEquals;
 
 import java.io.IOException;
 import java.io.PrintWriter;
@@ -43,10 +44,14 @@ import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.refine.RefineTest;
+import com.google.refine.browsing.EngineConfig;
 import com.google.refine.commands.Command;
 import com.google.refine.expr.MetaParser;
 import com.google.refine.grel.Parser;
 import com.google.refine.model.Project;
+import com.google.refine.operations.OnError;
+import com.google.refine.operations.cell.TextTransformOperation;
+import com.google.refine.util.ParsingUtilities;
 import com.google.refine.util.TestUtils;
 
 public class GetRowsCommandTest extends RefineTest {
@@ -660,4 +665,22 @@ public class GetRowsCommandTest extends RefineTest {
         command.doPost(request, response);
         TestUtils.assertEqualsAsJson(writer.toString(), recordJson);
     }
+
+    @Test
+    public void testSortedRowsAfterOperation() throws Exception {
+        when(request.getParameter("engine")).thenReturn("{\"mode\":\"row-based\",\"facets\":[]}");
+        when(request.getParameter("start")).thenReturn("0");
+        when(request.getParameter("limit")).thenReturn("1");
+        when(request.getParameter("sorting")).thenReturn(sortingConfigJson);
+        command.doPost(request, response);
+        assertEquals(ParsingUtilities.mapper.readTree(writer.toString()).get("rows").get(0).get("i").asInt(), 4);
+
+        runOperation(new TextTransformOperation(EngineConfig.defaultRowBased(), "bar",
+                "if(value == \"b\", \"z\", value)", OnError.KeepOriginal, false, 0), project);
+
+        writer = new StringWriter();
+        when(response.getWriter()).thenReturn(new PrintWriter(writer));
+        command.doPost(request, response);
+        assertEquals(ParsingUtilities.mapper.readTree(writer.toString()).get("rows").get(0).get("i").asInt(), 0);
+    }
 }
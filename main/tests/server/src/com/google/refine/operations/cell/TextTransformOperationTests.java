@@ -262,4 +262,29 @@ public class TextTransformOperationTests extends RefineTest {
         assertProjectEquals(project, expected);
     }
 
+    @Test
+    public void testTransformInParallel() throws Exception {
+        int rowCount = 10_000;
+        Serializable[][] grid = new Serializable[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            grid[i] = new Serializable[] { "v" + i, i % 2 == 0 ? "a" : "b" };
+        }
+        Project largeProject = createProject(new String[] { "foo", "bar" }, grid);
+        EngineConfig engineConfig = EngineConfig.deserialize(
+                "{\"mode\":\"row-based\",\"facets\":[{\"type\":\"list\",\"name\":\"bar\",\"columnName\":\"bar\","
+                        + "\"expression\":\"value\",\"omitBlank\":false,\"omitError\":false,\"selectBlank\":false,"
+                        + "\"selectError\":false,\"invert\":false,\"selection\":[{\"v\":{\"v\":\"a\",\"l\":\"a\"}}]}]}");
+        TextTransformOperation operation = new TextTransformOperation(
+                engineConfig,
+                "foo",
+                "grel:value + '_' + row.index",
+                OnError.SetToBlank,
+                false, 0);
+
+        runOperation(operation, largeProject);
+
+        for (int i = 0; i < rowCount; i++) {
+            assertEquals(largeProject.rows.get(i).getCellValue(0), i % 2 == 0 ? "v" + i + "_" + i : "v" + i);
+        }
+    }
 }
@@ -45,8 +45,10 @@ import java.util.Properties;
 import java.util.Random;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.fasterxml.jackson.databind.node.TextNode;
+import mockwebserver3.Dispatcher;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
 import mockwebserver3.RecordedRequest;
@@ -144,6 +146,15 @@ public class ColumnAdditionByFetchingURLsOperationTests extends RefineTest {
         TestUtils.isSerializedTo(ParsingUtilities.mapper.readValue(json, ColumnAdditionByFetchingURLsOperation.class), json);
     }
 
+    @Test
+    public void serializeWithConcurrency() throws Exception {
+        String concurrentJson = json.replace("\"delay\":500,", "\"delay\":500,\"concurrency\":8,");
+        ColumnAdditionByFetchingURLsOperation op = ParsingUtilities.mapper.readValue(concurrentJson,
+                ColumnAdditionByFetchingURLsOperation.class);
+        assertEquals(op.getConcurrency(), 8);
+        TestUtils.isSerializedTo(op, concurrentJson);
+    }
+
     @Test
     public void serializeUrlFetchingProcess() throws Exception {
         AbstractOperation op = ParsingUtilities.mapper.readValue(json, ColumnAdditionByFetchingURLsOperation.class);
@@ -256,6 +267,56 @@ public class ColumnAdditionByFetchingURLsOperationTests extends RefineTest {
         }
     }
 
+    @Test
+    public void testConcurrentFetchingPreservesRowOrder() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    Thread.sleep(20);
+                    inFlight.decrementAndGet();
+                    return new MockResponse.Builder().body("fetched " + request.getUrl().queryParameter("city")).build();
+                }
+            });
+            server.start();
+            HttpUrl url = server.url("/echo");
+
+            for (int i = 0; i < 40; i++) {
+                Row row = new Row(2);
+                row.setCell(0, i % 7 == 0 ? null : new Cell("city" + i, null));
+                project.rows.add(row);
+            }
+
+            EngineDependentOperation op = new ColumnAdditionByFetchingURLsOperation(engine_config,
+                    "fruits",
+                    "\"" + url + "?city=\"+value",
+                    OnError.StoreError,
+                    "fetched",
+                    1,
+                    0,
+                    4,
+                    false,
+                    null);
+
+            runOperation(op, project, 5000);
+
+            int newCol = project.columnModel.getColumnByName("fetched").getCellIndex();
+            for (int i = 0; i < 40; i++) {
+                if (i % 7 == 0) {
+                    Assert.assertNull(project.rows.get(i).getCell(newCol));
+                } else {
+                    assertEquals(project.rows.get(i).getCellValue(newCol), "fetched city" + i);
+                }
+            }
+            assertTrue(maxInFlight.get() > 1, "requests were not sent concurrently");
+            assertTrue(maxInFlight.get() <= 4, "too many requests in flight: " + maxInFlight.get());
+        }
+    }
+
     /**
      * Fetch invalid URLs https://github.com/OpenRefine/OpenRefine/issues/1219
      */
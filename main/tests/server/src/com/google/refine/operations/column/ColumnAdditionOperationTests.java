@@ -33,6 +33,7 @@ import static org.testng.Assert.assertThrows;
 import java.io.Serializable;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
 
 import com.fasterxml.jackson.databind.node.TextNode;
@@ -309,7 +310,8 @@ public class ColumnAdditionOperationTests extends RefineTest {
                 OnError.SetToBlank,
                 "newcolumn",
                 2);
-        assertEquals(operation.getColumnDependencies().get(), Set.of("bar"));
+        // facetCount reads the whole column, whatever the rows it is evaluated on
+        assertEquals(operation.getColumnDependencies(), Optional.empty());
         assertEquals(operation.getColumnsDiff().get(), ColumnsDiff.builder().addColumn("newcolumn", "bar").build());
 
         runOperation(operation, project);
@@ -336,7 +338,7 @@ public class ColumnAdditionOperationTests extends RefineTest {
                 OnError.SetToBlank,
                 "newcolumn",
                 2);
-        assertEquals(operation.getColumnDependencies().get(), Set.of("bar"));
+        assertEquals(operation.getColumnDependencies(), Optional.empty());
         assertEquals(operation.getColumnsDiff().get(), ColumnsDiff.builder().addColumn("newcolumn", "bar").build());
 
         runOperation(operation, project);
@@ -369,8 +371,7 @@ public class ColumnAdditionOperationTests extends RefineTest {
                 OnError.SetToBlank,
                 "newcolumn",
                 2);
-        assertEquals(operation.getColumnDependencies().get(), Set.of("bar"));
-        assertEquals(operation.getColumnsDiff().get(), ColumnsDiff.builder().addColumn("newcolumn", "bar").build());
+        assertEquals(operation.getColumnDependencies(), Optional.empty());
 
         runOperation(operation, project);
 
@@ -386,4 +387,27 @@ public class ColumnAdditionOperationTests extends RefineTest {
                 });
         assertProjectEquals(project, expected);
     }
+
+    @Test
+    public void testAddColumnInParallel() throws Exception {
+        int rowCount = 10_000;
+        Serializable[][] grid = new Serializable[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            grid[i] = new Serializable[] { i % 3 == 0 ? null : "v" + i };
+        }
+        Project largeProject = createProject(new String[] { "foo" }, grid);
+        ColumnAdditionOperation operation = new ColumnAdditionOperation(
+                EngineConfig.defaultRowBased(),
+                "foo",
+                "grel:value + '_' + row.index",
+                OnError.SetToBlank,
+                "bar",
+                1);
+
+        runOperation(operation, largeProject);
+
+        for (int i = 0; i < rowCount; i++) {
+            assertEquals(largeProject.rows.get(i).getCellValue(1), i % 3 == 0 ? null : "v" + i + "_" + i);
+        }
+    }
 }
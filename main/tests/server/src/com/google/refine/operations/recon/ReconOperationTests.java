@@ -38,7 +38,10 @@ import static org.mockito.Mockito.withSettings;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertNotNull;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
+import java.net.URLDecoder;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
@@ -48,7 +51,10 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import mockwebserver3.Dispatcher;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
 import mockwebserver3.RecordedRequest;
@@ -62,6 +68,7 @@ import org.testng.annotations.Test;
 
 import com.google.refine.RefineTest;
 import com.google.refine.browsing.EngineConfig;
+import com.google.refine.io.FileProjectManager;
 import com.google.refine.messages.OpenRefineMessage;
 import com.google.refine.model.AbstractOperation;
 import com.google.refine.model.Cell;
@@ -309,6 +316,36 @@ public class ReconOperationTests extends RefineTest {
         assertProjectEquals(project, expected);
     }
 
+    @Test
+    public void testConcurrentBatches() throws Exception {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        doReturn(1).when(reconConfig).getBatchSize(anyInt());
+        doReturn(3).when(reconConfig).getMaxConcurrentBatches();
+        when(reconConfig.batchRecon(any(), anyLong())).thenAnswer(invocation -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            Thread.sleep(200);
+            inFlight.decrementAndGet();
+            ReconJob job = ((List<ReconJob>) invocation.getArgument(0)).get(0);
+            return List.of(job == job1 ? recon1 : job == job2 ? recon2 : recon3);
+        });
+        ReconOperation operation = new ReconOperation(EngineConfig.defaultRowBased(), "column", reconConfig);
+
+        runOperation(operation, project);
+
+        Project expected = createProject(
+                new String[] { "column" },
+                new Serializable[][] {
+                        { new Cell("value1", recon1) },
+                        { new Cell("value2", recon2) },
+                        { new Cell("value1", recon1) },
+                        { new Cell("value3", recon3) },
+                        { null }
+                });
+        assertProjectEquals(project, expected);
+        assertEquals(maxInFlight.get(), 3);
+    }
+
     @Test
     public void testFailingRecon() throws Exception {
         Project project = createProject("my recon test project",
@@ -517,4 +554,67 @@ public class ReconOperationTests extends RefineTest {
         }
     }
 
+    @Test
+    public void testResumeAfterCancellation() throws Exception {
+        // checkpoints are only stored in workspaces on disk
+        File workspace = TestUtils.createTempDirectory("openrefine-test-recon-checkpoint");
+        FileProjectManager.initialize(workspace);
+        Project project = createProject(
+                new String[] { "title" },
+                new Serializable[][] {
+                        { "a" },
+                        { "b" },
+                        { "c" }
+                });
+        AtomicReference<Process> running = new AtomicReference<>();
+
+        try (MockWebServer server = new MockWebServer()) {
+            server.setDispatcher(new Dispatcher() {
+
+                @Override
+                public MockResponse dispatch(RecordedRequest request) {
+                    String body = URLDecoder.decode(request.getBody().utf8().split("=")[1], StandardCharsets.UTF_8);
+                    String text;
+                    try {
+                        text = ParsingUtilities.mapper.readTree(body).get("q0").get("query").asText();
+                    } catch (IOException e) {
+                        throw new IllegalArgumentException(e);
+                    }
+                    if (server.getRequestCount() == 2) {
+                        running.get().cancel();
+                    }
+                    return new MockResponse.Builder().body("{\"q0\":{\"result\":[{\"id\":\"" + text + "\",\"name\":\""
+                            + text + "\",\"score\":100,\"match\":true}]}}").build();
+                }
+            });
+            server.start();
+            String configJson = "{\"mode\":\"standard-service\","
+                    + "\"service\":\"" + server.url("/api") + "\","
+                    + "\"identifierSpace\":\"http://www.wikidata.org/entity/\","
+                    + "\"schemaSpace\":\"http://www.wikidata.org/prop/direct/\","
+                    + "\"autoMatch\":true,\"batchSize\":1,\"columnDetails\":[]}";
+
+            // the first run is canceled after two batches
+            ReconOperation op = new ReconOperation(EngineConfig.defaultRowBased(), "title",
+                    StandardReconConfig.reconstruct(configJson));
+            Process process = op.createProcess(project, new Properties());
+            running.set(process);
+            ((Runnable) process).run();
+            assertEquals(server.getRequestCount(), 2);
+            Assert.assertNull(project.rows.get(0).getCell(0).recon);
+
+            // the second one only reconciles the remaining value
+            ReconOperation resumed = new ReconOperation(EngineConfig.defaultRowBased(), "title",
+                    StandardReconConfig.reconstruct(configJson));
+            runOperation(resumed, project);
+            assertEquals(server.getRequestCount(), 3);
+        }
+
+        for (int i = 0; i != 3; i++) {
+            Cell cell = project.rows.get(i).getCell(0);
+            assertEquals(cell.recon.judgment, Judgment.Matched);
+            assertEquals(cell.recon.match.id, cell.value);
+        }
+        Assert.assertEquals(new File(workspace, "cache/recon").listFiles().length, 0);
+    }
 }
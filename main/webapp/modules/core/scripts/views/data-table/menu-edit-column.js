@@ -118,6 +118,7 @@ DataTableColumnHeaderUI.extendMenu(function(column, columnHeaderUI, menu) {
     elmts.or_views_newCol.text($.i18n('core-views/new-col-name'));
     elmts.or_views_throttle.text($.i18n('core-views/throttle-delay'));
     elmts.or_views_milli.text($.i18n('core-views/milli'));
+    elmts.or_views_concurrency.text($.i18n('core-views/concurrent-requests'));
     elmts.or_views_onErr.text($.i18n('core-views/on-error'));
     elmts.or_views_setBlank.text($.i18n('core-views/set-blank'));
     elmts.or_views_storeErr.text($.i18n('core-views/store-err'));
@@ -153,6 +154,11 @@ DataTableColumnHeaderUI.extendMenu(function(column, columnHeaderUI, menu) {
         alert($.i18n('core-views/warning-throttle-delay-input'));
         return;
       }
+      let concurrency = Number.parseInt(elmts.concurrencyInput[0].value);
+      if (Number.isNaN(concurrency) || concurrency < 1) {
+        alert($.i18n('core-views/warning-concurrent-requests-input'));
+        return;
+      }
       Refine.postCoreProcess(
         "add-column-by-fetching-urls", 
         {
@@ -161,6 +167,7 @@ DataTableColumnHeaderUI.extendMenu(function(column, columnHeaderUI, menu) {
           newColumnName: columnName, 
           columnInsertIndex: columnIndex + 1,
           delay: delay,
+          concurrency: concurrency,
           onError: $('input[name="dialog-onerror-choice"]:checked')[0].value,
           cacheResponses: $('input[name="dialog-cache-responses"]')[0].checked,
           httpHeaders: JSON.stringify(elmts.setHttpHeadersContainer.find("input").serializeArray())
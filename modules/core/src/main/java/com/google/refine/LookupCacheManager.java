@@ -28,22 +28,33 @@
 package com.google.refine;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.common.collect.Maps;
+import com.google.common.primitives.Ints;
 
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.expr.HasFieldsListImpl;
 import com.google.refine.expr.WrappedRow;
+import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
+import com.google.refine.model.changes.CellChange;
 import com.google.refine.util.LookupException;
 
 /**
  * Manage the cache of project's lookups.
+ * <p>
+ * A lookup indexes the rows of a project by the values of one of its columns. It is computed the first time it is
+ * requested, at most once even if several expressions request it at the same time, and is then updated in place when
+ * cells of its column are changed, rather than computed again. Changes to the rows or columns of the project flush it.
  *
  * @author Lu Liu
  */
@@ -64,16 +75,19 @@ public class LookupCacheManager {
      */
     public ProjectLookup getLookup(long targetProject, String targetColumn) throws LookupException {
         String key = targetProject + ";" + targetColumn;
-        if (!_lookups.containsKey(key)) {
-            ProjectLookup lookup = new ProjectLookup(targetProject, targetColumn);
-            computeLookup(lookup);
+        ProjectLookup lookup;
+        synchronized (_lookups) {
+            lookup = _lookups.computeIfAbsent(key, k -> new ProjectLookup(targetProject, targetColumn));
+        }
 
-            synchronized (_lookups) {
-                _lookups.put(key, lookup);
+        // other callers of the same lookup wait for it to be computed, while other lookups can be computed meanwhile
+        synchronized (lookup) {
+            if (!lookup.computed) {
+                computeLookup(lookup);
+                lookup.computed = true;
             }
         }
-
-        return _lookups.get(key);
+        return lookup;
     }
 
     public void flushLookupsInvolvingProject(long projectID) {
@@ -100,6 +114,57 @@ public class LookupCacheManager {
         }
     }
 
+    /**
+     * Updates the lookups on a column after some of its cells were changed, instead of flushing them.
+     *
+     * @param projectID
+     *            the project which was changed
+     * @param columnName
+     *            the column the cells belong to
+     * @param cellChanges
+     *            the changes of the cells
+     * @param reverted
+     *            true if the changes were reverted rather than applied
+     */
+    public void updateLookupsInvolvingProjectColumn(long projectID, String columnName, CellChange[] cellChanges, boolean reverted) {
+        List<ProjectLookup> lookups = new ArrayList<>();
+        synchronized (_lookups) {
+            for (ProjectLookup lookup : _lookups.values()) {
+                if (lookup.targetProjectID == projectID && lookup.targetColumnName.equals(columnName)) {
+                    lookups.add(lookup);
+                }
+            }
+        }
+
+        if (lookups.isEmpty()) {
+            return;
+        }
+
+        // the changes are grouped by value, so that the rows of each value are updated at once
+        Map<String, RowChanges> changes = new HashMap<>();
+        for (CellChange cellChange : cellChanges) {
+            Cell oldCell = reverted ? cellChange.newCell : cellChange.oldCell;
+            Cell newCell = reverted ? cellChange.oldCell : cellChange.newCell;
+            Object oldValue = oldCell == null ? null : oldCell.value;
+            Object newValue = newCell == null ? null : newCell.value;
+            if (ExpressionUtils.isNonBlankData(oldValue)) {
+                changes.computeIfAbsent(oldValue.toString(), k -> new RowChanges()).add(cellChange.row, false);
+            }
+            if (ExpressionUtils.isNonBlankData(newValue)) {
+                changes.computeIfAbsent(newValue.toString(), k -> new RowChanges()).add(cellChange.row, true);
+            }
+        }
+
+        for (ProjectLookup lookup : lookups) {
+            synchronized (lookup) {
+                // a lookup which is not computed yet will read the new values
+                if (lookup.computed) {
+                    lookup.update(changes);
+                }
+            }
+        }
+    }
+
     protected void computeLookup(ProjectLookup lookup) throws LookupException {
         if (lookup.targetProjectID < 0) {
             return;
@@ -111,12 +176,9 @@ public class LookupCacheManager {
             return;
         }
 
-        // if this is a lookup on the index column
+        // lookups on the index column are answered from the row indices themselves
         if (INDEX_COLUMN_NAME.equals(lookup.targetColumnName)) {
-            for (int r = 0; r < targetProject.rows.size(); r++) {
-                lookup.valueToRowIndices.put(String.valueOf(r), Collections.singletonList(r));
-            }
-            return; // return directly
+            return;
         }
 
         Column targetColumn = targetProject.columnModel.getColumnByName(lookup.targetColumnName);
@@ -126,16 +188,98 @@ public class LookupCacheManager {
         }
 
         // We can't use for-each here, because we'll need the row index when creating WrappedRow
+        Map<String, RowIndices> rowIndices = new HashMap<>();
         int count = targetProject.rows.size();
         for (int r = 0; r < count; r++) {
             Row targetRow = targetProject.rows.get(r);
             Object value = targetRow.getCellValue(targetColumn.getCellIndex());
             if (ExpressionUtils.isNonBlankData(value)) {
-                String valueStr = value.toString();
-                lookup.valueToRowIndices.putIfAbsent(valueStr, new ArrayList<>());
-                lookup.valueToRowIndices.get(valueStr).add(r);
+                rowIndices.computeIfAbsent(value.toString(), k -> new RowIndices()).add(r);
             }
         }
+        for (Map.Entry<String, RowIndices> entry : rowIndices.entrySet()) {
+            lookup.rowIndicesByValue.put(entry.getKey(), entry.getValue().toArray());
+        }
+    }
+
+    /**
+     * A growable list of row indices, used while computing a lookup.
+     */
+    private static class RowIndices {
+
+        int[] indices = new int[1];
+        int size = 0;
+
+        void add(int r) {
+            if (size == indices.length) {
+                indices = Arrays.copyOf(indices, size * 2);
+            }
+            indices[size++] = r;
+        }
+
+        int[] toArray() {
+            return size == indices.length ? indices : Arrays.copyOf(indices, size);
+        }
+    }
+
+    /**
+     * Rows to add to or remove from the entry of a value in a lookup, in the order of the changes.
+     */
+    private static class RowChanges {
+
+        int[] rows = new int[1];
+        boolean[] added = new boolean[1];
+        int size = 0;
+
+        void add(int r, boolean add) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+                added = Arrays.copyOf(added, size * 2);
+            }
+            rows[size] = r;
+            added[size] = add;
+            size++;
+        }
+
+        /**
+         * Merges the changes into sorted row indices, in time linear in the number of indices and changes. As when
+         * applying the changes one after the other, the last change of a row wins.
+         *
+         * @return the updated sorted indices, or null if none is left
+         */
+        int[] applyTo(int[] rowIndices) {
+            // sorted by row, then by order of the changes
+            long[] order = new long[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = ((long) rows[i] << 32) | i;
+            }
+            Arrays.sort(order);
+
+            int[] existing = rowIndices == null ? new int[0] : rowIndices;
+            int[] updated = new int[existing.length + size];
+            int length = 0;
+            int e = 0;
+            for (int i = 0; i < size; i++) {
+                int r = (int) (order[i] >>> 32);
+                if (i + 1 < size && (int) (order[i + 1] >>> 32) == r) {
+                    // superseded by a later change of the same row
+                    continue;
+                }
+                while (e < existing.length && existing[e] < r) {
+                    updated[length++] = existing[e++];
+                }
+                if (e < existing.length && existing[e] == r) {
+                    e++;
+                }
+                if (added[(int) order[i]]) {
+                    updated[length++] = r;
+                }
+            }
+            while (e < existing.length) {
+                updated[length++] = existing[e++];
+            }
+            return length == 0 ? null : length == updated.length ? updated : Arrays.copyOf(updated, length);
+        }
     }
 
     static public class ProjectLookup {
@@ -143,29 +287,83 @@ public class LookupCacheManager {
         final public long targetProjectID;
         final public String targetColumnName;
 
-        final public Map<Object, List<Integer>> valueToRowIndices = new HashMap<>();
+        /**
+         * The sorted indices of the rows of each non-blank value. The arrays are replaced rather than modified when the
+         * lookup is updated, so that they can be read while the lookup is updated.
+         */
+        final protected Map<String, int[]> rowIndicesByValue = new ConcurrentHashMap<>();
+
+        /**
+         * Read-only view of the row indices of each non-blank value, as they were exposed before the lookup stored them
+         * as arrays. {@link #getRowIndices(Object)} avoids boxing the indices.
+         */
+        final public Map<Object, List<Integer>> valueToRowIndices = Collections.unmodifiableMap(
+                Maps.transformValues(rowIndicesByValue, rowIndices -> Collections.unmodifiableList(Ints.asList(rowIndices))));
+
+        // guarded by this lookup
+        boolean computed = false;
 
         ProjectLookup(long targetProjectID, String targetColumnName) {
             this.targetProjectID = targetProjectID;
             this.targetColumnName = targetColumnName;
         }
 
+        /**
+         * @return the sorted indices of the rows whose value in the looked up column is the given value
+         */
+        public int[] getRowIndices(Object value) {
+            if (!ExpressionUtils.isNonBlankData(value)) {
+                return new int[0];
+            }
+            String valueStr = value.toString();
+            if (INDEX_COLUMN_NAME.equals(targetColumnName)) {
+                return getIndexRowIndices(valueStr);
+            }
+            int[] rowIndices = rowIndicesByValue.get(valueStr);
+            return rowIndices == null ? new int[0] : rowIndices;
+        }
+
+        private int[] getIndexRowIndices(String valueStr) {
+            Project targetProject = ProjectManager.singleton.getProject(targetProjectID);
+            if (targetProject == null) {
+                return new int[0];
+            }
+            int r;
+            try {
+                r = Integer.parseInt(valueStr);
+            } catch (NumberFormatException e) {
+                return new int[0];
+            }
+            // only the canonical representation of the index matches, such as "1" but not "+1" or "01"
+            if (r < 0 || r >= targetProject.rows.size() || !String.valueOf(r).equals(valueStr)) {
+                return new int[0];
+            }
+            return new int[] { r };
+        }
+
         public HasFieldsListImpl getRows(Object value) {
             HasFieldsListImpl rows = new HasFieldsListImpl();
-            if (!ExpressionUtils.isNonBlankData(value)) return rows;
-            String valueStr = value.toString();
-            if (valueToRowIndices.containsKey(valueStr)) {
+            int[] rowIndices = getRowIndices(value);
+            if (rowIndices.length > 0) {
                 Project targetProject = ProjectManager.singleton.getProject(targetProjectID);
                 if (targetProject != null) {
-                    for (Integer r : valueToRowIndices.get(valueStr)) {
+                    for (int r : rowIndices) {
                         Row row = targetProject.rows.get(r);
                         rows.add(new WrappedRow(targetProject, r, row));
                     }
-
-                    return rows;
                 }
             }
             return rows;
         }
+
+        /**
+         * Moves rows from the entries of their old values to the entries of their new values, updating the entry of
+         * each value at once. Updating a lookup which already reflects the changes has no effect.
+         */
+        void update(Map<String, RowChanges> changes) {
+            for (Map.Entry<String, RowChanges> entry : changes.entrySet()) {
+                rowIndicesByValue.compute(entry.getKey(), (k, rowIndices) -> entry.getValue().applyTo(rowIndices));
+            }
+        }
     }
 }
@@ -43,6 +43,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -54,9 +61,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.refine.history.HistoryEntryManager;
+import com.google.refine.history.HistoryJournal;
 import com.google.refine.model.Project;
 import com.google.refine.preference.PreferenceStore;
 import com.google.refine.preference.TopList;
+import com.google.refine.process.ProcessExecutor;
+import com.google.refine.process.ProcessExecutor.Priority;
 import com.google.refine.util.GetProjectIDException;
 import com.google.refine.util.ParsingUtilities;
 
@@ -102,6 +112,19 @@ public abstract class ProjectManager {
      */
     transient protected Map<Long, Project> _projects;
 
+    /**
+     * Projects being loaded from the data store, so that callers asking for the same project wait for the same load
+     * instead of loading it again, while loads of other projects proceed in parallel.
+     */
+    transient private final Map<Long, CompletableFuture<Project>> _loadingProjects = new ConcurrentHashMap<>();
+
+    /**
+     * Index of the projects by name and by tag, rebuilt on the next lookup after project metadata is added, removed or
+     * renamed or retagged, instead of scanning the metadata of all projects for each lookup.
+     */
+    transient private volatile MetadataIndex _metadataIndex;
+    transient private final AtomicLong _metadataChanges = new AtomicLong();
+
     static public ProjectManager singleton;
 
     protected ProjectManager() {
@@ -124,6 +147,7 @@ public abstract class ProjectManager {
 
         _projects.clear();
         _projectsMetadata.clear();
+        metadataChanged();
     }
 
     /**
@@ -138,6 +162,7 @@ public abstract class ProjectManager {
             projectMetadata.setRowCount(project.rows.size());
             _projects.put(project.id, project);
             _projectsMetadata.put(project.id, projectMetadata);
+            metadataChanged();
             addProjectTags(projectMetadata.getTags());
         }
     }
@@ -183,6 +208,8 @@ public abstract class ProjectManager {
      * @param id
      */
     public void ensureProjectSaved(long id) {
+        // loaded before taking the lock, as loading the project can take a while
+        Project project = getProject(id);
         synchronized (this) {
             ProjectMetadata metadata = this.getProjectMetadata(id);
             if (metadata != null) {
@@ -193,7 +220,6 @@ public abstract class ProjectManager {
                 }
             } // FIXME what should be the behaviour if metadata is null? i.e. not found
 
-            Project project = getProject(id);
             if (project != null && metadata != null && metadata.getModified().isAfter(project.getLastSave())) {
                 try {
                     saveProject(project);
@@ -300,19 +326,39 @@ public abstract class ProjectManager {
 
             logger.info(allModified ? "Saving all modified projects ..." : "Saving some modified projects ...");
 
+            // projects are saved concurrently, each save only holding the lock of its project while taking a snapshot
+            ProcessExecutor executor = ProcessExecutor.getDefault();
+            AtomicBoolean failed = new AtomicBoolean();
+            List<Future<?>> saves = new ArrayList<>(records.size());
             for (SaveRecord record : records) {
-                // If we've run out of time, bail out, unless we've been asked to save all modified projects
-                if (!allModified && Instant.now().isAfter(quicksaveDeadline)) {
-                    break;
-                }
+                saves.add(executor.submit(() -> {
+                    // If we've run out of time, bail out, unless we've been asked to save all modified projects
+                    if (!allModified && Instant.now().isAfter(quicksaveDeadline)) {
+                        return;
+                    }
+                    try {
+                        saveProject(record.project);
+                    } catch (Exception e) {
+                        logger.error("Error when saving projects. Attempting to free memory", e);
+                        failed.set(true);
+                    }
+                }, Priority.SAVE));
+            }
+            for (Future<?> save : saves) {
                 try {
-                    saveProject(record.project);
-                } catch (Exception e) {
-                    logger.error("Error when saving projects. Attempting to free memory", e);
-                    // In case we're running low on memory, free as much as we can
-                    disposeUnmodifiedProjects();
+                    save.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                } catch (ExecutionException e) {
+                    logger.error("Error when saving projects", e.getCause());
+                    failed.set(true);
                 }
             }
+            if (failed.get()) {
+                // In case we're running low on memory, free as much as we can
+                disposeUnmodifiedProjects();
+            }
         }
     }
 
@@ -357,12 +403,8 @@ public abstract class ProjectManager {
      * @return
      */
     public ProjectMetadata getProjectMetadata(String name) {
-        for (ProjectMetadata pm : _projectsMetadata.values()) {
-            if (pm.getName().equals(name)) {
-                return pm;
-            }
-        }
-        return null;
+        List<Long> ids = getMetadataIndex().idsByName.get(name);
+        return ids == null ? null : _projectsMetadata.get(ids.get(0));
     }
 
     /**
@@ -379,22 +421,83 @@ public abstract class ProjectManager {
         if (name == null) {
             throw new GetProjectIDException("Can't lookup a project with a null name");
         }
-        Integer count = 0;
-        Long id = -1L;
-        // TODO: Linear search assumes small number of projects
-        for (Entry<Long, ProjectMetadata> entry : _projectsMetadata.entrySet()) {
-            ProjectMetadata metadata = entry.getValue();
-            if (metadata != null && name.equals(metadata.getName())) {
-                id = entry.getKey();
-                count += 1;
+        List<Long> ids = getMetadataIndex().idsByName.get(name);
+        if (ids == null) {
+            throw new GetProjectIDException("Unable to find project with name: " + name);
+        } else if (ids.size() == 1) {
+            return ids.get(0);
+        }
+        throw new GetProjectIDException("Multiple (" + ids.size() + ") projects found with name: " + name);
+    }
+
+    /**
+     * Gets the ids of the projects with a tag. Requires that all project metadata has been loaded to memory from the
+     * data store
+     *
+     * @param tag
+     *            the tag
+     * @return the ids of the projects, in no particular order
+     */
+    public List<Long> getProjectIDsByTag(String tag) {
+        return getMetadataIndex().idsByTag.getOrDefault(tag, Collections.emptyList());
+    }
+
+    /**
+     * Must be called after adding or removing project metadata in {@link #_projectsMetadata}.
+     */
+    protected void metadataChanged() {
+        _metadataChanges.incrementAndGet();
+    }
+
+    private MetadataIndex getMetadataIndex() {
+        MetadataIndex index = _metadataIndex;
+        if (index == null || !index.isUpToDate(this)) {
+            synchronized (_metadataChanges) {
+                index = _metadataIndex;
+                if (index == null || !index.isUpToDate(this)) {
+                    index = new MetadataIndex(this);
+                    _metadataIndex = index;
+                }
             }
         }
-        if (count == 1) {
-            return id;
-        } else if (count == 0) {
-            throw new GetProjectIDException("Unable to find project with name: " + name);
+        return index;
+    }
+
+    private static class MetadataIndex {
+
+        final long namesAndTagsVersion;
+        final long metadataChanges;
+        final int size;
+        final Map<String, List<Long>> idsByName = new HashMap<>();
+        final Map<String, List<Long>> idsByTag = new HashMap<>();
+
+        MetadataIndex(ProjectManager manager) {
+            // read before indexing, so that changes made while indexing make the index outdated
+            namesAndTagsVersion = ProjectMetadata.getNamesAndTagsVersion();
+            metadataChanges = manager._metadataChanges.get();
+            size = manager._projectsMetadata.size();
+            for (Entry<Long, ProjectMetadata> entry : manager._projectsMetadata.entrySet()) {
+                ProjectMetadata metadata = entry.getValue();
+                if (metadata == null) {
+                    continue;
+                }
+                if (metadata.getName() != null) {
+                    idsByName.computeIfAbsent(metadata.getName(), name -> new ArrayList<>(1)).add(entry.getKey());
+                }
+                String[] tags = metadata.getTags();
+                if (tags != null) { // should only ever happen during tests with mocked ProjectMetadata
+                    for (String tag : tags) {
+                        idsByTag.computeIfAbsent(tag, t -> new ArrayList<>()).add(entry.getKey());
+                    }
+                }
+            }
+        }
+
+        boolean isUpToDate(ProjectManager manager) {
+            return namesAndTagsVersion == ProjectMetadata.getNamesAndTagsVersion()
+                    && metadataChanges == manager._metadataChanges.get()
+                    && size == manager._projectsMetadata.size();
         }
-        throw new GetProjectIDException("Multiple (" + count + ") projects found with name: " + name);
     }
 
     /**
@@ -552,17 +655,48 @@ public abstract class ProjectManager {
      * @return the project with the matching id, or null if it can't be found
      */
     public Project getProject(long id) {
+        CompletableFuture<Project> loading;
+        boolean loadHere = false;
+        // the lock is only held to look up the project, so that loading a large project does not block other requests
         synchronized (this) {
             if (_projects.containsKey(id)) {
                 return _projects.get(id);
-            } else {
-                Project project = loadProject(id);
-                if (project != null) {
-                    _projects.put(id, project);
+            }
+            loading = _loadingProjects.get(id);
+            if (loading == null) {
+                loading = new CompletableFuture<>();
+                _loadingProjects.put(id, loading);
+                loadHere = true;
+            }
+        }
+
+        if (!loadHere) {
+            try {
+                return loading.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
                 }
-                return project;
+                throw e;
+            }
+        }
+
+        Project project;
+        try {
+            project = loadProject(id);
+        } catch (RuntimeException | Error e) {
+            _loadingProjects.remove(id, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+        synchronized (this) {
+            // the project may have been deleted while it was loading, in which case it is not cached
+            if (_loadingProjects.remove(id, loading) && project != null) {
+                _projects.put(id, project);
             }
         }
+        loading.complete(project);
+        return project;
     }
 
     /**
@@ -593,6 +727,16 @@ public abstract class ProjectManager {
     @JsonIgnore
     public abstract HistoryEntryManager getHistoryEntryManager();
 
+    /**
+     * Gets the journal recording the changes to the history of a project between saves of the project.
+     *
+     * @return the journal, or null if the history of the project is only saved with the project
+     */
+    @JsonIgnore
+    public HistoryJournal getHistoryJournal(long projectID) {
+        return null;
+    }
+
     /**
      * Remove the project from the data store
      * 
@@ -615,10 +759,12 @@ public abstract class ProjectManager {
      * @param projectID
      */
     protected void removeProject(long projectID) {
+        _loadingProjects.remove(projectID);
         if (_projects.containsKey(projectID)) {
             _projects.remove(projectID).dispose();
         }
         _projectsMetadata.remove(projectID);
+        metadataChanged();
     }
 
     /**
@@ -40,6 +40,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
@@ -71,6 +72,12 @@ public class ProjectMetadata {
     private Instant _modified;
     @JsonIgnore
     private Instant lastSave = null;
+    /**
+     * Incremented whenever the name or tags of any project change, so that the indexes of projects by name and tag can
+     * tell when they need to be rebuilt.
+     */
+    private static final AtomicLong namesAndTagsVersion = new AtomicLong();
+
     @JsonProperty("name")
     private String _name = "";
     @JsonProperty("password")
@@ -159,9 +166,17 @@ public class ProjectMetadata {
     @JsonIgnore
     public void setName(String name) {
         this._name = name;
+        namesAndTagsVersion.incrementAndGet();
         updateModified();
     }
 
+    /**
+     * @return a number which changes whenever the name or tags of any project change
+     */
+    static long getNamesAndTagsVersion() {
+        return namesAndTagsVersion.get();
+    }
+
     @JsonIgnore
     public String getName() {
         return _name;
@@ -213,6 +228,7 @@ public class ProjectMetadata {
         } else {
             this._tags = tags;
         }
+        namesAndTagsVersion.incrementAndGet();
 
         updateModified();
     }
@@ -393,6 +409,10 @@ public class ProjectMetadata {
         } catch (SecurityException | IllegalArgumentException | IllegalAccessException e) {
             logger.error(ExceptionUtils.getStackTrace(e));
             throw new RuntimeException(e);
+        } finally {
+            if ("name".equals(metaName) || "tags".equals(metaName)) {
+                namesAndTagsVersion.incrementAndGet();
+            }
         }
     }
 
@@ -33,17 +33,24 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.browsing;
 
+import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
+import com.google.refine.ProjectManager;
 import com.google.refine.browsing.facets.Facet;
+import com.google.refine.browsing.facets.FacetConfig;
 import com.google.refine.browsing.util.ConjunctiveFilteredRecords;
 import com.google.refine.browsing.util.ConjunctiveFilteredRows;
+import com.google.refine.browsing.util.FilterBitmapCache;
+import com.google.refine.browsing.util.FilterBitmaps;
 import com.google.refine.browsing.util.FilteredRecordsAsFilteredRows;
 import com.google.refine.model.Project;
 import com.google.refine.model.Record;
@@ -65,6 +72,8 @@ public class Engine {
     public final static String MODE = "mode";
     public final static String MODE_ROW_BASED = "row-based";
     public final static String MODE_RECORD_BASED = "record-based";
+    public final static String PARALLEL_FACETS_PREFERENCE = "browsing.parallelFacets";
+    public final static String FILTER_CACHE_PREFERENCE = "browsing.filterBitmapCache";
 
     @JsonIgnore
     protected Project _project;
@@ -127,6 +136,16 @@ public class Engine {
             return new FilteredRecordsAsFilteredRows(getFilteredRecords(except));
         } else if (_config.getMode().equals(Mode.RowBased)) {
             ConjunctiveFilteredRows cfr = new ConjunctiveFilteredRows();
+            if (isFilterCacheEnabled()) {
+                List<Facet> facets = new ArrayList<>(_facets);
+                List<BitSet> matches = computeRowMatches(facets, true);
+                for (int i = 0; i < facets.size(); i++) {
+                    if (facets.get(i) != except && matches.get(i) != null) {
+                        cfr.add(matches.get(i));
+                    }
+                }
+                return cfr;
+            }
             for (Facet facet : _facets) {
                 if (facet != except) {
                     RowFilter rowFilter = facet.getRowFilter(_project);
@@ -169,6 +188,16 @@ public class Engine {
     public FilteredRecords getFilteredRecords(Facet except) {
         if (_config.getMode().equals(Mode.RecordBased)) {
             ConjunctiveFilteredRecords cfr = new ConjunctiveFilteredRecords();
+            if (isFilterCacheEnabled()) {
+                List<Facet> facets = new ArrayList<>(_facets);
+                List<BitSet> matches = computeRecordMatches(facets, true);
+                for (int i = 0; i < facets.size(); i++) {
+                    if (facets.get(i) != except && matches.get(i) != null) {
+                        cfr.add(matches.get(i));
+                    }
+                }
+                return cfr;
+            }
             for (Facet facet : _facets) {
                 if (facet != except) {
                     RecordFilter recordFilter = facet.getRecordFilter(_project);
@@ -190,6 +219,10 @@ public class Engine {
     }
 
     public void computeFacets() {
+        if (canComputeInParallel(_facets)) {
+            computeFacetsInParallel();
+            return;
+        }
         if (_config.getMode().equals(Mode.RowBased)) {
             for (Facet facet : _facets) {
                 FilteredRows filteredRows = getFilteredRows(facet);
@@ -206,4 +239,118 @@ public class Engine {
             throw new InternalError("Unknown mode.");
         }
     }
+
+    /**
+     * Evaluates the filter of each facet only once, over chunks of the project processed concurrently, and stores the
+     * matches as bitmaps. Each facet is then computed on its own thread over the intersection of the bitmaps of all
+     * other facets.
+     */
+    protected void computeFacetsInParallel() {
+        List<Facet> facets = new ArrayList<>(_facets);
+        if (_config.getMode().equals(Mode.RowBased)) {
+            List<BitSet> matches = computeRowMatches(facets, isFilterCacheEnabled());
+            IntStream.range(0, facets.size()).parallel().forEach(i -> {
+                ConjunctiveFilteredRows cfr = new ConjunctiveFilteredRows();
+                for (int j = 0; j < matches.size(); j++) {
+                    if (j != i && matches.get(j) != null) {
+                        cfr.add(matches.get(j));
+                    }
+                }
+                facets.get(i).computeChoices(_project, cfr);
+            });
+        } else if (_config.getMode().equals(Mode.RecordBased)) {
+            List<BitSet> matches = computeRecordMatches(facets, isFilterCacheEnabled());
+            IntStream.range(0, facets.size()).parallel().forEach(i -> {
+                ConjunctiveFilteredRecords cfr = new ConjunctiveFilteredRecords();
+                for (int j = 0; j < matches.size(); j++) {
+                    if (j != i && matches.get(j) != null) {
+                        cfr.add(matches.get(j));
+                    }
+                }
+                facets.get(i).computeChoices(_project, cfr);
+            });
+        } else {
+            throw new InternalError("Unknown mode.");
+        }
+    }
+
+    /**
+     * Computes the rows matched by each facet, in the order of the facets, or null for facets which do not filter rows.
+     *
+     * @param useCache
+     *            whether to reuse and store the bitmaps in the {@link FilterBitmapCache} of the project
+     */
+    protected List<BitSet> computeRowMatches(List<Facet> facets, boolean useCache) {
+        List<FacetConfig> configs = getCacheableConfigs(facets, useCache);
+        boolean parallel = canComputeInParallel(facets);
+        IntStream indices = IntStream.range(0, facets.size());
+        return (parallel ? indices.parallel() : indices)
+                .mapToObj(i -> {
+                    RowFilter rowFilter = facets.get(i).getRowFilter(_project);
+                    if (rowFilter == null) {
+                        return null;
+                    } else if (configs == null) {
+                        return FilterBitmaps.matchRows(_project, rowFilter, parallel);
+                    } else {
+                        return _project.getFilterBitmapCache().getRowMatches(_project, configs.get(i), rowFilter, parallel);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Computes the records matched by each facet, in the order of the facets, or null for facets which do not filter
+     * records.
+     *
+     * @param useCache
+     *            whether to reuse and store the bitmaps in the {@link FilterBitmapCache} of the project
+     */
+    protected List<BitSet> computeRecordMatches(List<Facet> facets, boolean useCache) {
+        List<FacetConfig> configs = getCacheableConfigs(facets, useCache);
+        boolean parallel = canComputeInParallel(facets);
+        IntStream indices = IntStream.range(0, facets.size());
+        return (parallel ? indices.parallel() : indices)
+                .mapToObj(i -> {
+                    RecordFilter recordFilter = facets.get(i).getRecordFilter(_project);
+                    if (recordFilter == null) {
+                        return null;
+                    } else if (configs == null) {
+                        return FilterBitmaps.matchRecords(_project, recordFilter, parallel);
+                    } else {
+                        return _project.getFilterBitmapCache().getRecordMatches(_project, configs.get(i), recordFilter,
+                                parallel);
+                    }
+                })
+                .collect(Collectors.toList());
+    }
+
+    private List<FacetConfig> getCacheableConfigs(List<Facet> facets, boolean useCache) {
+        // the facets are instantiated from the configs in the same order
+        List<FacetConfig> configs = _config.getFacetConfigs();
+        return useCache && configs.size() == facets.size() ? configs : null;
+    }
+
+    /**
+     * Facets are computed in parallel if enabled in the workspace preferences and if all of them are
+     * {@link Facet#isThreadSafe() thread-safe}.
+     */
+    protected boolean canComputeInParallel(List<Facet> facets) {
+        return isParallelComputationEnabled() && facets.stream().allMatch(Facet::isThreadSafe);
+    }
+
+    /**
+     * Facets can be computed in parallel unless disabled in the workspace preferences.
+     */
+    static protected boolean isParallelComputationEnabled() {
+        return ProjectManager.singleton == null
+                || ProjectManager.singleton.getPreferenceStore().getBoolean(PARALLEL_FACETS_PREFERENCE, true);
+    }
+
+    /**
+     * Filter bitmaps are cached across requests unless disabled in the workspace preferences.
+     */
+    static protected boolean isFilterCacheEnabled() {
+        return ProjectManager.singleton == null
+                || ProjectManager.singleton.getPreferenceStore().getBoolean(FILTER_CACHE_PREFERENCE, true);
+    }
 }
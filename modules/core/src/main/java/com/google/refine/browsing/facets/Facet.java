@@ -33,6 +33,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.browsing.facets;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import com.google.refine.browsing.FilteredRecords;
 import com.google.refine.browsing.FilteredRows;
 import com.google.refine.browsing.RecordFilter;
@@ -51,4 +53,16 @@ public interface Facet {
     public void computeChoices(Project project, FilteredRows filteredRows);
 
     public void computeChoices(Project project, FilteredRecords filteredRecords);
+
+    /**
+     * Whether this facet can be computed at the same time as other facets, and its filter evaluated on several rows at
+     * the same time. This is not the case of facets whose expressions share state between evaluations, such as those of
+     * languages which evaluate all expressions with the same interpreter.
+     *
+     * @return false by default, as nothing is known about the expressions of the facet
+     */
+    @JsonIgnore
+    public default boolean isThreadSafe() {
+        return false;
+    }
 }
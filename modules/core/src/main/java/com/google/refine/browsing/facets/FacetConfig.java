@@ -36,6 +36,9 @@ import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.fasterxml.jackson.annotation.JsonSubTypes.Type;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 
+import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.ParsingException;
+import com.google.refine.expr.Purity;
 import com.google.refine.model.Project;
 
 /**
@@ -93,6 +96,35 @@ public interface FacetConfig {
         return Optional.empty();
     }
 
+    /**
+     * Whether the rows matched by this facet can be cached until the project is modified. This is not the case of
+     * facets whose expression can evaluate differently on the same project, for instance because it reads the clock.
+     *
+     * @return false by default, as nothing is known about how the facet matches rows
+     */
+    @JsonIgnore
+    public default boolean isCacheable() {
+        return false;
+    }
+
+    /**
+     * Whether the rows matched by facets evaluating the given expressions can be cached, which is the case unless one
+     * of them is {@link Purity#NON_DETERMINISTIC}. Expressions which cannot be parsed do not match any row, so they are
+     * considered cacheable.
+     */
+    public static boolean isCacheableExpression(String... expressions) {
+        try {
+            for (String expression : expressions) {
+                if (MetaParser.parse(expression).getPurity() == Purity.NON_DETERMINISTIC) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (ParsingException e) {
+            return true;
+        }
+    }
+
     /**
      * Translates this facet by simultaneously substituting column names, as specified by the supplied map. This is a
      * best effort transformation: some references to columns might not get renamed in complex expressions. It can
@@ -156,6 +156,11 @@ public class ListFacet implements Facet {
             }
         }
 
+        @Override
+        public boolean isCacheable() {
+            return FacetConfig.isCacheableExpression(expression);
+        }
+
         @Override
         public FacetConfig renameColumnDependencies(Map<String, String> substitutions) {
             String newExpression;
@@ -210,6 +215,8 @@ public class ListFacet implements Facet {
     protected int _cellIndex;
     protected Evaluable _eval;
     protected String _errorMessage;
+    // expressions which cannot be parsed are not evaluated
+    protected boolean _threadSafe = true;
 
     /*
      * Computed results
@@ -287,20 +294,7 @@ public class ListFacet implements Facet {
     }
 
     protected int getLimit() {
-        Object v = ProjectManager.singleton.getPreferenceStore().get("ui.browsing.listFacet.limit");
-        if (v != null) {
-            if (v instanceof Number) {
-                return ((Number) v).intValue();
-            } else {
-                try {
-                    int n = Integer.parseInt(v.toString());
-                    return n;
-                } catch (NumberFormatException e) {
-                    // ignore
-                }
-            }
-        }
-        return 2000;
+        return ProjectManager.singleton.getPreferenceStore().getInteger("ui.browsing.listFacet.limit", 2000);
     }
 
     public void initializeFromConfig(ListFacetConfig config, Project project) {
@@ -318,11 +312,17 @@ public class ListFacet implements Facet {
 
         try {
             _eval = MetaParser.parse(_config.expression);
+            _threadSafe = _eval.isThreadSafe();
         } catch (ParsingException e) {
             _errorMessage = e.getMessage();
         }
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return _threadSafe;
+    }
+
     @Override
     public RowFilter getRowFilter(Project project) {
         return _eval == null ||
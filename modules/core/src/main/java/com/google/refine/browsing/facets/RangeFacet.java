@@ -152,6 +152,11 @@ public class RangeFacet implements Facet {
             }
         }
 
+        @Override
+        public boolean isCacheable() {
+            return FacetConfig.isCacheableExpression(_expression);
+        }
+
         @Override
         public FacetConfig renameColumnDependencies(Map<String, String> substitutions) {
             String newExpression;
@@ -185,6 +190,8 @@ public class RangeFacet implements Facet {
     protected int _cellIndex;
     protected Evaluable _eval;
     protected String _errorMessage;
+    // expressions which cannot be parsed are not evaluated
+    protected boolean _threadSafe = true;
 
     /*
      * Computed data, to return to the client side
@@ -331,11 +338,17 @@ public class RangeFacet implements Facet {
 
         try {
             _eval = MetaParser.parse(_config._expression);
+            _threadSafe = _eval.isThreadSafe();
         } catch (ParsingException e) {
             _errorMessage = e.getMessage();
         }
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return _threadSafe;
+    }
+
     @Override
     public RowFilter getRowFilter(Project project) {
         if (_eval != null && _errorMessage == null && _config._selected) {
@@ -204,6 +204,11 @@ public class ScatterplotFacet implements Facet {
             }
         }
 
+        @Override
+        public boolean isCacheable() {
+            return FacetConfig.isCacheableExpression(expression_x, expression_y);
+        }
+
         @Override
         public FacetConfig renameColumnDependencies(Map<String, String> substitutions) {
             String newExpressionX;
@@ -255,6 +260,8 @@ public class ScatterplotFacet implements Facet {
     protected Evaluable eval_y;
     protected String errorMessage_x;
     protected String errorMessage_y;
+    // expressions which cannot be parsed are not evaluated
+    protected boolean threadSafe = true;
 
     protected double min_x;
     protected double max_x;
@@ -438,6 +445,7 @@ public class ScatterplotFacet implements Facet {
 
         try {
             eval_x = MetaParser.parse(config.expression_x);
+            threadSafe &= eval_x.isThreadSafe();
         } catch (ParsingException e) {
             errorMessage_x = e.getMessage();
         }
@@ -459,12 +467,18 @@ public class ScatterplotFacet implements Facet {
 
         try {
             eval_y = MetaParser.parse(config.expression_y);
+            threadSafe &= eval_y.isThreadSafe();
         } catch (ParsingException e) {
             errorMessage_y = e.getMessage();
         }
 
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return threadSafe;
+    }
+
     @Override
     public RowFilter getRowFilter(Project project) {
         if (config.isSelected() &&
@@ -53,6 +53,7 @@ import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.MetaParser;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
+import com.google.refine.util.PatternCache;
 import com.google.refine.util.PatternSyntaxExceptionParser;
 
 public class TextSearchFacet implements Facet {
@@ -91,7 +92,7 @@ public class TextSearchFacet implements Facet {
         public void validate() {
             if ("regex".equals(_mode)) {
                 try {
-                    Pattern.compile(
+                    PatternCache.get(
                             _query,
                             _caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
                 } catch (java.util.regex.PatternSyntaxException e) {
@@ -105,6 +106,12 @@ public class TextSearchFacet implements Facet {
             return Optional.of(Collections.singleton(_columnName));
         }
 
+        @Override
+        public boolean isCacheable() {
+            // the query is matched against the cell values without evaluating any expression
+            return true;
+        }
+
         @Override
         public FacetConfig renameColumnDependencies(Map<String, String> substitutions) {
             TextSearchFacetConfig newConfig = new TextSearchFacetConfig();
@@ -174,7 +181,7 @@ public class TextSearchFacet implements Facet {
         if (_query != null) {
             if ("regex".equals(_config._mode)) {
                 try {
-                    _pattern = Pattern.compile(
+                    _pattern = PatternCache.get(
                             _query,
                             _config._caseSensitive ? 0 : Pattern.CASE_INSENSITIVE);
                 } catch (java.util.regex.PatternSyntaxException e) {
@@ -188,6 +195,12 @@ public class TextSearchFacet implements Facet {
 
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        // the query is matched against the cell values without evaluating any expression
+        return true;
+    }
+
     @Override
     public RowFilter getRowFilter(Project project) {
         if (_query == null || _query.length() == 0 || _cellIndex < 0) {
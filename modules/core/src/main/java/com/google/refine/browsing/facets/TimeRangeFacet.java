@@ -129,6 +129,11 @@ public class TimeRangeFacet implements Facet {
             }
         }
 
+        @Override
+        public boolean isCacheable() {
+            return FacetConfig.isCacheableExpression(_expression);
+        }
+
         @Override
         public FacetConfig renameColumnDependencies(Map<String, String> substitutions) {
             String newExpression;
@@ -165,6 +170,8 @@ public class TimeRangeFacet implements Facet {
     protected int _cellIndex;
     protected Evaluable _eval;
     protected String _errorMessage;
+    // expressions which cannot be parsed are not evaluated
+    protected boolean _threadSafe = true;
 
     protected double _min;
     protected double _max;
@@ -294,11 +301,17 @@ public class TimeRangeFacet implements Facet {
 
         try {
             _eval = MetaParser.parse(_config._expression);
+            _threadSafe = _eval.isThreadSafe();
         } catch (ParsingException e) {
             _errorMessage = e.getMessage();
         }
     }
 
+    @Override
+    public boolean isThreadSafe() {
+        return _threadSafe;
+    }
+
     @Override
     public RowFilter getRowFilter(Project project) {
         if (_eval != null && _errorMessage == null && _config.isSelected()) {
@@ -33,6 +33,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.browsing.util;
 
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -43,23 +44,34 @@ import com.google.refine.model.Project;
 import com.google.refine.model.Record;
 
 /**
- * Encapsulate logic for visiting records that match all given record filters.
+ * Encapsulate logic for visiting records that match all given record filters. Filters can also be supplied as
+ * precomputed bitmaps of matching records, which are combined with a bitwise AND before any other filter is evaluated.
  */
 public class ConjunctiveFilteredRecords implements FilteredRecords {
 
     final protected List<RecordFilter> _recordFilters = new LinkedList<RecordFilter>();
+    final protected List<BitSet> _recordBitmaps = new LinkedList<BitSet>();
 
     public void add(RecordFilter recordFilter) {
         _recordFilters.add(recordFilter);
     }
 
+    /**
+     * Restricts the visited records to the ones set in the bitmap, which is not modified.
+     */
+    public void add(BitSet matchingRecords) {
+        _recordBitmaps.add(matchingRecords);
+    }
+
     @Override
     public void accept(Project project, RecordVisitor visitor) {
         try {
             visitor.start(project);
 
             int c = project.recordModel.getRecordCount();
-            for (int r = 0; r < c; r++) {
+            BitSet candidates = _recordBitmaps.isEmpty() ? null : FilterBitmaps.intersect(_recordBitmaps, -1, c);
+            for (int r = ConjunctiveFilteredRows.nextCandidate(candidates, 0, c); r < c; r = ConjunctiveFilteredRows
+                    .nextCandidate(candidates, r + 1, c)) {
                 Record record = project.recordModel.getRecord(r);
                 if (matchRecord(project, record)) {
                     if (visitor.visit(project, record.fromRowIndex, record)) {
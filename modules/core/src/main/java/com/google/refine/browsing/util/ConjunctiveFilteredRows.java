@@ -33,6 +33,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.browsing.util;
 
+import java.util.BitSet;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -44,23 +45,33 @@ import com.google.refine.model.Row;
 
 /**
  * Encapsulate logic for visiting rows that match all give row filters. Also visit context rows and dependent rows if
- * configured so.
+ * configured so. Filters can also be supplied as precomputed bitmaps of matching rows, which are combined with a
+ * bitwise AND before any other filter is evaluated.
  */
 public class ConjunctiveFilteredRows implements FilteredRows {
 
     final protected List<RowFilter> _rowFilters = new LinkedList<RowFilter>();
+    final protected List<BitSet> _rowBitmaps = new LinkedList<BitSet>();
 
     public void add(RowFilter rowFilter) {
         _rowFilters.add(rowFilter);
     }
 
+    /**
+     * Restricts the visited rows to the ones set in the bitmap, which is not modified.
+     */
+    public void add(BitSet matchingRows) {
+        _rowBitmaps.add(matchingRows);
+    }
+
     @Override
     public void accept(Project project, RowVisitor visitor) {
         try {
             visitor.start(project);
 
             int c = project.rows.size();
-            for (int rowIndex = 0; rowIndex < c; rowIndex++) {
+            BitSet candidates = _rowBitmaps.isEmpty() ? null : FilterBitmaps.intersect(_rowBitmaps, -1, c);
+            for (int rowIndex = nextCandidate(candidates, 0, c); rowIndex < c; rowIndex = nextCandidate(candidates, rowIndex + 1, c)) {
                 Row row = project.rows.get(rowIndex);
                 if (matchRow(project, rowIndex, row)) {
                     if (visitRow(project, visitor, rowIndex, row)) {
@@ -73,6 +84,14 @@ public class ConjunctiveFilteredRows implements FilteredRows {
         }
     }
 
+    static int nextCandidate(BitSet candidates, int from, int count) {
+        if (candidates == null) {
+            return from;
+        }
+        int next = candidates.nextSetBit(from);
+        return next < 0 ? count : next;
+    }
+
     protected boolean visitRow(Project project, RowVisitor visitor, int rowIndex, Row row) {
         return visitor.visit(project, rowIndex, rowIndex, row);
     }
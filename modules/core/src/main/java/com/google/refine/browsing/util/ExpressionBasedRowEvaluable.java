@@ -37,6 +37,7 @@ import java.util.Properties;
 
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.MemoizedEvaluable;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
@@ -52,7 +53,7 @@ public class ExpressionBasedRowEvaluable implements RowEvaluable {
 
         _columnName = columnName;
         _cellIndex = cellIndex;
-        _eval = eval;
+        _eval = MemoizedEvaluable.wrap(eval);
     }
 
     @Override
@@ -46,6 +46,7 @@ import com.google.refine.browsing.RowVisitor;
 import com.google.refine.browsing.facets.NominalFacetChoice;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.MemoizedEvaluable;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
 import com.google.refine.model.Record;
@@ -88,7 +89,7 @@ public class ExpressionNominalValueGrouper implements RowVisitor, RecordVisitor
     protected boolean hasError;
 
     public ExpressionNominalValueGrouper(Evaluable evaluable, String columnName, int cellIndex) {
-        _evaluable = evaluable;
+        _evaluable = MemoizedEvaluable.wrap(evaluable);
         _columnName = columnName;
         _cellIndex = cellIndex;
     }
@@ -0,0 +1,153 @@
+
+package com.google.refine.browsing.util;
+
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import com.google.refine.browsing.RecordFilter;
+import com.google.refine.browsing.RowFilter;
+import com.google.refine.browsing.facets.FacetConfig;
+import com.google.refine.history.Change;
+import com.google.refine.model.Project;
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * Caches the rows or records matched by the filters of facets on a project, keyed by facet configuration, so that
+ * changing the selection of one facet does not require evaluating the filters of all other facets again.
+ * <p>
+ * Cached bitmaps are invalidated when a change is applied to or reverted from the project. Changes which only modify
+ * some cells keep the row bitmaps of facets which do not depend on the modified columns. Bitmaps returned by this cache
+ * are shared and must not be modified. Facets whose expressions are not deterministic are not cached.
+ */
+public class FilterBitmapCache {
+
+    static final int MAX_ENTRIES = 32;
+
+    private static class CachedBitmap {
+
+        final BitSet matches;
+        final int count;
+        final boolean recordBased;
+        final Optional<Set<String>> columnDependencies;
+
+        CachedBitmap(BitSet matches, int count, boolean recordBased, Optional<Set<String>> columnDependencies) {
+            this.matches = matches;
+            this.count = count;
+            this.recordBased = recordBased;
+            this.columnDependencies = columnDependencies;
+        }
+
+        boolean dependsOn(Set<String> columnNames) {
+            // record boundaries can move when any cell changes
+            return recordBased || columnDependencies.isEmpty()
+                    || !Collections.disjoint(columnDependencies.get(), columnNames);
+        }
+    }
+
+    private final Map<String, CachedBitmap> _bitmaps = new LinkedHashMap<String, CachedBitmap>(16, 0.75f, true) {
+
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedBitmap> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    // incremented on every invalidation, so that bitmaps computed concurrently with a change are not stored
+    private long _version = 0;
+
+    /**
+     * Returns the rows of the project matched by the filter of a facet, computing them if they are not cached.
+     *
+     * @param config
+     *            the configuration of the facet the filter was obtained from
+     */
+    public BitSet getRowMatches(Project project, FacetConfig config, RowFilter filter, boolean parallel) {
+        String key = getKey("rows:", config);
+        int count = project.rows.size();
+        long version;
+        synchronized (this) {
+            CachedBitmap cached = key == null ? null : _bitmaps.get(key);
+            if (cached != null && cached.count == count) {
+                return cached.matches;
+            }
+            version = _version;
+        }
+        BitSet matches = FilterBitmaps.matchRows(project, filter, parallel);
+        store(key, version, new CachedBitmap(matches, count, false, config.getColumnDependencies()));
+        return matches;
+    }
+
+    /**
+     * Returns the records of the project matched by the filter of a facet, computing them if they are not cached.
+     *
+     * @param config
+     *            the configuration of the facet the filter was obtained from
+     */
+    public BitSet getRecordMatches(Project project, FacetConfig config, RecordFilter filter, boolean parallel) {
+        String key = getKey("records:", config);
+        int count = project.recordModel.getRecordCount();
+        long version;
+        synchronized (this) {
+            CachedBitmap cached = key == null ? null : _bitmaps.get(key);
+            if (cached != null && cached.count == count) {
+                return cached.matches;
+            }
+            version = _version;
+        }
+        BitSet matches = FilterBitmaps.matchRecords(project, filter, parallel);
+        store(key, version, new CachedBitmap(matches, count, true, config.getColumnDependencies()));
+        return matches;
+    }
+
+    /**
+     * Drops the bitmaps which can be affected by a change. Must be called after the change is applied or reverted.
+     */
+    public void invalidate(Project project, Change change) {
+        Optional<Set<String>> modifiedColumns = change.getModifiedColumns(project);
+        synchronized (this) {
+            _version++;
+            if (modifiedColumns.isPresent()) {
+                _bitmaps.values().removeIf(cached -> cached.dependsOn(modifiedColumns.get()));
+            } else {
+                _bitmaps.clear();
+            }
+        }
+    }
+
+    /**
+     * Drops all cached bitmaps.
+     */
+    public synchronized void clear() {
+        _version++;
+        _bitmaps.clear();
+    }
+
+    synchronized int size() {
+        return _bitmaps.size();
+    }
+
+    private synchronized void store(String key, long version, CachedBitmap bitmap) {
+        if (key != null && version == _version) {
+            _bitmaps.put(key, bitmap);
+        }
+    }
+
+    private static String getKey(String prefix, FacetConfig config) {
+        if (!config.isCacheable()) {
+            return null;
+        }
+        try {
+            return prefix + config.getClass().getName() + ParsingUtilities.mapper.writeValueAsString(config);
+        } catch (JsonProcessingException e) {
+            // not cacheable
+            return null;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+
+package com.google.refine.browsing.util;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import com.google.refine.browsing.RecordFilter;
+import com.google.refine.browsing.RowFilter;
+import com.google.refine.model.Project;
+
+/**
+ * Evaluates row and record filters over a whole project and stores the matching rows or records in a bitmap. The
+ * project is split into fixed-size chunks which are evaluated on the common fork-join pool, each chunk writing to its
+ * own range of words of the bitmap.
+ */
+public class FilterBitmaps {
+
+    // number of rows or records evaluated by a single task, a multiple of 64 so that chunks do not share words
+    static final int CHUNK_SIZE = 4096;
+
+    private FilterBitmaps() {
+    }
+
+    /**
+     * @return the set of row indices accepted by the filter
+     */
+    public static BitSet matchRows(Project project, RowFilter filter, boolean parallel) {
+        int count = project.rows.size();
+        long[] words = new long[wordCount(count)];
+        chunks(count, parallel).forEach(chunk -> {
+            int to = Math.min(count, chunk + CHUNK_SIZE);
+            for (int rowIndex = chunk; rowIndex < to; rowIndex++) {
+                if (filter.filterRow(project, rowIndex, project.rows.get(rowIndex))) {
+                    words[rowIndex >> 6] |= 1L << rowIndex;
+                }
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * @return the set of record indices accepted by the filter
+     */
+    public static BitSet matchRecords(Project project, RecordFilter filter, boolean parallel) {
+        int count = project.recordModel.getRecordCount();
+        long[] words = new long[wordCount(count)];
+        chunks(count, parallel).forEach(chunk -> {
+            int to = Math.min(count, chunk + CHUNK_SIZE);
+            for (int recordIndex = chunk; recordIndex < to; recordIndex++) {
+                if (filter.filterRecord(project, project.recordModel.getRecord(recordIndex))) {
+                    words[recordIndex >> 6] |= 1L << recordIndex;
+                }
+            }
+        });
+        return BitSet.valueOf(words);
+    }
+
+    /**
+     * Combines the bitmaps of all filters but one.
+     *
+     * @param matches
+     *            one bitmap per filter, null for filters which accept everything
+     * @param except
+     *            the index of the bitmap to leave out, or -1 to combine all of them
+     * @param count
+     *            the total number of rows or records
+     * @return the rows or records matched by all the bitmaps considered
+     */
+    public static BitSet intersect(List<BitSet> matches, int except, int count) {
+        BitSet result = new BitSet(count);
+        result.set(0, count);
+        for (int i = 0; i < matches.size(); i++) {
+            BitSet match = matches.get(i);
+            if (i != except && match != null) {
+                result.and(match);
+            }
+        }
+        return result;
+    }
+
+    private static int wordCount(int count) {
+        return (count + 63) >> 6;
+    }
+
+    private static IntStream chunks(int count, boolean parallel) {
+        IntStream chunks = IntStream.range(0, (count + CHUNK_SIZE - 1) / CHUNK_SIZE).map(i -> i * CHUNK_SIZE);
+        return parallel ? chunks.parallel() : chunks;
+    }
+}
@@ -154,10 +154,20 @@ public abstract class Command {
             throw new IllegalArgumentException("parameter 'project' should not be null");
         }
 
+        return getEngine(getEngineConfig(request), project);
+    }
+
+    /**
+     * Reconstructs the browsing engine from a configuration already read with
+     * {@link #getEngineConfig(HttpServletRequest)}.
+     *
+     * @param config
+     *            the configuration of the engine, or null for an engine without facets
+     */
+    static protected Engine getEngine(EngineConfig config, Project project) {
         Engine engine = new Engine(project);
-        EngineConfig c = getEngineConfig(request);
-        if (c != null) {
-            engine.initializeFromConfig(c);
+        if (config != null) {
+            engine.initializeFromConfig(config);
         }
         return engine;
     }
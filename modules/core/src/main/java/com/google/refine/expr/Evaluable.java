@@ -113,4 +113,34 @@ public interface Evaluable {
         return this;
     }
 
+    /**
+     * Returns the names of the variables this expression reads from its bindings, such as "value" or "cells". Like
+     * {@link #getColumnDependencies(Optional)}, this is a safe approximation: the expression does not read any other
+     * variable than the ones returned.
+     *
+     * @return {@link Optional#empty()} if the variables could not be isolated, which is the default
+     */
+    public default Optional<Set<String>> getVariableDependencies() {
+        return Optional.empty();
+    }
+
+    /**
+     * Classifies what the result of this expression depends on, so that it can be safely reused, cached or computed
+     * ahead of time.
+     *
+     * @return {@link Purity#NON_DETERMINISTIC} by default, as nothing is known about the expression
+     */
+    public default Purity getPurity() {
+        return Purity.NON_DETERMINISTIC;
+    }
+
+    /**
+     * Whether this expression can be evaluated by several threads at the same time, each of them with its own bindings.
+     *
+     * @return false by default, as nothing is known about the expression
+     */
+    public default boolean isThreadSafe() {
+        return false;
+    }
+
 }
@@ -0,0 +1,194 @@
+
+package com.google.refine.expr;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Properties;
+
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+/**
+ * Bindings of an expression evaluated on the rows of a project, which can be bound to row after row without allocating
+ * anything.
+ * <p>
+ * The standard variables ("project", "rowIndex", "row", "cells", "cell", "value", "columnName", "true", "false" and
+ * "PI") are stored in fixed slots instead of the underlying hashtable, and the wrappers of the row and cell exposed to
+ * expressions are only created when an expression reads them. Other variables, such as those set by {@link Binder}s or
+ * bound by controls, are stored in the hashtable as usual, so this class can be used wherever {@link Properties}
+ * bindings are expected. The standard variables are not listed when iterating over the hashtable.
+ * <p>
+ * Like other bindings, a context must not be used by several threads at the same time.
+ */
+public class EvaluationContext extends Properties {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final int PROJECT = 0;
+    public static final int ROW_INDEX = 1;
+    public static final int ROW = 2;
+    public static final int CELLS = 3;
+    public static final int CELL = 4;
+    public static final int VALUE = 5;
+    public static final int COLUMN_NAME = 6;
+    public static final int TRUE = 7;
+    public static final int FALSE = 8;
+    public static final int PI = 9;
+    private static final int SLOT_COUNT = 10;
+
+    // markers for variables which are not bound, and for variables computed from the row the first time they are read
+    private static final Object ABSENT = new Object();
+    private static final Object LAZY = new Object();
+
+    private final transient Object[] _slots = new Object[SLOT_COUNT];
+
+    // what lazy variables are computed from
+    private transient Project _project;
+    private transient Row _row;
+    private transient int _rowIndex;
+    private transient String _columnName;
+    private transient Cell _cell;
+
+    public EvaluationContext(Project project) {
+        Arrays.fill(_slots, ABSENT);
+        if (project != null) {
+            _slots[PROJECT] = project;
+        }
+        _slots[TRUE] = true;
+        _slots[FALSE] = false;
+        _slots[PI] = Math.PI;
+    }
+
+    /**
+     * @return the slot of a standard variable, or -1 if the variable is not stored in a slot
+     */
+    public static int slotOf(String name) {
+        switch (name) {
+            case "project":
+                return PROJECT;
+            case "rowIndex":
+                return ROW_INDEX;
+            case "row":
+                return ROW;
+            case "cells":
+                return CELLS;
+            case "cell":
+                return CELL;
+            case "value":
+                return VALUE;
+            case "columnName":
+                return COLUMN_NAME;
+            case "true":
+                return TRUE;
+            case "false":
+                return FALSE;
+            case "PI":
+                return PI;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Binds the variables of a row, as {@link ExpressionUtils#bind(Properties, Row, int, String, Cell)} does.
+     */
+    public void bind(Row row, int rowIndex, String columnName, Cell cell) {
+        Object project = _slots[PROJECT];
+        _project = project instanceof Project ? (Project) project : null;
+        _row = row;
+        _rowIndex = rowIndex;
+        _columnName = columnName;
+        _cell = cell;
+
+        _slots[ROW_INDEX] = LAZY;
+        _slots[ROW] = LAZY;
+        _slots[CELLS] = LAZY;
+        if (columnName != null) {
+            _slots[COLUMN_NAME] = columnName;
+        }
+        if (cell == null) {
+            _slots[CELL] = ABSENT;
+            _slots[VALUE] = ABSENT;
+        } else {
+            _slots[CELL] = LAZY;
+            _slots[VALUE] = cell.value == null ? ABSENT : cell.value;
+        }
+    }
+
+    /**
+     * @param slot
+     *            the slot of a standard variable, as returned by {@link #slotOf(String)}
+     * @return the value of the variable, or null if it is not bound
+     */
+    public Object getSlot(int slot) {
+        Object value = _slots[slot];
+        if (value == LAZY) {
+            value = create(slot);
+            _slots[slot] = value;
+        }
+        return value == ABSENT ? null : value;
+    }
+
+    private Object create(int slot) {
+        switch (slot) {
+            case ROW_INDEX:
+                return _rowIndex;
+            case ROW:
+                return new WrappedRow(_project, _rowIndex, _row);
+            case CELLS:
+                return new CellTuple(_project, _row);
+            case CELL:
+                return new WrappedCell(_project, _columnName, _cell);
+            default:
+                throw new IllegalStateException("Slot " + slot + " cannot be computed");
+        }
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = key instanceof String ? slotOf((String) key) : -1;
+        return slot < 0 ? super.get(key) : getSlot(slot);
+    }
+
+    @Override
+    public Object getOrDefault(Object key, Object defaultValue) {
+        Object value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    @Override
+    public String getProperty(String key) {
+        Object value = get(key);
+        return value instanceof String ? (String) value : super.getProperty(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = key instanceof String ? slotOf((String) key) : -1;
+        return slot < 0 ? super.containsKey(key) : _slots[slot] != ABSENT;
+    }
+
+    @Override
+    public Object put(Object key, Object value) {
+        int slot = key instanceof String ? slotOf((String) key) : -1;
+        if (slot < 0) {
+            return super.put(key, value);
+        }
+        Objects.requireNonNull(value);
+        Object previous = getSlot(slot);
+        _slots[slot] = value;
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = key instanceof String ? slotOf((String) key) : -1;
+        if (slot < 0) {
+            return super.remove(key);
+        }
+        Object previous = getSlot(slot);
+        _slots[slot] = ABSENT;
+        return previous;
+    }
+}
@@ -57,13 +57,8 @@ public class ExpressionUtils {
     }
 
     static public Properties createBindings(Project project) {
-        Properties bindings = new Properties();
-
-        bindings.put("true", true);
-        bindings.put("false", false);
-        bindings.put("PI", Math.PI);
-
-        bindings.put("project", project);
+        // also binds "true", "false", "PI" and "project"
+        Properties bindings = new EvaluationContext(project);
 
         for (Binder binder : s_binders) {
             binder.initializeBindings(bindings, project);
@@ -73,6 +68,18 @@ public class ExpressionUtils {
     }
 
     static public void bind(Properties bindings, Row row, int rowIndex, String columnName, Cell cell) {
+        if (bindings instanceof EvaluationContext) {
+            ((EvaluationContext) bindings).bind(row, rowIndex, columnName, cell);
+        } else {
+            bindProperties(bindings, row, rowIndex, columnName, cell);
+        }
+
+        for (Binder binder : s_binders) {
+            binder.bind(bindings, row, rowIndex, columnName, cell);
+        }
+    }
+
+    static private void bindProperties(Properties bindings, Row row, int rowIndex, String columnName, Cell cell) {
         Project project = (Project) bindings.get("project");
 
         bindings.put("rowIndex", rowIndex);
@@ -94,10 +101,6 @@ public class ExpressionUtils {
                 bindings.put("value", cell.value);
             }
         }
-
-        for (Binder binder : s_binders) {
-            binder.bind(bindings, row, rowIndex, columnName, cell);
-        }
     }
 
     static public boolean isError(Object o) {
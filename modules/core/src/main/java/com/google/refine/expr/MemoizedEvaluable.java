@@ -0,0 +1,140 @@
+
+package com.google.refine.expr;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.google.refine.ProjectManager;
+
+/**
+ * Caches the results of an expression which only depends on the value of the cell it is evaluated on, so that it is
+ * evaluated once per distinct value instead of once per row. This is only done for expressions which are
+ * {@link Purity#PURE} and whose only variable is "value", since their results do not depend on the row or the project.
+ * <p>
+ * The cache is bounded: once it holds {@link #MAX_ENTRIES} values, further values are evaluated without being cached.
+ * It can be used by several threads at the same time, provided the wrapped expression is thread-safe.
+ */
+public class MemoizedEvaluable implements Evaluable {
+
+    public static final String PREFERENCE_KEY = "expressions.memoization";
+
+    static final int MAX_ENTRIES = 10000;
+
+    // stands for null keys and results, which are not supported by ConcurrentHashMap
+    private static final Object NULL = new Object();
+
+    private final Evaluable _evaluable;
+    private final Map<Object, Object> _results = new ConcurrentHashMap<>();
+    private final LongAdder _hits = new LongAdder();
+    private final LongAdder _misses = new LongAdder();
+
+    /**
+     * Expressions are memoized unless disabled in the workspace preferences.
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton == null
+                || ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, true);
+    }
+
+    /**
+     * @return whether the results of the expression only depend on the "value" variable
+     */
+    public static boolean canMemoize(Evaluable evaluable) {
+        Purity purity = evaluable.getPurity();
+        if (purity != Purity.CONSTANT && purity != Purity.PURE) {
+            return false;
+        }
+        Optional<Set<String>> variables = evaluable.getVariableDependencies();
+        return variables.isPresent() && Set.of("value").containsAll(variables.get());
+    }
+
+    /**
+     * @return an expression caching the results of the given one if it can be memoized, or the given expression
+     *         otherwise
+     */
+    public static Evaluable wrap(Evaluable evaluable) {
+        if (evaluable instanceof MemoizedEvaluable || !isEnabled() || !canMemoize(evaluable)) {
+            return evaluable;
+        }
+        return new MemoizedEvaluable(evaluable);
+    }
+
+    MemoizedEvaluable(Evaluable evaluable) {
+        _evaluable = evaluable;
+    }
+
+    @Override
+    public Object evaluate(Properties bindings) {
+        Object value = bindings.get("value");
+        Object key = value == null ? NULL : value;
+        Object result = _results.get(key);
+        if (result != null) {
+            _hits.increment();
+            return result == NULL ? null : result;
+        }
+        _misses.increment();
+        result = _evaluable.evaluate(bindings);
+        if (_results.size() < MAX_ENTRIES) {
+            _results.put(key, result == null ? NULL : result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of evaluations answered from the cache
+     */
+    public long getHitCount() {
+        return _hits.sum();
+    }
+
+    /**
+     * @return the number of evaluations of the wrapped expression
+     */
+    public long getMissCount() {
+        return _misses.sum();
+    }
+
+    @Override
+    public String getSource() {
+        return _evaluable.getSource();
+    }
+
+    @Override
+    public String getLanguagePrefix() {
+        return _evaluable.getLanguagePrefix();
+    }
+
+    @Override
+    public Optional<Set<String>> getColumnDependencies(Optional<String> baseColumn) {
+        return _evaluable.getColumnDependencies(baseColumn);
+    }
+
+    @Override
+    public Evaluable renameColumnDependencies(Map<String, String> substitutions) {
+        return _evaluable.renameColumnDependencies(substitutions);
+    }
+
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        return _evaluable.getVariableDependencies();
+    }
+
+    @Override
+    public Purity getPurity() {
+        return _evaluable.getPurity();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return _evaluable.isThreadSafe();
+    }
+
+    @Override
+    public String toString() {
+        return _evaluable.toString();
+    }
+}
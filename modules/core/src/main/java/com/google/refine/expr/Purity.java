@@ -0,0 +1,39 @@
+
+package com.google.refine.expr;
+
+/**
+ * Classification of expressions according to what their result depends on, from the most to the least predictable. It
+ * tells whether results can be computed ahead of time, reused across rows or cached across requests.
+ */
+public enum Purity {
+
+    /**
+     * The expression does not read its bindings and always evaluates to the same value, which can be computed once.
+     */
+    CONSTANT,
+
+    /**
+     * The result of the expression only depends on the row, cell and variables it is evaluated with.
+     */
+    PURE,
+
+    /**
+     * The expression can read other rows of the project, for instance to count facet choices. Its results remain valid
+     * as long as the project is not modified.
+     */
+    PROJECT_DEPENDENT,
+
+    /**
+     * The expression can return different results for the same project, for instance because it reads the clock, other
+     * projects or the workspace preferences.
+     */
+    NON_DETERMINISTIC;
+
+    /**
+     * @return the least predictable of both classifications, which applies to an expression combining sub-expressions
+     *         of both kinds
+     */
+    public Purity combine(Purity other) {
+        return compareTo(other) >= 0 ? this : other;
+    }
+}
@@ -0,0 +1,54 @@
+
+package com.google.refine.history;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.model.BinaryRowFormat;
+import com.google.refine.util.Pool;
+
+/**
+ * A change which can also be saved in a compact binary form, for changes which can be very large such as those
+ * modifying all cells of a column. Cells are written with a {@link BinaryRowFormat.Writer}, so that repeated strings
+ * are written once and recons are referred to by id in the pool.
+ * <p>
+ * Classes implementing this interface must also have a static method {@code loadBinary(DataInputStream, Pool)} reading
+ * the change back, in addition to the {@code load(LineNumberReader, Pool)} method of all changes, which is still used
+ * for change files saved in the text format. Subclasses of binary changes are saved in the text format unless they
+ * declare their own {@code loadBinary} method, as the one they inherit would not read their own fields.
+ */
+public interface BinaryChange extends Change {
+
+    public static final String PREFERENCE_KEY = "history.binaryChanges";
+
+    /**
+     * @return whether changes which support it should be saved in their binary form, which is only the case if enabled
+     *         by the {@link #PREFERENCE_KEY} preference, since versions which do not support it cannot undo them
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton != null
+                && ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, false);
+    }
+
+    /**
+     * @return the static method reading changes of the given class from their binary form, or null if the class does
+     *         not declare one itself
+     */
+    public static Method getLoadMethod(Class<?> klass) {
+        try {
+            Method method = klass.getDeclaredMethod("loadBinary", DataInputStream.class, Pool.class);
+            return Modifier.isStatic(method.getModifiers()) ? method : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Writes the change, adding the recons it refers to to the pool.
+     */
+    public void saveBinary(DataOutputStream out, Pool pool) throws IOException;
+}
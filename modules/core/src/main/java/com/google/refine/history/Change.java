@@ -35,7 +35,9 @@ package com.google.refine.history;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.model.Project;
 
@@ -51,4 +53,17 @@ public interface Change {
     public void revert(Project project);
 
     public void save(Writer writer, Properties options) throws IOException;
+
+    /**
+     * If this change only modifies the contents of existing cells, without adding, removing or reordering any rows or
+     * columns, returns the names of the columns it modifies. This lets caches of data derived from other columns
+     * survive the change.
+     *
+     * @param project
+     *            the project the change is applied to
+     * @return {@link Optional#empty()} if the change can affect anything in the project, which is the safe default
+     */
+    public default Optional<Set<String>> getModifiedColumns(Project project) {
+        return Optional.empty();
+    }
 }
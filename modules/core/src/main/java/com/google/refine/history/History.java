@@ -33,6 +33,10 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.history;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -51,6 +55,7 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.RefineServlet;
+import com.google.refine.model.BinaryRowFormat;
 import com.google.refine.model.Project;
 import com.google.refine.util.Pool;
 
@@ -108,11 +113,54 @@ public class History {
         change.save(writer, options);
     }
 
+    /**
+     * Reads a change written by {@link #writeOneBinaryChange(OutputStream, BinaryChange, Pool)}.
+     */
+    static public Change readOneBinaryChange(InputStream in, Pool pool) throws Exception {
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != BINARY_CHANGE_MAGIC) {
+            throw new IOException("Not a binary change stream");
+        }
+        long version = BinaryRowFormat.readVarLong(data);
+        if (version != BINARY_CHANGE_VERSION) {
+            throw new IOException("Unsupported binary change format version " + version);
+        }
+        /* String version = */ data.readUTF();
+
+        String className = data.readUTF();
+        Class<? extends Change> klass = getChangeClass(className);
+
+        Method load = BinaryChange.getLoadMethod(klass);
+        if (load == null) {
+            throw new IOException("Change class " + className + " cannot be read from its binary form");
+        }
+
+        return (Change) load.invoke(null, data, pool);
+    }
+
+    /**
+     * Writes a change in its binary form, preceded by a magic number and a format version, so that the encoding can
+     * evolve, followed by the version of OpenRefine and the class of the change like the text form.
+     */
+    static public void writeOneBinaryChange(OutputStream out, BinaryChange change, Pool pool) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(BINARY_CHANGE_MAGIC);
+        BinaryRowFormat.writeVarLong(data, BINARY_CHANGE_VERSION);
+        data.writeUTF(RefineServlet.VERSION);
+        data.writeUTF(change.getClass().getName());
+
+        change.saveBinary(data, pool);
+        data.flush();
+    }
+
     @SuppressWarnings("unchecked")
     static public Class<? extends Change> getChangeClass(String className) throws ClassNotFoundException {
         return (Class<? extends Change>) RefineServlet.getClass(className);
     }
 
+    static final int BINARY_CHANGE_MAGIC = 0x4f524301; // "ORC" followed by 1
+    static final int BINARY_CHANGE_VERSION = 1;
+
     protected long _projectID;
     @JsonProperty("past")
     protected List<HistoryEntry> _pastEntries; // done changes, can be undone
@@ -145,18 +193,60 @@ public class History {
                 List<HistoryEntry> futureEntries = _futureEntries;
                 _futureEntries = new ArrayList<HistoryEntry>();
 
-                for (HistoryEntry entry2 : futureEntries) {
-                    try {
-                        // remove residual data on disk
-                        entry2.delete();
-                    } catch (Exception e) {
-                        e.printStackTrace();
+                HistoryJournal journal = ProjectManager.singleton.getHistoryJournal(_projectID);
+                if (journal != null) {
+                    // replaying the journal undoes them until the project is saved again
+                    journal.entriesDiscarded(futureEntries);
+                } else {
+                    for (HistoryEntry entry2 : futureEntries) {
+                        try {
+                            // remove residual data on disk
+                            entry2.delete();
+                        } catch (Exception e) {
+                            e.printStackTrace();
+                        }
                     }
                 }
+
+                if (journal != null) {
+                    journal.entryAdded(entry);
+                }
             }
         }
     }
 
+    /**
+     * Adds an entry recorded in the {@link HistoryJournal} of the project while it is loaded, unless it is already in
+     * the history. This is the case for entries added while the project was being saved, which can be recorded in the
+     * journal after the point where the saved project starts to replay it.
+     *
+     * @param project
+     *            the project being loaded, which is not registered in the project manager yet
+     * @return the future entries discarded by the entry, whose changes are left to the journal to delete
+     */
+    synchronized public List<HistoryEntry> replayEntry(Project project, HistoryEntry entry) {
+        if (getEntry(entry.id) != null) {
+            return new ArrayList<HistoryEntry>();
+        }
+        entry.apply(project);
+        _pastEntries.add(entry);
+
+        List<HistoryEntry> futureEntries = _futureEntries;
+        _futureEntries = new ArrayList<HistoryEntry>();
+        return futureEntries;
+    }
+
+    /**
+     * Undoes or redoes up to an entry, as recorded in the {@link HistoryJournal} of the project while it is loaded.
+     * Like {@link #undoRedo(long)}, this has no effect if the entry is already the last done one.
+     *
+     * @param project
+     *            the project being loaded, which is not registered in the project manager yet
+     */
+    synchronized public void replayUndoRedo(Project project, long lastDoneEntryID) {
+        moveTo(project, lastDoneEntryID, false);
+    }
+
     protected void setModified() {
         // Refresh shadow copy of row count (and modified time as a side effect)
         int rowCount = ProjectManager.singleton.getProject(_projectID).rows.size();
@@ -174,20 +264,29 @@ public class History {
     }
 
     synchronized public void undoRedo(long lastDoneEntryID) {
+        moveTo(ProjectManager.singleton.getProject(_projectID), lastDoneEntryID, true);
+
+        HistoryJournal journal = ProjectManager.singleton.getHistoryJournal(_projectID);
+        if (journal != null) {
+            journal.undoneOrRedone(lastDoneEntryID);
+        }
+    }
+
+    private void moveTo(Project project, long lastDoneEntryID, boolean modify) {
         if (lastDoneEntryID == 0) {
             // undo all the way back to the start of the project
-            undo(_pastEntries.size());
+            undo(project, _pastEntries.size(), modify);
         } else {
             for (int i = 0; i < _pastEntries.size(); i++) {
                 if (_pastEntries.get(i).id == lastDoneEntryID) {
-                    undo(_pastEntries.size() - i - 1);
+                    undo(project, _pastEntries.size() - i - 1, modify);
                     return;
                 }
             }
 
             for (int i = 0; i < _futureEntries.size(); i++) {
                 if (_futureEntries.get(i).id == lastDoneEntryID) {
-                    redo(i + 1);
+                    redo(project, i + 1, modify);
                     return;
                 }
             }
@@ -235,14 +334,18 @@ public class History {
     }
 
     protected void undo(int times) {
-        Project project = ProjectManager.singleton.getProject(_projectID);
+        undo(ProjectManager.singleton.getProject(_projectID), times, true);
+    }
 
+    private void undo(Project project, int times, boolean modify) {
         while (times > 0 && _pastEntries.size() > 0) {
             HistoryEntry entry = _pastEntries.get(_pastEntries.size() - 1);
 
             entry.revert(project);
 
-            setModified();
+            if (modify) {
+                setModified();
+            }
             times--;
 
             _pastEntries.remove(_pastEntries.size() - 1);
@@ -251,14 +354,18 @@ public class History {
     }
 
     protected void redo(int times) {
-        Project project = ProjectManager.singleton.getProject(_projectID);
+        redo(ProjectManager.singleton.getProject(_projectID), times, true);
+    }
 
+    private void redo(Project project, int times, boolean modify) {
         while (times > 0 && _futureEntries.size() > 0) {
             HistoryEntry entry = _futureEntries.get(0);
 
             entry.apply(project);
 
-            setModified();
+            if (modify) {
+                setModified();
+            }
             times--;
 
             _pastEntries.add(entry);
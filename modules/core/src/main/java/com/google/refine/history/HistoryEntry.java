@@ -159,7 +159,10 @@ public class HistoryEntry {
         }
 
         synchronized (project) {
+            // changes modify rows in place
+            project.materializeRows();
             getChange().apply(project);
+            project.getFilterBitmapCache().invalidate(project, getChange());
 
             // When a change is applied, it can hang on to old data (in order to be able
             // to revert later). Hence, we need to save the change out.
@@ -170,6 +173,7 @@ public class HistoryEntry {
                 e.printStackTrace();
 
                 getChange().revert(project);
+                project.getFilterBitmapCache().invalidate(project, getChange());
 
                 throw new RuntimeException("Failed to apply change", e);
             }
@@ -180,7 +184,9 @@ public class HistoryEntry {
         if (getChange() == null) {
             _manager.loadChange(this);
         }
+        project.materializeRows();
         getChange().revert(project);
+        project.getFilterBitmapCache().invalidate(project, getChange());
     }
 
     static public HistoryEntry load(Project project, String s) throws IOException {
@@ -0,0 +1,32 @@
+
+package com.google.refine.history;
+
+import java.util.List;
+
+import com.google.refine.model.Project;
+
+/**
+ * Records the changes made to the history of a project as they happen, so that the project does not need to be saved
+ * entirely after each of them. When the project is loaded, the changes recorded since it was last saved are replayed
+ * with {@link History#replayEntry(Project, HistoryEntry)} and {@link History#replayUndoRedo(Project, long)}.
+ *
+ * @see com.google.refine.ProjectManager#getHistoryJournal(long)
+ */
+public interface HistoryJournal {
+
+    /**
+     * Records an entry added to the history, after it was applied to the project and its change was saved.
+     */
+    public void entryAdded(HistoryEntry entry);
+
+    /**
+     * Records an undo or redo up to the given entry, or to the start of the project if the id is 0.
+     */
+    public void undoneOrRedone(long lastDoneEntryID);
+
+    /**
+     * Takes over the deletion of the changes of future entries discarded by a new entry, which the journal may still
+     * need to undo them when it is replayed, until the project is saved entirely.
+     */
+    public void entriesDiscarded(List<HistoryEntry> entries);
+}
@@ -105,6 +105,7 @@ import com.google.refine.ProjectMetadata;
 import com.google.refine.importing.ImportingManager.Format;
 import com.google.refine.importing.UrlRewriter.Result;
 import com.google.refine.model.Project;
+import com.google.refine.process.ProcessExecutor;
 import com.google.refine.util.HttpClient;
 import com.google.refine.util.JSONUtilities;
 import com.google.refine.util.ParsingUtilities;
@@ -1220,14 +1221,8 @@ public class ImportingUtilities {
             createProjectSynchronously(
                     job, format, optionObj, exceptions, record, project);
         } else {
-            new Thread() {
-
-                @Override
-                public void run() {
-                    createProjectSynchronously(
-                            job, format, optionObj, exceptions, record, project);
-                }
-            }.start();
+            ProcessExecutor.getDefault().submit(() -> createProjectSynchronously(
+                    job, format, optionObj, exceptions, record, project), ProcessExecutor.Priority.INTERACTIVE);
         }
         return project.id;
     }
@@ -0,0 +1,158 @@
+
+package com.google.refine.io;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.preference.PreferenceStore;
+
+/**
+ * Compresses the archives of the workspace: the data files of projects, the files of their changes and project exports.
+ * Depending on the {@link #THREADS_PREFERENCE} preference, data is compressed on several threads with a
+ * {@link ParallelDeflaterOutputStream}, which produces the same formats as the single-threaded zip and gzip streams so
+ * that archives can be read by any version. The threads are shared by all compressions, and their number follows the
+ * preference.
+ */
+public class ArchiveCompression {
+
+    public static final String LEVEL_PREFERENCE = "archives.compressionLevel";
+    public static final String THREADS_PREFERENCE = "archives.compressionThreads";
+
+    /**
+     * Compression threads used unless set otherwise in the preferences: saves and exports run alongside the other
+     * processes of the workspace, so only a few cores are used for them.
+     */
+    static final int DEFAULT_THREADS = Math.min(2, Runtime.getRuntime().availableProcessors());
+
+    private static ExecutorService executor;
+
+    private final int _level;
+    private final int _threads;
+
+    /**
+     * Functional interface writing the content of a zip entry.
+     */
+    @FunctionalInterface
+    public interface EntryWriter {
+
+        public void write(OutputStream out) throws IOException;
+    }
+
+    /**
+     * Zip archive to which compressed entries are added one after the other.
+     */
+    public interface ZipWriter extends Closeable {
+
+        public void putEntry(String name, EntryWriter writer) throws IOException;
+    }
+
+    /**
+     * @return the compression set in the workspace preferences, using {@link #DEFAULT_THREADS} threads by default
+     */
+    public static ArchiveCompression getDefault() {
+        int level = Deflater.DEFAULT_COMPRESSION;
+        int threads = DEFAULT_THREADS;
+        PreferenceStore preferences = ProjectManager.singleton == null ? null : ProjectManager.singleton.getPreferenceStore();
+        if (preferences != null) {
+            level = preferences.getInteger(LEVEL_PREFERENCE, level);
+            threads = preferences.getInteger(THREADS_PREFERENCE, threads);
+        }
+        return new ArchiveCompression(level, threads);
+    }
+
+    /**
+     * @param level
+     *            the compression level, from 0 to 9 or -1 for the default level of deflate
+     * @param threads
+     *            the number of threads compressing a stream, 1 to compress it on the thread writing it
+     */
+    public ArchiveCompression(int level, int threads) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level: " + level);
+        }
+        _level = level;
+        _threads = Math.max(1, threads);
+    }
+
+    private static synchronized ExecutorService getExecutor(int threads) {
+        if (executor == null) {
+            AtomicInteger threadCount = new AtomicInteger();
+            ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), runnable -> {
+                        Thread thread = new Thread(runnable, "refine-compression-" + threadCount.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+            pool.allowCoreThreadTimeOut(true);
+            executor = pool;
+        } else {
+            // the threads are shared by the compressions of all streams, and resized when the preference changes
+            ThreadPoolExecutor pool = (ThreadPoolExecutor) executor;
+            if (threads > pool.getMaximumPoolSize()) {
+                pool.setMaximumPoolSize(threads);
+                pool.setCorePoolSize(threads);
+            } else if (threads < pool.getMaximumPoolSize()) {
+                pool.setCorePoolSize(threads);
+                pool.setMaximumPoolSize(threads);
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Wraps a stream to compress it in the gzip format. Closing the returned stream closes the wrapped one.
+     */
+    public OutputStream createGzipOutputStream(OutputStream out) throws IOException {
+        if (_threads > 1) {
+            return new ParallelDeflaterOutputStream(out, _level, _threads, getExecutor(_threads), true);
+        }
+        return new GZIPOutputStream(out) {
+
+            {
+                def.setLevel(_level);
+            }
+        };
+    }
+
+    /**
+     * Creates a zip archive. When compressing on several threads, entries are compressed straight into the archive.
+     */
+    public ZipWriter createZipWriter(File file) throws IOException {
+        if (_threads > 1) {
+            return new ParallelZipOutputStream(file, _level, _threads, getExecutor(_threads));
+        }
+        ZipArchiveOutputStream out = new ZipArchiveOutputStream(file);
+        out.setLevel(_level);
+        return new ZipWriter() {
+
+            @Override
+            public void putEntry(String name, EntryWriter writer) throws IOException {
+                out.putArchiveEntry(new ZipArchiveEntry(name));
+                try {
+                    writer.write(CloseShieldOutputStream.wrap(out));
+                } finally {
+                    out.closeArchiveEntry();
+                }
+            }
+
+            @Override
+            public void close() throws IOException {
+                out.close();
+            }
+        };
+    }
+}
@@ -34,16 +34,16 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 package com.google.refine.io;
 
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Writer;
 import java.util.Properties;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.history.BinaryChange;
+import com.google.refine.history.Change;
 import com.google.refine.history.History;
 import com.google.refine.history.HistoryEntry;
 import com.google.refine.history.HistoryEntryManager;
@@ -96,8 +96,13 @@ public class FileHistoryEntryManager implements HistoryEntryManager {
                         zipFile.getInputStream(poolEntry)));
             } // else, it's a legacy project file
 
-            historyEntry.setChange(History.readOneChange(
-                    zipFile.getInputStream(zipFile.getEntry("change.txt")), pool));
+            ZipEntry binaryEntry = zipFile.getEntry("change.bin");
+            if (binaryEntry != null) {
+                historyEntry.setChange(History.readOneBinaryChange(zipFile.getInputStream(binaryEntry), pool));
+            } else {
+                historyEntry.setChange(History.readOneChange(
+                        zipFile.getInputStream(zipFile.getEntry("change.txt")), pool));
+            }
         } finally {
             zipFile.close();
         }
@@ -112,27 +117,26 @@ public class FileHistoryEntryManager implements HistoryEntryManager {
     }
 
     protected void saveChange(HistoryEntry historyEntry, File file) throws Exception {
-        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
-        try {
+        ArchiveCompression compression = ArchiveCompression.getDefault();
+        try (ArchiveCompression.ZipWriter out = compression.createZipWriter(file)) {
             Pool pool = new Pool();
 
-            out.putNextEntry(new ZipEntry("change.txt"));
-            try {
-                History.writeOneChange(out, historyEntry.getChange(), pool);
-            } catch (Exception e) {
-                e.printStackTrace();
-            } finally {
-                out.closeEntry();
-            }
-
-            out.putNextEntry(new ZipEntry("pool.txt"));
-            try {
-                pool.save(out);
-            } finally {
-                out.closeEntry();
-            }
-        } finally {
-            out.close();
+            Change change = historyEntry.getChange();
+            boolean binary = change instanceof BinaryChange && BinaryChange.isEnabled()
+                    && BinaryChange.getLoadMethod(change.getClass()) != null;
+            out.putEntry(binary ? "change.bin" : "change.txt", entry -> {
+                try {
+                    if (binary) {
+                        History.writeOneBinaryChange(entry, (BinaryChange) change, pool);
+                    } else {
+                        History.writeOneChange(entry, change, pool);
+                    }
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            });
+
+            out.putEntry("pool.txt", pool::save);
         }
     }
 
@@ -42,24 +42,28 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.io.FileUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.history.HistoryEntryManager;
+import com.google.refine.history.HistoryJournal;
 import com.google.refine.model.Project;
+import com.google.refine.model.recon.ReconCheckpoint;
 import com.google.refine.preference.PreferenceStore;
 import com.google.refine.preference.TopList;
 import com.google.refine.util.LocaleUtils;
@@ -76,6 +80,11 @@ public class FileProjectManager extends ProjectManager {
 
     protected static boolean projectRemoved = false;
 
+    /**
+     * Journals of the projects which were loaded or saved, holding the sequence numbers of their records.
+     */
+    private final Map<Long, ProjectJournal> _journals = new ConcurrentHashMap<>();
+
     final static Logger logger = LoggerFactory.getLogger("FileProjectManager");
 
     static public synchronized void initialize(File dir) {
@@ -96,6 +105,9 @@ public class FileProjectManager extends ProjectManager {
             return;
         }
 
+        // rows extracted by a previous run which did not terminate properly
+        FileUtils.deleteQuietly(new File(_workspaceDir, ProjectUtilities.ROWS_CACHE_DIR));
+
         load();
     }
 
@@ -148,6 +160,7 @@ public class FileProjectManager extends ProjectManager {
 
             if (metadata != null) {
                 _projectsMetadata.put(projectID, metadata);
+                metadataChanged();
                 addProjectTags(metadata.getTags());
                 return true;
             } else {
@@ -258,9 +271,28 @@ public class FileProjectManager extends ProjectManager {
 
     @Override
     protected void saveProject(Project project) throws IOException {
+        if (ProjectJournal.isEnabled() && !getJournal(project.id).needsCompaction()
+                && new File(getProjectDir(project.id), ProjectUtilities.DATA_ZIP).exists()) {
+            // the changes made since the project was last saved entirely are recorded in its journal
+            project.setLastSave();
+            return;
+        }
         ProjectUtilities.save(project);
     }
 
+    /**
+     * Gets the journal of a project, which is used to replay it when loading the project and is compacted when saving
+     * the project whether or not new records are appended to it.
+     */
+    public ProjectJournal getJournal(long projectID) {
+        return _journals.computeIfAbsent(projectID, id -> new ProjectJournal(getProjectDir(id)));
+    }
+
+    @Override
+    public HistoryJournal getHistoryJournal(long projectID) {
+        return ProjectJournal.isEnabled() ? getJournal(projectID) : null;
+    }
+
     @Override
     public Project loadProject(long id) {
         return ProjectUtilities.load(getProjectDir(id), id);
@@ -364,11 +396,13 @@ public class FileProjectManager extends ProjectManager {
             }
 
             removeProject(projectID);
+            _journals.remove(projectID);
 
             File dir = getProjectDir(projectID);
             if (dir.exists()) {
                 deleteDir(dir);
             }
+            ReconCheckpoint.deleteCheckpoints(_workspaceDir, projectID);
         }
         projectRemoved = true;
         saveWorkspace();
@@ -401,6 +435,7 @@ public class FileProjectManager extends ProjectManager {
         logger.info("Loading workspace: {}", file.getAbsolutePath());
 
         _projectsMetadata.clear();
+        metadataChanged();
 
         if (file.exists() || file.canRead()) {
             try {
@@ -457,7 +492,7 @@ public class FileProjectManager extends ProjectManager {
     }
 
     public static void gzipTarToOutputStream(Project project, OutputStream os) throws IOException {
-        GZIPOutputStream gos = new GZIPOutputStream(os);
+        OutputStream gos = ArchiveCompression.getDefault().createGzipOutputStream(os);
         TarArchiveOutputStream tos = new TarArchiveOutputStream(gos);
         try {
             ProjectManager.singleton.exportProject(project.id, tos);
@@ -486,6 +521,7 @@ public class FileProjectManager extends ProjectManager {
             mergeEmptyUserMetadata(metadata);
 
             _projectsMetadata.put(id, metadata);
+            metadataChanged();
 
             if (metadata != null) {
                 addProjectTags(metadata.getTags());
@@ -0,0 +1,209 @@
+
+package com.google.refine.io;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Compresses a stream with deflate on several threads, like pigz: the input is split into blocks which are compressed
+ * concurrently, each with the end of the previous block as dictionary so that the compression ratio is close to the one
+ * of a single deflater. The compressed blocks are flushed to a byte boundary and written in order, forming a single
+ * deflate stream which can be read by any inflater.
+ * <p>
+ * The stream is written either as raw deflate data, for instance to be stored as a zip entry, or in the gzip format.
+ */
+public class ParallelDeflaterOutputStream extends OutputStream {
+
+    static final int BLOCK_SIZE = 128 * 1024;
+    static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final OutputStream _out;
+    private final int _level;
+    private final boolean _gzip;
+    private final ExecutorService _executor;
+    private final int _maxPendingBlocks;
+    private final Deque<Future<byte[]>> _pendingBlocks = new ArrayDeque<>();
+    private final CRC32 _crc = new CRC32();
+
+    private byte[] _block = new byte[BLOCK_SIZE];
+    private int _blockLength = 0;
+    private byte[] _dictionary = null;
+    private long _bytesIn = 0;
+    private long _bytesOut = 0;
+    private boolean _closed = false;
+
+    /**
+     * @param level
+     *            the compression level, as for {@link Deflater#setLevel(int)}
+     * @param threads
+     *            the number of blocks compressed at once, which should not exceed the threads of the executor
+     * @param gzip
+     *            true to write a gzip header and trailer around the compressed data
+     */
+    public ParallelDeflaterOutputStream(OutputStream out, int level, int threads, ExecutorService executor, boolean gzip)
+            throws IOException {
+        _out = out;
+        _level = level;
+        _gzip = gzip;
+        _executor = executor;
+        // lets the blocks of the next threads be read while the ones of the current threads are compressed
+        _maxPendingBlocks = 2 * Math.max(1, threads);
+        if (gzip) {
+            _out.write(GZIP_HEADER);
+            _bytesOut += GZIP_HEADER.length;
+        }
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (_closed) {
+            throw new IOException("Stream closed");
+        }
+        _crc.update(b, off, len);
+        _bytesIn += len;
+        while (len > 0) {
+            int length = Math.min(len, BLOCK_SIZE - _blockLength);
+            System.arraycopy(b, off, _block, _blockLength, length);
+            _blockLength += length;
+            off += length;
+            len -= length;
+            if (_blockLength == BLOCK_SIZE) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        byte[] block = _block;
+        int length = _blockLength;
+        byte[] dictionary = _dictionary;
+        _pendingBlocks.add(_executor.submit(() -> compress(block, length, dictionary, last)));
+        if (!last) {
+            _dictionary = Arrays.copyOfRange(block, length - DICTIONARY_SIZE, length);
+            _block = new byte[BLOCK_SIZE];
+            _blockLength = 0;
+        }
+        while (_pendingBlocks.size() >= _maxPendingBlocks) {
+            writeFirstPendingBlock();
+        }
+    }
+
+    private byte[] compress(byte[] block, int length, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(_level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(block, 0, length);
+            if (last) {
+                deflater.finish();
+            }
+            byte[] output = new byte[length / 2 + 64];
+            int outputLength = 0;
+            while (true) {
+                if (outputLength == output.length) {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                int count = deflater.deflate(output, outputLength, output.length - outputLength,
+                        last ? Deflater.NO_FLUSH : Deflater.SYNC_FLUSH);
+                outputLength += count;
+                if (last ? deflater.finished() : outputLength < output.length) {
+                    // all input was compressed and flushed to a byte boundary
+                    return Arrays.copyOf(output, outputLength);
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeFirstPendingBlock() throws IOException {
+        Future<byte[]> block = _pendingBlocks.poll();
+        try {
+            byte[] compressed = block.get();
+            _out.write(compressed);
+            _bytesOut += compressed.length;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to compress", e.getCause());
+        }
+    }
+
+    /**
+     * Compresses the remaining input and writes all compressed data, without closing the underlying stream.
+     */
+    public void finish() throws IOException {
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+        try {
+            submitBlock(true);
+            while (!_pendingBlocks.isEmpty()) {
+                writeFirstPendingBlock();
+            }
+        } finally {
+            _pendingBlocks.forEach(block -> block.cancel(false));
+        }
+        if (_gzip) {
+            writeIntLE((int) _crc.getValue());
+            writeIntLE((int) _bytesIn);
+            _bytesOut += 8;
+        }
+    }
+
+    private void writeIntLE(int value) throws IOException {
+        _out.write(value);
+        _out.write(value >>> 8);
+        _out.write(value >>> 16);
+        _out.write(value >>> 24);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            finish();
+        } finally {
+            _out.close();
+        }
+    }
+
+    /**
+     * @return the CRC-32 of the uncompressed data written so far
+     */
+    public long getCrc() {
+        return _crc.getValue();
+    }
+
+    /**
+     * @return the number of uncompressed bytes written so far
+     */
+    public long getBytesIn() {
+        return _bytesIn;
+    }
+
+    /**
+     * @return the number of compressed bytes written to the underlying stream
+     */
+    public long getBytesOut() {
+        return _bytesOut;
+    }
+}
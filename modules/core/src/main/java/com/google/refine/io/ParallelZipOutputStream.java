@@ -0,0 +1,255 @@
+
+package com.google.refine.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.zip.Deflater;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+
+/**
+ * Writes a zip archive whose entries are compressed with a {@link ParallelDeflaterOutputStream} straight into the
+ * archive. The crc and sizes of an entry are only known once it has been compressed, so like
+ * {@link java.util.zip.ZipOutputStream} they are stored after its data in a data descriptor, as well as in the central
+ * directory. The zip64 extensions are only used for the entries and archives which need them.
+ */
+class ParallelZipOutputStream implements ArchiveCompression.ZipWriter {
+
+    private static final int LOCAL_HEADER = 0x04034b50;
+    private static final int DATA_DESCRIPTOR = 0x08074b50;
+    private static final int CENTRAL_HEADER = 0x02014b50;
+    private static final int ZIP64_END = 0x06064b50;
+    private static final int ZIP64_END_LOCATOR = 0x07064b50;
+    private static final int END = 0x06054b50;
+    private static final int ZIP64_EXTRA = 0x0001;
+
+    // values of the fields which are stored in the zip64 records instead
+    private static final long ZIP64_MAGIC = 0xFFFFFFFFL;
+    private static final int ZIP64_MAGIC_COUNT = 0xFFFF;
+
+    // sizes and crc are in the data descriptor, names are in UTF-8
+    private static final int FLAGS = 1 << 3 | 1 << 11;
+    private static final int VERSION = 20;
+    private static final int VERSION_ZIP64 = 45;
+
+    private final CountingOutputStream _out;
+    private final int _level;
+    private final int _threads;
+    private final ExecutorService _executor;
+    private final List<Entry> _entries = new ArrayList<>();
+    private boolean _closed = false;
+
+    private static class Entry {
+
+        final byte[] name;
+        final int time;
+        final long offset;
+        long crc;
+        long size;
+        long compressedSize;
+
+        Entry(byte[] name, int time, long offset) {
+            this.name = name;
+            this.time = time;
+            this.offset = offset;
+        }
+
+        boolean hasZip64Sizes() {
+            return size >= ZIP64_MAGIC || compressedSize >= ZIP64_MAGIC;
+        }
+    }
+
+    /**
+     * @param threads
+     *            the number of blocks of an entry compressed at once, which should not exceed the threads of the
+     *            executor
+     */
+    ParallelZipOutputStream(File file, int level, int threads, ExecutorService executor) throws IOException {
+        _out = new CountingOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+        _level = level;
+        _threads = threads;
+        _executor = executor;
+    }
+
+    @Override
+    public void putEntry(String name, ArchiveCompression.EntryWriter writer) throws IOException {
+        Entry entry = new Entry(name.getBytes(StandardCharsets.UTF_8), dosTime(LocalDateTime.now()), _out.count);
+        ByteBuffer header = buffer(30 + entry.name.length);
+        header.putInt(LOCAL_HEADER)
+                .putShort((short) VERSION)
+                .putShort((short) FLAGS)
+                .putShort((short) Deflater.DEFLATED)
+                .putInt(entry.time)
+                // crc, compressed size and size are in the data descriptor
+                .putInt(0)
+                .putInt(0)
+                .putInt(0)
+                .putShort((short) entry.name.length)
+                .putShort((short) 0)
+                .put(entry.name);
+        write(header);
+
+        ParallelDeflaterOutputStream deflater = new ParallelDeflaterOutputStream(CloseShieldOutputStream.wrap(_out), _level,
+                _threads, _executor, false);
+        try {
+            writer.write(deflater);
+        } finally {
+            deflater.close();
+        }
+        entry.crc = deflater.getCrc();
+        entry.size = deflater.getBytesIn();
+        entry.compressedSize = deflater.getBytesOut();
+
+        boolean zip64 = entry.hasZip64Sizes();
+        ByteBuffer descriptor = buffer(zip64 ? 24 : 16);
+        descriptor.putInt(DATA_DESCRIPTOR).putInt((int) entry.crc);
+        if (zip64) {
+            descriptor.putLong(entry.compressedSize).putLong(entry.size);
+        } else {
+            descriptor.putInt((int) entry.compressedSize).putInt((int) entry.size);
+        }
+        write(descriptor);
+        _entries.add(entry);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (_closed) {
+            return;
+        }
+        _closed = true;
+        try {
+            long offset = _out.count;
+            for (Entry entry : _entries) {
+                writeCentralHeader(entry);
+            }
+            writeEnd(offset, _out.count - offset);
+        } finally {
+            _out.close();
+        }
+    }
+
+    private void writeCentralHeader(Entry entry) throws IOException {
+        boolean zip64Sizes = entry.hasZip64Sizes();
+        boolean zip64Offset = entry.offset >= ZIP64_MAGIC;
+        int extraLength = zip64Sizes || zip64Offset ? 4 + (zip64Sizes ? 16 : 0) + (zip64Offset ? 8 : 0) : 0;
+        short version = (short) (extraLength > 0 ? VERSION_ZIP64 : VERSION);
+        ByteBuffer header = buffer(46 + entry.name.length + extraLength);
+        header.putInt(CENTRAL_HEADER)
+                .putShort(version)
+                .putShort(version)
+                .putShort((short) FLAGS)
+                .putShort((short) Deflater.DEFLATED)
+                .putInt(entry.time)
+                .putInt((int) entry.crc)
+                .putInt((int) (zip64Sizes ? ZIP64_MAGIC : entry.compressedSize))
+                .putInt((int) (zip64Sizes ? ZIP64_MAGIC : entry.size))
+                .putShort((short) entry.name.length)
+                .putShort((short) extraLength)
+                // comment length, disk number, internal and external attributes
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putInt(0)
+                .putInt((int) (zip64Offset ? ZIP64_MAGIC : entry.offset))
+                .put(entry.name);
+        if (extraLength > 0) {
+            header.putShort((short) ZIP64_EXTRA).putShort((short) (extraLength - 4));
+            if (zip64Sizes) {
+                header.putLong(entry.size).putLong(entry.compressedSize);
+            }
+            if (zip64Offset) {
+                header.putLong(entry.offset);
+            }
+        }
+        write(header);
+    }
+
+    private void writeEnd(long offset, long length) throws IOException {
+        int count = _entries.size();
+        if (count >= ZIP64_MAGIC_COUNT || offset >= ZIP64_MAGIC || length >= ZIP64_MAGIC) {
+            long zip64EndOffset = _out.count;
+            ByteBuffer zip64End = buffer(56 + 20);
+            zip64End.putInt(ZIP64_END)
+                    // size of the rest of the record
+                    .putLong(44)
+                    .putShort((short) VERSION_ZIP64)
+                    .putShort((short) VERSION_ZIP64)
+                    // number of this disk and of the disk of the central directory
+                    .putInt(0)
+                    .putInt(0)
+                    .putLong(count)
+                    .putLong(count)
+                    .putLong(length)
+                    .putLong(offset);
+            zip64End.putInt(ZIP64_END_LOCATOR)
+                    .putInt(0)
+                    .putLong(zip64EndOffset)
+                    // total number of disks
+                    .putInt(1);
+            write(zip64End);
+        }
+        ByteBuffer end = buffer(22);
+        end.putInt(END)
+                .putShort((short) 0)
+                .putShort((short) 0)
+                .putShort((short) Math.min(count, ZIP64_MAGIC_COUNT))
+                .putShort((short) Math.min(count, ZIP64_MAGIC_COUNT))
+                .putInt((int) Math.min(length, ZIP64_MAGIC))
+                .putInt((int) Math.min(offset, ZIP64_MAGIC))
+                // comment length
+                .putShort((short) 0);
+        write(end);
+    }
+
+    private static ByteBuffer buffer(int length) {
+        return ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        _out.write(buffer.array(), 0, buffer.position());
+    }
+
+    static int dosTime(LocalDateTime time) {
+        if (time.getYear() < 1980) {
+            return (1 << 21) | (1 << 16);
+        }
+        return (time.getYear() - 1980) << 25 | time.getMonthValue() << 21 | time.getDayOfMonth() << 16
+                | time.getHour() << 11 | time.getMinute() << 5 | time.getSecond() >> 1;
+    }
+
+    /**
+     * Keeps track of the offset in the archive.
+     */
+    private static class CountingOutputStream extends FilterOutputStream {
+
+        long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
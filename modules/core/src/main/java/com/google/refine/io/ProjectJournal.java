@@ -0,0 +1,308 @@
+
+package com.google.refine.io;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.history.HistoryEntry;
+import com.google.refine.history.HistoryJournal;
+import com.google.refine.model.Project;
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * A {@link HistoryJournal} appending the changes to the history of a project to a file of its directory, so that the
+ * whole project only needs to be rewritten once enough changes have been recorded.
+ * <p>
+ * Each record is a line made of a sequence number, the kind of the change and its value, for instance
+ * {@code 12:entry={...}} or {@code 13:undoRedo=1712345678}. The data file of the project stores the sequence number of
+ * the last record it includes, and the records up to it are removed from the journal once it is written. When the
+ * project is loaded, the records which follow are replayed on top of it, or none of them if any fails.
+ * <p>
+ * The changes of the future entries discarded by a new entry are only deleted once the project is saved after it, since
+ * replaying the journal may still undo them until then.
+ */
+public class ProjectJournal implements HistoryJournal {
+
+    final static Logger logger = LoggerFactory.getLogger(ProjectJournal.class);
+
+    public static final String PREFERENCE_KEY = "project.historyJournal";
+    public static final String JOURNAL_FILE = "history.journal";
+    static final String SEQUENCE_ENTRY = "journal.txt";
+
+    /**
+     * Number of records after which the project is saved entirely again, so that the journal stays short to replay.
+     */
+    static final int COMPACTION_THRESHOLD = 100;
+
+    private final File _file;
+    // sequence number of the last record, and of the last record included in the data file of the project
+    private long _sequence;
+    private long _savedSequence;
+    // sequence number of a record which could not be written, until the project is saved after it
+    private long _failedSequence;
+    // entries discarded by the records, to be deleted once the data file includes these records
+    private final List<DiscardedEntries> _discardedEntries = new ArrayList<>();
+
+    /**
+     * @return whether the changes to the history of projects should be recorded in a journal instead of saving the
+     *         projects entirely, which is only the case if enabled by the {@link #PREFERENCE_KEY} preference
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton != null
+                && ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, false);
+    }
+
+    public ProjectJournal(File projectDir) {
+        _file = new File(projectDir, JOURNAL_FILE);
+        try {
+            if (_file.length() > 0) {
+                removeIncompleteRecord();
+            }
+        } catch (IOException e) {
+            logger.error("Could not repair the journal {}", _file, e);
+        }
+        for (Record record : readRecords()) {
+            _sequence = Math.max(_sequence, record.sequence);
+        }
+    }
+
+    /**
+     * Truncates the journal after its last newline, since each record is written with its newline at once: a record
+     * without it was interrupted by a crash, and would otherwise be followed by the next records.
+     */
+    private void removeIncompleteRecord() throws IOException {
+        try (RandomAccessFile file = new RandomAccessFile(_file, "rw")) {
+            long length = file.length();
+            while (length > 0) {
+                file.seek(length - 1);
+                if (file.read() == '\n') {
+                    break;
+                }
+                length--;
+            }
+            if (length < file.length()) {
+                logger.warn("Removing a record interrupted by a crash from the journal {}", _file);
+                file.setLength(length);
+            }
+        }
+    }
+
+    @Override
+    public void entryAdded(HistoryEntry entry) {
+        try {
+            append("entry", ParsingUtilities.saveWriter.writeValueAsString(entry));
+        } catch (IOException e) {
+            logger.error("Could not serialize history entry {}", entry.id, e);
+        }
+    }
+
+    @Override
+    public void undoneOrRedone(long lastDoneEntryID) {
+        append("undoRedo", Long.toString(lastDoneEntryID));
+    }
+
+    @Override
+    public synchronized void entriesDiscarded(List<HistoryEntry> entries) {
+        if (!entries.isEmpty()) {
+            // discarded by the entry recorded next
+            _discardedEntries.add(new DiscardedEntries(_sequence + 1, entries));
+        }
+    }
+
+    private synchronized void append(String kind, String value) {
+        _sequence++;
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(_file, true), StandardCharsets.UTF_8)) {
+            writer.write(_sequence + ":" + kind + "=" + value + "\n");
+        } catch (IOException e) {
+            // the change is only lost if the project is not saved entirely before it is closed
+            logger.error("Could not append to the journal {}", _file, e);
+            _failedSequence = _sequence;
+        }
+    }
+
+    /**
+     * @return the sequence number of the last record, to be stored in the data file of the project when saving it
+     */
+    public synchronized long getSequence() {
+        return _sequence;
+    }
+
+    /**
+     * @return whether the project should be saved entirely, because enough changes were recorded since it was last
+     *         saved or because some could not be recorded
+     */
+    public synchronized boolean needsCompaction() {
+        return _failedSequence > _savedSequence || _sequence - _savedSequence >= COMPACTION_THRESHOLD;
+    }
+
+    /**
+     * Removes the records included in the data file of the project, once it has been written, and deletes the changes
+     * of the entries they discarded.
+     *
+     * @param savedSequence
+     *            the sequence number stored in the data file
+     */
+    public synchronized void compact(long savedSequence) throws IOException {
+        _savedSequence = Math.max(_savedSequence, savedSequence);
+        Iterator<DiscardedEntries> iterator = _discardedEntries.iterator();
+        while (iterator.hasNext()) {
+            DiscardedEntries discarded = iterator.next();
+            if (discarded.sequence <= _savedSequence) {
+                iterator.remove();
+                for (HistoryEntry entry : discarded.entries) {
+                    try {
+                        entry.delete();
+                    } catch (Exception e) {
+                        logger.warn("Could not delete the change of history entry {}", entry.id, e);
+                    }
+                }
+            }
+        }
+        if (!_file.exists()) {
+            return;
+        }
+        List<String> remaining = new ArrayList<>();
+        for (Record record : readRecords()) {
+            if (record.sequence > _savedSequence) {
+                remaining.add(record.line);
+            }
+        }
+        if (remaining.isEmpty()) {
+            Files.delete(_file.toPath());
+            return;
+        }
+        File tempFile = new File(_file.getParentFile(), JOURNAL_FILE + ".temp");
+        Files.write(tempFile.toPath(), remaining, StandardCharsets.UTF_8);
+        Files.move(tempFile.toPath(), _file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Replays the records which follow the data file of a project being loaded. If any of them cannot be replayed, the
+     * journal is set aside so that the project can be loaded again as it was saved, instead of applying the next
+     * records to rows which do not match them.
+     *
+     * @param savedSequence
+     *            the sequence number stored in the data file, 0 for projects saved without a journal
+     * @return whether all the records were replayed, otherwise the project must be loaded again without replaying them
+     */
+    public synchronized boolean replay(Project project, long savedSequence) {
+        _savedSequence = savedSequence;
+        _sequence = Math.max(_sequence, savedSequence);
+        List<DiscardedEntries> discardedEntries = new ArrayList<>();
+        long expected = savedSequence + 1;
+        for (Record record : readRecords()) {
+            if (record.sequence <= savedSequence) {
+                continue;
+            }
+            try {
+                if (record.sequence != expected) {
+                    throw new IOException("Records " + expected + " to " + (record.sequence - 1) + " are missing");
+                }
+                expected++;
+                if ("entry".equals(record.kind)) {
+                    List<HistoryEntry> entries = project.history.replayEntry(project, HistoryEntry.load(project, record.value));
+                    if (!entries.isEmpty()) {
+                        discardedEntries.add(new DiscardedEntries(record.sequence, entries));
+                    }
+                } else if ("undoRedo".equals(record.kind)) {
+                    project.history.replayUndoRedo(project, Long.parseLong(record.value));
+                } else {
+                    throw new IOException("Unknown record " + record.kind);
+                }
+            } catch (Exception e) {
+                logger.error("Could not replay record {} of the journal {}, loading the project as it was last saved",
+                        record.sequence, _file, e);
+                setAside(savedSequence);
+                return false;
+            }
+        }
+        _discardedEntries.addAll(discardedEntries);
+        return true;
+    }
+
+    /**
+     * Moves the journal next to it, where it can be inspected but is not replayed anymore, and starts a new one after
+     * the data file of the project.
+     */
+    private void setAside(long savedSequence) {
+        try {
+            Files.move(_file.toPath(), new File(_file.getParentFile(), JOURNAL_FILE + ".failed").toPath(),
+                    StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error("Could not set aside the journal {}", _file, e);
+        }
+        _sequence = savedSequence;
+        _failedSequence = 0;
+    }
+
+    private List<Record> readRecords() {
+        List<Record> records = new ArrayList<>();
+        if (!_file.exists()) {
+            return records;
+        }
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(_file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int colon = line.indexOf(':');
+                int equal = line.indexOf('=');
+                try {
+                    if (colon <= 0 || equal < colon) {
+                        throw new NumberFormatException();
+                    }
+                    records.add(new Record(Long.parseLong(line.substring(0, colon)), line.substring(colon + 1, equal),
+                            line.substring(equal + 1), line));
+                } catch (NumberFormatException e) {
+                    // corrupted, which makes the replay stop at it
+                    logger.warn("Ignoring invalid record in the journal {}", _file);
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Could not read the journal {}", _file, e);
+        }
+        return records;
+    }
+
+    private static class DiscardedEntries {
+
+        final long sequence;
+        final List<HistoryEntry> entries;
+
+        DiscardedEntries(long sequence, List<HistoryEntry> entries) {
+            this.sequence = sequence;
+            this.entries = entries;
+        }
+    }
+
+    private static class Record {
+
+        final long sequence;
+        final String kind;
+        final String value;
+        final String line;
+
+        Record(long sequence, String kind, String value, String line) {
+            this.sequence = sequence;
+            this.kind = kind;
+            this.value = value;
+            this.line = line;
+        }
+    }
+}
@@ -33,17 +33,25 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.io;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.concurrent.locks.Lock;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
-import java.util.zip.ZipOutputStream;
 
+import com.google.common.util.concurrent.Striped;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.model.BinaryRowFormat;
+import com.google.refine.model.LazyRowList;
 import com.google.refine.model.Project;
 import com.google.refine.util.Pool;
 
@@ -53,15 +61,30 @@ public class ProjectUtilities {
     public static final String DATA_ZIP = "data.zip";
     public static final String DATA_TEMP_ZIP = "data.temp.zip";
     public static final String DATA_OLD_ZIP = "data.old.zip";
+    static final String ROWS_ENTRY = "rows.bin";
+    static final String ROWS_CACHE_DIR = "cache/rows";
 
-    synchronized public static void save(Project project) throws IOException {
-        synchronized (project) {
-            long id = project.id;
+    /**
+     * Saves of the same project are run one at a time, while saves of different projects can run concurrently.
+     */
+    private static final Striped<Lock> SAVE_LOCKS = Striped.lock(64);
+
+    /**
+     * Saves a project to its directory in the workspace. The lock of the project is only held while a snapshot of it is
+     * taken, so that operations on the project are not blocked while the snapshot is written.
+     */
+    public static void save(Project project) throws IOException {
+        long id = project.id;
+        Lock lock = SAVE_LOCKS.get(id);
+        lock.lock();
+        try {
             File dir = ((FileProjectManager) ProjectManager.singleton).getProjectDir(id);
 
             File tempFile = new File(dir, DATA_TEMP_ZIP);
+            ProjectJournal journal = ((FileProjectManager) ProjectManager.singleton).getJournal(id);
+            SavedState saved;
             try {
-                saveToFile(project, tempFile);
+                saved = saveToFile(project, tempFile, journal);
             } catch (IOException e) {
                 logger.warn("Failed to save project {}", id, e);
                 try {
@@ -84,32 +107,72 @@ public class ProjectUtilities {
                 oldFile.delete();
             }
 
-            project.setLastSave();
+            // changes made while the snapshot was written are saved next time
+            project.setLastSave(saved.time);
+            try {
+                journal.compact(saved.journalSequence);
+            } catch (IOException e) {
+                // the records included in the data file are skipped when replaying the journal
+                logger.warn("Failed to compact the journal of project {}", id, e);
+            }
 
             logger.info("Saved project '{}'", id);
+        } finally {
+            lock.unlock();
         }
     }
 
     protected static void saveToFile(Project project, File file) throws IOException {
-        ZipOutputStream out = new ZipOutputStream(new FileOutputStream(file));
-        try {
-            Pool pool = new Pool();
+        saveToFile(project, file, null);
+    }
 
-            out.putNextEntry(new ZipEntry("data.txt"));
-            try {
-                project.saveToOutputStream(out, pool);
-            } finally {
-                out.closeEntry();
+    /**
+     * @param journal
+     *            the journal of the project, whose sequence number at the time of the snapshot is stored in the file,
+     *            or null
+     */
+    private static SavedState saveToFile(Project project, File file, ProjectJournal journal) throws IOException {
+        Pool pool = new Pool();
+        boolean binaryRows = BinaryRowFormat.isEnabled();
+        Project.Snapshot snapshot;
+        long journalSequence;
+        synchronized (project) {
+            // read before taking the snapshot, so that the snapshot includes at least the records up to it
+            journalSequence = journal == null ? 0 : journal.getSequence();
+            snapshot = project.createSnapshot(pool, !binaryRows);
+            if (!snapshot.isDetached()) {
+                saveToFile(snapshot, binaryRows, pool, journal == null ? -1 : journalSequence, file);
+                return new SavedState(snapshot.getTime(), journalSequence);
             }
+        }
+        saveToFile(snapshot, binaryRows, pool, journal == null ? -1 : journalSequence, file);
+        return new SavedState(snapshot.getTime(), journalSequence);
+    }
 
-            out.putNextEntry(new ZipEntry("pool.txt"));
-            try {
-                pool.save(out);
-            } finally {
-                out.closeEntry();
+    private static void saveToFile(Project.Snapshot snapshot, boolean binaryRows, Pool pool, long journalSequence, File file)
+            throws IOException {
+        ArchiveCompression compression = ArchiveCompression.getDefault();
+        try (ArchiveCompression.ZipWriter out = compression.createZipWriter(file)) {
+            out.putEntry("data.txt", snapshot::saveToOutputStream);
+            if (binaryRows) {
+                out.putEntry(ROWS_ENTRY, snapshot::saveRowsToOutputStream);
+            }
+            out.putEntry("pool.txt", pool::save);
+            if (journalSequence >= 0) {
+                out.putEntry(ProjectJournal.SEQUENCE_ENTRY,
+                        entry -> entry.write(("sequence=" + journalSequence + "\n").getBytes(StandardCharsets.UTF_8)));
             }
-        } finally {
-            out.close();
+        }
+    }
+
+    private static class SavedState {
+
+        final Instant time;
+        final long journalSequence;
+
+        SavedState(Instant time, long journalSequence) {
+            this.time = time;
+            this.journalSequence = journalSequence;
         }
     }
 
@@ -133,18 +196,81 @@ public class ProjectUtilities {
             long id) throws IOException {
         ZipFile zipFile = new ZipFile(file);
         try {
-            Pool pool = new Pool();
-            ZipEntry poolEntry = zipFile.getEntry("pool.txt");
-            if (poolEntry != null) {
-                pool.load(zipFile.getInputStream(poolEntry));
-            } // else, it's a legacy project file
-
-            return Project.loadFromInputStream(
-                    zipFile.getInputStream(zipFile.getEntry("data.txt")),
-                    id,
-                    pool);
+            Project project = readProject(zipFile, id);
+
+            // replays the changes recorded since the project was saved, even if the journal is now disabled
+            if (new File(file.getParentFile(), ProjectJournal.JOURNAL_FILE).exists()
+                    && ProjectManager.singleton instanceof FileProjectManager) {
+                ProjectJournal journal = ((FileProjectManager) ProjectManager.singleton).getJournal(id);
+                if (!journal.replay(project, readJournalSequence(zipFile))) {
+                    // the project was left partially replayed
+                    project.dispose();
+                    project = readProject(zipFile, id);
+                }
+            }
+            return project;
         } finally {
             zipFile.close();
         }
     }
+
+    static private Project readProject(ZipFile zipFile, long id) throws IOException {
+        Pool pool = new Pool();
+        ZipEntry poolEntry = zipFile.getEntry("pool.txt");
+        if (poolEntry != null) {
+            pool.load(zipFile.getInputStream(poolEntry));
+        } // else, it's a legacy project file
+
+        // projects saved before the binary row format, or with it disabled, have their rows in data.txt
+        ZipEntry rowsEntry = zipFile.getEntry(ROWS_ENTRY);
+        if (rowsEntry != null && LazyRowList.isEnabled() && ProjectManager.singleton instanceof FileProjectManager) {
+            LazyRowList rows = openLazyRows(zipFile, rowsEntry, id, pool);
+            if (rows != null) {
+                return Project.loadFromInputStream(zipFile.getInputStream(zipFile.getEntry("data.txt")), id, pool, rows);
+            }
+        }
+        return Project.loadFromInputStream(
+                zipFile.getInputStream(zipFile.getEntry("data.txt")),
+                id,
+                pool,
+                rowsEntry == null ? null : new BufferedInputStream(zipFile.getInputStream(rowsEntry), 1 << 16));
+    }
+
+    static private long readJournalSequence(ZipFile zipFile) throws IOException {
+        ZipEntry entry = zipFile.getEntry(ProjectJournal.SEQUENCE_ENTRY);
+        if (entry == null) {
+            return 0;
+        }
+        try (InputStream in = zipFile.getInputStream(entry)) {
+            String line = new String(in.readAllBytes(), StandardCharsets.UTF_8).trim();
+            return Long.parseLong(line.substring(line.indexOf('=') + 1));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid journal sequence number", e);
+        }
+    }
+
+    /**
+     * Extracts the rows of a project to the cache directory of the workspace, where they can be read on demand.
+     *
+     * @return the rows, or null if they could not be extracted
+     */
+    static private LazyRowList openLazyRows(ZipFile zipFile, ZipEntry rowsEntry, long id, Pool pool) {
+        File dir = new File(((FileProjectManager) ProjectManager.singleton).getWorkspaceDir(), ROWS_CACHE_DIR);
+        File file = null;
+        try {
+            dir.mkdirs();
+            // not reused across loads, as rows can still be read from a previously loaded copy of the project
+            file = File.createTempFile(id + "-", ".bin", dir);
+            try (InputStream in = zipFile.getInputStream(rowsEntry)) {
+                Files.copy(in, file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new LazyRowList(file, pool);
+        } catch (IOException e) {
+            logger.warn("Failed to extract rows of project {}, loading them in memory", id, e);
+            if (file != null) {
+                file.delete();
+            }
+            return null;
+        }
+    }
 }
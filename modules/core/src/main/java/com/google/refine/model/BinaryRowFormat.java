@@ -0,0 +1,433 @@
+
+package com.google.refine.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.function.Consumer;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.expr.EvalError;
+import com.google.refine.util.Pool;
+
+/**
+ * Compact binary encoding of the rows of a project, used in project archives instead of one JSON object per row.
+ * <p>
+ * Rows are written in chunks of {@link #CHUNK_SIZE}. Each chunk starts with the flags and cell count of its rows,
+ * followed by their cells column by column, so that similar values are next to each other. Each cell is a type tag
+ * followed by a typed value: strings are written once and then referred to by their index in a dictionary of the chunk,
+ * numbers, booleans and dates are written in binary form, and recons are written by id the first time they occur in the
+ * chunk and by index afterwards. Values of other types are written as the JSON representation of their cell, so that
+ * they are read back exactly as in the line-based format.
+ * <p>
+ * The stream starts with a magic number, a format version, so that the encoding can evolve, and the number of rows.
+ * Chunks are prefixed with their length in bytes and do not depend on each other, so that they can be read in any order
+ * by {@link LazyRowList}.
+ */
+public class BinaryRowFormat {
+
+    public static final String PREFERENCE_KEY = "project.binaryRowFormat";
+
+    static final int MAGIC = 0x4f524201; // "ORB" followed by 1
+    static final int VERSION = 1;
+    static final int CHUNK_SIZE = 4096;
+
+    // longer strings are not worth deduplicating
+    private static final int MAX_DICTIONARY_STRING_LENGTH = 256;
+    private static final int MAX_DICTIONARY_SIZE = 1 << 20;
+
+    private static final int NO_CELL = 0;
+    private static final int NULL_VALUE = 1;
+    private static final int NEW_STRING = 2;
+    private static final int STRING_REF = 3;
+    private static final int INLINE_STRING = 4;
+    private static final int LONG = 5;
+    private static final int INTEGER = 6;
+    private static final int DOUBLE = 7;
+    private static final int TRUE = 8;
+    private static final int FALSE = 9;
+    private static final int DATE = 10;
+    private static final int ERROR = 11;
+    private static final int JSON = 12;
+    // set on the tag of cells which have a recon
+    private static final int HAS_RECON = 0x80;
+
+    private static final int FLAGGED = 1;
+    private static final int STARRED = 2;
+
+    /**
+     * @return whether projects should be saved in this format, which is only the case if enabled by the
+     *         {@link #PREFERENCE_KEY} preference, since versions which do not support it open such projects without any
+     *         rows
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton != null
+                && ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, false);
+    }
+
+    /**
+     * Writes rows to a stream, adding the recons they refer to to the pool.
+     */
+    public static void write(List<Row> rows, Pool pool, OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(MAGIC);
+        writeVarLong(data, VERSION);
+        writeVarLong(data, rows.size());
+        ByteArrayOutputStream chunk = new ByteArrayOutputStream();
+        for (int start = 0; start < rows.size(); start += CHUNK_SIZE) {
+            chunk.reset();
+            // chunks go through their rows several times, so they are read from the list only once
+            List<Row> chunkRows = new ArrayList<>(rows.subList(start, Math.min(rows.size(), start + CHUNK_SIZE)));
+            new Writer(new DataOutputStream(chunk), pool).writeChunk(chunkRows);
+            writeVarLong(data, chunk.size());
+            chunk.writeTo(data);
+        }
+        data.flush();
+    }
+
+    /**
+     * Reads rows from a stream, resolving recons with the pool.
+     *
+     * @param consumer
+     *            called with each row, in order
+     * @return the number of rows read
+     */
+    public static int read(InputStream in, Pool pool, Consumer<Row> consumer) throws IOException {
+        DataInputStream data = new DataInputStream(in);
+        int rowCount = readHeader(data);
+        for (int start = 0; start < rowCount; start += CHUNK_SIZE) {
+            // the length of the chunk is only needed to skip it
+            readVarLong(data);
+            for (Row row : readChunk(data, pool, Math.min(CHUNK_SIZE, rowCount - start))) {
+                consumer.accept(row);
+            }
+        }
+        return rowCount;
+    }
+
+    /**
+     * Reads the magic number, version and row count at the start of a stream.
+     *
+     * @return the number of rows in the stream
+     */
+    static int readHeader(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a binary row stream");
+        }
+        long version = readVarLong(in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary row format version " + version);
+        }
+        return (int) readVarLong(in);
+    }
+
+    /**
+     * @return the length in bytes of the header of a stream with the given number of rows
+     */
+    static int headerLength(int rowCount) {
+        return 4 + varLongLength(VERSION) + varLongLength(rowCount);
+    }
+
+    /**
+     * Reads a chunk, positioned after its length.
+     *
+     * @param size
+     *            the number of rows in the chunk, {@link #CHUNK_SIZE} for all chunks but the last one
+     */
+    static List<Row> readChunk(DataInputStream in, Pool pool, int size) throws IOException {
+        return new Reader(in, pool).readChunk(size);
+    }
+
+    public static void writeVarLong(DataOutputStream out, long value) throws IOException {
+        while ((value & ~0x7fL) != 0) {
+            out.writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    public static long readVarLong(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException();
+            }
+            value |= (long) (b & 0x7f) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupted binary row stream: invalid variable-length integer");
+    }
+
+    static int varLongLength(long value) {
+        int length = 1;
+        while ((value & ~0x7fL) != 0) {
+            value >>>= 7;
+            length++;
+        }
+        return length;
+    }
+
+    /**
+     * Writes cells to a stream. The strings and recons written by the same writer are only written once, so the cells
+     * must be read back by a single {@link Reader}, in the same order.
+     */
+    public static class Writer {
+
+        final DataOutputStream out;
+        final Pool pool;
+        final Map<String, Integer> strings = new HashMap<>();
+        final Map<Long, Integer> recons = new HashMap<>();
+
+        public Writer(DataOutputStream out, Pool pool) {
+            this.out = out;
+            this.pool = pool;
+        }
+
+        void writeChunk(List<Row> rows) throws IOException {
+            writeVarLong(rows.size());
+            int maxCellCount = 0;
+            for (Row row : rows) {
+                out.writeByte((row.flagged ? FLAGGED : 0) | (row.starred ? STARRED : 0));
+                writeVarLong(row.cells.size());
+                maxCellCount = Math.max(maxCellCount, row.cells.size());
+            }
+            for (int c = 0; c < maxCellCount; c++) {
+                for (Row row : rows) {
+                    if (c < row.cells.size()) {
+                        writeCell(row.cells.get(c));
+                    }
+                }
+            }
+        }
+
+        public void writeCell(Cell cell) throws IOException {
+            if (cell == null) {
+                out.writeByte(NO_CELL);
+                return;
+            }
+            int reconFlag = cell.recon == null ? 0 : HAS_RECON;
+            Serializable value = cell.value;
+            if (value == null) {
+                out.writeByte(NULL_VALUE | reconFlag);
+            } else if (value instanceof String) {
+                writeString((String) value, reconFlag);
+            } else if (value instanceof Long) {
+                out.writeByte(LONG | reconFlag);
+                writeVarLong(zigZag((Long) value));
+            } else if (value instanceof Integer) {
+                out.writeByte(INTEGER | reconFlag);
+                writeVarLong(zigZag((Integer) value));
+            } else if (value instanceof Double) {
+                out.writeByte(DOUBLE | reconFlag);
+                out.writeDouble((Double) value);
+            } else if (value instanceof Boolean) {
+                out.writeByte(((Boolean) value ? TRUE : FALSE) | reconFlag);
+            } else if (value instanceof OffsetDateTime || value instanceof LocalDateTime) {
+                // like the line-based format, dates are stored as instants
+                Instant instant = value instanceof OffsetDateTime ? ((OffsetDateTime) value).toInstant()
+                        : ((LocalDateTime) value).toInstant(ZoneOffset.UTC);
+                out.writeByte(DATE | reconFlag);
+                writeVarLong(zigZag(instant.getEpochSecond()));
+                writeVarLong(instant.getNano());
+            } else if (value instanceof EvalError) {
+                out.writeByte(ERROR | reconFlag);
+                writeUTF(((EvalError) value).message);
+            } else {
+                // the recon is part of the JSON representation
+                Properties options = new Properties();
+                options.put("pool", pool);
+                StringWriter json = new StringWriter();
+                cell.save(json, options);
+                out.writeByte(JSON);
+                writeUTF(json.toString());
+                return;
+            }
+            if (cell.recon != null) {
+                writeRecon(cell.recon);
+            }
+        }
+
+        void writeString(String s, int reconFlag) throws IOException {
+            Integer index = strings.get(s);
+            if (index != null) {
+                out.writeByte(STRING_REF | reconFlag);
+                writeVarLong(index);
+            } else if (s.length() <= MAX_DICTIONARY_STRING_LENGTH && strings.size() < MAX_DICTIONARY_SIZE) {
+                strings.put(s, strings.size());
+                out.writeByte(NEW_STRING | reconFlag);
+                writeUTF(s);
+            } else {
+                out.writeByte(INLINE_STRING | reconFlag);
+                writeUTF(s);
+            }
+        }
+
+        void writeRecon(Recon recon) throws IOException {
+            Integer index = recons.get(recon.id);
+            if (index != null) {
+                writeVarLong(index + 1);
+            } else {
+                recons.put(recon.id, recons.size());
+                pool.pool(recon);
+                writeVarLong(0);
+                out.writeLong(recon.id);
+            }
+        }
+
+        public void writeUTF(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length);
+            out.write(bytes);
+        }
+
+        public void writeVarLong(long value) throws IOException {
+            BinaryRowFormat.writeVarLong(out, value);
+        }
+
+        public static long zigZag(long value) {
+            return (value << 1) ^ (value >> 63);
+        }
+    }
+
+    /**
+     * Reads cells written by a {@link Writer}.
+     */
+    public static class Reader {
+
+        final DataInputStream in;
+        final Pool pool;
+        final List<String> strings = new ArrayList<>();
+        final List<Recon> recons = new ArrayList<>();
+
+        public Reader(DataInputStream in, Pool pool) {
+            this.in = in;
+            this.pool = pool;
+        }
+
+        List<Row> readChunk(int expectedSize) throws IOException {
+            int size = (int) readVarLong();
+            if (size != expectedSize) {
+                throw new IOException("Corrupted binary row stream: unexpected chunk size " + size);
+            }
+            List<Row> rows = new ArrayList<>(size);
+            int maxCellCount = 0;
+            int[] cellCounts = new int[size];
+            for (int i = 0; i < size; i++) {
+                int flags = in.readUnsignedByte();
+                cellCounts[i] = (int) readVarLong();
+                maxCellCount = Math.max(maxCellCount, cellCounts[i]);
+                Row row = new Row(cellCounts[i]);
+                row.flagged = (flags & FLAGGED) != 0;
+                row.starred = (flags & STARRED) != 0;
+                rows.add(row);
+            }
+            for (int c = 0; c < maxCellCount; c++) {
+                for (int i = 0; i < size; i++) {
+                    if (c < cellCounts[i]) {
+                        rows.get(i).cells.add(readCell());
+                    }
+                }
+            }
+            return rows;
+        }
+
+        public Cell readCell() throws IOException {
+            int tag = in.readUnsignedByte();
+            Serializable value;
+            switch (tag & ~HAS_RECON) {
+                case NO_CELL:
+                    return null;
+                case NULL_VALUE:
+                    value = null;
+                    break;
+                case NEW_STRING:
+                    value = readUTF();
+                    strings.add((String) value);
+                    break;
+                case STRING_REF:
+                    value = strings.get((int) readVarLong());
+                    break;
+                case INLINE_STRING:
+                    value = readUTF();
+                    break;
+                case LONG:
+                    value = unZigZag(readVarLong());
+                    break;
+                case INTEGER:
+                    value = (int) unZigZag(readVarLong());
+                    break;
+                case DOUBLE:
+                    value = in.readDouble();
+                    break;
+                case TRUE:
+                    value = true;
+                    break;
+                case FALSE:
+                    value = false;
+                    break;
+                case DATE:
+                    long seconds = unZigZag(readVarLong());
+                    value = OffsetDateTime.ofInstant(Instant.ofEpochSecond(seconds, readVarLong()), ZoneOffset.UTC);
+                    break;
+                case ERROR:
+                    value = new EvalError(readUTF());
+                    break;
+                case JSON:
+                    try {
+                        return Cell.loadStreaming(readUTF(), pool);
+                    } catch (IOException e) {
+                        throw e;
+                    } catch (Exception e) {
+                        throw new IOException(e);
+                    }
+                default:
+                    throw new IOException("Corrupted binary row stream: unknown cell type " + tag);
+            }
+            Recon recon = (tag & HAS_RECON) != 0 ? readRecon() : null;
+            return new Cell(value, recon);
+        }
+
+        Recon readRecon() throws IOException {
+            int index = (int) readVarLong();
+            if (index > 0) {
+                return recons.get(index - 1);
+            }
+            Recon recon = pool.getRecon(Long.toString(in.readLong()));
+            recons.add(recon);
+            return recon;
+        }
+
+        public String readUTF() throws IOException {
+            byte[] bytes = new byte[(int) readVarLong()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        public long readVarLong() throws IOException {
+            return BinaryRowFormat.readVarLong(in);
+        }
+
+        public static long unZigZag(long value) {
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -123,22 +123,24 @@ public class Column {
      * <p>
      * If you are modifying something that requires this to be called, you probably also need to call
      * {@link com.google.refine.LookupCacheManager#flushLookupsInvolvingProjectColumn(long, String)} e.g.
-     * ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id, column.getName())
+     * ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id,
+     * column.getName()), or {@link com.google.refine.LookupCacheManager#updateLookupsInvolvingProjectColumn} if only
+     * cells were changed.
      */
-    public void clearPrecomputes() {
+    public synchronized void clearPrecomputes() {
         if (_precomputes != null) {
             _precomputes.clear();
         }
     }
 
-    public Object getPrecompute(String key) {
+    public synchronized Object getPrecompute(String key) {
         if (_precomputes != null) {
             return _precomputes.get(key);
         }
         return null;
     }
 
-    public void setPrecompute(String key, Object value) {
+    public synchronized void setPrecompute(String key, Object value) {
         if (_precomputes == null) {
             _precomputes = new HashMap<String, Object>();
         }
@@ -0,0 +1,400 @@
+
+package com.google.refine.model;
+
+import java.io.Serializable;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.concurrent.locks.StampedLock;
+
+import com.google.refine.ProjectManager;
+
+/**
+ * Columnar storage for the cells of a project.
+ * <p>
+ * Instead of holding one list of {@link Cell} objects per row, the store keeps one vector per column, indexed by a row
+ * "slot". Cells without a recon are interned by value: each column keeps a single {@link Cell} instance per distinct
+ * value and refers to it with an int code per slot. Columns with too many distinct values for this to pay off, as well
+ * as cells holding a recon, keep the cells themselves.
+ * <p>
+ * Rows created by this store are regular {@link Row} instances whose {@link Row#cells} list is a live view on the
+ * store, so that row visitors, expression bindings and changes can use them unmodified. Reading a cell does not
+ * allocate, and returns the same instance until the cell is replaced. Since cells are immutable, a cell which is set
+ * can be read back as another instance equal to it.
+ * <p>
+ * Modifications must still be done by a single thread, synchronizing on the project like for other rows, but they are
+ * atomic with respect to readers: rows can be read concurrently with a change, each cell being read either before or
+ * after it is modified.
+ * <p>
+ * Slots of rows which are removed from the project are reclaimed by compacting the rows again with
+ * {@link #compact(List)}, which {@link Project#update()} does once most slots are no longer in use.
+ */
+public class ColumnarCellStore {
+
+    /**
+     * Preference key enabling columnar storage for projects loaded from the workspace.
+     */
+    public static final String PREFERENCE_KEY = "project.columnarStorage";
+
+    // below this number of slots, rows are not compacted automatically
+    private static final int MIN_COMPACTION_SLOTS = 1024;
+
+    private final List<CellColumn> columns = new ArrayList<>();
+    // guards all the fields below, as well as the columns
+    private final StampedLock lock = new StampedLock();
+    private int[] lengths;
+    private int slotCount = 0;
+
+    public ColumnarCellStore() {
+        this(16);
+    }
+
+    /**
+     * @param initialCapacity
+     *            the expected number of rows to store
+     */
+    public ColumnarCellStore(int initialCapacity) {
+        lengths = new int[Math.max(initialCapacity, 1)];
+    }
+
+    /**
+     * @return true if the workspace preferences request columnar storage for loaded projects
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton != null
+                && ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, false);
+    }
+
+    /**
+     * Re-encodes all rows of the list into a fresh store, replacing them in place. This also reclaims the space used by
+     * rows which were removed since the last compaction. Row instances obtained from the list before calling this
+     * method are no longer part of it and must be discarded.
+     *
+     * @param rows
+     *            the rows to compact, typically {@link Project#rows}
+     */
+    public static void compact(List<Row> rows) {
+        ColumnarCellStore store = new ColumnarCellStore(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            rows.set(i, store.copyRow(rows.get(i)));
+        }
+    }
+
+    /**
+     * Compacts the rows if they are backed by a store in which at least half of the slots belong to rows which are no
+     * longer in the list, as happens after rows are removed or replaced.
+     *
+     * @param rows
+     *            the rows to compact, typically {@link Project#rows}
+     * @return true if the rows were compacted
+     */
+    public static boolean compactIfSparse(List<Row> rows) {
+        ColumnarCellStore store = null;
+        for (Row row : rows) {
+            if (row != null) {
+                if (row.cells instanceof CellList) {
+                    store = ((CellList) row.cells).getStore();
+                }
+                break;
+            }
+        }
+        if (store == null) {
+            return false;
+        }
+        int slots = store.getSlotCount();
+        if (slots < MIN_COMPACTION_SLOTS || slots < 2 * rows.size()) {
+            return false;
+        }
+        compact(rows);
+        return true;
+    }
+
+    /**
+     * Creates a new empty row backed by this store.
+     */
+    public Row createRow(boolean flagged, boolean starred) {
+        long stamp = lock.writeLock();
+        try {
+            return new Row(new CellList(allocateSlot()), flagged, starred);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Creates a row backed by this store with the same flags and cells as the given one.
+     *
+     * @param row
+     *            the row to copy, which can be null
+     * @return the copy, or null if the row was null
+     */
+    public Row copyRow(Row row) {
+        if (row == null) {
+            return null;
+        }
+        // read the cells first, as the row can be backed by this store
+        Cell[] cells = row.cells.toArray(new Cell[0]);
+        long stamp = lock.writeLock();
+        try {
+            int slot = allocateSlot();
+            for (int i = 0; i < cells.length; i++) {
+                column(i).set(slot, cells[i]);
+            }
+            lengths[slot] = cells.length;
+            return new Row(new CellList(slot), row.flagged, row.starred);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return the number of slots allocated so far, including the ones of removed rows
+     */
+    public int getSlotCount() {
+        long stamp = lock.readLock();
+        try {
+            return slotCount;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * @return the number of column vectors in the store
+     */
+    public int getColumnCount() {
+        long stamp = lock.readLock();
+        try {
+            return columns.size();
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private int allocateSlot() {
+        if (slotCount == lengths.length) {
+            lengths = Arrays.copyOf(lengths, grow(lengths.length, slotCount + 1));
+        }
+        return slotCount++;
+    }
+
+    private CellColumn column(int cellIndex) {
+        while (columns.size() <= cellIndex) {
+            columns.add(new CellColumn());
+        }
+        return columns.get(cellIndex);
+    }
+
+    private Cell cellAt(int slot, int index) {
+        Objects.checkIndex(index, lengths[slot]);
+        return columns.get(index).get(slot);
+    }
+
+    static int grow(int currentCapacity, int minCapacity) {
+        return Math.max(minCapacity, currentCapacity + (currentCapacity >> 1) + 1);
+    }
+
+    /**
+     * Live view on the cells of a slot, used as {@link Row#cells}.
+     */
+    private final class CellList extends AbstractList<Cell> implements RandomAccess {
+
+        private final int slot;
+
+        private CellList(int slot) {
+            this.slot = slot;
+        }
+
+        private ColumnarCellStore getStore() {
+            return ColumnarCellStore.this;
+        }
+
+        @Override
+        public Cell get(int index) {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                try {
+                    Cell cell = cellAt(slot, index);
+                    if (lock.validate(stamp)) {
+                        return cell;
+                    }
+                } catch (RuntimeException e) {
+                    // either the index is out of bounds or the store was modified during the read: retry with the lock
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return cellAt(slot, index);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public int size() {
+            long stamp = lock.tryOptimisticRead();
+            if (stamp != 0L) {
+                try {
+                    int size = lengths[slot];
+                    if (lock.validate(stamp)) {
+                        return size;
+                    }
+                } catch (RuntimeException e) {
+                    // the store was modified during the read: retry with the lock
+                }
+            }
+            stamp = lock.readLock();
+            try {
+                return lengths[slot];
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        @Override
+        public Cell set(int index, Cell cell) {
+            long stamp = lock.writeLock();
+            try {
+                Cell old = cellAt(slot, index);
+                columns.get(index).set(slot, cell);
+                return old;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public void add(int index, Cell cell) {
+            long stamp = lock.writeLock();
+            try {
+                int size = lengths[slot];
+                Objects.checkIndex(index, size + 1);
+                for (int i = size; i > index; i--) {
+                    column(i).set(slot, columns.get(i - 1).get(slot));
+                }
+                column(index).set(slot, cell);
+                lengths[slot] = size + 1;
+                modCount++;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        @Override
+        public Cell remove(int index) {
+            long stamp = lock.writeLock();
+            try {
+                Cell old = cellAt(slot, index);
+                int size = lengths[slot];
+                for (int i = index; i < size - 1; i++) {
+                    columns.get(i).set(slot, columns.get(i + 1).get(slot));
+                }
+                columns.get(size - 1).set(slot, null);
+                lengths[slot] = size - 1;
+                modCount++;
+                return old;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+    }
+
+    /**
+     * The cells of a single column, for all slots. Cells without a recon are interned in a dictionary and referred to
+     * by code, until the column holds too many distinct values and switches to keeping all cells directly.
+     */
+    private static final class CellColumn {
+
+        // above this size, the dictionary is dropped if it does not save space
+        private static final int MIN_DICTIONARY_CHECK = 4096;
+
+        // code of the cell of each slot: 0 if it is not interned, its position in the dictionary plus one otherwise
+        private int[] codes = new int[0];
+        private Cell[] dictionary = new Cell[0];
+        private int dictionarySize = 0;
+        private Map<Serializable, Integer> index = new HashMap<>();
+        // cells which are not interned, allocated on demand
+        private Cell[] cells = null;
+
+        Cell get(int slot) {
+            Cell cell = cells != null && slot < cells.length ? cells[slot] : null;
+            if (cell != null || codes == null || slot >= codes.length) {
+                return cell;
+            }
+            int code = codes[slot];
+            return code == 0 ? null : dictionary[code - 1];
+        }
+
+        void set(int slot, Cell cell) {
+            int code = codes != null && cell != null && cell.recon == null ? intern(cell) : 0;
+            if (codes != null) {
+                if (code != 0 && slot >= codes.length) {
+                    codes = Arrays.copyOf(codes, grow(codes.length, slot + 1));
+                }
+                if (slot < codes.length) {
+                    codes[slot] = code;
+                }
+            }
+            if (code == 0 && cell != null) {
+                if (cells == null || slot >= cells.length) {
+                    cells = Arrays.copyOf(cells == null ? new Cell[0] : cells, grow(cells == null ? 0 : cells.length, slot + 1));
+                }
+                cells[slot] = cell;
+            } else if (cells != null && slot < cells.length) {
+                cells[slot] = null;
+            }
+        }
+
+        /**
+         * @return the code of the interned cell equal to the given one, or 0 if the cell must be kept as is
+         */
+        private int intern(Cell cell) {
+            Integer code = index.get(cell.value);
+            if (code != null) {
+                Serializable value = dictionary[code - 1].value;
+                // values of different classes can be equal, but must be returned as they were stored
+                return value == null || value.getClass() == cell.value.getClass() ? code : 0;
+            }
+            // check for high cardinality whenever the dictionary doubles
+            if (dictionarySize >= MIN_DICTIONARY_CHECK && Integer.bitCount(dictionarySize) == 1
+                    && dictionarySize > countInterned() / 2) {
+                dropDictionary();
+                return 0;
+            }
+            if (dictionarySize == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, grow(dictionary.length, dictionarySize + 1));
+            }
+            dictionary[dictionarySize++] = cell;
+            index.put(cell.value, dictionarySize);
+            return dictionarySize;
+        }
+
+        private int countInterned() {
+            int count = 0;
+            for (int code : codes) {
+                if (code != 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        private void dropDictionary() {
+            Cell[] all = Arrays.copyOf(cells == null ? new Cell[0] : cells, Math.max(cells == null ? 0 : cells.length, codes.length));
+            for (int slot = 0; slot < codes.length; slot++) {
+                if (codes[slot] != 0) {
+                    all[slot] = dictionary[codes[slot] - 1];
+                }
+            }
+            cells = all;
+            codes = null;
+            dictionary = null;
+            index = null;
+        }
+    }
+}
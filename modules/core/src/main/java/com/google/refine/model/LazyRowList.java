@@ -0,0 +1,265 @@
+
+package com.google.refine.model;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.util.Pool;
+
+/**
+ * Rows of a project read on demand from a file in the {@link BinaryRowFormat}, so that a project can be displayed
+ * without reading all its rows first.
+ * <p>
+ * The file is indexed when the list is opened, and chunks of rows are memory-mapped and decoded the first time one of
+ * their rows is accessed. Decoded chunks are only softly referenced, so that they can be reclaimed under memory
+ * pressure and decoded again later.
+ * <p>
+ * Rows read from the file must not be modified in place: the first modification of the list, or a call to
+ * {@link #materialize()}, reads all rows in memory, after which the list behaves like an {@link ArrayList} and the file
+ * is deleted. {@link Project#materializeRows()} must be called before applying any change to the project.
+ */
+public class LazyRowList extends AbstractList<Row> {
+
+    public static final String PREFERENCE_KEY = "project.lazyRowLoading";
+
+    final static Logger logger = LoggerFactory.getLogger(LazyRowList.class);
+
+    private final File _file;
+    private final Pool _pool;
+    private final int _size;
+    private FileChannel _channel;
+    // offsets of the chunks in the file, followed by the end of the last chunk
+    private final long[] _chunkOffsets;
+    private final AtomicReferenceArray<SoftReference<Row[]>> _chunks;
+
+    private volatile List<Row> _rows;
+
+    /**
+     * @return whether the rows of projects should be loaded lazily, which is only the case if enabled by the
+     *         {@link #PREFERENCE_KEY} preference
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton != null
+                && ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, false);
+    }
+
+    /**
+     * Opens a file of rows, reading the offsets of its chunks.
+     *
+     * @param file
+     *            the file, which is deleted once it is no longer needed
+     * @param pool
+     *            the pool holding the recons the rows refer to
+     */
+    public LazyRowList(File file, Pool pool) throws IOException {
+        _file = file;
+        _pool = pool;
+        _channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(_channel)));
+            _size = BinaryRowFormat.readHeader(in);
+            int chunkCount = (_size + BinaryRowFormat.CHUNK_SIZE - 1) / BinaryRowFormat.CHUNK_SIZE;
+            _chunkOffsets = new long[chunkCount + 1];
+            long offset = BinaryRowFormat.headerLength(_size);
+            for (int c = 0; c < chunkCount; c++) {
+                long length = BinaryRowFormat.readVarLong(in);
+                offset += BinaryRowFormat.varLongLength(length);
+                _chunkOffsets[c] = offset;
+                in.skipNBytes(length);
+                offset += length;
+            }
+            _chunkOffsets[chunkCount] = offset;
+            _chunks = new AtomicReferenceArray<>(chunkCount);
+        } catch (IOException e) {
+            releaseFile();
+            throw e;
+        }
+    }
+
+    /**
+     * @return whether all rows have been read in memory
+     */
+    public boolean isMaterialized() {
+        return _rows != null;
+    }
+
+    /**
+     * Reads all rows in memory and deletes the file.
+     */
+    public void materialize() {
+        if (_rows != null) {
+            return;
+        }
+        synchronized (this) {
+            if (_rows == null) {
+                List<Row> rows = new ArrayList<>(_size);
+                for (int c = 0; c < _chunks.length(); c++) {
+                    for (Row row : getChunk(c)) {
+                        rows.add(row);
+                    }
+                }
+                if (ColumnarCellStore.isEnabled()) {
+                    ColumnarCellStore.compact(rows);
+                }
+                _rows = rows;
+                close();
+            }
+        }
+    }
+
+    /**
+     * Releases the file, if the rows have not been materialized yet. The list cannot be read afterwards.
+     */
+    public synchronized void close() {
+        releaseFile();
+    }
+
+    private synchronized void releaseFile() {
+        if (_channel != null) {
+            try {
+                _channel.close();
+            } catch (IOException e) {
+                logger.warn("Could not close row file " + _file, e);
+            }
+            _channel = null;
+            if (!_file.delete()) {
+                _file.deleteOnExit();
+            }
+        }
+    }
+
+    @Override
+    public Row get(int index) {
+        List<Row> rows = _rows;
+        if (rows != null) {
+            return rows.get(index);
+        }
+        if (index < 0 || index >= _size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for length " + _size);
+        }
+        try {
+            return getChunk(index / BinaryRowFormat.CHUNK_SIZE)[index % BinaryRowFormat.CHUNK_SIZE];
+        } catch (IllegalStateException | UncheckedIOException e) {
+            // the file was closed by a concurrent materialization
+            rows = _rows;
+            if (rows != null) {
+                return rows.get(index);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public int size() {
+        List<Row> rows = _rows;
+        return rows != null ? rows.size() : _size;
+    }
+
+    @Override
+    public Row set(int index, Row row) {
+        materialize();
+        return _rows.set(index, row);
+    }
+
+    @Override
+    public void add(int index, Row row) {
+        materialize();
+        modCount++;
+        _rows.add(index, row);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends Row> rows) {
+        materialize();
+        modCount++;
+        return _rows.addAll(rows);
+    }
+
+    @Override
+    public boolean addAll(int index, Collection<? extends Row> rows) {
+        materialize();
+        modCount++;
+        return _rows.addAll(index, rows);
+    }
+
+    @Override
+    public Row remove(int index) {
+        materialize();
+        modCount++;
+        return _rows.remove(index);
+    }
+
+    @Override
+    public void clear() {
+        materialize();
+        modCount++;
+        _rows.clear();
+    }
+
+    private Row[] getChunk(int c) {
+        // chunks can be decoded twice by concurrent readers, which is harmless as the rows are not modified
+        SoftReference<Row[]> ref = _chunks.get(c);
+        Row[] chunk = ref == null ? null : ref.get();
+        if (chunk == null) {
+            chunk = readChunk(c);
+            _chunks.set(c, new SoftReference<>(chunk));
+        }
+        return chunk;
+    }
+
+    private Row[] readChunk(int c) {
+        FileChannel channel = _channel;
+        if (channel == null) {
+            throw new IllegalStateException("Rows of a closed project cannot be read");
+        }
+        int size = Math.min(BinaryRowFormat.CHUNK_SIZE, _size - c * BinaryRowFormat.CHUNK_SIZE);
+        try {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, _chunkOffsets[c], _chunkOffsets[c + 1] - _chunkOffsets[c]);
+            return BinaryRowFormat.readChunk(new DataInputStream(new ByteBufferInputStream(buffer)), _pool, size).toArray(new Row[size]);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read rows from " + _file, e);
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer _buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            _buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return _buffer.hasRemaining() ? _buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!_buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, _buffer.remaining());
+            _buffer.get(b, off, len);
+            return len;
+        }
+    }
+}
@@ -33,6 +33,7 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.model;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -42,11 +43,13 @@ import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.RandomAccess;
 
 import com.fasterxml.jackson.databind.InjectableValues;
 import com.fasterxml.jackson.databind.ObjectMapper;
@@ -56,6 +59,7 @@ import org.slf4j.LoggerFactory;
 import com.google.refine.ProjectManager;
 import com.google.refine.ProjectMetadata;
 import com.google.refine.RefineServlet;
+import com.google.refine.browsing.util.FilterBitmapCache;
 import com.google.refine.history.History;
 import com.google.refine.process.ProcessManager;
 import com.google.refine.util.ParsingUtilities;
@@ -69,7 +73,7 @@ public class Project {
     final static protected Map<String, Class<? extends OverlayModel>> s_overlayModelClasses = new HashMap<String, Class<? extends OverlayModel>>();
 
     final public long id;
-    final public List<Row> rows = new ArrayList<>();
+    final public List<Row> rows;
     final public ColumnModel columnModel = new ColumnModel();
     final public RecordModel recordModel = new RecordModel();
     final public Map<String, OverlayModel> overlayModels = new HashMap<String, OverlayModel>();
@@ -77,6 +81,9 @@ public class Project {
 
     transient public ProcessManager processManager = new ProcessManager();
     transient private Instant _lastSave = Instant.now();
+    transient private final FilterBitmapCache _filterBitmapCache = new FilterBitmapCache();
+    // rows of snapshots which are still shared with the project, guarded by the project lock
+    transient private final List<SnapshotRows> _sharedSnapshotRows = new ArrayList<>();
 
     final static Logger logger = LoggerFactory.getLogger(Project.class);
 
@@ -98,7 +105,12 @@ public class Project {
      *            long ID to be assigned the new project
      */
     protected Project(long id) {
+        this(id, new ArrayList<>());
+    }
+
+    private Project(long id, List<Row> rows) {
         this.id = id;
+        this.rows = rows;
         this.history = new History(this);
     }
 
@@ -118,9 +130,38 @@ public class Project {
             }
         }
         ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProject(this.id);
+        if (rows instanceof LazyRowList) {
+            ((LazyRowList) rows).close();
+        }
         // The rest of the project should get garbage collected when we return.
     }
 
+    /**
+     * Re-encodes the cells of all rows into a fresh {@link ColumnarCellStore}, which uses a fraction of the memory of
+     * the default row representation. Rows obtained from {@link #rows} before this call must not be used afterwards.
+     */
+    public void compactRows() {
+        synchronized (this) {
+            ColumnarCellStore.compact(rows);
+        }
+    }
+
+    /**
+     * Reads all rows in memory if they are loaded lazily from disk, and copies the rows which snapshots being saved
+     * still share with the project. This must be called before modifying rows in place.
+     */
+    public void materializeRows() {
+        if (rows instanceof LazyRowList) {
+            ((LazyRowList) rows).materialize();
+        }
+        synchronized (this) {
+            for (SnapshotRows snapshotRows : _sharedSnapshotRows) {
+                snapshotRows.detach();
+            }
+            _sharedSnapshotRows.clear();
+        }
+    }
+
     public Instant getLastSave() {
         return this._lastSave;
     }
@@ -132,40 +173,72 @@ public class Project {
         this._lastSave = Instant.now();
     }
 
+    /**
+     * Sets the lastSave time to the time at which the saved state of the project was captured, so that changes made
+     * while it was written are saved next time.
+     */
+    public void setLastSave(Instant time) {
+        this._lastSave = time;
+    }
+
     public ProjectMetadata getMetadata() {
         return ProjectManager.singleton.getProjectMetadata(id);
     }
 
     public void saveToOutputStream(OutputStream out, Pool pool) throws IOException {
-        for (OverlayModel overlayModel : overlayModels.values()) {
-            try {
-                overlayModel.onBeforeSave(this);
-            } catch (Exception e) {
-                logger.warn("Error signaling overlay model before saving", e);
-            }
-        }
+        saveToOutputStream(out, pool, true);
+    }
+
+    /**
+     * Saves the project to a stream.
+     *
+     * @param includeRows
+     *            false to leave the rows out, when they are saved separately in binary form with
+     *            {@link #saveRowsToOutputStream(OutputStream, Pool)}
+     */
+    public void saveToOutputStream(OutputStream out, Pool pool, boolean includeRows) throws IOException {
+        signalOverlayModels(true);
 
         Writer writer = new OutputStreamWriter(out, "UTF-8");
         try {
-            Properties options = new Properties();
-            options.setProperty("mode", "save");
-            options.put("pool", pool);
-
-            saveToWriter(writer, options);
+            saveToWriter(writer, createSaveOptions(pool, includeRows));
         } finally {
             writer.flush();
         }
 
+        signalOverlayModels(false);
+    }
+
+    private void signalOverlayModels(boolean beforeSave) {
         for (OverlayModel overlayModel : overlayModels.values()) {
             try {
-                overlayModel.onAfterSave(this);
+                if (beforeSave) {
+                    overlayModel.onBeforeSave(this);
+                } else {
+                    overlayModel.onAfterSave(this);
+                }
             } catch (Exception e) {
-                logger.warn("Error signaling overlay model after saving", e);
+                logger.warn(beforeSave ? "Error signaling overlay model before saving" : "Error signaling overlay model after saving", e);
             }
         }
     }
 
+    private static Properties createSaveOptions(Pool pool, boolean includeRows) {
+        Properties options = new Properties();
+        options.setProperty("mode", "save");
+        options.put("pool", pool);
+        if (!includeRows) {
+            options.setProperty("rowFormat", "binary");
+        }
+        return options;
+    }
+
     protected void saveToWriter(Writer writer, Properties options) throws IOException {
+        saveHeaderToWriter(writer, options);
+        saveRowsToWriter(writer, options, rows, recordModel.getRecordCount());
+    }
+
+    private void saveHeaderToWriter(Writer writer, Properties options) throws IOException {
         writer.write(RefineServlet.VERSION);
         writer.write('\n');
 
@@ -182,7 +255,19 @@ public class Project {
             ParsingUtilities.saveWriter.writeValue(writer, overlayModels.get(modelName));
             writer.write('\n');
         }
+    }
 
+    private static void saveRowsToWriter(Writer writer, Properties options, List<Row> rows, int recordCount) throws IOException {
+        if (options.containsKey("rowFormat")) {
+            // lets projects loaded lazily tell whether they have records without reading their rows
+            writer.write("recordCount=");
+            writer.write(Integer.toString(recordCount));
+            writer.write('\n');
+            writer.write("rowFormat=");
+            writer.write(options.getProperty("rowFormat"));
+            writer.write('\n');
+            return;
+        }
         writer.write("rowCount=");
         writer.write(Integer.toString(rows.size()));
         writer.write('\n');
@@ -192,20 +277,186 @@ public class Project {
         }
     }
 
+    /**
+     * Saves the rows of the project in the {@link BinaryRowFormat}, adding the recons they refer to to the pool.
+     */
+    public void saveRowsToOutputStream(OutputStream out, Pool pool) throws IOException {
+        BinaryRowFormat.write(rows, pool, out);
+    }
+
+    /**
+     * Captures the state of the project so that it can be saved without holding the lock of the project. The caller
+     * must synchronize on the project while the snapshot is created.
+     * <p>
+     * The column model, history and overlay models are serialized right away, which is cheap compared to the rows. Rows
+     * are not copied: the snapshot shares them with the project until {@link #materializeRows()} is called before the
+     * next change, which only copies the rows the snapshot has not saved yet. Rows read lazily from disk which have not
+     * been materialized cannot be shared this way, as their list can change, so the snapshot then must be written while
+     * holding the lock of the project (see {@link Snapshot#isDetached()}).
+     *
+     * @param includeRows
+     *            false to leave the rows out of {@link Snapshot#saveToOutputStream(OutputStream)}, when they are saved
+     *            separately with {@link Snapshot#saveRowsToOutputStream(OutputStream)}
+     */
+    public Snapshot createSnapshot(Pool pool, boolean includeRows) throws IOException {
+        Instant time = Instant.now();
+        Properties options = createSaveOptions(pool, includeRows);
+
+        signalOverlayModels(true);
+        ByteArrayOutputStream header = new ByteArrayOutputStream();
+        Writer writer = new OutputStreamWriter(header, StandardCharsets.UTF_8);
+        saveHeaderToWriter(writer, options);
+        writer.flush();
+        signalOverlayModels(false);
+
+        boolean detached = !(rows instanceof LazyRowList) || ((LazyRowList) rows).isMaterialized();
+        List<Row> snapshotRows = rows;
+        if (detached) {
+            // only copies the references to the rows, which are copied on write
+            SnapshotRows shared = new SnapshotRows(rows.toArray(new Row[0]));
+            _sharedSnapshotRows.removeIf(SnapshotRows::isSaved);
+            _sharedSnapshotRows.add(shared);
+            snapshotRows = shared;
+        }
+        return new Snapshot(time, header.toByteArray(), snapshotRows, recordModel.getRecordCount(), options, detached);
+    }
+
+    /**
+     * The state of a project captured by {@link Project#createSnapshot(Pool, boolean)}.
+     */
+    public static class Snapshot {
+
+        private final Instant _time;
+        private final byte[] _header;
+        private final List<Row> _rows;
+        private final int _recordCount;
+        private final Properties _options;
+        private final boolean _detached;
+
+        private Snapshot(Instant time, byte[] header, List<Row> rows, int recordCount, Properties options, boolean detached) {
+            _time = time;
+            _header = header;
+            _rows = rows;
+            _recordCount = recordCount;
+            _options = options;
+            _detached = detached;
+        }
+
+        /**
+         * @return when the snapshot was taken
+         */
+        public Instant getTime() {
+            return _time;
+        }
+
+        /**
+         * @return false if the snapshot still refers to the rows of the project, in which case it must be saved while
+         *         holding the lock of the project
+         */
+        public boolean isDetached() {
+            return _detached;
+        }
+
+        /**
+         * Saves the project in the same format as {@link Project#saveToOutputStream(OutputStream, Pool, boolean)}.
+         */
+        public void saveToOutputStream(OutputStream out) throws IOException {
+            out.write(_header);
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            saveRowsToWriter(writer, _options, _rows, _recordCount);
+            writer.flush();
+        }
+
+        /**
+         * Saves the rows of the project in the {@link BinaryRowFormat}, adding the recons they refer to to the pool.
+         */
+        public void saveRowsToOutputStream(OutputStream out) throws IOException {
+            BinaryRowFormat.write(_rows, (Pool) _options.get("pool"), out);
+        }
+    }
+
+    /**
+     * Rows of a snapshot, shared with the project until it is about to be modified: the rows which have not been read
+     * yet are then copied. Rows must be read in order, once each.
+     */
+    private static class SnapshotRows extends AbstractList<Row> implements RandomAccess {
+
+        private final Row[] _rows;
+        private int _next = 0;
+        private boolean _shared = true;
+
+        private SnapshotRows(Row[] rows) {
+            _rows = rows;
+        }
+
+        @Override
+        public synchronized Row get(int index) {
+            _next = Math.max(_next, index + 1);
+            Row row = _rows[index];
+            // a row shared with the project could be modified while it is being saved
+            return _shared && row != null ? row.dup() : row;
+        }
+
+        @Override
+        public int size() {
+            return _rows.length;
+        }
+
+        synchronized boolean isSaved() {
+            return _next == _rows.length;
+        }
+
+        synchronized void detach() {
+            if (!_shared) {
+                return;
+            }
+            // rows stored in columns are copied to a fresh store, which is much smaller than rows of their own
+            ColumnarCellStore store = ColumnarCellStore.isEnabled() ? new ColumnarCellStore(_rows.length - _next) : null;
+            for (int i = _next; i < _rows.length; i++) {
+                Row row = _rows[i];
+                _rows[i] = store != null ? store.copyRow(row) : row == null ? null : row.dup();
+            }
+            _shared = false;
+        }
+    }
+
     static public Project loadFromInputStream(InputStream is, long id, Pool pool) throws IOException {
-        return loadFromReader(new LineNumberReader(new InputStreamReader(is, StandardCharsets.UTF_8)), id, pool);
+        return loadFromInputStream(is, id, pool, (InputStream) null);
+    }
+
+    /**
+     * Loads a project from a stream.
+     *
+     * @param binaryRows
+     *            the rows of the project in the {@link BinaryRowFormat}, if they were saved separately, or null
+     */
+    static public Project loadFromInputStream(InputStream is, long id, Pool pool, InputStream binaryRows) throws IOException {
+        return loadFromReader(new LineNumberReader(new InputStreamReader(is, StandardCharsets.UTF_8)), id, pool, binaryRows,
+                new Project(id));
+    }
+
+    /**
+     * Loads a project whose rows are read on demand.
+     *
+     * @param rows
+     *            the rows of the project, saved separately in the {@link BinaryRowFormat}
+     */
+    static public Project loadFromInputStream(InputStream is, long id, Pool pool, LazyRowList rows) throws IOException {
+        return loadFromReader(new LineNumberReader(new InputStreamReader(is, StandardCharsets.UTF_8)), id, pool, null,
+                new Project(id, rows));
     }
 
     static private Project loadFromReader(
             LineNumberReader reader,
             long id,
-            Pool pool) throws IOException {
+            Pool pool,
+            InputStream binaryRows,
+            Project project) throws IOException {
         long start = System.currentTimeMillis();
 
         // version of Refine which wrote the file
         /* String version = */ reader.readLine();
 
-        Project project = new Project(id);
         int maxCellCount = 0;
 
         ObjectMapper mapper = ParsingUtilities.mapper.copy();
@@ -229,15 +480,31 @@ public class Project {
                 project.history.load(project, reader);
             } else if ("rowCount".equals(field)) {
                 int count = Integer.parseInt(value);
+                ColumnarCellStore cellStore = ColumnarCellStore.isEnabled() ? new ColumnarCellStore(count) : null;
 
                 for (int i = 0; i < count; i++) {
                     line = reader.readLine();
                     if (line != null) {
-                        Row row = Row.load(line, pool);
-                        project.rows.add(row);
-                        maxCellCount = Math.max(maxCellCount, row.cells.size());
+                        maxCellCount = Math.max(maxCellCount, project.addLoadedRow(Row.load(line, pool), cellStore));
                     }
                 }
+            } else if ("recordCount".equals(field)) {
+                project.recordModel.setRecordCountHint(Integer.parseInt(value));
+            } else if ("rowFormat".equals(field) && project.rows instanceof LazyRowList) {
+                // rows are read on demand, the maximum cell index is saved with the column model
+                if (!"binary".equals(value)) {
+                    throw new IOException("Missing rows in format " + value);
+                }
+            } else if ("rowFormat".equals(field)) {
+                if (!"binary".equals(value) || binaryRows == null) {
+                    throw new IOException("Missing rows in format " + value);
+                }
+                ColumnarCellStore cellStore = ColumnarCellStore.isEnabled() ? new ColumnarCellStore() : null;
+                int[] cellCount = { maxCellCount };
+                BinaryRowFormat.read(binaryRows, pool, row -> {
+                    cellCount[0] = Math.max(cellCount[0], project.addLoadedRow(row, cellStore));
+                });
+                maxCellCount = cellCount[0];
             } else if (field.startsWith("overlayModel:")) {
                 String modelName = field.substring("overlayModel:".length());
                 if (s_overlayModelClasses.containsKey(modelName)) {
@@ -264,7 +531,24 @@ public class Project {
         return project;
     }
 
+    /**
+     * @return the number of cells of the row
+     */
+    private int addLoadedRow(Row row, ColumnarCellStore cellStore) {
+        if (cellStore != null) {
+            row = cellStore.copyRow(row);
+        }
+        rows.add(row);
+        return row.cells.size();
+    }
+
     public void update() {
+        if (!(rows instanceof LazyRowList) || ((LazyRowList) rows).isMaterialized()) {
+            // reclaims the slots of rows removed from the columnar store, if any
+            synchronized (this) {
+                ColumnarCellStore.compactIfSparse(rows);
+            }
+        }
         columnModel.update();
         recordModel.update(this);
         // Old projects may have a row count of 0, but we don't want the act of filling this in to change modified time.
@@ -273,6 +557,13 @@ public class Project {
         }
     }
 
+    /**
+     * @return the cache of rows and records matched by facets on this project
+     */
+    public FilterBitmapCache getFilterBitmapCache() {
+        return _filterBitmapCache;
+    }
+
     // wrapper of processManager variable to allow unit testing
     // TODO make the processManager variable private, and force all calls through this method
     public ProcessManager getProcessManager() {
@@ -81,16 +81,26 @@ public class RecordModel {
     protected List<RowDependency> _rowDependencies;
     protected List<Record> _records;
 
+    // project whose records are computed when first needed, because its rows are loaded lazily
+    private volatile Project _pendingProject;
+    private int _recordCountHint = -1;
+
     public RowDependency getRowDependency(int rowIndex) {
+        ensureUpdated();
         return _rowDependencies != null && rowIndex >= 0 && rowIndex < _rowDependencies.size() ? _rowDependencies.get(rowIndex) : null;
     }
 
     @JsonIgnore
     public int getRecordCount() {
+        if (_pendingProject != null && _recordCountHint >= 0) {
+            return _recordCountHint;
+        }
+        ensureUpdated();
         return _records.size();
     }
 
     public Record getRecord(int recordIndex) {
+        ensureUpdated();
         return _records != null && recordIndex >= 0 && recordIndex < _records.size() ? _records.get(recordIndex) : null;
     }
 
@@ -107,6 +117,11 @@ public class RecordModel {
 
     @JsonProperty("hasRecords")
     public boolean hasRecords() {
+        Project pendingProject = _pendingProject;
+        if (pendingProject != null && _recordCountHint >= 0) {
+            return _recordCountHint < pendingProject.rows.size();
+        }
+        ensureUpdated();
         return _records != null && _rowDependencies != null &&
                 _records.size() < _rowDependencies.size();
     }
@@ -126,7 +141,41 @@ public class RecordModel {
         }
     }
 
+    /**
+     * Sets the number of records saved with the project, which is returned until records are computed.
+     */
+    public void setRecordCountHint(int recordCount) {
+        _recordCountHint = recordCount;
+    }
+
     synchronized public void update(Project project) {
+        if (project.rows instanceof LazyRowList && !((LazyRowList) project.rows).isMaterialized()) {
+            // computing records reads all rows, so wait until they are needed
+            _pendingProject = project;
+            return;
+        }
+        _pendingProject = null;
+        _recordCountHint = -1;
+        computeRecords(project);
+    }
+
+    private void ensureUpdated() {
+        Project project = _pendingProject;
+        if (project != null) {
+            // same lock order as when changes are applied
+            synchronized (project) {
+                synchronized (this) {
+                    if (_pendingProject == project) {
+                        computeRecords(project);
+                        _pendingProject = null;
+                        _recordCountHint = -1;
+                    }
+                }
+            }
+        }
+    }
+
+    private void computeRecords(Project project) {
         synchronized (project) {
             List<Row> rows = project.rows;
             int rowCount = rows.size();
@@ -36,7 +36,10 @@ package com.google.refine.model.changes;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Writer;
+import java.util.Collections;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.ProjectManager;
 import com.google.refine.history.Change;
@@ -65,7 +68,8 @@ public class CellChange implements Change {
 
         Column column = project.columnModel.getColumnByCellIndex(cellIndex);
         column.clearPrecomputes();
-        ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id, column.getName());
+        ProjectManager.singleton.getLookupCacheManager().updateLookupsInvolvingProjectColumn(project.id, column.getName(),
+                new CellChange[] { this }, false);
     }
 
     @Override
@@ -74,7 +78,14 @@ public class CellChange implements Change {
 
         Column column = project.columnModel.getColumnByCellIndex(cellIndex);
         column.clearPrecomputes();
-        ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id, column.getName());
+        ProjectManager.singleton.getLookupCacheManager().updateLookupsInvolvingProjectColumn(project.id, column.getName(),
+                new CellChange[] { this }, true);
+    }
+
+    @Override
+    public Optional<Set<String>> getModifiedColumns(Project project) {
+        Column column = project.columnModel.getColumnByCellIndex(cellIndex);
+        return column == null ? Optional.empty() : Optional.of(Collections.singleton(column.getName()));
     }
 
     @Override
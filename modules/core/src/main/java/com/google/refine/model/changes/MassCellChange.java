@@ -33,20 +33,29 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.model.changes;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Writer;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.history.BinaryChange;
 import com.google.refine.history.Change;
+import com.google.refine.model.BinaryRowFormat;
+import com.google.refine.model.Cell;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 import com.google.refine.util.Pool;
 
-public class MassCellChange implements Change {
+public class MassCellChange implements BinaryChange {
 
     final protected CellChange[] _cellChanges;
     final protected String _commonColumnName;
@@ -95,7 +104,8 @@ public class MassCellChange implements Change {
             if (_commonColumnName != null) {
                 Column column = project.columnModel.getColumnByName(_commonColumnName);
                 column.clearPrecomputes();
-                ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id, _commonColumnName);
+                ProjectManager.singleton.getLookupCacheManager().updateLookupsInvolvingProjectColumn(project.id, _commonColumnName,
+                        _cellChanges, false);
             }
 
             if (_updateRowContextDependencies) {
@@ -116,7 +126,8 @@ public class MassCellChange implements Change {
             if (_commonColumnName != null) {
                 Column column = project.columnModel.getColumnByName(_commonColumnName);
                 column.clearPrecomputes();
-                ProjectManager.singleton.getLookupCacheManager().flushLookupsInvolvingProjectColumn(project.id, _commonColumnName);
+                ProjectManager.singleton.getLookupCacheManager().updateLookupsInvolvingProjectColumn(project.id, _commonColumnName,
+                        _cellChanges, true);
             }
 
             if (_updateRowContextDependencies) {
@@ -125,6 +136,22 @@ public class MassCellChange implements Change {
         }
     }
 
+    @Override
+    public Optional<Set<String>> getModifiedColumns(Project project) {
+        if (_commonColumnName != null) {
+            return Optional.of(Collections.singleton(_commonColumnName));
+        }
+        Set<String> columnNames = new HashSet<>();
+        for (CellChange cellChange : _cellChanges) {
+            Column column = project.columnModel.getColumnByCellIndex(cellChange.cellIndex);
+            if (column == null) {
+                return Optional.empty();
+            }
+            columnNames.add(column.getName());
+        }
+        return Optional.of(columnNames);
+    }
+
     @Override
     public void save(Writer writer, Properties options) throws IOException {
         if (_commonColumnName != null) {
@@ -172,4 +199,58 @@ public class MassCellChange implements Change {
 
         return change;
     }
+
+    /**
+     * Writes the positions of the changed cells as differences from the previous position, followed by all old cells
+     * and then all new cells, so that similar values are next to each other.
+     */
+    @Override
+    public void saveBinary(DataOutputStream out, Pool pool) throws IOException {
+        BinaryRowFormat.Writer writer = new BinaryRowFormat.Writer(out, pool);
+        out.writeBoolean(_commonColumnName != null);
+        if (_commonColumnName != null) {
+            writer.writeUTF(_commonColumnName);
+        }
+        out.writeBoolean(_updateRowContextDependencies);
+        writer.writeVarLong(_cellChanges.length);
+
+        int previousRow = 0;
+        for (CellChange c : _cellChanges) {
+            writer.writeVarLong(BinaryRowFormat.Writer.zigZag(c.row - previousRow));
+            writer.writeVarLong(c.cellIndex);
+            previousRow = c.row;
+        }
+        for (CellChange c : _cellChanges) {
+            writer.writeCell(c.oldCell);
+        }
+        for (CellChange c : _cellChanges) {
+            writer.writeCell(c.newCell);
+        }
+    }
+
+    static public Change loadBinary(DataInputStream in, Pool pool) throws IOException {
+        BinaryRowFormat.Reader reader = new BinaryRowFormat.Reader(in, pool);
+        String commonColumnName = in.readBoolean() ? reader.readUTF() : null;
+        boolean updateRowContextDependencies = in.readBoolean();
+        int count = (int) reader.readVarLong();
+
+        int[] rows = new int[count];
+        int[] cellIndices = new int[count];
+        int previousRow = 0;
+        for (int i = 0; i < count; i++) {
+            rows[i] = previousRow + (int) BinaryRowFormat.Reader.unZigZag(reader.readVarLong());
+            cellIndices[i] = (int) reader.readVarLong();
+            previousRow = rows[i];
+        }
+        Cell[] oldCells = new Cell[count];
+        for (int i = 0; i < count; i++) {
+            oldCells[i] = reader.readCell();
+        }
+        CellChange[] cellChanges = new CellChange[count];
+        for (int i = 0; i < count; i++) {
+            cellChanges[i] = new CellChange(rows[i], cellIndices[i], oldCells[i], reader.readCell());
+        }
+
+        return new MassCellChange(cellChanges, commonColumnName, updateRowContextDependencies);
+    }
 }
@@ -33,6 +33,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.model.changes;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Writer;
@@ -41,14 +43,16 @@ import java.util.List;
 import java.util.Properties;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.history.BinaryChange;
 import com.google.refine.history.Change;
+import com.google.refine.model.BinaryRowFormat;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 import com.google.refine.util.Pool;
 
 // TODO: This replaces all rows in the project with a new set of rows, but if only a small percentage of the rows
 // are being changed, it'd be much more efficient to apply a change list of new/modified rows.
-public class MassRowChange implements Change {
+public class MassRowChange implements BinaryChange {
 
     final protected List<Row> _newRows;
     protected List<Row> _oldRows;
@@ -140,4 +144,22 @@ public class MassRowChange implements Change {
 
         return change;
     }
+
+    @Override
+    public void saveBinary(DataOutputStream out, Pool pool) throws IOException {
+        BinaryRowFormat.write(_newRows, pool, out);
+        BinaryRowFormat.write(_oldRows, pool, out);
+    }
+
+    static public Change loadBinary(DataInputStream in, Pool pool) throws IOException {
+        List<Row> newRows = new ArrayList<Row>();
+        BinaryRowFormat.read(in, pool, newRows::add);
+        List<Row> oldRows = new ArrayList<Row>();
+        BinaryRowFormat.read(in, pool, oldRows::add);
+
+        MassRowChange change = new MassRowChange(newRows);
+        change._oldRows = oldRows;
+
+        return change;
+    }
 }
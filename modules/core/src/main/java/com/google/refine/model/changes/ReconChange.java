@@ -37,14 +37,19 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.model.changes;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.LineNumberReader;
+import java.io.StringWriter;
 import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Properties;
 
 import com.google.refine.ProjectManager;
 import com.google.refine.history.Change;
+import com.google.refine.model.BinaryRowFormat;
 import com.google.refine.model.Column;
 import com.google.refine.model.Project;
 import com.google.refine.model.ReconStats;
@@ -210,4 +215,63 @@ public class ReconChange extends MassCellChange {
 
         return change;
     }
+
+    /**
+     * Writes the recon configs and stats of the column in their JSON form, followed by the cell changes.
+     */
+    @Override
+    public void saveBinary(DataOutputStream out, Pool pool) throws IOException {
+        StringWriter newReconConfig = new StringWriter();
+        StringWriter newReconStats = new StringWriter();
+        StringWriter oldReconConfig = new StringWriter();
+        StringWriter oldReconStats = new StringWriter();
+        if (_newReconConfig != null) {
+            _newReconConfig.save(newReconConfig);
+        }
+        if (_newReconStats != null) {
+            _newReconStats.save(newReconStats);
+        }
+        if (_oldReconConfig != null) {
+            _oldReconConfig.save(oldReconConfig);
+        }
+        if (_oldReconStats != null) {
+            _oldReconStats.save(oldReconStats);
+        }
+        writeString(out, newReconConfig.toString());
+        writeString(out, newReconStats.toString());
+        writeString(out, oldReconConfig.toString());
+        writeString(out, oldReconStats.toString());
+
+        super.saveBinary(out, pool);
+    }
+
+    static public Change loadBinary(DataInputStream in, Pool pool) throws IOException {
+        String newReconConfig = readString(in);
+        String newReconStats = readString(in);
+        String oldReconConfig = readString(in);
+        String oldReconStats = readString(in);
+        MassCellChange cellChanges = (MassCellChange) MassCellChange.loadBinary(in, pool);
+
+        ReconChange change = new ReconChange(cellChanges._cellChanges, cellChanges._commonColumnName,
+                newReconConfig.isEmpty() ? null : ParsingUtilities.mapper.readValue(newReconConfig, ReconConfig.class),
+                newReconStats.isEmpty() ? null : ParsingUtilities.mapper.readValue(newReconStats, ReconStats.class));
+        if (!oldReconConfig.isEmpty()) {
+            change._oldReconConfig = ParsingUtilities.mapper.readValue(oldReconConfig, ReconConfig.class);
+        }
+        if (!oldReconStats.isEmpty()) {
+            change._oldReconStats = ParsingUtilities.mapper.readValue(oldReconStats, ReconStats.class);
+        }
+        return change;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        BinaryRowFormat.writeVarLong(out, bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = (int) BinaryRowFormat.readVarLong(in);
+        return new String(in.readNBytes(length), StandardCharsets.UTF_8);
+    }
 }
@@ -33,6 +33,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.model.changes;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Writer;
@@ -41,35 +43,57 @@ import java.util.List;
 import java.util.Properties;
 
 import com.google.refine.ProjectManager;
+import com.google.refine.history.BinaryChange;
 import com.google.refine.history.Change;
+import com.google.refine.model.BinaryRowFormat;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 import com.google.refine.util.Pool;
 
-public class RowRemovalChange implements Change {
+public class RowRemovalChange implements BinaryChange {
 
-    final protected List<Integer> _rowIndices;
+    // the indices of the removed rows, in increasing order
+    final protected int[] _rowIndices;
     protected List<Row> _rows;
 
     public RowRemovalChange(List<Integer> rowIndices) {
+        this(rowIndices.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public RowRemovalChange(int[] rowIndices) {
         _rowIndices = rowIndices;
     }
 
     @Override
     public void apply(Project project) {
         synchronized (project) {
-            int count = _rowIndices.size();
+            List<Row> rows = project.rows;
+            int count = _rowIndices.length;
 
             _rows = new ArrayList<Row>(count);
 
-            int offset = 0;
-            for (int i = 0; i < count; i++) {
-                int index = _rowIndices.get(i);
-
-                Row row = project.rows.remove(index + offset);
-                _rows.add(row);
+            if (isIncreasing(_rowIndices)) {
+                // copies the remaining rows in a single pass, instead of shifting the rows after each removed row
+                List<Row> remainingRows = new ArrayList<Row>(Math.max(0, rows.size() - count));
+                int next = 0;
+                for (int r = 0; r < rows.size(); r++) {
+                    if (next < count && _rowIndices[next] == r) {
+                        _rows.add(rows.get(r));
+                        next++;
+                    } else {
+                        remainingRows.add(rows.get(r));
+                    }
+                }
+                rows.clear();
+                rows.addAll(remainingRows);
+            } else {
+                int offset = 0;
+                for (int i = 0; i < count; i++) {
+                    Row row = rows.remove(_rowIndices[i] + offset);
+                    _rows.add(row);
 
-                offset--;
+                    offset--;
+                }
             }
 
             project.columnModel.clearPrecomputes();
@@ -82,13 +106,27 @@ public class RowRemovalChange implements Change {
     @Override
     public void revert(Project project) {
         synchronized (project) {
-            int count = _rowIndices.size();
-
-            for (int i = 0; i < count; i++) {
-                int index = _rowIndices.get(i);
-                Row row = _rows.get(i);
-
-                project.rows.add(index, row);
+            List<Row> rows = project.rows;
+            int count = _rowIndices.length;
+
+            if (isIncreasing(_rowIndices)) {
+                // merges the removed rows back in a single pass
+                List<Row> restoredRows = new ArrayList<Row>(rows.size() + count);
+                int next = 0;
+                int remaining = 0;
+                while (next < count || remaining < rows.size()) {
+                    if (next < count && (_rowIndices[next] == restoredRows.size() || remaining == rows.size())) {
+                        restoredRows.add(_rows.get(next++));
+                    } else {
+                        restoredRows.add(rows.get(remaining++));
+                    }
+                }
+                rows.clear();
+                rows.addAll(restoredRows);
+            } else {
+                for (int i = 0; i < count; i++) {
+                    rows.add(_rowIndices[i], _rows.get(i));
+                }
             }
 
             project.columnModel.clearPrecomputes();
@@ -98,13 +136,22 @@ public class RowRemovalChange implements Change {
         }
     }
 
+    private static boolean isIncreasing(int[] indices) {
+        for (int i = 1; i < indices.length; i++) {
+            if (indices[i] <= indices[i - 1]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     public void save(Writer writer, Properties options) throws IOException {
         writer.write("rowIndexCount=");
-        writer.write(Integer.toString(_rowIndices.size()));
+        writer.write(Integer.toString(_rowIndices.length));
         writer.write('\n');
-        for (Integer index : _rowIndices) {
-            writer.write(index.toString());
+        for (int index : _rowIndices) {
+            writer.write(Integer.toString(index));
             writer.write('\n');
         }
         writer.write("rowCount=");
@@ -118,7 +165,7 @@ public class RowRemovalChange implements Change {
     }
 
     static public Change load(LineNumberReader reader, Pool pool) throws Exception {
-        List<Integer> rowIndices = null;
+        int[] rowIndices = null;
         List<Row> rows = null;
 
         String line;
@@ -129,11 +176,11 @@ public class RowRemovalChange implements Change {
             if ("rowIndexCount".equals(field)) {
                 int count = Integer.parseInt(line.substring(equal + 1));
 
-                rowIndices = new ArrayList<Integer>(count);
+                rowIndices = new int[count];
                 for (int i = 0; i < count; i++) {
                     line = reader.readLine();
                     if (line != null) {
-                        rowIndices.add(Integer.parseInt(line));
+                        rowIndices[i] = Integer.parseInt(line);
                     }
                 }
             } else if ("rowCount".equals(field)) {
@@ -154,4 +201,41 @@ public class RowRemovalChange implements Change {
 
         return change;
     }
+
+    /**
+     * Writes the indices of the removed rows as differences from the previous index, followed by the removed rows.
+     */
+    @Override
+    public void saveBinary(DataOutputStream out, Pool pool) throws IOException {
+        writeIndices(out, _rowIndices);
+        BinaryRowFormat.write(_rows, pool, out);
+    }
+
+    static public Change loadBinary(DataInputStream in, Pool pool) throws IOException {
+        RowRemovalChange change = new RowRemovalChange(readIndices(in));
+        List<Row> rows = new ArrayList<Row>(change._rowIndices.length);
+        BinaryRowFormat.read(in, pool, rows::add);
+        change._rows = rows;
+
+        return change;
+    }
+
+    static void writeIndices(DataOutputStream out, int[] indices) throws IOException {
+        BinaryRowFormat.writeVarLong(out, indices.length);
+        int previous = 0;
+        for (int index : indices) {
+            BinaryRowFormat.writeVarLong(out, BinaryRowFormat.Writer.zigZag(index - previous));
+            previous = index;
+        }
+    }
+
+    static int[] readIndices(DataInputStream in) throws IOException {
+        int[] indices = new int[(int) BinaryRowFormat.readVarLong(in)];
+        int previous = 0;
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = previous + (int) BinaryRowFormat.Reader.unZigZag(BinaryRowFormat.readVarLong(in));
+            previous = indices[i];
+        }
+        return indices;
+    }
 }
@@ -33,23 +33,31 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.model.changes;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.LineNumberReader;
 import java.io.Writer;
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 
+import com.google.refine.history.BinaryChange;
 import com.google.refine.history.Change;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
 import com.google.refine.util.Pool;
 
-public class RowReorderChange implements Change {
+public class RowReorderChange implements BinaryChange {
 
-    final protected List<Integer> _rowIndices;
+    // the old index of the row at each new index
+    final protected int[] _rowIndices;
 
     public RowReorderChange(List<Integer> rowIndices) {
+        this(rowIndices.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public RowReorderChange(int[] rowIndices) {
         _rowIndices = rowIndices;
     }
 
@@ -57,14 +65,14 @@ public class RowReorderChange implements Change {
     public void apply(Project project) {
         synchronized (project) {
             List<Row> oldRows = project.rows;
-            List<Row> newRows = new ArrayList<Row>(oldRows.size());
+            Row[] newRows = new Row[_rowIndices.length];
 
-            for (Integer oldIndex : _rowIndices) {
-                newRows.add(oldRows.get(oldIndex));
+            for (int newIndex = 0; newIndex < _rowIndices.length; newIndex++) {
+                newRows[newIndex] = oldRows.get(_rowIndices[newIndex]);
             }
 
             project.rows.clear();
-            project.rows.addAll(newRows);
+            project.rows.addAll(Arrays.asList(newRows));
             project.update();
         }
     }
@@ -72,23 +80,15 @@ public class RowReorderChange implements Change {
     @Override
     public void revert(Project project) {
         synchronized (project) {
-            int count = project.rows.size();
-
             List<Row> newRows = project.rows;
-            List<Row> oldRows = new ArrayList<Row>(count);
-
-            for (int r = 0; r < count; r++) {
-                oldRows.add(null);
-            }
+            Row[] oldRows = new Row[newRows.size()];
 
-            for (int newIndex = 0; newIndex < count; newIndex++) {
-                int oldIndex = _rowIndices.get(newIndex);
-                Row row = newRows.get(newIndex);
-                oldRows.set(oldIndex, row);
+            for (int newIndex = 0; newIndex < oldRows.length; newIndex++) {
+                oldRows[_rowIndices[newIndex]] = newRows.get(newIndex);
             }
 
             project.rows.clear();
-            project.rows.addAll(oldRows);
+            project.rows.addAll(Arrays.asList(oldRows));
             project.update();
         }
     }
@@ -96,17 +96,17 @@ public class RowReorderChange implements Change {
     @Override
     public void save(Writer writer, Properties options) throws IOException {
         writer.write("rowIndexCount=");
-        writer.write(Integer.toString(_rowIndices.size()));
+        writer.write(Integer.toString(_rowIndices.length));
         writer.write('\n');
-        for (Integer index : _rowIndices) {
-            writer.write(index.toString());
+        for (int index : _rowIndices) {
+            writer.write(Integer.toString(index));
             writer.write('\n');
         }
         writer.write("/ec/\n"); // end of change marker
     }
 
     static public Change load(LineNumberReader reader, Pool pool) throws Exception {
-        List<Integer> rowIndices = null;
+        int[] rowIndices = null;
 
         String line;
         while ((line = reader.readLine()) != null && !"/ec/".equals(line)) {
@@ -116,11 +116,11 @@ public class RowReorderChange implements Change {
             if ("rowIndexCount".equals(field)) {
                 int count = Integer.parseInt(line.substring(equal + 1));
 
-                rowIndices = new ArrayList<Integer>(count);
+                rowIndices = new int[count];
                 for (int i = 0; i < count; i++) {
                     line = reader.readLine();
                     if (line != null) {
-                        rowIndices.add(Integer.parseInt(line));
+                        rowIndices[i] = Integer.parseInt(line);
                     }
                 }
             }
@@ -130,4 +130,17 @@ public class RowReorderChange implements Change {
 
         return change;
     }
+
+    /**
+     * Writes the old indices of the rows as differences from the previous one, which are small for rows which keep
+     * their relative order.
+     */
+    @Override
+    public void saveBinary(DataOutputStream out, Pool pool) throws IOException {
+        RowRemovalChange.writeIndices(out, _rowIndices);
+    }
+
+    static public Change loadBinary(DataInputStream in, Pool pool) throws IOException {
+        return new RowReorderChange(RowRemovalChange.readIndices(in));
+    }
 }
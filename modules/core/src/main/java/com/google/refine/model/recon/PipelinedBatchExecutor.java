@@ -0,0 +1,192 @@
+
+package com.google.refine.model.recon;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import com.google.refine.process.ProcessExecutor;
+import com.google.refine.process.ProcessExecutor.Priority;
+
+/**
+ * Sends batches of queries to a remote service, keeping up to a fixed number of batches in flight at the same time.
+ * Results are handed over on the calling thread as soon as they arrive, in completion order.
+ * <p>
+ * The number of batches in flight adapts to the responses of the service: it is halved and further submissions are
+ * delayed, with an exponentially increasing delay, every time a batch fails (for instance because the service is
+ * overloaded or rate-limits its clients), and it grows back by one for every successful batch. Failed batches are sent
+ * again after the delay, up to {@link #MAX_RETRIES} times, before their failed result is handed over.
+ * <p>
+ * Batches are sent from the {@link Priority#FETCH} pool shared by all projects, so that concurrent runs do not each
+ * start their own threads. Each run reserves as many workers of the pool as batches it can keep in flight.
+ *
+ * @param <B>
+ *            the type of batches
+ * @param <R>
+ *            the type of results of a batch
+ */
+public class PipelinedBatchExecutor<B, R> {
+
+    static final long INITIAL_BACKOFF = 500;
+    static final long MAX_BACKOFF = 30_000;
+    static final int MAX_RETRIES = 3;
+    private static final long POLL_INTERVAL = 100;
+
+    private final int _maxInFlight;
+    private final Function<B, R> _function;
+    private final Predicate<R> _isFailure;
+    private long _pause = 0;
+
+    /**
+     * @param maxInFlight
+     *            the maximum number of batches processed at the same time. With 1, batches are processed sequentially
+     *            on the calling thread, and failed batches are not sent again.
+     * @param function
+     *            processes a batch. It must be thread-safe if more than one batch can be in flight.
+     * @param isFailure
+     *            tells whether the result of a batch denotes a failure of the service, which triggers the backoff
+     */
+    public PipelinedBatchExecutor(int maxInFlight, Function<B, R> function, Predicate<R> isFailure) {
+        _maxInFlight = Math.max(1, maxInFlight);
+        _function = function;
+        _isFailure = isFailure;
+    }
+
+    /**
+     * Sets a pause to observe between two consecutive batches when they are processed sequentially.
+     *
+     * @param pause
+     *            the pause, in milliseconds
+     */
+    public PipelinedBatchExecutor<B, R> setSequentialPause(long pause) {
+        _pause = pause;
+        return this;
+    }
+
+    /**
+     * Processes all batches, unless canceled.
+     *
+     * @param batches
+     *            the batches to process, consumed lazily on the calling thread
+     * @param handler
+     *            called on the calling thread with each batch and its result, as soon as it is available
+     * @param canceled
+     *            checked regularly to stop processing early. Batches which are in flight at that point are abandoned.
+     * @return false if processing was canceled, or the calling thread interrupted
+     */
+    public boolean run(Iterator<B> batches, BiConsumer<B, R> handler, BooleanSupplier canceled) {
+        if (_maxInFlight == 1) {
+            return runSequentially(batches, handler, canceled);
+        }
+
+        ProcessExecutor executor = ProcessExecutor.getDefault();
+        executor.reserveThreads(Priority.FETCH, _maxInFlight);
+        CompletionService<R> completionService = new ExecutorCompletionService<>(
+                task -> executor.submit(task, Priority.FETCH));
+        Map<Future<R>, Attempt<B>> inFlight = new HashMap<>();
+        Deque<Attempt<B>> retries = new ArrayDeque<>();
+        int window = _maxInFlight;
+        long backoff = 0;
+        long notBefore = 0;
+        try {
+            while (!canceled.getAsBoolean()) {
+                long now = System.currentTimeMillis();
+                while (inFlight.size() < window && (!retries.isEmpty() || batches.hasNext()) && now >= notBefore) {
+                    Attempt<B> attempt = retries.isEmpty() ? new Attempt<>(batches.next()) : retries.poll();
+                    inFlight.put(completionService.submit(() -> _function.apply(attempt.batch)), attempt);
+                }
+                if (inFlight.isEmpty() && retries.isEmpty() && !batches.hasNext()) {
+                    return true;
+                }
+
+                Future<R> future;
+                try {
+                    long timeout = inFlight.isEmpty() ? Math.max(1, notBefore - now) : POLL_INTERVAL;
+                    future = completionService.poll(Math.min(timeout, POLL_INTERVAL), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                if (future == null) {
+                    continue;
+                }
+
+                Attempt<B> attempt = inFlight.remove(future);
+                R result = getResult(future);
+                if (_isFailure.test(result)) {
+                    window = Math.max(1, window / 2);
+                    backoff = backoff == 0 ? INITIAL_BACKOFF : Math.min(MAX_BACKOFF, backoff * 2);
+                    notBefore = System.currentTimeMillis() + backoff;
+                    if (attempt.retries < MAX_RETRIES) {
+                        attempt.retries++;
+                        retries.add(attempt);
+                        continue;
+                    }
+                } else {
+                    window = Math.min(_maxInFlight, window + 1);
+                    backoff /= 2;
+                }
+                handler.accept(attempt.batch, result);
+            }
+            return false;
+        } finally {
+            // abandons the batches in flight if processing was canceled
+            inFlight.keySet().forEach(future -> future.cancel(true));
+            executor.releaseThreads(Priority.FETCH, _maxInFlight);
+        }
+    }
+
+    private boolean runSequentially(Iterator<B> batches, BiConsumer<B, R> handler, BooleanSupplier canceled) {
+        while (batches.hasNext()) {
+            B batch = batches.next();
+            handler.accept(batch, _function.apply(batch));
+            if (_pause > 0) {
+                try {
+                    Thread.sleep(_pause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            if (canceled.getAsBoolean()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static class Attempt<B> {
+
+        final B batch;
+        int retries = 0;
+
+        Attempt(B batch) {
+            this.batch = batch;
+        }
+    }
+
+    private R getResult(Future<R> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            // the future is already completed
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+
+package com.google.refine.model.recon;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.io.FileProjectManager;
+import com.google.refine.model.Project;
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * Results of a long-running reconciliation or data extension process, saved to disk as batches complete so that they
+ * are not lost if the process is canceled or fails. Running the same operation again on the same project reads them
+ * back and only queries the service for the remaining keys.
+ * <p>
+ * Results are appended to a file, one JSON object per line, so that a crash can at worst lose the last batch. The file
+ * is deleted once the operation has completed successfully, when its project is deleted, or once it has not been
+ * written to for {@link #MAX_AGE} milliseconds.
+ */
+public class ReconCheckpoint {
+
+    final static Logger logger = LoggerFactory.getLogger("recon-checkpoint");
+
+    private static final String KEY = "k";
+    private static final String VALUE = "v";
+    private static final String METADATA = "meta";
+
+    /**
+     * Checkpoints of operations which were not run again within this delay are deleted, as the results of the service
+     * may have changed since.
+     */
+    static final long MAX_AGE = TimeUnit.DAYS.toMillis(7);
+
+    private final File _file;
+    private final Map<String, JsonNode> _entries = new HashMap<>();
+    private JsonNode _metadata;
+    private Writer _writer;
+
+    /**
+     * Opens a checkpoint file, reading the results it already contains.
+     *
+     * @param file
+     *            the file to store results in, created when the first results are added
+     */
+    public ReconCheckpoint(File file) throws IOException {
+        _file = file;
+        if (file.exists()) {
+            try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    JsonNode node;
+                    try {
+                        node = ParsingUtilities.mapper.readTree(line);
+                    } catch (IOException e) {
+                        // truncated by a crash, which the following lines do not depend on
+                        logger.warn("Ignoring invalid line in reconciliation checkpoint {}", file);
+                        continue;
+                    }
+                    if (node.has(METADATA)) {
+                        _metadata = node.get(METADATA);
+                    } else if (node.has(KEY)) {
+                        _entries.put(node.get(KEY).asText(), node.get(VALUE));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return whether checkpoints can be stored, which requires the workspace to be stored on disk
+     */
+    public static boolean isAvailable() {
+        return ProjectManager.singleton instanceof FileProjectManager;
+    }
+
+    /**
+     * Opens the checkpoint of an operation on a project.
+     *
+     * @param operationKey
+     *            identifies the results of the operation, so that only operations which would get the same results from
+     *            the service share a checkpoint
+     * @return the checkpoint, or null if the workspace is not stored on disk or the checkpoint could not be read
+     */
+    public static ReconCheckpoint open(Project project, String operationKey) {
+        if (!isAvailable()) {
+            return null;
+        }
+        File dir = getDirectory(((FileProjectManager) ProjectManager.singleton).getWorkspaceDir());
+        deleteExpired(dir, System.currentTimeMillis());
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            String hash = HexFormat.of().formatHex(digest.digest(operationKey.getBytes(StandardCharsets.UTF_8)));
+            return new ReconCheckpoint(new File(dir, project.id + "-" + hash + ".jsonl"));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            logger.warn("Could not read reconciliation checkpoint", e);
+            return null;
+        }
+    }
+
+    static File getDirectory(File workspaceDir) {
+        return new File(workspaceDir, "cache/recon");
+    }
+
+    /**
+     * Deletes the checkpoints of all operations on a project, once the project is deleted.
+     */
+    public static void deleteCheckpoints(File workspaceDir, long projectID) {
+        File[] files = getDirectory(workspaceDir).listFiles((d, name) -> name.startsWith(projectID + "-"));
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+    }
+
+    /**
+     * Deletes the checkpoints which were last written to more than {@link #MAX_AGE} milliseconds before the given time,
+     * such as those of operations which failed or were canceled and were not run again.
+     */
+    static void deleteExpired(File dir, long now) {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (now - file.lastModified() > MAX_AGE) {
+                    file.delete();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the results stored so far, by key
+     */
+    public Map<String, JsonNode> getEntries() {
+        return Collections.unmodifiableMap(_entries);
+    }
+
+    /**
+     * @return the metadata stored with the results, or null if there is none
+     */
+    public JsonNode getMetadata() {
+        return _metadata;
+    }
+
+    /**
+     * Stores metadata needed to interpret the results, such as the columns returned by a data extension service.
+     */
+    public synchronized void setMetadata(JsonNode metadata) {
+        ObjectNode node = ParsingUtilities.mapper.createObjectNode();
+        node.set(METADATA, metadata);
+        if (write(node.toString() + "\n")) {
+            _metadata = metadata;
+        }
+    }
+
+    /**
+     * Stores the results of a completed batch.
+     */
+    public synchronized void addEntries(Map<String, JsonNode> entries) {
+        StringBuilder lines = new StringBuilder();
+        for (Map.Entry<String, JsonNode> entry : entries.entrySet()) {
+            ObjectNode node = ParsingUtilities.mapper.createObjectNode();
+            node.put(KEY, entry.getKey());
+            node.set(VALUE, entry.getValue());
+            lines.append(node.toString()).append('\n');
+        }
+        if (write(lines.toString())) {
+            _entries.putAll(entries);
+        }
+    }
+
+    /**
+     * Releases the file, keeping its contents for a later run.
+     */
+    public synchronized void close() {
+        if (_writer != null) {
+            try {
+                _writer.close();
+            } catch (IOException e) {
+                logger.warn("Could not close reconciliation checkpoint", e);
+            }
+            _writer = null;
+        }
+    }
+
+    /**
+     * Deletes the stored results, once they have been applied to the project.
+     */
+    public synchronized void delete() {
+        close();
+        _file.delete();
+        _entries.clear();
+        _metadata = null;
+    }
+
+    private boolean write(String lines) {
+        try {
+            if (_writer == null) {
+                _file.getParentFile().mkdirs();
+                _writer = new OutputStreamWriter(new FileOutputStream(_file, true), StandardCharsets.UTF_8);
+            }
+            _writer.write(lines);
+            _writer.flush();
+            return true;
+        } catch (IOException e) {
+            // the process can go on without checkpoint
+            logger.warn("Could not write reconciliation checkpoint " + _file, e);
+            return false;
+        }
+    }
+}
@@ -118,6 +118,15 @@ abstract public class ReconConfig {
 
     abstract public List<Recon> batchRecon(List<ReconJob> jobs, long historyEntryID);
 
+    /**
+     * @return the maximum number of batches which can be passed to {@link #batchRecon(List, long)} concurrently. Only
+     *         configurations whose batchRecon method is thread-safe should return more than 1.
+     */
+    @JsonIgnore
+    public int getMaxConcurrentBatches() {
+        return 1;
+    }
+
     abstract public Recon createNewRecon(long historyEntryID);
 
     public void save(Writer writer) {
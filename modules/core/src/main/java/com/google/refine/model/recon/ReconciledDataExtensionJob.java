@@ -55,6 +55,7 @@ import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.annotation.JsonView;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
@@ -170,6 +171,15 @@ public class ReconciledDataExtensionJob {
     public Map<String, ReconciledDataExtensionJob.DataExtension> extend(
             Set<String> ids,
             Map<String, ReconCandidate> reconCandidateMap) throws Exception {
+        return collectResults(fetch(ids), ids, reconCandidateMap);
+    }
+
+    /**
+     * Queries the service for the given entities, reading the column metadata from the response if it is not known yet.
+     *
+     * @return the response of the service
+     */
+    public ObjectNode fetch(Set<String> ids) throws Exception {
         StringWriter writer = new StringWriter();
         formulateQuery(ids, extension, writer);
 
@@ -179,15 +189,31 @@ public class ReconciledDataExtensionJob {
         ObjectNode o = ParsingUtilities.mapper.readValue(response, ObjectNode.class);
 
         if (columns.size() == 0) {
-            // Extract the column metadata
-            List<ColumnInfo> newColumns = ParsingUtilities.mapper.convertValue(o.get("meta"), new TypeReference<List<ColumnInfo>>() {
-            });
-            columns.addAll(newColumns);
+            setColumnMetadata(o.get("meta"));
         }
+        return o;
+    }
 
+    /**
+     * Sets the columns returned by the service, from the "meta" field of one of its responses.
+     */
+    public void setColumnMetadata(JsonNode meta) {
+        // Extract the column metadata
+        List<ColumnInfo> newColumns = ParsingUtilities.mapper.convertValue(meta, new TypeReference<List<ColumnInfo>>() {
+        });
+        columns.addAll(newColumns);
+    }
+
+    /**
+     * Extracts the data of the given entities from a response of the service.
+     */
+    public Map<String, ReconciledDataExtensionJob.DataExtension> collectResults(
+            ObjectNode response,
+            Set<String> ids,
+            Map<String, ReconCandidate> reconCandidateMap) {
         Map<String, ReconciledDataExtensionJob.DataExtension> map = new HashMap<String, ReconciledDataExtensionJob.DataExtension>();
-        if (o.has("rows") && o.get("rows") instanceof ObjectNode) {
-            ObjectNode records = (ObjectNode) o.get("rows");
+        if (response.has("rows") && response.get("rows") instanceof ObjectNode) {
+            ObjectNode records = (ObjectNode) response.get("rows");
 
             // for each identifier
             for (String id : ids) {
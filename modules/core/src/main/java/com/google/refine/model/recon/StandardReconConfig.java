@@ -71,6 +71,7 @@ import com.google.refine.model.ReconCandidate;
 import com.google.refine.model.ReconType;
 import com.google.refine.model.RecordModel.RowDependency;
 import com.google.refine.model.Row;
+import com.google.refine.preference.PreferenceStore;
 import com.google.refine.util.HttpClient;
 import com.google.refine.util.ParsingUtilities;
 
@@ -82,6 +83,12 @@ public class StandardReconConfig extends ReconConfig {
     private static final String DEFAULT_IDENTIFIER_SPACE = "http://localhost/identifier";
     private static final int DEFAULT_BATCH_SIZE = 10;
 
+    /**
+     * Preference holding the default number of batches sent concurrently to reconciliation services. It can be
+     * overridden for a given service by suffixing the key with a dot and the URL of the service.
+     */
+    public static final String CONCURRENT_BATCHES_PREFERENCE = "reconciliation.concurrentBatches";
+
     static public class ColumnDetail {
 
         @JsonProperty("column")
@@ -334,6 +341,18 @@ public class StandardReconConfig extends ReconConfig {
         return Math.min(Math.max(rowCount / DEFAULT_BATCH_SIZE, DEFAULT_BATCH_SIZE), batchSize.get());
     }
 
+    @Override
+    @JsonIgnore
+    public int getMaxConcurrentBatches() {
+        if (ProjectManager.singleton == null) {
+            return 1;
+        }
+        PreferenceStore prefs = ProjectManager.singleton.getPreferenceStore();
+        int concurrency = prefs.getInteger(CONCURRENT_BATCHES_PREFERENCE + "." + service,
+                prefs.getInteger(CONCURRENT_BATCHES_PREFERENCE, 1));
+        return Math.max(1, concurrency);
+    }
+
     @Override
     public String getBriefDescription(Project project, String columnName) {
         return "Reconcile cells in column " + columnName + " to type " + typeID;
@@ -556,9 +575,10 @@ public class StandardReconConfig extends ReconConfig {
         return job;
     }
 
-    private HttpClient getHttpClient() {
+    private synchronized HttpClient getHttpClient() {
         if (httpClient == null) {
-            httpClient = new HttpClient();
+            // enough connections for all the batches sent concurrently
+            httpClient = new HttpClient(0, 200, getMaxConcurrentBatches());
         }
         return httpClient;
     }
@@ -84,7 +84,12 @@ abstract public class EngineDependentMassCellOperation extends EngineDependentOp
 
         FilteredRows filteredRows = engine.getAllFilteredRows();
         try {
-            filteredRows.accept(project, createRowVisitor(project, cellChanges, historyEntryID));
+            if (canVisitRowsConcurrently(project) && ParallelRowEvaluator.isEnabled()) {
+                cellChanges.addAll(ParallelRowEvaluator.visit(project, filteredRows,
+                        createRowVisitorFactory(project, historyEntryID)));
+            } else {
+                filteredRows.accept(project, createRowVisitor(project, cellChanges, historyEntryID));
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -105,6 +110,24 @@ abstract public class EngineDependentMassCellOperation extends EngineDependentOp
         return _columnName;
     }
 
+    /**
+     * Whether rows can be visited concurrently by separate visitors, each of them on a chunk of the project, with
+     * {@link ParallelRowEvaluator}. This requires visitors not to share any mutable state and the change computed for a
+     * row not to depend on the other rows visited.
+     */
+    protected boolean canVisitRowsConcurrently(Project project) {
+        return false;
+    }
+
+    /**
+     * Creates the visitors of the chunks of rows visited concurrently. By default, each of them is created by
+     * {@link #createRowVisitor(Project, List, long)}. Subclasses can override this to share thread-safe state between
+     * the visitors, such as a memoized expression.
+     */
+    protected ParallelRowEvaluator.VisitorFactory<CellChange> createRowVisitorFactory(Project project, long historyEntryID) {
+        return changes -> createRowVisitor(project, changes, historyEntryID);
+    }
+
     abstract protected RowVisitor createRowVisitor(Project project, List<CellChange> cellChanges, long historyEntryID) throws Exception;
 
     abstract protected String createDescription(Column column, List<CellChange> cellChanges);
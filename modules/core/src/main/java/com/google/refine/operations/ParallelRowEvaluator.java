@@ -0,0 +1,137 @@
+
+package com.google.refine.operations;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+/**
+ * Runs row visitors which compute a result for each row over chunks of the filtered rows of a project, the chunks being
+ * processed concurrently on the common fork-join pool. Each chunk is visited by its own visitor, which collects its
+ * results in its own list, and the lists are concatenated in row order.
+ */
+public class ParallelRowEvaluator {
+
+    public static final String PREFERENCE_KEY = "operations.parallelEvaluation";
+
+    // number of filtered rows visited by a single task
+    static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Creates the visitor of a chunk.
+     *
+     * @param <T>
+     *            the type of results
+     */
+    public interface VisitorFactory<T> {
+
+        /**
+         * @param results
+         *            the list the visitor should add its results to
+         * @return a visitor which does not share any mutable state with the other visitors, such as expression bindings
+         */
+        RowVisitor create(List<T> results) throws Exception;
+    }
+
+    private ParallelRowEvaluator() {
+    }
+
+    /**
+     * Rows are evaluated in parallel unless disabled in the workspace preferences.
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton == null
+                || ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, true);
+    }
+
+    /**
+     * @return whether an expression can be evaluated on several rows at the same time, with separate bindings, as
+     *         declared by {@link Evaluable#isThreadSafe()}
+     */
+    public static boolean canEvaluateConcurrently(Evaluable evaluable) {
+        return evaluable.isThreadSafe();
+    }
+
+    /**
+     * Visits the filtered rows of a project in chunks. Visitors are called on the rows of their chunk in order, but
+     * cannot abort the visit of other chunks.
+     *
+     * @return the results of all visitors, in row order
+     */
+    public static <T> List<T> visit(Project project, FilteredRows filteredRows, VisitorFactory<T> factory) throws Exception {
+        BitSet rows = new BitSet(project.rows.size());
+        filteredRows.accept(project, new RowVisitor() {
+
+            @Override
+            public void start(Project project) {
+                // nothing to do
+            }
+
+            @Override
+            public void end(Project project) {
+                // nothing to do
+            }
+
+            @Override
+            public boolean visit(Project project, int rowIndex, Row row) {
+                rows.set(rowIndex);
+                return false;
+            }
+        });
+
+        int[] rowIndices = rows.stream().toArray();
+        int chunkCount = (rowIndices.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        if (chunkCount <= 1) {
+            return visitChunk(project, rowIndices, 0, factory);
+        }
+        try {
+            List<List<T>> results = IntStream.range(0, chunkCount).parallel()
+                    .mapToObj(c -> {
+                        try {
+                            return visitChunk(project, rowIndices, c * CHUNK_SIZE, factory);
+                        } catch (Exception e) {
+                            throw new CompletionException(e);
+                        }
+                    })
+                    .collect(Collectors.toList());
+            List<T> merged = new ArrayList<>(results.stream().mapToInt(List::size).sum());
+            results.forEach(merged::addAll);
+            return merged;
+        } catch (CompletionException e) {
+            // the fork-join pool can wrap the exception thrown by the worker in a copy of it
+            Throwable cause = e;
+            while (cause instanceof CompletionException && cause.getCause() != null) {
+                cause = cause.getCause();
+            }
+            throw cause instanceof Exception ? (Exception) cause : e;
+        }
+    }
+
+    private static <T> List<T> visitChunk(Project project, int[] rowIndices, int from, VisitorFactory<T> factory) throws Exception {
+        int to = Math.min(rowIndices.length, from + CHUNK_SIZE);
+        List<T> results = new ArrayList<>(to - from);
+        RowVisitor visitor = factory.create(results);
+        visitor.start(project);
+        try {
+            for (int i = from; i < to; i++) {
+                int rowIndex = rowIndices[i];
+                if (visitor.visit(project, rowIndex, rowIndex, project.rows.get(rowIndex))) {
+                    break;
+                }
+            }
+        } finally {
+            visitor.end(project);
+        }
+        return results;
+    }
+}
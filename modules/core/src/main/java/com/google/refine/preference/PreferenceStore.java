@@ -68,6 +68,51 @@ public class PreferenceStore {
         return _prefs.get(key);
     }
 
+    /**
+     * Reads an integer preference, which can be stored either as a number or as a string.
+     *
+     * @param key
+     *            the preference key
+     * @param defaultValue
+     *            the value to return if the preference is missing or cannot be parsed
+     */
+    public int getInteger(String key, int defaultValue) {
+        Object v = _prefs.get(key);
+        if (v instanceof Number) {
+            return ((Number) v).intValue();
+        } else if (v != null) {
+            try {
+                return Integer.parseInt(v.toString().trim());
+            } catch (NumberFormatException e) {
+                // ignore
+            }
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Reads a boolean preference, which can be stored either as a boolean or as a string.
+     *
+     * @param key
+     *            the preference key
+     * @param defaultValue
+     *            the value to return if the preference is missing or cannot be parsed
+     */
+    public boolean getBoolean(String key, boolean defaultValue) {
+        Object v = _prefs.get(key);
+        if (v instanceof Boolean) {
+            return (Boolean) v;
+        } else if (v != null) {
+            String s = v.toString().trim();
+            if ("true".equalsIgnoreCase(s)) {
+                return true;
+            } else if ("false".equalsIgnoreCase(s)) {
+                return false;
+            }
+        }
+        return defaultValue;
+    }
+
     @JsonIgnore
     public Set<String> getKeys() {
         return _prefs.keySet();
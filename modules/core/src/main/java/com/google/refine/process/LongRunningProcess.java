@@ -33,6 +33,8 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.process;
 
+import java.util.concurrent.Future;
+
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 
@@ -45,11 +47,15 @@ abstract public class LongRunningProcess extends Process {
     @JsonIgnore
     protected ProcessManager _manager;
     @JsonIgnore
-    protected Thread _thread;
+    protected Future<?> _future;
+    @JsonIgnore
+    protected volatile boolean _started;
+    @JsonIgnore
+    protected volatile boolean _finished;
     @JsonProperty("progress")
     protected int _progress; // out of 100
     @JsonIgnore
-    protected boolean _canceled;
+    protected volatile boolean _canceled;
 
     protected LongRunningProcess(String description) {
         _description = description;
@@ -57,15 +63,21 @@ abstract public class LongRunningProcess extends Process {
 
     @Override
     public void cancel() {
-        _canceled = true;
-        if (_thread != null && _thread.isAlive()) {
-            _thread.interrupt();
+        synchronized (this) {
+            _canceled = true;
+        }
+        if (_future != null) {
+            // removes the process from the queue if it has not started yet
+            _future.cancel(true);
         }
     }
 
+    /**
+     * @return "pending" until a worker starts running the process, then "running" and finally "done"
+     */
     @JsonProperty("status")
     public String getStatus() {
-        return _thread == null ? "pending" : (_thread.isAlive() ? "running" : "done");
+        return isDone() ? "done" : (_started ? "running" : "pending");
     }
 
     @Override
@@ -73,14 +85,22 @@ abstract public class LongRunningProcess extends Process {
         return false;
     }
 
+    /**
+     * @return true if the process was handed to the {@link ProcessExecutor} and is not done yet, even if it is still
+     *         waiting for a worker
+     */
     @Override
     public boolean isRunning() {
-        return _thread != null && _thread.isAlive();
+        return _future != null && !isDone();
     }
 
+    /**
+     * @return true once the process has finished running, or if it was canceled before a worker started it. A process
+     *         canceled while running is only done once it has stopped changing the project.
+     */
     @Override
-    public boolean isDone() {
-        return _thread != null && !_thread.isAlive();
+    public synchronized boolean isDone() {
+        return _finished || (_canceled && !_started);
     }
 
     @Override
@@ -88,14 +108,42 @@ abstract public class LongRunningProcess extends Process {
         throw new RuntimeException("Not an immediate process");
     }
 
+    /**
+     * Queues the process on the batch pool of the workspace's {@link ProcessExecutor}. It is reported as running once a
+     * worker starts it. A process canceled while running tells its manager when it stops, so that the next process of
+     * the project only starts then.
+     */
     @Override
     public void startPerforming(ProcessManager manager) {
-        if (_thread == null) {
+        if (_future == null) {
             _manager = manager;
 
-            _thread = new Thread(getRunnable());
-            _thread.start();
+            Runnable runnable = getRunnable();
+            _future = ProcessExecutor.getDefault().submit(() -> {
+                if (!start()) {
+                    return;
+                }
+                try {
+                    if (runnable != null) {
+                        runnable.run();
+                    }
+                } finally {
+                    _finished = true;
+                    if (_canceled) {
+                        manager.onDoneProcess(this);
+                    }
+                }
+            }, ProcessExecutor.Priority.BATCH);
+        }
+    }
+
+    private synchronized boolean start() {
+        if (_canceled) {
+            // canceled while waiting for a worker
+            return false;
         }
+        _started = true;
+        return true;
     }
 
     abstract protected Runnable getRunnable();
@@ -0,0 +1,227 @@
+
+package com.google.refine.process;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.preference.PreferenceStore;
+
+/**
+ * Runs the background work of all projects of the workspace, such as long running processes and project creation, on
+ * bounded pools of worker threads instead of a new thread for each task.
+ * <p>
+ * Each {@link Priority} has its own pool, so that tasks a user is waiting for are not queued behind long batch
+ * processes of other projects. Tasks of the same priority are run in the order they were submitted once a worker is
+ * free. Work which needs a number of workers at the same time, such as concurrent requests, reserves them with
+ * {@link #reserveThreads(Priority, int)}, which grows the pool accordingly.
+ */
+public class ProcessExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProcessExecutor.class);
+
+    public static final String INTERACTIVE_THREADS_PREFERENCE = "processes.interactiveThreads";
+    public static final String BATCH_THREADS_PREFERENCE = "processes.batchThreads";
+    public static final String SAVE_THREADS_PREFERENCE = "processes.saveThreads";
+    public static final String FETCH_THREADS_PREFERENCE = "processes.fetchThreads";
+
+    public enum Priority {
+        /**
+         * Work which a user is waiting for, such as the creation of a project.
+         */
+        INTERACTIVE,
+        /**
+         * Work which runs in the background, such as reconciling or fetching URLs.
+         */
+        BATCH,
+        /**
+         * Saves of projects to the workspace, which are mostly bound by the disk and run alongside the work of the
+         * projects they save.
+         */
+        SAVE,
+        /**
+         * Requests sent to remote services on behalf of a running process, such as URLs fetched concurrently, which
+         * mostly wait for the network. Processes reserve as many workers as the requests they keep in flight.
+         */
+        FETCH
+    }
+
+    private static ProcessExecutor instance;
+
+    private final Map<Priority, ThreadPoolExecutor> _pools = new EnumMap<>(Priority.class);
+    // number of workers of each pool, before the reserved ones
+    private final Map<Priority, Integer> _baseThreads = new EnumMap<>(Priority.class);
+    private final Map<Priority, Integer> _reservedThreads = new EnumMap<>(Priority.class);
+    private final LongAdder _completedCount = new LongAdder();
+    private final LongAdder _failedCount = new LongAdder();
+    private final LongAdder _totalRunTime = new LongAdder();
+
+    /**
+     * @return the executor shared by all projects, with the numbers of threads set in the workspace preferences
+     */
+    public static synchronized ProcessExecutor getDefault() {
+        if (instance == null) {
+            int processors = Runtime.getRuntime().availableProcessors();
+            int interactiveThreads = Math.max(2, processors);
+            int batchThreads = Math.max(2, processors);
+            int saveThreads = Math.min(4, processors);
+            int fetchThreads = 16;
+            PreferenceStore preferences = ProjectManager.singleton == null ? null : ProjectManager.singleton.getPreferenceStore();
+            if (preferences != null) {
+                interactiveThreads = preferences.getInteger(INTERACTIVE_THREADS_PREFERENCE, interactiveThreads);
+                batchThreads = preferences.getInteger(BATCH_THREADS_PREFERENCE, batchThreads);
+                saveThreads = preferences.getInteger(SAVE_THREADS_PREFERENCE, saveThreads);
+                fetchThreads = preferences.getInteger(FETCH_THREADS_PREFERENCE, fetchThreads);
+            }
+            instance = new ProcessExecutor(interactiveThreads, batchThreads, saveThreads, fetchThreads);
+        }
+        return instance;
+    }
+
+    public ProcessExecutor(int interactiveThreads, int batchThreads) {
+        this(interactiveThreads, batchThreads, 1, 1);
+    }
+
+    public ProcessExecutor(int interactiveThreads, int batchThreads, int saveThreads) {
+        this(interactiveThreads, batchThreads, saveThreads, 1);
+    }
+
+    public ProcessExecutor(int interactiveThreads, int batchThreads, int saveThreads, int fetchThreads) {
+        addPool(Priority.INTERACTIVE, "interactive", interactiveThreads);
+        addPool(Priority.BATCH, "batch", batchThreads);
+        addPool(Priority.SAVE, "save", saveThreads);
+        addPool(Priority.FETCH, "fetch", fetchThreads);
+    }
+
+    private void addPool(Priority priority, String name, int threads) {
+        _pools.put(priority, createPool(name, threads));
+        _baseThreads.put(priority, Math.max(1, threads));
+        _reservedThreads.put(priority, 0);
+    }
+
+    private static ThreadPoolExecutor createPool(String name, int threads) {
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(runnable, "refine-" + name + "-" + threadCount.incrementAndGet());
+            // like the threads previously created for each process, the workers do not prevent the server from stopping
+            thread.setDaemon(true);
+            return thread;
+        };
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(Math.max(1, threads), Math.max(1, threads), 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), factory);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    /**
+     * Queues a task until a worker of its priority is free.
+     *
+     * @return a future which can be used to cancel the task, interrupting it if it is running
+     */
+    public Future<?> submit(Runnable task, Priority priority) {
+        return _pools.get(priority).submit(() -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } catch (RuntimeException | Error e) {
+                _failedCount.increment();
+                logger.error("Background task failed", e);
+                throw e;
+            } finally {
+                long runTime = System.nanoTime() - start;
+                _totalRunTime.add(runTime);
+                _completedCount.increment();
+                logger.debug("Background task completed in {} ms", TimeUnit.NANOSECONDS.toMillis(runTime));
+            }
+        });
+    }
+
+    /**
+     * Adds workers to the pool of a priority until they are released, so that a task which keeps several subtasks
+     * running at the same time gets that many workers, whatever the other tasks using the pool.
+     */
+    public synchronized void reserveThreads(Priority priority, int threads) {
+        _reservedThreads.merge(priority, threads, Integer::sum);
+        resize(priority);
+    }
+
+    /**
+     * Removes workers added by {@link #reserveThreads(Priority, int)}, once the tasks using them are done.
+     */
+    public synchronized void releaseThreads(Priority priority, int threads) {
+        _reservedThreads.merge(priority, -threads, Integer::sum);
+        resize(priority);
+    }
+
+    private void resize(Priority priority) {
+        ThreadPoolExecutor pool = _pools.get(priority);
+        int size = _baseThreads.get(priority) + Math.max(0, _reservedThreads.get(priority));
+        // the core size can never exceed the maximum size
+        if (size > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(size);
+            pool.setCorePoolSize(size);
+        } else {
+            pool.setCorePoolSize(size);
+            pool.setMaximumPoolSize(size);
+        }
+    }
+
+    /**
+     * @return the number of workers of the pool of a priority, including the reserved ones
+     */
+    public int getPoolSize(Priority priority) {
+        return _pools.get(priority).getMaximumPoolSize();
+    }
+
+    /**
+     * @return the number of tasks of a priority waiting for a worker
+     */
+    public int getQueueDepth(Priority priority) {
+        return _pools.get(priority).getQueue().size();
+    }
+
+    /**
+     * @return the number of tasks of a priority being run
+     */
+    public int getActiveCount(Priority priority) {
+        return _pools.get(priority).getActiveCount();
+    }
+
+    /**
+     * @return the number of tasks which have completed, successfully or not
+     */
+    public long getCompletedCount() {
+        return _completedCount.sum();
+    }
+
+    /**
+     * @return the number of tasks which have thrown an exception
+     */
+    public long getFailedCount() {
+        return _failedCount.sum();
+    }
+
+    /**
+     * @return the total time spent running the completed tasks, in milliseconds
+     */
+    public long getTotalRunTime() {
+        return TimeUnit.NANOSECONDS.toMillis(_totalRunTime.sum());
+    }
+
+    /**
+     * Stops the workers once the queued tasks are completed.
+     */
+    public void shutdown() {
+        _pools.values().forEach(ThreadPoolExecutor::shutdown);
+    }
+}
@@ -125,11 +125,13 @@ public class ProcessManager {
 
     public void cancelAll() {
         for (Process p : _processes) {
-            if (!p.isImmediate() && p.isRunning()) {
+            // processes waiting for a worker are canceled too, so that they do not start later
+            if (!p.isImmediate() && !p.isDone()) {
                 p.cancel();
             }
         }
-        _processes.clear();
+        // processes which are still stopping are kept, so that the next ones wait for them
+        _processes.removeIf(p -> p.isImmediate() || p.isDone());
         _latestExceptions = null;
     }
 
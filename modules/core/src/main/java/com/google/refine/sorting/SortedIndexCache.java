@@ -0,0 +1,260 @@
+
+package com.google.refine.sorting;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.browsing.FilteredRecords;
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RecordVisitor;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.history.HistoryEntry;
+import com.google.refine.model.Project;
+import com.google.refine.model.Record;
+import com.google.refine.model.Row;
+import com.google.refine.util.ParsingUtilities;
+
+/**
+ * Caches the order in which the rows or records of a project are displayed when a temporary sort is applied, so that
+ * fetching another page of a sorted view does not require sorting the whole project again.
+ * <p>
+ * Entries are keyed by project, last history entry, engine configuration and sorting configuration, so any operation or
+ * undo/redo on the project makes the previous entries unreachable. They are evicted in least-recently-used order once
+ * the total number of cached indices exceeds the limit set by the {@link #MAX_SIZE_PREFERENCE} preference.
+ */
+public class SortedIndexCache {
+
+    public static final String MAX_SIZE_PREFERENCE = "browsing.sortedIndexCacheSize";
+    static final int DEFAULT_MAX_SIZE = 8_000_000;
+    static final int MAX_ENTRIES = 16;
+
+    /**
+     * The rows or records selected by an engine configuration, in sorted order.
+     */
+    public static class SortedIndices {
+
+        /**
+         * Row or record indices, in the order they should be displayed in
+         */
+        public final int[] indices;
+        /**
+         * For records, the sorted index of the first row of each record, which is used for pagination. Null for rows,
+         * where the pagination index is the position in {@link #indices}.
+         */
+        public final int[] paginationIndices;
+
+        SortedIndices(int[] indices, int[] paginationIndices) {
+            this.indices = indices;
+            this.paginationIndices = paginationIndices;
+        }
+
+        public int size() {
+            return indices.length;
+        }
+
+        /**
+         * Locates the positions of a page in {@link #indices}, with the same semantics as the start, end and limit
+         * parameters of the row fetching command.
+         *
+         * @param start
+         *            the pagination index to start from (included), or -1 if end is provided
+         * @param end
+         *            the pagination index to end at (excluded), or -1 if start is provided
+         * @param limit
+         *            the maximum number of rows or records in the page
+         * @return the first position of the page (included) and the last one (excluded)
+         */
+        public int[] getPage(int start, int end, int limit) {
+            if (start != -1) {
+                int from = firstPositionAtOrAfter(start);
+                return new int[] { from, Math.min(indices.length, from + limit) };
+            } else {
+                int to = firstPositionAtOrAfter(end);
+                return new int[] { Math.max(0, to - limit), to };
+            }
+        }
+
+        private int firstPositionAtOrAfter(int paginationIndex) {
+            if (paginationIndices == null) {
+                return Math.max(0, Math.min(indices.length, paginationIndex));
+            }
+            int position = Arrays.binarySearch(paginationIndices, paginationIndex);
+            return position >= 0 ? position : -position - 1;
+        }
+
+        private long getMemorySize() {
+            return indices.length + (paginationIndices == null ? 0 : paginationIndices.length);
+        }
+    }
+
+    private final Map<String, SortedIndices> _entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long _size = 0;
+
+    /**
+     * Returns the filtered rows of the project in sorted order, sorting them if they are not cached.
+     *
+     * @param engineConfig
+     *            the configuration of the engine the filtered rows were obtained from, or null for the default one
+     */
+    public SortedIndices getSortedRows(Project project, EngineConfig engineConfig, FilteredRows filteredRows,
+            SortingConfig sortingConfig) {
+        String key = getKey(project, "rows", engineConfig, sortingConfig);
+        SortedIndices cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        IndexCollector collector = new IndexCollector(false);
+        SortingRowVisitor srv = new SortingRowVisitor(collector);
+        srv.initializeFromConfig(project, sortingConfig);
+        filteredRows.accept(project, srv);
+
+        SortedIndices sorted = collector.toSortedIndices();
+        put(key, sorted);
+        return sorted;
+    }
+
+    /**
+     * Returns the filtered records of the project in sorted order, sorting them if they are not cached.
+     *
+     * @param engineConfig
+     *            the configuration of the engine the filtered records were obtained from
+     */
+    public SortedIndices getSortedRecords(Project project, EngineConfig engineConfig, FilteredRecords filteredRecords,
+            SortingConfig sortingConfig) {
+        String key = getKey(project, "records", engineConfig, sortingConfig);
+        SortedIndices cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+        IndexCollector collector = new IndexCollector(true);
+        SortingRecordVisitor srv = new SortingRecordVisitor(collector);
+        srv.initializeFromConfig(project, sortingConfig);
+        filteredRecords.accept(project, srv);
+
+        SortedIndices sorted = collector.toSortedIndices();
+        put(key, sorted);
+        return sorted;
+    }
+
+    /**
+     * Drops all cached entries.
+     */
+    public synchronized void clear() {
+        _entries.clear();
+        _size = 0;
+    }
+
+    synchronized int getEntryCount() {
+        return _entries.size();
+    }
+
+    private synchronized SortedIndices get(String key) {
+        return key == null ? null : _entries.get(key);
+    }
+
+    private synchronized void put(String key, SortedIndices sorted) {
+        long maxSize = getMaxSize();
+        if (key == null || sorted.getMemorySize() > maxSize) {
+            return;
+        }
+        SortedIndices previous = _entries.put(key, sorted);
+        if (previous != null) {
+            _size -= previous.getMemorySize();
+        }
+        _size += sorted.getMemorySize();
+
+        Iterator<SortedIndices> eldest = _entries.values().iterator();
+        while (_size > maxSize || _entries.size() > MAX_ENTRIES) {
+            _size -= eldest.next().getMemorySize();
+            eldest.remove();
+        }
+    }
+
+    private static long getMaxSize() {
+        return ProjectManager.singleton == null ? DEFAULT_MAX_SIZE
+                : ProjectManager.singleton.getPreferenceStore().getInteger(MAX_SIZE_PREFERENCE, DEFAULT_MAX_SIZE);
+    }
+
+    private static String getKey(Project project, String mode, EngineConfig engineConfig, SortingConfig sortingConfig) {
+        List<HistoryEntry> lastEntries = project.history.getLastPastEntries(1);
+        long lastEntryId = lastEntries.isEmpty() ? 0 : lastEntries.get(0).id;
+        try {
+            return project.id + ":" + lastEntryId + ":" + project.rows.size() + ":" + mode + ":"
+                    + (engineConfig == null ? "" : ParsingUtilities.mapper.writeValueAsString(engineConfig)) + ":"
+                    + ParsingUtilities.mapper.writeValueAsString(sortingConfig);
+        } catch (JsonProcessingException e) {
+            // not cacheable
+            return null;
+        }
+    }
+
+    /**
+     * Records the indices of the rows or records in the order they are visited by a sorting visitor.
+     */
+    private static class IndexCollector implements RowVisitor, RecordVisitor {
+
+        private int[] indices = new int[16];
+        private int[] paginationIndices;
+        private int count = 0;
+
+        IndexCollector(boolean recordBased) {
+            paginationIndices = recordBased ? new int[16] : null;
+        }
+
+        @Override
+        public void start(Project project) {
+        }
+
+        @Override
+        public void end(Project project) {
+        }
+
+        @Override
+        public boolean visit(Project project, int rowIndex, Row row) {
+            return visit(project, rowIndex, count, row);
+        }
+
+        @Override
+        public boolean visit(Project project, int rowIndex, int sortedRowIndex, Row row) {
+            add(rowIndex, sortedRowIndex);
+            return false;
+        }
+
+        @Override
+        public boolean visit(Project project, Record record) {
+            return visit(project, record.fromRowIndex, record);
+        }
+
+        @Override
+        public boolean visit(Project project, int sortedStartRowIndex, Record record) {
+            add(record.recordIndex, sortedStartRowIndex);
+            return false;
+        }
+
+        private void add(int index, int paginationIndex) {
+            if (count == indices.length) {
+                indices = Arrays.copyOf(indices, count * 2);
+                if (paginationIndices != null) {
+                    paginationIndices = Arrays.copyOf(paginationIndices, count * 2);
+                }
+            }
+            indices[count] = index;
+            if (paginationIndices != null) {
+                paginationIndices[count] = paginationIndex;
+            }
+            count++;
+        }
+
+        SortedIndices toSortedIndices() {
+            return new SortedIndices(Arrays.copyOf(indices, count),
+                    paginationIndices == null ? null : Arrays.copyOf(paginationIndices, count));
+        }
+    }
+}
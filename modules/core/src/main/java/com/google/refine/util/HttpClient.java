@@ -31,6 +31,8 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
@@ -63,6 +65,7 @@ import org.apache.hc.core5.http.io.SocketConfig;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.message.BasicNameValuePair;
 import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.net.URIAuthority;
 import org.apache.hc.core5.util.TimeValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,10 +96,27 @@ public class HttpClient {
     }
 
     public HttpClient(int delay, int retryInterval) {
+        this(delay, retryInterval, 0);
+    }
+
+    /**
+     * @param delay
+     *            minimum delay between the start of two requests to the same host, in ms
+     * @param retryInterval
+     *            delay between original request and first retry, in ms
+     * @param maxConnectionsPerHost
+     *            maximum number of requests in flight to a single host, or 0 to keep the default of the connection
+     *            pool. Additional requests wait for a connection to be released.
+     */
+    public HttpClient(int delay, int retryInterval, int maxConnectionsPerHost) {
         _delay = delay;
         _retryInterval = retryInterval;
         // Create a connection manager with a custom socket timeout
         PoolingHttpClientConnectionManager connManager = new PoolingHttpClientConnectionManager();
+        if (maxConnectionsPerHost > 0) {
+            connManager.setDefaultMaxPerRoute(maxConnectionsPerHost);
+            connManager.setMaxTotal(Math.max(connManager.getMaxTotal(), maxConnectionsPerHost));
+        }
         final SocketConfig socketConfig = SocketConfig.custom()
                 .setSoTimeout(60, TimeUnit.SECONDS)
                 .build();
@@ -117,7 +137,8 @@ public class HttpClient {
 //               .setConnectionBackoffStrategy(ConnectionBackoffStrategy)
                 .addRequestInterceptorFirst(new HttpRequestInterceptor() {
 
-                    private long nextRequestTime = System.currentTimeMillis();
+                    // earliest start time of the next request, per host
+                    private final Map<String, Long> nextRequestTimes = new ConcurrentHashMap<>();
 
                     @Override
                     public void process(
@@ -125,15 +146,20 @@ public class HttpClient {
                             final EntityDetails entity,
                             final HttpContext context) throws HttpException, IOException {
 
-                        long delay = nextRequestTime - System.currentTimeMillis();
+                        URIAuthority authority = request.getAuthority();
+                        String host = authority == null ? "" : authority.getHostName();
+                        // reserve the next slot for this host atomically, so that concurrent requests are spaced out
+                        long now = System.currentTimeMillis();
+                        long slot = nextRequestTimes.merge(host, now + _delay,
+                                (next, unused) -> Math.max(next, now) + _delay) - _delay;
+                        long delay = slot - now;
                         if (delay > 0) {
                             try {
                                 Thread.sleep(delay);
                             } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
                             }
                         }
-                        nextRequestTime = System.currentTimeMillis() + _delay;
-
                     }
                 });
 
@@ -240,7 +266,16 @@ public class HttpClient {
         return getResponse(urlString, headers, responseHandler);
     }
 
-    public String getResponse(String urlString, Header[] headers, HttpClientResponseHandler<String> responseHandler) throws IOException {
+    public String getResponse(String urlString, Header[] headers, HttpClientResponseHandler<String> responseHandler)
+            throws IOException {
+        return executeGet(urlString, headers, responseHandler);
+    }
+
+    /**
+     * Sends a GET request, reading the response with a handler which can return any type, for instance to read its
+     * status and headers along with its body.
+     */
+    public <T> T executeGet(String urlString, Header[] headers, HttpClientResponseHandler<T> responseHandler) throws IOException {
 
         HttpGet httpGet = new HttpGet(urlString);
 
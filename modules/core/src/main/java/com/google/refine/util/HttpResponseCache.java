@@ -0,0 +1,320 @@
+
+package com.google.refine.util;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonInclude.Include;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import org.apache.hc.client5.http.ClientProtocolException;
+import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.io.FileProjectManager;
+
+/**
+ * Persistent cache of the bodies of HTTP GET responses, stored in the workspace so that it is shared by all projects
+ * and survives restarts.
+ * <p>
+ * Each response is stored in its own file, named after a hash of the URL and request headers. Responses older than the
+ * time-to-live are revalidated with the ETag or Last-Modified validators sent by the server, if any, and fetched again
+ * otherwise. When the total size of the cache exceeds its limit, the least recently used responses are deleted.
+ * <p>
+ * Bodies are stored as plain text, so responses to requests carrying credentials, such as an Authorization or Cookie
+ * header, are never stored.
+ */
+public class HttpResponseCache {
+
+    final static Logger logger = LoggerFactory.getLogger("http-response-cache");
+
+    public static final String PREFERENCE_KEY = "http.responseCache.enabled";
+    public static final String MAX_SIZE_PREFERENCE = "http.responseCache.maxSizeMB";
+    public static final String TTL_PREFERENCE = "http.responseCache.ttlHours";
+    static final int DEFAULT_MAX_SIZE_MB = 512;
+    static final int DEFAULT_TTL_HOURS = 24;
+
+    private static final String SUFFIX = ".json";
+    private static final Set<String> CREDENTIAL_HEADERS = Set.of("authorization", "proxy-authorization", "cookie");
+
+    private static HttpResponseCache workspaceCache;
+
+    private final File _dir;
+    private final long _maxSize;
+    private final long _ttl;
+    // total size of the files in the directory, computed lazily
+    private long _size = -1;
+
+    /**
+     * A response, as stored on disk.
+     */
+    protected static class CachedResponse {
+
+        @JsonProperty("url")
+        final String url;
+        @JsonProperty("fetched")
+        long fetched;
+        @JsonProperty("etag")
+        @JsonInclude(Include.NON_NULL)
+        final String etag;
+        @JsonProperty("lastModified")
+        @JsonInclude(Include.NON_NULL)
+        final String lastModified;
+        @JsonProperty("body")
+        final String body;
+
+        @JsonCreator
+        CachedResponse(
+                @JsonProperty("url") String url,
+                @JsonProperty("fetched") long fetched,
+                @JsonProperty("etag") String etag,
+                @JsonProperty("lastModified") String lastModified,
+                @JsonProperty("body") String body) {
+            this.url = url;
+            this.fetched = fetched;
+            this.etag = etag;
+            this.lastModified = lastModified;
+            this.body = body;
+        }
+    }
+
+    /**
+     * @param dir
+     *            the directory to store responses in, created if needed
+     * @param maxSize
+     *            the maximum total size of the stored responses, in bytes
+     * @param ttl
+     *            the time after which stored responses must be revalidated, in milliseconds
+     */
+    public HttpResponseCache(File dir, long maxSize, long ttl) {
+        _dir = dir;
+        _maxSize = maxSize;
+        _ttl = ttl;
+    }
+
+    /**
+     * @return whether responses should be stored in the workspace, which is only the case if enabled by the
+     *         {@link #PREFERENCE_KEY} preference
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton != null
+                && ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, false);
+    }
+
+    /**
+     * @return the cache stored in the current workspace, or null if it is not enabled or the workspace is not stored on
+     *         disk
+     */
+    public static synchronized HttpResponseCache getWorkspaceCache() {
+        if (!isEnabled() || !(ProjectManager.singleton instanceof FileProjectManager)) {
+            return null;
+        }
+        File dir = new File(((FileProjectManager) ProjectManager.singleton).getWorkspaceDir(), "cache/http");
+        if (workspaceCache == null || !workspaceCache._dir.equals(dir)) {
+            long maxSize = ProjectManager.singleton.getPreferenceStore().getInteger(MAX_SIZE_PREFERENCE, DEFAULT_MAX_SIZE_MB);
+            long ttl = ProjectManager.singleton.getPreferenceStore().getInteger(TTL_PREFERENCE, DEFAULT_TTL_HOURS);
+            workspaceCache = new HttpResponseCache(dir, maxSize * 1024 * 1024, ttl * 3600 * 1000);
+        }
+        return workspaceCache;
+    }
+
+    /**
+     * Returns the body of the response to a GET request, from the cache if it is fresh or could be revalidated.
+     * Requests carrying credentials are always sent, and their responses are not stored.
+     *
+     * @throws IOException
+     *             if the response could not be fetched or was not successful, in which case nothing is cached
+     */
+    public String getAsString(HttpClient client, String urlString, Header[] headers) throws IOException {
+        if (hasCredentials(headers)) {
+            return client.getAsString(urlString, headers);
+        }
+        File file = getFile(urlString, headers);
+        CachedResponse cached = read(file);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.fetched < _ttl) {
+            touch(file);
+            return cached.body;
+        }
+
+        List<Header> requestHeaders = new ArrayList<>(headers == null ? List.of() : Arrays.asList(headers));
+        if (cached != null && cached.etag != null) {
+            requestHeaders.add(new BasicHeader(HttpHeaders.IF_NONE_MATCH, cached.etag));
+        }
+        if (cached != null && cached.lastModified != null) {
+            requestHeaders.add(new BasicHeader(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified));
+        }
+        CachedResponse response = client.executeGet(urlString, requestHeaders.toArray(new Header[0]),
+                new HttpClientResponseHandler<CachedResponse>() {
+
+                    @Override
+                    public CachedResponse handleResponse(ClassicHttpResponse response) throws IOException {
+                        final int status = response.getCode();
+                        if (status == HttpStatus.SC_NOT_MODIFIED && cached != null) {
+                            cached.fetched = now;
+                            return cached;
+                        } else if (status >= HttpStatus.SC_SUCCESS && status < HttpStatus.SC_REDIRECTION) {
+                            final HttpEntity entity = response.getEntity();
+                            if (entity == null) {
+                                throw new IOException("No content found in " + urlString);
+                            }
+                            try {
+                                return new CachedResponse(urlString, now,
+                                        getHeaderValue(response, HttpHeaders.ETAG),
+                                        getHeaderValue(response, HttpHeaders.LAST_MODIFIED),
+                                        EntityUtils.toString(entity));
+                            } catch (final ParseException ex) {
+                                throw new ClientProtocolException(ex);
+                            }
+                        } else {
+                            throw new ClientProtocolException(String.format("HTTP error %d : %s for URL %s", status,
+                                    response.getReasonPhrase(), urlString));
+                        }
+                    }
+                });
+
+        try {
+            write(file, response);
+        } catch (IOException e) {
+            logger.warn("Could not store response to " + urlString + " in the cache", e);
+        }
+        return response.body;
+    }
+
+    /**
+     * Deletes all stored responses.
+     */
+    public synchronized void clear() {
+        File[] files = _dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        _size = 0;
+    }
+
+    synchronized long getSize() {
+        if (_size < 0) {
+            _size = 0;
+            // temporary files being written are not counted
+            File[] files = _dir.listFiles((dir, name) -> name.endsWith(SUFFIX));
+            if (files != null) {
+                for (File file : files) {
+                    _size += file.length();
+                }
+            }
+        }
+        return _size;
+    }
+
+    static boolean hasCredentials(Header[] headers) {
+        if (headers != null) {
+            for (Header header : headers) {
+                if (CREDENTIAL_HEADERS.contains(header.getName().toLowerCase())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    protected File getFile(String urlString, Header[] headers) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(urlString.getBytes(StandardCharsets.UTF_8));
+            if (headers != null) {
+                for (Header header : headers) {
+                    digest.update(("\n" + header.getName().toLowerCase() + ":" + header.getValue()).getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return new File(_dir, HexFormat.of().formatHex(digest.digest()) + SUFFIX);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private CachedResponse read(File file) {
+        if (!file.exists()) {
+            return null;
+        }
+        try {
+            return ParsingUtilities.mapper.readValue(file, CachedResponse.class);
+        } catch (IOException e) {
+            // corrupted or concurrently deleted entry
+            return null;
+        }
+    }
+
+    private void write(File file, CachedResponse response) throws IOException {
+        _dir.mkdirs();
+        File temp = File.createTempFile("response", ".tmp", _dir);
+        try {
+            ParsingUtilities.mapper.writeValue(temp, response);
+            long length = temp.length();
+            synchronized (this) {
+                long size = getSize() - file.length();
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                _size = size + length;
+                if (_size > _maxSize) {
+                    evict();
+                }
+            }
+        } finally {
+            temp.delete();
+        }
+    }
+
+    private void touch(File file) {
+        // the modification time of the files is used to find the least recently used ones
+        file.setLastModified(System.currentTimeMillis());
+    }
+
+    /**
+     * Deletes the least recently used responses until the cache is back to 90% of its maximum size.
+     */
+    private synchronized void evict() {
+        File[] files = _dir.listFiles((dir, name) -> name.endsWith(SUFFIX));
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        long target = _maxSize * 9 / 10;
+        for (File file : files) {
+            if (_size <= target) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                _size -= length;
+            }
+        }
+    }
+
+    private static String getHeaderValue(ClassicHttpResponse response, String name) {
+        Header header = response.getFirstHeader(name);
+        return header == null ? null : header.getValue();
+    }
+}
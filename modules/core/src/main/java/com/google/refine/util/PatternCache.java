@@ -0,0 +1,54 @@
+
+package com.google.refine.util;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+/**
+ * A bounded cache of compiled regular expressions, shared by the expression functions and facets which are given
+ * regular expressions as strings, so that evaluating them on many rows does not compile the same pattern again for each
+ * row. {@link Pattern}s are immutable, so the cached patterns can be used by several threads at the same time.
+ */
+public class PatternCache {
+
+    static final int MAX_ENTRIES = 1000;
+
+    private static final Cache<String, Pattern> cache = CacheBuilder.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .build();
+
+    private PatternCache() {
+    }
+
+    /**
+     * @see #get(String, int)
+     */
+    public static Pattern get(String regex) {
+        return get(regex, 0);
+    }
+
+    /**
+     * Returns a compiled regular expression, compiling it only if it is not in the cache.
+     *
+     * @param regex
+     *            the regular expression
+     * @param flags
+     *            the flags to compile it with, as for {@link Pattern#compile(String, int)}
+     * @throws PatternSyntaxException
+     *             if the regular expression is invalid
+     */
+    public static Pattern get(String regex, int flags) {
+        // the flags are a number, so they cannot contain the separator
+        String key = flags + "/" + regex;
+        Pattern pattern = cache.getIfPresent(key);
+        if (pattern == null) {
+            // compiled outside of the cache, so that syntax errors are thrown as is and invalid patterns are not stored
+            pattern = Pattern.compile(regex, flags);
+            cache.put(key, pattern);
+        }
+        return pattern;
+    }
+}
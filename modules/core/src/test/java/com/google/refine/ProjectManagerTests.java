@@ -46,7 +46,14 @@ import static org.testng.Assert.assertEquals;
 import java.lang.reflect.Field;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.mockito.Mockito;
 import org.slf4j.LoggerFactory;
@@ -60,6 +67,7 @@ import com.google.refine.model.Project;
 import com.google.refine.model.ProjectStub;
 import com.google.refine.model.Row;
 import com.google.refine.process.ProcessManager;
+import com.google.refine.util.GetProjectIDException;
 
 public class ProjectManagerTests extends RefineTest {
 
@@ -237,6 +245,82 @@ public class ProjectManagerTests extends RefineTest {
         SUT.registerProject(proj, meta);
     }
 
+    @Test
+    public void canLoadProjectsConcurrently() throws Exception {
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        long projectId = 1001L;
+        long otherId = 1002L;
+        Project other = mock(Project.class);
+        ProjectManagerStub manager = new ProjectManagerStub() {
+
+            @Override
+            protected Project loadProject(long id) {
+                if (id == otherId) {
+                    return other;
+                }
+                loads.incrementAndGet();
+                loadStarted.countDown();
+                try {
+                    releaseLoad.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return project;
+            }
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Project> first = executor.submit(() -> manager.getProject(projectId));
+            Assert.assertTrue(loadStarted.await(10, TimeUnit.SECONDS));
+            Future<Project> second = executor.submit(() -> manager.getProject(projectId));
+
+            // other projects can be loaded while the slow project is loading
+            assertEquals(manager.getProject(otherId), other);
+            Assert.assertFalse(first.isDone());
+
+            releaseLoad.countDown();
+            assertEquals(first.get(10, TimeUnit.SECONDS), project);
+            assertEquals(second.get(10, TimeUnit.SECONDS), project);
+            assertEquals(manager.getProject(projectId), project);
+            // concurrent callers share a single load
+            assertEquals(loads.get(), 1);
+        } finally {
+            releaseLoad.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void canLookUpProjectsByNameAndTag() throws Exception {
+        ProjectMetadata first = new ProjectMetadata();
+        first.setName("first");
+        first.setTags(new String[] { "shared", "one" });
+        ProjectMetadata second = new ProjectMetadata();
+        second.setName("second");
+        second.setTags(new String[] { "shared" });
+        pm.registerProject(new ProjectStub(101), first);
+        pm.registerProject(new ProjectStub(102), second);
+
+        assertEquals(pm.getProjectID("first"), 101L);
+        assertEquals(pm.getProjectMetadata("second"), second);
+        assertEquals(Set.copyOf(pm.getProjectIDsByTag("shared")), Set.of(101L, 102L));
+
+        // the index follows renames, retagging and deletions
+        second.setName("renamed");
+        first.setTags(new String[] { "one" });
+        Assert.assertNull(pm.getProjectMetadata("second"));
+        assertEquals(pm.getProjectID("renamed"), 102L);
+        assertEquals(pm.getProjectIDsByTag("shared"), List.of(102L));
+
+        first.setName("renamed");
+        Assert.assertThrows(GetProjectIDException.class, () -> pm.getProjectID("renamed"));
+        pm.removeProject(101);
+        assertEquals(pm.getProjectID("renamed"), 102L);
+    }
+
     protected void AssertProjectRegistered() {
         assertEquals(SUT.getProject(project.id), project);
         assertEquals(SUT.getProjectMetadata(project.id), metadata);
@@ -28,13 +28,64 @@
 package com.google.refine.browsing;
 
 import static org.mockito.Mockito.mock;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import com.google.refine.RefineTest;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.LanguageSpecificParser;
+import com.google.refine.expr.MetaParser;
 import com.google.refine.model.Project;
 import com.google.refine.util.TestUtils;
 
-public class EngineTests {
+public class EngineTests extends RefineTest {
+
+    Set<Thread> evaluatingThreads = ConcurrentHashMap.newKeySet();
+
+    @BeforeMethod
+    public void registerLanguage() {
+        // evaluates expressions with shared state, like languages running all expressions in the same interpreter
+        MetaParser.registerLanguageParser("unsafe", "Unsafe", new LanguageSpecificParser() {
+
+            @Override
+            public Evaluable parse(String source, String languagePrefix) {
+                return new Evaluable() {
+
+                    @Override
+                    public Object evaluate(Properties bindings) {
+                        evaluatingThreads.add(Thread.currentThread());
+                        return bindings.get("value");
+                    }
+
+                    @Override
+                    public String getSource() {
+                        return source;
+                    }
+
+                    @Override
+                    public String getLanguagePrefix() {
+                        return languagePrefix;
+                    }
+                };
+            }
+        }, "value");
+    }
+
+    @AfterMethod
+    public void unregisterLanguage() {
+        MetaParser.unregisterLanguageParser("unsafe");
+    }
 
     @Test
     public void serializeEngine() {
@@ -42,4 +93,28 @@ public class EngineTests {
         Engine engine = new Engine(project);
         TestUtils.isSerializedTo(engine, "{\"engine-mode\":\"row-based\",\"facets\":[]}");
     }
+
+    @Test
+    public void testFacetsWithNonThreadSafeExpressionsAreComputedSequentially() {
+        Serializable[][] grid = new Serializable[10000][];
+        for (int i = 0; i < grid.length; i++) {
+            grid[i] = new Serializable[] { i % 3 == 0 ? "a" : "b", "row " + i };
+        }
+        Project project = createProject(new String[] { "letter", "label" }, grid);
+        EngineConfig config = EngineConfig.deserialize("{\"mode\":\"row-based\",\"facets\":["
+                + "{\"type\":\"list\",\"name\":\"letter\",\"columnName\":\"letter\",\"expression\":\"unsafe:value\","
+                + "\"omitBlank\":false,\"omitError\":false,\"selection\":[{\"v\":{\"v\":\"a\",\"l\":\"a\"}}],"
+                + "\"selectBlank\":false,\"selectError\":false,\"invert\":false},"
+                + "{\"type\":\"text\",\"name\":\"label\",\"columnName\":\"label\",\"mode\":\"text\","
+                + "\"caseSensitive\":false,\"invert\":false,\"query\":\"1\"}]}");
+        assertFalse(config.getFacetConfigs().get(0).apply(project).isThreadSafe());
+        assertTrue(config.getFacetConfigs().get(1).apply(project).isThreadSafe());
+
+        Engine engine = new Engine(project);
+        engine.initializeFromConfig(config);
+        engine.computeFacets();
+
+        // the expression was only evaluated by the thread computing the facets
+        assertEquals(evaluatingThreads, Collections.singleton(Thread.currentThread()));
+    }
 }
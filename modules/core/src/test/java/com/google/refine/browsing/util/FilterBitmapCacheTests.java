@@ -0,0 +1,132 @@
+
+package com.google.refine.browsing.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.io.Serializable;
+import java.util.BitSet;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.RowFilter;
+import com.google.refine.browsing.facets.Facet;
+import com.google.refine.browsing.facets.FacetConfig;
+import com.google.refine.browsing.facets.TextSearchFacet.TextSearchFacetConfig;
+import com.google.refine.history.Change;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.changes.CellChange;
+import com.google.refine.model.changes.RowStarChange;
+import com.google.refine.util.ParsingUtilities;
+
+public class FilterBitmapCacheTests extends RefineTest {
+
+    Project project;
+    FilterBitmapCache cache;
+    FacetConfig fooConfig;
+    FacetConfig barConfig;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        project = createProject(new String[] { "foo", "bar" },
+                new Serializable[][] {
+                        { "a", "x" },
+                        { "b", "y" },
+                        { "a", "x" },
+                        { "c", "z" } });
+        cache = project.getFilterBitmapCache();
+        fooConfig = textFacet("foo", "a");
+        barConfig = textFacet("bar", "x");
+    }
+
+    private static FacetConfig textFacet(String columnName, String query) throws Exception {
+        return ParsingUtilities.mapper.readValue("{\"type\":\"text\",\"name\":\"" + columnName + "\",\"columnName\":\""
+                + columnName + "\",\"mode\":\"text\",\"caseSensitive\":false,\"invert\":false,\"query\":\"" + query + "\"}",
+                TextSearchFacetConfig.class);
+    }
+
+    private BitSet rowMatches(FacetConfig config) {
+        RowFilter rowFilter = config.apply(project).getRowFilter(project);
+        return cache.getRowMatches(project, config, rowFilter, false);
+    }
+
+    @Test
+    public void testCacheHit() {
+        BitSet matches = rowMatches(fooConfig);
+        assertEquals(matches.cardinality(), 2);
+        assertSame(rowMatches(fooConfig), matches);
+        assertEquals(cache.size(), 1);
+    }
+
+    @Test
+    public void testFacetsAreNotCacheableByDefault() {
+        FacetConfig config = new FacetConfig() {
+
+            @Override
+            public Facet apply(Project project) {
+                return fooConfig.apply(project);
+            }
+
+            @Override
+            public String getJsonType() {
+                return "text";
+            }
+        };
+
+        BitSet matches = rowMatches(config);
+        assertEquals(matches.cardinality(), 2);
+        assertNotSame(rowMatches(config), matches);
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testRecordBitmapsAreCachedSeparately() {
+        BitSet rows = rowMatches(fooConfig);
+        BitSet records = cache.getRecordMatches(project, fooConfig,
+                fooConfig.apply(project).getRecordFilter(project), false);
+        assertNotSame(records, rows);
+        assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    public void testCellChangeKeepsUnrelatedColumns() {
+        BitSet fooMatches = rowMatches(fooConfig);
+        BitSet barMatches = rowMatches(barConfig);
+
+        Change change = new CellChange(1, 0, project.rows.get(1).getCell(0), new Cell("a", null));
+        change.apply(project);
+        cache.invalidate(project, change);
+
+        assertSame(rowMatches(barConfig), barMatches);
+        BitSet updated = rowMatches(fooConfig);
+        assertNotSame(updated, fooMatches);
+        assertEquals(updated.cardinality(), 3);
+    }
+
+    @Test
+    public void testOtherChangesClearEverything() {
+        rowMatches(fooConfig);
+        rowMatches(barConfig);
+
+        Change change = new RowStarChange(0, true);
+        change.apply(project);
+        cache.invalidate(project, change);
+
+        assertEquals(cache.size(), 0);
+    }
+
+    @Test
+    public void testRowCountChangeIsDetected() {
+        BitSet matches = rowMatches(fooConfig);
+        project.rows.add(project.rows.get(0).dup());
+
+        // the row count changed since the bitmap was computed
+        BitSet updated = rowMatches(fooConfig);
+        assertNotSame(updated, matches);
+        assertEquals(updated.cardinality(), 3);
+    }
+}
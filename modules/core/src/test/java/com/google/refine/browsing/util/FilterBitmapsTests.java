@@ -0,0 +1,142 @@
+
+package com.google.refine.browsing.util;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.FilteredRows;
+import com.google.refine.browsing.RecordFilter;
+import com.google.refine.browsing.RowFilter;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class FilterBitmapsTests extends RefineTest {
+
+    private static final int ROW_COUNT = 3 * FilterBitmaps.CHUNK_SIZE + 17;
+
+    Project project;
+
+    @BeforeMethod
+    public void setUp() {
+        Serializable[][] grid = new Serializable[ROW_COUNT][];
+        for (int i = 0; i < ROW_COUNT; i++) {
+            // start a new record every 10 rows
+            grid[i] = new Serializable[] { i % 10 == 0 ? "key" + i : null, (long) i };
+        }
+        project = createProject(new String[] { "key", "value" }, grid);
+    }
+
+    private List<Integer> visit(FilteredRows filteredRows) {
+        List<Integer> visited = new ArrayList<>();
+        filteredRows.accept(project, new RowVisitor() {
+
+            @Override
+            public void start(Project project) {
+            }
+
+            @Override
+            public boolean visit(Project project, int rowIndex, Row row) {
+                visited.add(rowIndex);
+                return false;
+            }
+
+            @Override
+            public void end(Project project) {
+            }
+        });
+        return visited;
+    }
+
+    @Test
+    public void testMatchRows() {
+        RowFilter even = (project, rowIndex, row) -> ((Long) row.getCellValue(1)) % 2 == 0;
+        BitSet sequential = FilterBitmaps.matchRows(project, even, false);
+        BitSet parallel = FilterBitmaps.matchRows(project, even, true);
+
+        assertEquals(parallel, sequential);
+        assertEquals(parallel.cardinality(), (ROW_COUNT + 1) / 2);
+        assertEquals(parallel.nextSetBit(ROW_COUNT), -1);
+        for (int i = 0; i < ROW_COUNT; i++) {
+            assertEquals(parallel.get(i), i % 2 == 0);
+        }
+    }
+
+    @Test
+    public void testMatchRecords() {
+        RecordFilter firstHalf = (project, record) -> record.fromRowIndex < ROW_COUNT / 2;
+        BitSet matches = FilterBitmaps.matchRecords(project, firstHalf, true);
+
+        assertEquals(project.recordModel.getRecordCount(), (ROW_COUNT + 9) / 10);
+        assertEquals(matches, FilterBitmaps.matchRecords(project, firstHalf, false));
+        for (int i = 0; i < project.recordModel.getRecordCount(); i++) {
+            assertEquals(matches.get(i), project.recordModel.getRecord(i).fromRowIndex < ROW_COUNT / 2);
+        }
+    }
+
+    @Test
+    public void testIntersectMatchesConjunctiveFilter() {
+        RowFilter multipleOf3 = (project, rowIndex, row) -> rowIndex % 3 == 0;
+        RowFilter multipleOf5 = (project, rowIndex, row) -> rowIndex % 5 == 0;
+        List<BitSet> matches = Arrays.asList(
+                FilterBitmaps.matchRows(project, multipleOf3, true),
+                null,
+                FilterBitmaps.matchRows(project, multipleOf5, true));
+
+        ConjunctiveFilteredRows conjunctive = new ConjunctiveFilteredRows();
+        conjunctive.add(multipleOf3);
+        conjunctive.add(multipleOf5);
+        List<Integer> expected = new ArrayList<>();
+        conjunctive.accept(project, new RowVisitor() {
+
+            @Override
+            public void start(Project project) {
+            }
+
+            @Override
+            public boolean visit(Project project, int rowIndex, Row row) {
+                expected.add(rowIndex);
+                return false;
+            }
+
+            @Override
+            public void end(Project project) {
+            }
+        });
+
+        assertEquals(visit(bitmapFilter(FilterBitmaps.intersect(matches, -1, ROW_COUNT))), expected);
+        assertEquals(visit(bitmapFilter(FilterBitmaps.intersect(matches, 0, ROW_COUNT))).size(),
+                (ROW_COUNT + 4) / 5);
+        assertEquals(visit(bitmapFilter(FilterBitmaps.intersect(matches, 1, ROW_COUNT))), expected);
+    }
+
+    @Test
+    public void testConjunctiveFilterMixingBitmapsAndFilters() {
+        RowFilter multipleOf3 = (project, rowIndex, row) -> rowIndex % 3 == 0;
+        RowFilter multipleOf5 = (project, rowIndex, row) -> rowIndex % 5 == 0;
+        ConjunctiveFilteredRows mixed = new ConjunctiveFilteredRows();
+        mixed.add(FilterBitmaps.matchRows(project, multipleOf3, true));
+        mixed.add(multipleOf5);
+
+        List<Integer> visited = visit(mixed);
+        assertEquals(visited.size(), (ROW_COUNT + 14) / 15);
+        for (int rowIndex : visited) {
+            assertEquals(rowIndex % 15, 0);
+        }
+    }
+
+    private static ConjunctiveFilteredRows bitmapFilter(BitSet matches) {
+        ConjunctiveFilteredRows filteredRows = new ConjunctiveFilteredRows();
+        filteredRows.add(matches);
+        return filteredRows;
+    }
+}
@@ -0,0 +1,134 @@
+
+package com.google.refine.expr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.Properties;
+
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class EvaluationContextTests extends RefineTest {
+
+    @Override
+    @BeforeTest
+    public void init() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    private Project project() {
+        return createProject(new String[] { "a", "b" },
+                new Serializable[][] {
+                        { "x", 1 },
+                        { null, "y" }
+                });
+    }
+
+    @Test
+    public void testStandardVariables() {
+        Project project = project();
+        Properties bindings = ExpressionUtils.createBindings(project);
+        assertTrue(bindings instanceof EvaluationContext);
+        assertSame(bindings.get("project"), project);
+        assertEquals(bindings.get("true"), true);
+        assertEquals(bindings.get("false"), false);
+        assertEquals(bindings.get("PI"), Math.PI);
+        assertFalse(bindings.containsKey("value"));
+
+        Row row = project.rows.get(0);
+        Cell cell = row.getCell(0);
+        ExpressionUtils.bind(bindings, row, 0, "a", cell);
+
+        assertEquals(bindings.get("rowIndex"), 0);
+        assertEquals(bindings.get("value"), "x");
+        assertEquals(bindings.get("columnName"), "a");
+        assertSame(((WrappedRow) bindings.get("row")).row, row);
+        assertSame(((WrappedCell) bindings.get("cell")).cell, cell);
+        assertTrue(bindings.get("cells") instanceof CellTuple);
+        assertTrue(bindings.containsKey("cell"));
+    }
+
+    @Test
+    public void testMissingCell() {
+        Project project = project();
+        Properties bindings = ExpressionUtils.createBindings(project);
+
+        ExpressionUtils.bind(bindings, project.rows.get(0), 0, "a", project.rows.get(0).getCell(0));
+        ExpressionUtils.bind(bindings, project.rows.get(1), 1, "a", null);
+
+        assertNull(bindings.get("cell"));
+        assertNull(bindings.get("value"));
+        assertFalse(bindings.containsKey("cell"));
+        assertFalse(bindings.containsKey("value"));
+        assertEquals(bindings.get("rowIndex"), 1);
+    }
+
+    @Test
+    public void testWrappersAreCreatedOncePerRow() {
+        Project project = project();
+        Properties bindings = ExpressionUtils.createBindings(project);
+
+        ExpressionUtils.bind(bindings, project.rows.get(0), 0, "a", project.rows.get(0).getCell(0));
+        Object row = bindings.get("row");
+        Object cell = bindings.get("cell");
+        assertSame(bindings.get("row"), row);
+        assertSame(bindings.get("cell"), cell);
+
+        // wrappers returned for a previous row can be retained by the caller, so they are not reused
+        ExpressionUtils.bind(bindings, project.rows.get(1), 1, "b", project.rows.get(1).getCell(1));
+        assertNotSame(bindings.get("row"), row);
+        assertEquals(((WrappedRow) row).rowIndex, 0);
+        assertEquals(((WrappedCell) bindings.get("cell")).columnName, "b");
+    }
+
+    @Test
+    public void testColumnNameIsKeptWhenNotGiven() {
+        Project project = project();
+        Properties bindings = ExpressionUtils.createBindings(project);
+
+        ExpressionUtils.bind(bindings, project.rows.get(0), 0, "a", null);
+        ExpressionUtils.bind(bindings, project.rows.get(1), 1, null, null);
+
+        assertEquals(bindings.get("columnName"), "a");
+    }
+
+    @Test
+    public void testOverriddenVariables() {
+        Project project = project();
+        Properties bindings = ExpressionUtils.createBindings(project);
+        ExpressionUtils.bind(bindings, project.rows.get(0), 0, "a", project.rows.get(0).getCell(0));
+
+        assertEquals(bindings.put("value", "z"), "x");
+        assertEquals(bindings.get("value"), "z");
+        assertEquals(bindings.remove("value"), "z");
+        assertNull(bindings.get("value"));
+
+        ExpressionUtils.bind(bindings, project.rows.get(0), 0, "a", project.rows.get(0).getCell(0));
+        assertEquals(bindings.get("value"), "x");
+    }
+
+    @Test
+    public void testOtherVariables() {
+        Properties bindings = new EvaluationContext(null);
+
+        assertNull(bindings.get("project"));
+        bindings.put("v", 3);
+        assertEquals(bindings.get("v"), 3);
+        assertTrue(bindings.containsKey("v"));
+        assertEquals(bindings.getOrDefault("w", 4), 4);
+        bindings.remove("v");
+        assertFalse(bindings.containsKey("v"));
+    }
+}
@@ -0,0 +1,100 @@
+
+package com.google.refine.expr;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+public class MemoizedEvaluableTests {
+
+    private static class CountingEvaluable implements Evaluable {
+
+        final AtomicInteger evaluations = new AtomicInteger();
+        final Purity purity;
+        final Optional<Set<String>> variables;
+
+        CountingEvaluable(Purity purity, Optional<Set<String>> variables) {
+            this.purity = purity;
+            this.variables = variables;
+        }
+
+        @Override
+        public Object evaluate(Properties bindings) {
+            evaluations.incrementAndGet();
+            Object value = bindings.get("value");
+            return value == null ? null : value.toString().toUpperCase();
+        }
+
+        @Override
+        public Purity getPurity() {
+            return purity;
+        }
+
+        @Override
+        public Optional<Set<String>> getVariableDependencies() {
+            return variables;
+        }
+    }
+
+    private Object evaluate(Evaluable evaluable, Object value) {
+        Properties bindings = new Properties();
+        if (value != null) {
+            bindings.put("value", value);
+        }
+        return evaluable.evaluate(bindings);
+    }
+
+    @Test
+    public void testRepeatedValuesAreEvaluatedOnce() {
+        CountingEvaluable inner = new CountingEvaluable(Purity.PURE, Optional.of(Set.of("value")));
+        Evaluable evaluable = MemoizedEvaluable.wrap(inner);
+        assertTrue(evaluable instanceof MemoizedEvaluable);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(evaluate(evaluable, "a"), "A");
+            assertEquals(evaluate(evaluable, "b"), "B");
+            assertNull(evaluate(evaluable, null));
+        }
+
+        assertEquals(inner.evaluations.get(), 3);
+        assertEquals(((MemoizedEvaluable) evaluable).getMissCount(), 3);
+        assertEquals(((MemoizedEvaluable) evaluable).getHitCount(), 27);
+    }
+
+    @Test
+    public void testOtherExpressionsAreNotWrapped() {
+        Evaluable[] evaluables = {
+                new CountingEvaluable(Purity.PURE, Optional.of(Set.of("value", "rowIndex"))),
+                new CountingEvaluable(Purity.PURE, Optional.empty()),
+                new CountingEvaluable(Purity.PROJECT_DEPENDENT, Optional.of(Set.of("value"))),
+                new CountingEvaluable(Purity.NON_DETERMINISTIC, Optional.of(Set.of())),
+                bindings -> null
+        };
+        for (Evaluable evaluable : evaluables) {
+            assertSame(MemoizedEvaluable.wrap(evaluable), evaluable);
+        }
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        CountingEvaluable inner = new CountingEvaluable(Purity.PURE, Optional.of(Set.of("value")));
+        Evaluable evaluable = MemoizedEvaluable.wrap(inner);
+
+        for (int i = 0; i < MemoizedEvaluable.MAX_ENTRIES + 10; i++) {
+            evaluate(evaluable, i);
+        }
+        // values seen after the cache was full are evaluated again
+        evaluate(evaluable, 0);
+        evaluate(evaluable, MemoizedEvaluable.MAX_ENTRIES + 5);
+
+        assertEquals(inner.evaluations.get(), MemoizedEvaluable.MAX_ENTRIES + 11);
+    }
+}
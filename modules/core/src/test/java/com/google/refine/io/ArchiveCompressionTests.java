@@ -0,0 +1,117 @@
+
+package com.google.refine.io;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.util.TestUtils;
+
+public class ArchiveCompressionTests {
+
+    File dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = TestUtils.createTempDirectory("openrefine-test-archive-compression");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    /**
+     * @return compressible data spanning several blocks
+     */
+    private static byte[] data(int size) {
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        while (builder.length() < size) {
+            builder.append("row ").append(random.nextInt(10000)).append(",value ").append(random.nextInt(100)).append('\n');
+        }
+        return builder.substring(0, size).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(ArchiveCompression compression, byte[] data) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream out = compression.createGzipOutputStream(compressed)) {
+            // written in uneven pieces to cover writes spanning blocks
+            for (int offset = 0; offset < data.length; offset += 100003) {
+                out.write(data, offset, Math.min(100003, data.length - offset));
+            }
+        }
+        return compressed.toByteArray();
+    }
+
+    @Test
+    public void testParallelGzipCanBeReadByGZIPInputStream() throws IOException {
+        byte[] data = data(3 * ParallelDeflaterOutputStream.BLOCK_SIZE + 1234);
+
+        byte[] compressed = gzip(new ArchiveCompression(6, 4), data);
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(in.readAllBytes(), data);
+        }
+        // blocks use the end of the previous one as dictionary, so the ratio is close to single-threaded deflate
+        byte[] sequential = gzip(new ArchiveCompression(6, 1), data);
+        assertEquals(compressed.length, sequential.length, sequential.length / 20);
+    }
+
+    @Test
+    public void testEmptyGzip() throws IOException {
+        byte[] compressed = gzip(new ArchiveCompression(-1, 2), new byte[0]);
+
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertEquals(in.readAllBytes().length, 0);
+        }
+    }
+
+    @Test
+    public void testZipEntries() throws IOException {
+        byte[] large = data(3 * ParallelDeflaterOutputStream.BLOCK_SIZE + 1234);
+        byte[] small = data(100);
+        for (int threads : new int[] { 1, 4 }) {
+            File file = new File(dir, "archive-" + threads + ".zip");
+            ArchiveCompression compression = new ArchiveCompression(1, threads);
+            try (ArchiveCompression.ZipWriter out = compression.createZipWriter(file)) {
+                out.putEntry("large", entry -> entry.write(large));
+                out.putEntry("small", entry -> entry.write(small));
+                out.putEntry("empty", entry -> {
+                });
+            }
+
+            try (ZipFile zipFile = new ZipFile(file)) {
+                assertEquals(zipFile.getInputStream(zipFile.getEntry("large")).readAllBytes(), large);
+                assertEquals(zipFile.getEntry("large").getSize(), large.length);
+                assertEquals(zipFile.getInputStream(zipFile.getEntry("small")).readAllBytes(), small);
+                assertEquals(zipFile.getInputStream(zipFile.getEntry("empty")).readAllBytes().length, 0);
+            }
+            // entries are also readable by streaming readers, which rely on the local headers and data descriptors
+            try (ZipInputStream in = new ZipInputStream(new FileInputStream(file))) {
+                assertEquals(in.getNextEntry().getName(), "large");
+                assertEquals(in.readAllBytes(), large);
+                assertEquals(in.getNextEntry().getName(), "small");
+                assertEquals(in.readAllBytes(), small);
+            }
+        }
+        // entries are compressed straight into the archive, without temporary files
+        assertEquals(dir.list().length, 2);
+    }
+}
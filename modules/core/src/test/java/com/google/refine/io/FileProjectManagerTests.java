@@ -29,6 +29,7 @@ package com.google.refine.io;
 
 import static org.mockito.Mockito.mock;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertNotEquals;
 import static org.testng.Assert.assertThrows;
 import static org.testng.Assert.assertTrue;
@@ -115,6 +116,9 @@ public class FileProjectManagerTests {
     public void deleteProjectAndSaveWorkspace() throws IOException {
         FileProjectManager manager = new FileProjectManagerStub(workspaceDir);
         manager.saveWorkspace();
+        File checkpoint = new File(workspaceDir, "cache/recon/5555-abc.jsonl");
+        checkpoint.getParentFile().mkdirs();
+        checkpoint.createNewFile();
         // TODO: Test tag updating on project deletion
         manager.deleteProject(5555);
         manager.saveWorkspace();
@@ -122,6 +126,7 @@ public class FileProjectManagerTests {
         InputStream inputStream = new FileInputStream(workspaceFile);
         JsonNode json = ParsingUtilities.mapper.readTree(inputStream);
         assertTrue(json.get("projectIDs").isEmpty(), "deleted project still in workspace.json");
+        assertFalse(checkpoint.exists(), "reconciliation checkpoint of deleted project still in workspace");
     }
 
     /**
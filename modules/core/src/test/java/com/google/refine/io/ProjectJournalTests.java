@@ -0,0 +1,169 @@
+
+package com.google.refine.io;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.history.HistoryEntry;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Project;
+import com.google.refine.model.changes.CellChange;
+import com.google.refine.util.TestUtils;
+
+public class ProjectJournalTests extends RefineTest {
+
+    File dir;
+    FileProjectManager manager;
+    Project project;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = TestUtils.createTempDirectory("openrefine-test-project-journal");
+        FileProjectManager.initialize(new File(dir, "workspace"));
+        manager = (FileProjectManager) ProjectManager.singleton;
+        manager.getPreferenceStore().put(ProjectJournal.PREFERENCE_KEY, true);
+        project = createProject(new String[] { "letter" },
+                new Serializable[][] { { "a" }, { "b" } });
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private HistoryEntry setCell(int row, String value) {
+        HistoryEntry entry = new HistoryEntry(HistoryEntry.allocateID(), project, "set " + value, null,
+                new CellChange(row, 0, project.rows.get(row).getCell(0), new Cell(value, null)));
+        project.history.addEntry(entry);
+        return entry;
+    }
+
+    private File changeFile(HistoryEntry entry) {
+        return new File(new File(manager.getProjectDir(project.id), FileHistoryEntryManager.HISTORY_DIR),
+                entry.id + ".change.zip");
+    }
+
+    private File journalFile() {
+        return new File(manager.getProjectDir(project.id), ProjectJournal.JOURNAL_FILE);
+    }
+
+    private Project reload() {
+        return ProjectUtilities.load(manager.getProjectDir(project.id), project.id);
+    }
+
+    @Test
+    public void testReplayChangesSinceLastSave() throws IOException {
+        ProjectUtilities.save(project);
+        File data = new File(manager.getProjectDir(project.id), ProjectUtilities.DATA_ZIP);
+        long savedLength = data.length();
+
+        HistoryEntry first = setCell(0, "x");
+        HistoryEntry second = setCell(1, "y");
+        project.history.undoRedo(first.id);
+        manager.saveProject(project);
+
+        // the data file is not rewritten, the changes are only in the journal
+        assertEquals(data.length(), savedLength);
+        assertTrue(new File(manager.getProjectDir(project.id), ProjectJournal.JOURNAL_FILE).exists());
+
+        Project loaded = reload();
+        assertEquals(loaded.rows.get(0).getCellValue(0), "x");
+        assertEquals(loaded.rows.get(1).getCellValue(0), "b");
+        assertEquals(loaded.history.getLastPastEntries(0).size(), 1);
+
+        // the undone entry can still be redone
+        loaded.history.replayUndoRedo(loaded, second.id);
+        assertEquals(loaded.rows.get(1).getCellValue(0), "y");
+    }
+
+    @Test
+    public void testCompactWhenSavingEntirely() throws IOException {
+        setCell(0, "x");
+        ProjectUtilities.save(project);
+
+        assertFalse(new File(manager.getProjectDir(project.id), ProjectJournal.JOURNAL_FILE).exists());
+        setCell(1, "y");
+
+        Project loaded = reload();
+        assertEquals(loaded.rows.get(0).getCellValue(0), "x");
+        assertEquals(loaded.rows.get(1).getCellValue(0), "y");
+        assertEquals(loaded.history.getLastPastEntries(0).size(), 2);
+    }
+
+    @Test
+    public void testSaveEntirelyWithoutBase() throws IOException {
+        setCell(0, "x");
+
+        // the first save of a project always writes its data file
+        assertTrue(manager.getJournal(project.id).getSequence() > 0);
+        manager.saveProject(project);
+
+        assertTrue(new File(manager.getProjectDir(project.id), ProjectUtilities.DATA_ZIP).exists());
+        assertEquals(reload().rows.get(0).getCellValue(0), "x");
+    }
+
+    @Test
+    public void testKeepDiscardedChangesUntilSaved() throws IOException {
+        HistoryEntry discarded = setCell(0, "x");
+        ProjectUtilities.save(project);
+        project.history.undoRedo(0);
+        setCell(1, "y");
+        manager.saveProject(project);
+
+        // the saved project still has to undo the discarded entry when the journal is replayed
+        assertTrue(changeFile(discarded).exists());
+        Project loaded = reload();
+        assertEquals(loaded.rows.get(0).getCellValue(0), "a");
+        assertEquals(loaded.rows.get(1).getCellValue(0), "y");
+        assertEquals(loaded.history.getLastPastEntries(0).size(), 1);
+
+        ProjectUtilities.save(project);
+        assertFalse(changeFile(discarded).exists());
+    }
+
+    @Test
+    public void testLoadAsSavedIfReplayFails() throws IOException {
+        ProjectUtilities.save(project);
+        setCell(0, "x");
+        setCell(1, "y");
+
+        // the second change must not be replayed without the first one
+        List<String> lines = Files.readAllLines(journalFile().toPath(), StandardCharsets.UTF_8);
+        Files.write(journalFile().toPath(), lines.subList(1, lines.size()), StandardCharsets.UTF_8);
+
+        Project loaded = reload();
+        assertEquals(loaded.rows.get(0).getCellValue(0), "a");
+        assertEquals(loaded.rows.get(1).getCellValue(0), "b");
+        assertTrue(loaded.history.getLastPastEntries(0).isEmpty());
+        assertFalse(journalFile().exists());
+        assertTrue(new File(manager.getProjectDir(project.id), ProjectJournal.JOURNAL_FILE + ".failed").exists());
+    }
+
+    @Test
+    public void testRemoveIncompleteRecord() throws IOException {
+        ProjectUtilities.save(project);
+        setCell(0, "x");
+        Files.write(journalFile().toPath(), "2:entry={\"id\":".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        ProjectJournal journal = new ProjectJournal(manager.getProjectDir(project.id));
+        assertEquals(journal.getSequence(), 1);
+        Project loaded = reload();
+        assertEquals(loaded.rows.get(0).getCellValue(0), "x");
+    }
+}
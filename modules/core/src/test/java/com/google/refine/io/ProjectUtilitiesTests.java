@@ -0,0 +1,160 @@
+
+package com.google.refine.io;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.zip.ZipFile;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.model.BinaryRowFormat;
+import com.google.refine.model.Cell;
+import com.google.refine.model.LazyRowList;
+import com.google.refine.model.Project;
+import com.google.refine.util.ParsingUtilities;
+import com.google.refine.util.Pool;
+import com.google.refine.util.TestUtils;
+
+public class ProjectUtilitiesTests extends RefineTest {
+
+    File dir;
+    Project project;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = TestUtils.createTempDirectory("openrefine-test-project-utilities");
+        project = createProject(new String[] { "a", "b" },
+                new Serializable[][] {
+                        { "foo", 1L },
+                        { null, 2.5 },
+                        { "foo", true }
+                });
+        project.rows.get(1).starred = true;
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        ProjectManager.singleton.getPreferenceStore().put(BinaryRowFormat.PREFERENCE_KEY, null);
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private Project saveAndLoad(File file) throws IOException {
+        ProjectUtilities.saveToFile(project, file);
+        Project loaded = ProjectUtilities.loadFromFile(file, project.id);
+        assertEquals(loaded.rows.size(), project.rows.size());
+        for (int i = 0; i != project.rows.size(); i++) {
+            assertEquals(ParsingUtilities.saveWriter.writeValueAsString(loaded.rows.get(i)),
+                    ParsingUtilities.saveWriter.writeValueAsString(project.rows.get(i)));
+        }
+        return loaded;
+    }
+
+    @Test
+    public void testSaveBinaryRows() throws IOException {
+        ProjectManager.singleton.getPreferenceStore().put(BinaryRowFormat.PREFERENCE_KEY, true);
+        File file = new File(dir, ProjectUtilities.DATA_ZIP);
+        Project loaded = saveAndLoad(file);
+
+        try (ZipFile zipFile = new ZipFile(file)) {
+            assertNotNull(zipFile.getEntry(ProjectUtilities.ROWS_ENTRY));
+        }
+        assertEquals(loaded.rows.get(0).getCellValue(1), 1L);
+        assertEquals(loaded.columnModel.getColumnNames(), project.columnModel.getColumnNames());
+    }
+
+    @Test
+    public void testSaveLegacyRowsByDefault() throws IOException {
+        File file = new File(dir, ProjectUtilities.DATA_ZIP);
+        saveAndLoad(file);
+
+        try (ZipFile zipFile = new ZipFile(file)) {
+            assertNull(zipFile.getEntry(ProjectUtilities.ROWS_ENTRY));
+        }
+    }
+
+    @Test
+    public void testLoadRowsLazily() throws IOException {
+        ProjectManager.singleton.getPreferenceStore().put(BinaryRowFormat.PREFERENCE_KEY, true);
+        File file = new File(dir, ProjectUtilities.DATA_ZIP);
+        ProjectUtilities.saveToFile(project, file);
+        // extracted rows are stored in the workspace
+        FileProjectManager.initialize(new File(dir, "workspace"));
+        ProjectManager.singleton.getPreferenceStore().put(LazyRowList.PREFERENCE_KEY, true);
+
+        Project loaded = ProjectUtilities.loadFromFile(file, project.id);
+
+        LazyRowList rows = (LazyRowList) loaded.rows;
+        assertEquals(rows.size(), 3);
+        assertTrue(loaded.recordModel.hasRecords());
+        assertEquals(loaded.recordModel.getRecordCount(), 2);
+        assertFalse(rows.isMaterialized());
+        assertEquals(loaded.recordModel.getRecord(1).fromRowIndex, 2);
+        assertEquals(ParsingUtilities.saveWriter.writeValueAsString(rows.get(2)),
+                ParsingUtilities.saveWriter.writeValueAsString(project.rows.get(2)));
+
+        loaded.materializeRows();
+        assertTrue(rows.isMaterialized());
+        assertEquals(loaded.rows.get(0).getCellValue(1), 1L);
+        loaded.dispose();
+    }
+
+    @Test
+    public void testSaveSnapshot() throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        project.saveToOutputStream(expected, new Pool(), true);
+
+        Pool pool = new Pool();
+        Project.Snapshot snapshot;
+        synchronized (project) {
+            snapshot = project.createSnapshot(pool, true);
+        }
+        assertTrue(snapshot.isDetached());
+        // changes made after the snapshot was taken are not saved
+        synchronized (project) {
+            project.materializeRows();
+            project.rows.get(0).setCell(0, new Cell("bar", null));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        snapshot.saveToOutputStream(out);
+
+        assertEquals(out.toString("UTF-8"), expected.toString("UTF-8"));
+        Project loaded = Project.loadFromInputStream(new ByteArrayInputStream(out.toByteArray()), project.id, pool);
+        assertEquals(loaded.rows.get(0).getCellValue(0), "foo");
+    }
+
+    @Test
+    public void testSaveBinarySnapshot() throws IOException {
+        Pool pool = new Pool();
+        Project.Snapshot snapshot;
+        synchronized (project) {
+            snapshot = project.createSnapshot(pool, false);
+        }
+        synchronized (project) {
+            project.materializeRows();
+            project.rows.remove(2);
+        }
+        ByteArrayOutputStream data = new ByteArrayOutputStream();
+        snapshot.saveToOutputStream(data);
+        ByteArrayOutputStream rows = new ByteArrayOutputStream();
+        snapshot.saveRowsToOutputStream(rows);
+
+        Project loaded = Project.loadFromInputStream(new ByteArrayInputStream(data.toByteArray()), project.id, pool,
+                new ByteArrayInputStream(rows.toByteArray()));
+        assertEquals(loaded.rows.size(), 3);
+        assertEquals(loaded.rows.get(2).getCellValue(1), true);
+    }
+}
@@ -0,0 +1,116 @@
+
+package com.google.refine.model;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.google.refine.expr.EvalError;
+import com.google.refine.util.ParsingUtilities;
+import com.google.refine.util.Pool;
+
+public class BinaryRowFormatTests {
+
+    private Row row(boolean flagged, boolean starred, Cell... cells) {
+        Row row = new Row(cells.length);
+        row.flagged = flagged;
+        row.starred = starred;
+        row.cells.addAll(Arrays.asList(cells));
+        return row;
+    }
+
+    private List<Row> roundTrip(List<Row> rows, Pool readPool) throws IOException {
+        Pool writePool = new Pool();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryRowFormat.write(rows, writePool, out);
+
+        // the pool is saved and loaded separately, as in project archives
+        ByteArrayOutputStream poolOut = new ByteArrayOutputStream();
+        writePool.save(poolOut);
+        readPool.load(new ByteArrayInputStream(poolOut.toByteArray()));
+
+        List<Row> read = new ArrayList<>();
+        int count = BinaryRowFormat.read(new ByteArrayInputStream(out.toByteArray()), readPool, read::add);
+        assertEquals(count, rows.size());
+        return read;
+    }
+
+    @Test
+    public void testValuesAreReadBack() throws Exception {
+        Recon recon = new Recon(1L, "http://id", "http://schema");
+        recon.judgment = Recon.Judgment.Matched;
+        recon.match = new ReconCandidate("Q1", "one", new String[0], 100);
+        OffsetDateTime date = OffsetDateTime.parse("2020-01-01T10:30:00.123Z");
+        List<Row> rows = List.of(
+                row(true, false,
+                        new Cell(12L, null),
+                        new Cell(-3.5, recon),
+                        null,
+                        new Cell("foo", null),
+                        new Cell(null, recon),
+                        new Cell(date, null),
+                        new Cell(new EvalError("error"), null),
+                        new Cell(7, null),
+                        new Cell(false, null),
+                        new Cell(new BigDecimal("1.5"), recon)),
+                row(false, true),
+                row(false, false, null, new Cell("foo", recon), null));
+
+        List<Row> read = roundTrip(rows, new Pool());
+
+        assertEquals(read.size(), 3);
+        for (int i = 0; i != rows.size(); i++) {
+            assertEquals(read.get(i).flagged, rows.get(i).flagged);
+            assertEquals(read.get(i).starred, rows.get(i).starred);
+            assertEquals(ParsingUtilities.saveWriter.writeValueAsString(read.get(i)),
+                    ParsingUtilities.saveWriter.writeValueAsString(rows.get(i)));
+        }
+        Row first = read.get(0);
+        assertEquals(first.getCellValue(0), 12L);
+        assertEquals(first.getCellValue(5), date);
+        assertEquals(first.getCellValue(7), 7);
+        assertTrue(first.getCellValue(6) instanceof EvalError);
+        assertNull(first.getCell(2));
+        assertEquals(first.getCell(1).recon.match.id, "Q1");
+        // recons and dictionary strings are shared
+        assertSame(read.get(2).getCell(1).recon, first.getCell(1).recon);
+        assertSame(first.getCell(4).recon, first.getCell(1).recon);
+        assertSame(read.get(2).getCellValue(1), first.getCellValue(3));
+    }
+
+    @Test
+    public void testSeveralChunks() throws Exception {
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < BinaryRowFormat.CHUNK_SIZE * 2 + 5; i++) {
+            rows.add(row(i % 3 == 0, false, new Cell((long) i, null), i % 2 == 0 ? new Cell("value " + (i % 10), null) : null));
+        }
+
+        List<Row> read = roundTrip(rows, new Pool());
+
+        assertEquals(read.size(), rows.size());
+        for (int i = 0; i != rows.size(); i++) {
+            assertEquals(read.get(i).cells, rows.get(i).cells);
+            assertEquals(read.get(i).flagged, rows.get(i).flagged);
+        }
+    }
+
+    @Test
+    public void testInvalidStream() {
+        assertThrows(IOException.class, () -> BinaryRowFormat.read(
+                new ByteArrayInputStream("rowCount=1\n{}".getBytes()), new Pool(), row -> {
+                }));
+    }
+}
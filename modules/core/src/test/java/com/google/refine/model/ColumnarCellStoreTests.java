@@ -0,0 +1,155 @@
+
+package com.google.refine.model;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.google.refine.expr.EvalError;
+import com.google.refine.util.ParsingUtilities;
+import com.google.refine.util.TestUtils;
+
+public class ColumnarCellStoreTests {
+
+    private Row row(boolean flagged, Cell... cells) {
+        Row row = new Row(cells.length);
+        row.flagged = flagged;
+        row.cells.addAll(Arrays.asList(cells));
+        return row;
+    }
+
+    @Test
+    public void testCopyPreservesCells() throws Exception {
+        Recon recon = new Recon(1L, null, null);
+        OffsetDateTime date = OffsetDateTime.parse("2020-01-01T00:00:00Z");
+        Row original = row(true,
+                new Cell(12L, null),
+                new Cell(3.5, recon),
+                null,
+                new Cell("foo", null),
+                new Cell(null, recon),
+                new Cell(date, null),
+                new Cell(new EvalError("error"), null));
+
+        Row copy = new ColumnarCellStore().copyRow(original);
+
+        assertTrue(copy.flagged);
+        assertEquals(copy.cells, original.cells);
+        assertSame(copy.getCell(1).recon, recon);
+        assertNull(copy.getCell(2));
+        assertSame(copy.getCellValue(5), date);
+        TestUtils.isSerializedTo(copy, ParsingUtilities.saveWriter.writeValueAsString(original), true);
+    }
+
+    @Test
+    public void testMixedTypesInColumn() {
+        ColumnarCellStore store = new ColumnarCellStore();
+        Row first = store.copyRow(row(false, new Cell(1L, null)));
+        Row second = store.copyRow(row(false, new Cell(2L, null)));
+        Row third = store.copyRow(row(false, new Cell("three", null)));
+        Row fourth = store.copyRow(row(false, new Cell(4.0, null)));
+
+        assertEquals(first.getCellValue(0), 1L);
+        assertEquals(second.getCellValue(0), 2L);
+        assertEquals(third.getCellValue(0), "three");
+        assertEquals(fourth.getCellValue(0), 4.0);
+
+        second.setCell(0, new Cell(true, null));
+        assertEquals(second.getCellValue(0), true);
+        assertEquals(first.getCellValue(0), 1L);
+    }
+
+    @Test
+    public void testCellListMutations() {
+        ColumnarCellStore store = new ColumnarCellStore();
+        Row row = store.createRow(false, false);
+        row.setCell(2, new Cell("c", null));
+        assertEquals(row.cells.size(), 3);
+        assertNull(row.getCell(0));
+
+        row.cells.add(0, new Cell("a", null));
+        assertEquals(row.cells, Arrays.asList(new Cell("a", null), null, null, new Cell("c", null)));
+
+        row.cells.remove(1);
+        assertEquals(row.cells, Arrays.asList(new Cell("a", null), null, new Cell("c", null)));
+
+        row.cells.set(1, new Cell(null, null));
+        assertEquals(row.getCell(1), new Cell(null, null));
+        assertNull(row.getCellValue(1));
+
+        Row dup = row.dup();
+        row.setCell(0, new Cell("z", null));
+        assertEquals(dup.getCellValue(0), "a");
+    }
+
+    @Test
+    public void testManyDistinctStrings() {
+        ColumnarCellStore store = new ColumnarCellStore();
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 20000; i++) {
+            rows.add(store.copyRow(row(false, new Cell("value " + i, null), new Cell("constant", null))));
+        }
+        for (int i = 0; i < 20000; i++) {
+            assertEquals(rows.get(i).getCellValue(0), "value " + i);
+            assertEquals(rows.get(i).getCellValue(1), "constant");
+        }
+    }
+
+    @Test
+    public void testCompact() {
+        List<Row> rows = new ArrayList<>();
+        rows.add(row(true, new Cell("a", null)));
+        rows.add(null);
+        rows.add(row(false, new Cell(1L, null), new Cell(2L, null)));
+        List<Row> before = new ArrayList<>(rows);
+
+        ColumnarCellStore.compact(rows);
+
+        assertEquals(rows.size(), 3);
+        assertTrue(rows.get(0).flagged);
+        assertEquals(rows.get(0).cells, before.get(0).cells);
+        assertNull(rows.get(1));
+        assertEquals(rows.get(2).cells, before.get(2).cells);
+    }
+
+    @Test
+    public void testCellsAreNotReallocated() {
+        ColumnarCellStore store = new ColumnarCellStore();
+        Recon recon = new Recon(1L, null, null);
+        Cell reconciled = new Cell("a", recon);
+        Row row = store.copyRow(row(false, new Cell("a", null), new Cell(1L, null), reconciled));
+        Row other = store.copyRow(row(false, new Cell("a", null)));
+
+        assertSame(row.getCell(0), row.getCell(0));
+        assertSame(row.getCell(1), row.getCell(1));
+        assertSame(row.getCell(2), reconciled);
+        // cells without recon are interned
+        assertSame(other.getCell(0), row.getCell(0));
+    }
+
+    @Test
+    public void testCompactIfSparse() {
+        ColumnarCellStore store = new ColumnarCellStore();
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            rows.add(store.copyRow(row(false, new Cell(i, null))));
+        }
+        rows.subList(0, 900).clear();
+        assertFalse(ColumnarCellStore.compactIfSparse(rows));
+
+        rows.subList(0, 200).clear();
+        assertTrue(ColumnarCellStore.compactIfSparse(rows));
+        assertEquals(rows.size(), 900);
+        assertEquals(rows.get(0).getCellValue(0), 1100);
+        assertFalse(ColumnarCellStore.compactIfSparse(rows));
+    }
+}
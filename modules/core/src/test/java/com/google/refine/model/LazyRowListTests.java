@@ -0,0 +1,97 @@
+
+package com.google.refine.model;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.util.Pool;
+import com.google.refine.util.TestUtils;
+
+public class LazyRowListTests {
+
+    File dir;
+    File file;
+    List<Row> rows;
+    Pool pool;
+    Recon recon;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = TestUtils.createTempDirectory("openrefine-test-lazy-rows");
+        file = new File(dir, "rows.bin");
+        recon = new Recon(1L, "http://id", "http://schema");
+        rows = new ArrayList<>();
+        for (int i = 0; i < BinaryRowFormat.CHUNK_SIZE * 2 + 10; i++) {
+            Row row = new Row(2);
+            row.starred = i % 5 == 0;
+            row.cells.add(new Cell("value " + (i % 7), i % 3 == 0 ? recon : null));
+            row.cells.add(new Cell((long) i, null));
+            rows.add(row);
+        }
+        pool = new Pool();
+        try (OutputStream out = new FileOutputStream(file)) {
+            BinaryRowFormat.write(rows, pool, out);
+        }
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testRowsAreReadOnDemand() throws IOException {
+        LazyRowList lazyRows = new LazyRowList(file, pool);
+
+        assertEquals(lazyRows.size(), rows.size());
+        assertFalse(lazyRows.isMaterialized());
+        int last = rows.size() - 1;
+        assertEquals(lazyRows.get(last).cells, rows.get(last).cells);
+        assertEquals(lazyRows.get(BinaryRowFormat.CHUNK_SIZE).cells, rows.get(BinaryRowFormat.CHUNK_SIZE).cells);
+        assertSame(lazyRows.get(3), lazyRows.get(3));
+        assertSame(lazyRows.get(3).getCell(0).recon, pool.getRecon(Long.toString(recon.id)));
+        for (int i = 0; i != rows.size(); i++) {
+            assertEquals(lazyRows.get(i).cells, rows.get(i).cells);
+            assertEquals(lazyRows.get(i).starred, rows.get(i).starred);
+        }
+        assertThrows(IndexOutOfBoundsException.class, () -> lazyRows.get(rows.size()));
+        assertFalse(lazyRows.isMaterialized());
+        assertTrue(file.exists());
+
+        lazyRows.close();
+        assertFalse(file.exists());
+    }
+
+    @Test
+    public void testModificationMaterializesRows() throws IOException {
+        LazyRowList lazyRows = new LazyRowList(file, pool);
+        Row first = lazyRows.get(0);
+
+        lazyRows.remove(1);
+        lazyRows.add(new Row(0));
+
+        assertTrue(lazyRows.isMaterialized());
+        assertFalse(file.exists());
+        assertEquals(lazyRows.size(), rows.size());
+        // rows which were already read are kept
+        assertSame(lazyRows.get(0), first);
+        assertEquals(lazyRows.get(1).cells, rows.get(2).cells);
+        assertNull(lazyRows.get(rows.size() - 1).getCell(0));
+    }
+}
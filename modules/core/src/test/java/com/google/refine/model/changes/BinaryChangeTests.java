@@ -0,0 +1,185 @@
+
+package com.google.refine.model.changes;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.history.BinaryChange;
+import com.google.refine.history.Change;
+import com.google.refine.history.History;
+import com.google.refine.model.Cell;
+import com.google.refine.model.Column;
+import com.google.refine.model.Project;
+import com.google.refine.model.Recon;
+import com.google.refine.model.ReconStats;
+import com.google.refine.model.Row;
+import com.google.refine.model.recon.ReconConfig;
+import com.google.refine.model.recon.StandardReconConfig;
+import com.google.refine.util.ParsingUtilities;
+import com.google.refine.util.Pool;
+
+public class BinaryChangeTests extends RefineTest {
+
+    Project project;
+
+    @Override
+    @BeforeTest
+    public void init() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        project = createProject(new String[] { "letter", "number" },
+                new Serializable[][] {
+                        { "a", 1 },
+                        { "b", 2 },
+                        { "c", 3 },
+                        { "d", 4 }
+                });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ProjectManager.singleton.deleteProject(project.id);
+    }
+
+    private Change roundTrip(BinaryChange change) throws Exception {
+        Pool pool = new Pool();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        History.writeOneBinaryChange(out, change, pool);
+
+        // the pool is saved and loaded separately, as in change files
+        StringWriter poolWriter = new StringWriter();
+        pool.save(poolWriter);
+        Pool loadedPool = new Pool();
+        loadedPool.load(new StringReader(poolWriter.toString()));
+
+        return History.readOneBinaryChange(new ByteArrayInputStream(out.toByteArray()), loadedPool);
+    }
+
+    private String serialize(Change change) throws Exception {
+        StringWriter writer = new StringWriter();
+        Properties options = new Properties();
+        options.put("pool", new Pool());
+        change.save(writer, options);
+        return writer.toString();
+    }
+
+    @Test
+    public void testMassCellChange() throws Exception {
+        Recon recon = new Recon(1L, "http://example.com/identifiers", "http://example.com/schema");
+        List<CellChange> cellChanges = new ArrayList<>();
+        cellChanges.add(new CellChange(3, 0, project.rows.get(3).getCell(0), new Cell("same", recon)));
+        cellChanges.add(new CellChange(0, 0, project.rows.get(0).getCell(0), new Cell("same", recon)));
+        cellChanges.add(new CellChange(2, 0, project.rows.get(2).getCell(0), null));
+        MassCellChange change = new MassCellChange(cellChanges, "letter", false);
+
+        MassCellChange loaded = (MassCellChange) roundTrip(change);
+
+        assertEquals(serialize(loaded), serialize(change));
+        // recons are shared by the cells which refer to them
+        assertSame(loaded._cellChanges[0].newCell.recon, loaded._cellChanges[1].newCell.recon);
+
+        loaded.apply(project);
+        assertEquals(project.rows.get(3).getCellValue(0), "same");
+        assertEquals(project.rows.get(2).getCell(0), null);
+        loaded.revert(project);
+        assertEquals(project.rows.get(2).getCellValue(0), "c");
+    }
+
+    @Test
+    public void testRowChanges() throws Exception {
+        RowRemovalChange removal = new RowRemovalChange(List.of(1, 3));
+        removal.apply(project);
+        RowRemovalChange loadedRemoval = (RowRemovalChange) roundTrip(removal);
+        assertEquals(serialize(loadedRemoval), serialize(removal));
+        loadedRemoval.revert(project);
+        assertEquals(project.rows.get(3).getCellValue(0), "d");
+
+        RowReorderChange reorder = new RowReorderChange(List.of(3, 1, 2, 0));
+        assertEquals(serialize(roundTrip(reorder)), serialize(reorder));
+
+        List<Row> newRows = new ArrayList<>();
+        newRows.add(new Row(2));
+        newRows.get(0).setCell(1, new Cell(5L, null));
+        MassRowChange massRowChange = new MassRowChange(newRows);
+        massRowChange.apply(project);
+        Change loadedMassRowChange = roundTrip(massRowChange);
+        assertEquals(serialize(loadedMassRowChange), serialize(massRowChange));
+        loadedMassRowChange.revert(project);
+        assertEquals(project.rows.size(), 4);
+    }
+
+    @Test
+    public void testReconChange() throws Exception {
+        ReconConfig.registerReconConfig(getCoreModule(), "standard-service", StandardReconConfig.class);
+        Column column = project.columnModel.getColumnByName("letter");
+        ReconConfig oldReconConfig = reconConfig("Q5");
+        column.setReconConfig(oldReconConfig);
+        column.setReconStats(new ReconStats(4, 0, 0, 0));
+
+        Recon recon = new Recon(1L, "http://example.com/identifiers", "http://example.com/schema");
+        recon.judgment = Recon.Judgment.Matched;
+        List<CellChange> cellChanges = new ArrayList<>();
+        cellChanges.add(new CellChange(1, 0, project.rows.get(1).getCell(0), new Cell("b", recon)));
+        ReconChange change = new ReconChange(cellChanges, "letter", reconConfig("Q43229"), null);
+        change.apply(project);
+
+        ReconChange loaded = (ReconChange) roundTrip(change);
+
+        assertEquals(serialize(loaded), serialize(change));
+        // the recon config and stats of the column are restored
+        loaded.revert(project);
+        assertEquals(ParsingUtilities.mapper.writeValueAsString(column.getReconConfig()),
+                ParsingUtilities.mapper.writeValueAsString(oldReconConfig));
+        assertEquals(column.getReconStats().matchedTopics, 0);
+        loaded.apply(project);
+        assertEquals(((StandardReconConfig) column.getReconConfig()).typeID, "Q43229");
+        assertEquals(column.getReconStats().matchedTopics, 1);
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        assertFalse(BinaryChange.isEnabled());
+        ProjectManager.singleton.getPreferenceStore().put(BinaryChange.PREFERENCE_KEY, true);
+        assertTrue(BinaryChange.isEnabled());
+    }
+
+    @Test
+    public void testSubclassesAreSavedAsText() {
+        MassCellChange subclass = new MassCellChange(new CellChange[0], "letter", false) {
+        };
+
+        assertNotNull(BinaryChange.getLoadMethod(MassCellChange.class));
+        assertNull(BinaryChange.getLoadMethod(subclass.getClass()));
+    }
+
+    private static ReconConfig reconConfig(String typeID) throws Exception {
+        return ReconConfig.reconstruct("{\"mode\":\"standard-service\",\"service\":\"http://example.com/api\","
+                + "\"identifierSpace\":\"http://example.com/identifiers\",\"schemaSpace\":\"http://example.com/schema\","
+                + "\"type\":{\"id\":\"" + typeID + "\",\"name\":\"type\"},\"autoMatch\":true,\"columnDetails\":[],"
+                + "\"limit\":0}");
+    }
+}
@@ -0,0 +1,98 @@
+
+package com.google.refine.model.changes;
+
+import static org.testng.Assert.assertEquals;
+
+import java.io.LineNumberReader;
+import java.io.Serializable;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Properties;
+import java.util.stream.Collectors;
+
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.history.Change;
+import com.google.refine.model.Project;
+import com.google.refine.util.Pool;
+
+public class RowRemovalChangeTests extends RefineTest {
+
+    Project project;
+
+    @Override
+    @BeforeTest
+    public void init() {
+        logger = LoggerFactory.getLogger(this.getClass());
+    }
+
+    @BeforeMethod
+    public void setUp() {
+        project = createProject(new String[] { "letter" },
+                new Serializable[][] { { "a" }, { "b" }, { "c" }, { "d" }, { "e" }, { "f" } });
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ProjectManager.singleton.deleteProject(project.id);
+    }
+
+    private List<Object> values() {
+        return project.rows.stream().map(row -> row.getCellValue(0)).collect(Collectors.toList());
+    }
+
+    @Test
+    public void testRemoveAndRestore() {
+        Change change = new RowRemovalChange(List.of(0, 2, 3, 5));
+
+        change.apply(project);
+        assertEquals(values(), List.of("b", "e"));
+
+        change.revert(project);
+        assertEquals(values(), List.of("a", "b", "c", "d", "e", "f"));
+    }
+
+    @Test
+    public void testRemoveTrailingRows() {
+        Change change = new RowRemovalChange(new int[] { 4, 5 });
+
+        change.apply(project);
+        assertEquals(values(), List.of("a", "b", "c", "d"));
+
+        change.revert(project);
+        assertEquals(values(), List.of("a", "b", "c", "d", "e", "f"));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        RowRemovalChange change = new RowRemovalChange(List.of(1, 4));
+        change.apply(project);
+
+        StringWriter writer = new StringWriter();
+        change.save(writer, new Properties());
+        Change loaded = RowRemovalChange.load(new LineNumberReader(new StringReader(writer.toString())), new Pool());
+
+        loaded.revert(project);
+        assertEquals(values(), List.of("a", "b", "c", "d", "e", "f"));
+        loaded.apply(project);
+        assertEquals(values(), List.of("a", "c", "d", "f"));
+    }
+
+    @Test
+    public void testReorderAndRestore() {
+        Change change = new RowReorderChange(List.of(5, 0, 4, 1, 3, 2));
+
+        change.apply(project);
+        assertEquals(values(), List.of("f", "a", "e", "b", "d", "c"));
+
+        change.revert(project);
+        assertEquals(values(), List.of("a", "b", "c", "d", "e", "f"));
+    }
+}
@@ -0,0 +1,144 @@
+
+package com.google.refine.model.recon;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.Test;
+
+public class PipelinedBatchExecutorTests {
+
+    private static List<Integer> batches(int count) {
+        return IntStream.range(0, count).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void testAllBatchesAreProcessed() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        PipelinedBatchExecutor<Integer, Integer> executor = new PipelinedBatchExecutor<>(4, batch -> {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            return batch * 2;
+        }, result -> false);
+
+        List<Integer> results = new ArrayList<>();
+        assertTrue(executor.run(batches(20).iterator(), (batch, result) -> {
+            assertEquals(result.intValue(), batch * 2);
+            results.add(batch);
+        }, () -> false));
+
+        Collections.sort(results);
+        assertEquals(results, batches(20));
+        assertEquals(maxInFlight.get(), 4);
+    }
+
+    @Test
+    public void testFailuresReduceConcurrency() {
+        AtomicInteger inFlight = new AtomicInteger();
+        Set<Integer> failed = ConcurrentHashMap.newKeySet();
+        List<Integer> inFlightOfRetries = new ArrayList<>();
+        PipelinedBatchExecutor<Integer, Boolean> executor = new PipelinedBatchExecutor<>(2, batch -> {
+            int concurrent = inFlight.incrementAndGet();
+            if (failed.contains(batch)) {
+                synchronized (inFlightOfRetries) {
+                    inFlightOfRetries.add(concurrent);
+                }
+            }
+            try {
+                Thread.sleep(20);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            inFlight.decrementAndGet();
+            // the service is overloaded by the first batches
+            return batch < 2 && failed.add(batch);
+        }, result -> result);
+
+        long start = System.currentTimeMillis();
+        List<Integer> succeeded = new ArrayList<>();
+        assertTrue(executor.run(batches(4).iterator(), (batch, result) -> {
+            assertFalse(result);
+            succeeded.add(batch);
+        }, () -> false));
+
+        // the delay imposed by the second consecutive failure is doubled
+        assertTrue(System.currentTimeMillis() - start >= 2 * PipelinedBatchExecutor.INITIAL_BACKOFF);
+        // the failed batches are sent again, the first one alone
+        Collections.sort(succeeded);
+        assertEquals(succeeded, batches(4));
+        assertEquals(inFlightOfRetries.get(0).intValue(), 1);
+    }
+
+    @Test
+    public void testRetriesAreBounded() {
+        AtomicInteger attempts = new AtomicInteger();
+        PipelinedBatchExecutor<Integer, Boolean> executor = new PipelinedBatchExecutor<>(2, batch -> {
+            attempts.incrementAndGet();
+            return true;
+        }, result -> result);
+
+        List<Boolean> results = new ArrayList<>();
+        assertTrue(executor.run(batches(1).iterator(), (batch, result) -> results.add(result), () -> false));
+
+        // the failed result is handed over once the batch failed too many times
+        assertEquals(results, List.of(true));
+        assertEquals(attempts.get(), PipelinedBatchExecutor.MAX_RETRIES + 1);
+    }
+
+    @Test
+    public void testInterruption() {
+        PipelinedBatchExecutor<Integer, Integer> executor = new PipelinedBatchExecutor<>(2, batch -> {
+            try {
+                Thread.sleep(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return batch;
+        }, result -> false);
+
+        Thread.currentThread().interrupt();
+        assertFalse(executor.run(batches(4).iterator(), (batch, result) -> {
+        }, () -> false));
+        // the interruption is left for the caller to handle
+        assertTrue(Thread.interrupted());
+    }
+
+    @Test
+    public void testSequentialExecution() {
+        List<String> events = new ArrayList<>();
+        PipelinedBatchExecutor<Integer, Integer> executor = new PipelinedBatchExecutor<>(1, batch -> {
+            events.add("start " + batch);
+            return batch;
+        }, result -> false);
+
+        assertTrue(executor.run(batches(3).iterator(), (batch, result) -> events.add("end " + batch), () -> false));
+        assertEquals(events, List.of("start 0", "end 0", "start 1", "end 1", "start 2", "end 2"));
+    }
+
+    @Test
+    public void testCancellation() {
+        AtomicInteger processed = new AtomicInteger();
+        PipelinedBatchExecutor<Integer, Integer> executor = new PipelinedBatchExecutor<>(2, batch -> batch,
+                result -> false);
+
+        assertFalse(executor.run(batches(100).iterator(), (batch, result) -> processed.incrementAndGet(),
+                () -> processed.get() >= 10));
+        assertEquals(processed.get(), 10);
+    }
+}
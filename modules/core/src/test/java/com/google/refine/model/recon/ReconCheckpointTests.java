@@ -0,0 +1,118 @@
+
+package com.google.refine.model.recon;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+
+import com.fasterxml.jackson.databind.node.IntNode;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import org.apache.commons.io.FileUtils;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconCheckpointTests {
+
+    File dir;
+    File file;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("recon-checkpoint").toFile();
+        file = new File(dir, "checkpoint.jsonl");
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testEntriesAreReadBack() throws IOException {
+        ReconCheckpoint checkpoint = new ReconCheckpoint(file);
+        assertTrue(checkpoint.getEntries().isEmpty());
+        assertFalse(file.exists());
+
+        checkpoint.setMetadata(TextNode.valueOf("columns"));
+        checkpoint.addEntries(Map.of("a", IntNode.valueOf(1), "b", NullNode.getInstance()));
+        checkpoint.addEntries(Map.of("c", IntNode.valueOf(3)));
+        checkpoint.close();
+
+        ReconCheckpoint reopened = new ReconCheckpoint(file);
+        assertEquals(reopened.getMetadata(), TextNode.valueOf("columns"));
+        assertEquals(reopened.getEntries(),
+                Map.of("a", IntNode.valueOf(1), "b", NullNode.getInstance(), "c", IntNode.valueOf(3)));
+    }
+
+    @Test
+    public void testTruncatedEntryIsIgnored() throws IOException {
+        ReconCheckpoint checkpoint = new ReconCheckpoint(file);
+        checkpoint.addEntries(Map.of("a", IntNode.valueOf(1)));
+        checkpoint.close();
+        // as written by a process killed while saving a batch
+        Files.writeString(file.toPath(), "{\"k\":\"b\",\"v\":", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        assertEquals(new ReconCheckpoint(file).getEntries(), Map.of("a", IntNode.valueOf(1)));
+    }
+
+    @Test
+    public void testDelete() throws IOException {
+        ReconCheckpoint checkpoint = new ReconCheckpoint(file);
+        checkpoint.setMetadata(TextNode.valueOf("columns"));
+        checkpoint.addEntries(Map.of("a", IntNode.valueOf(1)));
+        checkpoint.delete();
+
+        assertFalse(file.exists());
+        assertTrue(checkpoint.getEntries().isEmpty());
+        assertNull(new ReconCheckpoint(file).getMetadata());
+    }
+
+    @Test
+    public void testInvalidLineIsSkipped() throws IOException {
+        Files.writeString(file.toPath(), "{\"k\":\"a\",\"v\":1}\n{\"k\":\"b\",\"v\":\n{\"k\":\"c\",\"v\":3}\n",
+                StandardCharsets.UTF_8);
+
+        assertEquals(new ReconCheckpoint(file).getEntries(), Map.of("a", IntNode.valueOf(1), "c", IntNode.valueOf(3)));
+    }
+
+    @Test
+    public void testDeleteCheckpointsOfProject() throws IOException {
+        File checkpointDir = ReconCheckpoint.getDirectory(dir);
+        checkpointDir.mkdirs();
+        File first = new File(checkpointDir, "1234-abc.jsonl");
+        File second = new File(checkpointDir, "1234-def.jsonl");
+        File other = new File(checkpointDir, "12345-abc.jsonl");
+        for (File f : new File[] { first, second, other }) {
+            Files.writeString(f.toPath(), "{\"k\":\"a\",\"v\":1}\n", StandardCharsets.UTF_8);
+        }
+
+        ReconCheckpoint.deleteCheckpoints(dir, 1234L);
+
+        assertFalse(first.exists());
+        assertFalse(second.exists());
+        assertTrue(other.exists());
+    }
+
+    @Test
+    public void testDeleteExpired() throws IOException {
+        ReconCheckpoint checkpoint = new ReconCheckpoint(file);
+        checkpoint.addEntries(Map.of("a", IntNode.valueOf(1)));
+        checkpoint.close();
+        long now = file.lastModified();
+
+        ReconCheckpoint.deleteExpired(dir, now + ReconCheckpoint.MAX_AGE);
+        assertTrue(file.exists());
+        ReconCheckpoint.deleteExpired(dir, now + ReconCheckpoint.MAX_AGE + 1);
+        assertFalse(file.exists());
+    }
+}
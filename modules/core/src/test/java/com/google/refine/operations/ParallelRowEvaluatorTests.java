@@ -0,0 +1,102 @@
+
+package com.google.refine.operations;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import org.testng.annotations.Test;
+
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.RowVisitor;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.model.Project;
+import com.google.refine.model.Row;
+
+public class ParallelRowEvaluatorTests extends RefineTest {
+
+    private Project createLargeProject(int rowCount) {
+        Serializable[][] grid = new Serializable[rowCount][];
+        for (int i = 0; i < rowCount; i++) {
+            grid[i] = new Serializable[] { i };
+        }
+        return createProject(new String[] { "a" }, grid);
+    }
+
+    private RowVisitor visitor(List<Integer> results) {
+        return new RowVisitor() {
+
+            @Override
+            public void start(Project project) {
+            }
+
+            @Override
+            public void end(Project project) {
+            }
+
+            @Override
+            public boolean visit(Project project, int rowIndex, Row row) {
+                if ((Integer) row.getCellValue(0) % 3 == 0) {
+                    results.add(rowIndex);
+                }
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void testResultsAreInRowOrder() throws Exception {
+        int rowCount = ParallelRowEvaluator.CHUNK_SIZE * 3 + 17;
+        Project project = createLargeProject(rowCount);
+        AtomicInteger visitors = new AtomicInteger();
+
+        List<Integer> results = ParallelRowEvaluator.visit(project, new Engine(project).getAllRows(), r -> {
+            visitors.incrementAndGet();
+            return visitor(r);
+        });
+
+        assertEquals(results, IntStream.range(0, rowCount).filter(i -> i % 3 == 0).boxed().collect(Collectors.toList()));
+        assertEquals(visitors.get(), 4);
+    }
+
+    @Test
+    public void testExceptionIsPropagated() {
+        Project project = createLargeProject(ParallelRowEvaluator.CHUNK_SIZE * 2);
+
+        assertThrows(IllegalArgumentException.class, () -> ParallelRowEvaluator.<Integer> visit(project,
+                new Engine(project).getAllRows(), r -> {
+                    throw new IllegalArgumentException();
+                }));
+    }
+
+    @Test
+    public void testCanEvaluateConcurrently() {
+        assertTrue(ParallelRowEvaluator.canEvaluateConcurrently(evaluable(true)));
+        assertFalse(ParallelRowEvaluator.canEvaluateConcurrently(evaluable(false)));
+        assertFalse(ParallelRowEvaluator.canEvaluateConcurrently(bindings -> null));
+    }
+
+    private Evaluable evaluable(boolean threadSafe) {
+        return new Evaluable() {
+
+            @Override
+            public Object evaluate(Properties bindings) {
+                return null;
+            }
+
+            @Override
+            public boolean isThreadSafe() {
+                return threadSafe;
+            }
+        };
+    }
+}
@@ -27,6 +27,7 @@
 
 package com.google.refine.preference;
 
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
@@ -70,4 +71,23 @@ public class PreferenceStoreTests {
         assertFalse(prefStore.isDirty());
     }
 
+    @Test
+    public void testTypedGetters() {
+        PreferenceStore prefStore = new PreferenceStore();
+        prefStore.put("int", 12);
+        prefStore.put("intString", "34");
+        prefStore.put("bool", true);
+        prefStore.put("boolString", "false");
+        prefStore.put("garbage", "abc");
+
+        assertEquals(prefStore.getInteger("int", 0), 12);
+        assertEquals(prefStore.getInteger("intString", 0), 34);
+        assertEquals(prefStore.getInteger("garbage", 5), 5);
+        assertEquals(prefStore.getInteger("missing", 6), 6);
+        assertTrue(prefStore.getBoolean("bool", false));
+        assertFalse(prefStore.getBoolean("boolString", true));
+        assertTrue(prefStore.getBoolean("garbage", true));
+        assertFalse(prefStore.getBoolean("missing", false));
+    }
+
 }
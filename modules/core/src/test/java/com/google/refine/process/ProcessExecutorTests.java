@@ -0,0 +1,140 @@
+
+package com.google.refine.process;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.process.ProcessExecutor.Priority;
+
+public class ProcessExecutorTests {
+
+    ProcessExecutor executor;
+    CountDownLatch release;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = new ProcessExecutor(1, 1);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    private Future<?> submitBlockingTask(Priority priority) {
+        return executor.submit(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, priority);
+    }
+
+    @Test
+    public void testInteractiveTasksAreNotQueuedBehindBatchTasks() throws Exception {
+        submitBlockingTask(Priority.BATCH);
+        Future<?> queued = executor.submit(() -> {
+        }, Priority.BATCH);
+
+        Future<?> interactive = executor.submit(() -> {
+        }, Priority.INTERACTIVE);
+        interactive.get(10, TimeUnit.SECONDS);
+
+        assertFalse(queued.isDone());
+        assertEquals(executor.getQueueDepth(Priority.BATCH), 1);
+        assertEquals(executor.getQueueDepth(Priority.INTERACTIVE), 0);
+
+        release.countDown();
+        queued.get(10, TimeUnit.SECONDS);
+        assertEquals(executor.getCompletedCount(), 3);
+    }
+
+    @Test
+    public void testQueuedTasksCanBeCanceled() throws Exception {
+        Future<?> running = submitBlockingTask(Priority.BATCH);
+        AtomicBoolean ran = new AtomicBoolean();
+        Future<?> queued = executor.submit(() -> ran.set(true), Priority.BATCH);
+
+        queued.cancel(true);
+        release.countDown();
+        running.get(10, TimeUnit.SECONDS);
+        // tasks are run in order, so a task submitted after the canceled one completes after it would have run
+        executor.submit(() -> {
+        }, Priority.BATCH).get(10, TimeUnit.SECONDS);
+
+        assertTrue(queued.isCancelled());
+        assertFalse(ran.get());
+    }
+
+    @Test
+    public void testRunningTasksAreInterrupted() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicBoolean interrupted = new AtomicBoolean();
+        Future<?> running = executor.submit(() -> {
+            started.countDown();
+            try {
+                Thread.sleep(10000);
+            } catch (InterruptedException e) {
+                interrupted.set(true);
+            }
+        }, Priority.BATCH);
+        started.await(10, TimeUnit.SECONDS);
+
+        running.cancel(true);
+        executor.submit(() -> {
+        }, Priority.BATCH).get(10, TimeUnit.SECONDS);
+
+        assertTrue(interrupted.get());
+    }
+
+    @Test
+    public void testFailuresAreCounted() throws Exception {
+        Future<?> failing = executor.submit(() -> {
+            throw new IllegalStateException("expected");
+        }, Priority.INTERACTIVE);
+        try {
+            failing.get(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            // expected
+        }
+
+        assertEquals(executor.getFailedCount(), 1);
+        assertEquals(executor.getCompletedCount(), 1);
+    }
+
+    @Test
+    public void testReservedThreads() throws Exception {
+        executor.reserveThreads(Priority.FETCH, 2);
+        assertEquals(executor.getPoolSize(Priority.FETCH), 3);
+        CountDownLatch running = new CountDownLatch(3);
+        for (int i = 0; i < 3; i++) {
+            executor.submit(() -> {
+                running.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }, Priority.FETCH);
+        }
+        // all tasks run at the same time
+        assertTrue(running.await(10, TimeUnit.SECONDS));
+
+        release.countDown();
+        executor.releaseThreads(Priority.FETCH, 2);
+        assertEquals(executor.getPoolSize(Priority.FETCH), 1);
+    }
+}
@@ -27,6 +27,13 @@
 
 package com.google.refine.process;
 
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.util.concurrent.Uninterruptibles;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
@@ -63,4 +70,40 @@ public class ProcessManagerTests {
                 + "\"exceptions\":[{\"message\":\"unexpected error\"}]"
                 + "}");
     }
+
+    @Test
+    public void testNextProcessWaitsForCanceledProcessToStop() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch nextStarted = new CountDownLatch(1);
+        LongRunningProcess canceled = new LongRunningProcessTests.LongRunningProcessStub("canceled") {
+
+            @Override
+            protected Runnable getRunnable() {
+                return () -> {
+                    started.countDown();
+                    // keeps changing the project for a while after being canceled
+                    Uninterruptibles.awaitUninterruptibly(release);
+                };
+            }
+        };
+        LongRunningProcess next = new LongRunningProcessTests.LongRunningProcessStub("next") {
+
+            @Override
+            protected Runnable getRunnable() {
+                return nextStarted::countDown;
+            }
+        };
+
+        processManager.queueProcess(canceled);
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+        processManager.cancelAll();
+        processManager.queueProcess(next);
+
+        assertFalse(canceled.isDone());
+        assertFalse(nextStarted.await(200, TimeUnit.MILLISECONDS));
+        release.countDown();
+        assertTrue(nextStarted.await(10, TimeUnit.SECONDS));
+        assertTrue(canceled.isDone());
+    }
 }
@@ -0,0 +1,112 @@
+
+package com.google.refine.sorting;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+
+import java.io.Serializable;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.RefineTest;
+import com.google.refine.browsing.Engine;
+import com.google.refine.browsing.EngineConfig;
+import com.google.refine.model.Project;
+import com.google.refine.sorting.SortedIndexCache.SortedIndices;
+
+public class SortedIndexCacheTests extends RefineTest {
+
+    Project project;
+    Engine engine;
+    SortingConfig byKey;
+    SortingConfig byValue;
+    SortedIndexCache cache;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        project = createProject(new String[] { "key", "value" },
+                new Serializable[][] {
+                        { "c", 1L },
+                        { null, 5L },
+                        { "a", 2L },
+                        { "b", 4L },
+                        { null, 3L } });
+        engine = new Engine(project);
+        byKey = SortingConfig.reconstruct(
+                "{\"criteria\":[{\"column\":\"key\",\"valueType\":\"string\",\"reverse\":false,\"blankPosition\":2,\"errorPosition\":1}]}");
+        byValue = SortingConfig.reconstruct(
+                "{\"criteria\":[{\"column\":\"value\",\"valueType\":\"number\",\"reverse\":true,\"blankPosition\":2,\"errorPosition\":1}]}");
+        cache = new SortedIndexCache();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ProjectManager.singleton.getPreferenceStore().put(SortedIndexCache.MAX_SIZE_PREFERENCE, null);
+    }
+
+    @Test
+    public void testSortedRows() {
+        SortedIndices sorted = cache.getSortedRows(project, null, engine.getAllFilteredRows(), byValue);
+
+        assertEquals(sorted.indices, new int[] { 1, 3, 4, 2, 0 });
+        assertSame(cache.getSortedRows(project, null, engine.getAllFilteredRows(), byValue), sorted);
+        assertNotSame(cache.getSortedRows(project, null, engine.getAllFilteredRows(), byKey), sorted);
+        assertEquals(cache.getEntryCount(), 2);
+    }
+
+    @Test
+    public void testSortedRecords() {
+        engine.initializeFromConfig(EngineConfig.deserialize("{\"mode\":\"record-based\",\"facets\":[]}"));
+        SortedIndices sorted = cache.getSortedRecords(project, null, engine.getFilteredRecords(), byKey);
+
+        // records are "c" (2 rows), "a" (1 row) and "b" (2 rows)
+        assertEquals(sorted.indices, new int[] { 1, 2, 0 });
+        assertEquals(sorted.paginationIndices, new int[] { 0, 1, 3 });
+    }
+
+    @Test
+    public void testRowPages() {
+        SortedIndices sorted = cache.getSortedRows(project, null, engine.getAllFilteredRows(), byValue);
+
+        assertEquals(sorted.getPage(0, -1, 2), new int[] { 0, 2 });
+        assertEquals(sorted.getPage(4, -1, 2), new int[] { 4, 5 });
+        assertEquals(sorted.getPage(7, -1, 2), new int[] { 5, 5 });
+        assertEquals(sorted.getPage(-1, 3, 2), new int[] { 1, 3 });
+        assertEquals(sorted.getPage(-1, 1, 2), new int[] { 0, 1 });
+    }
+
+    @Test
+    public void testRecordPages() {
+        engine.initializeFromConfig(EngineConfig.deserialize("{\"mode\":\"record-based\",\"facets\":[]}"));
+        SortedIndices sorted = cache.getSortedRecords(project, null, engine.getFilteredRecords(), byKey);
+
+        assertEquals(sorted.getPage(1, -1, 1), new int[] { 1, 2 });
+        assertEquals(sorted.getPage(2, -1, 5), new int[] { 2, 3 });
+        assertEquals(sorted.getPage(-1, 3, 1), new int[] { 1, 2 });
+        assertEquals(sorted.getPage(-1, 4, 5), new int[] { 0, 3 });
+    }
+
+    @Test
+    public void testModifiedProjectIsSortedAgain() {
+        SortedIndices sorted = cache.getSortedRows(project, null, engine.getAllFilteredRows(), byValue);
+        project.rows.remove(1);
+
+        SortedIndices updated = cache.getSortedRows(project, null, engine.getAllFilteredRows(), byValue);
+        assertNotSame(updated, sorted);
+        assertEquals(updated.indices, new int[] { 2, 3, 1, 0 });
+    }
+
+    @Test
+    public void testEvictionBySize() {
+        ProjectManager.singleton.getPreferenceStore().put(SortedIndexCache.MAX_SIZE_PREFERENCE, 8);
+
+        cache.getSortedRows(project, null, engine.getAllFilteredRows(), byValue);
+        assertEquals(cache.getEntryCount(), 1);
+        cache.getSortedRows(project, null, engine.getAllFilteredRows(), byKey);
+        assertEquals(cache.getEntryCount(), 1);
+    }
+}
@@ -0,0 +1,141 @@
+
+package com.google.refine.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.RecordedRequest;
+import org.apache.commons.io.FileUtils;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class HttpResponseCacheTests {
+
+    MockWebServer server;
+    HttpClient client;
+    File dir;
+
+    @BeforeMethod
+    public void setUp() throws IOException {
+        server = new MockWebServer();
+        server.start();
+        client = new HttpClient();
+        dir = Files.createTempDirectory("http-cache").toFile();
+    }
+
+    @AfterMethod
+    public void tearDown() throws IOException {
+        server.close();
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testFreshResponsesAreNotFetchedAgain() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024, 60_000);
+        String url = server.url("/fresh").toString();
+        server.enqueue(new MockResponse.Builder().body("first").build());
+        server.enqueue(new MockResponse.Builder().body("second").build());
+
+        assertEquals(cache.getAsString(client, url, null), "first");
+        // a new instance on the same directory, as after a restart
+        HttpResponseCache reopened = new HttpResponseCache(dir, 1024 * 1024, 60_000);
+        assertEquals(reopened.getAsString(client, url, null), "first");
+        assertEquals(server.getRequestCount(), 1);
+    }
+
+    @Test
+    public void testRequestHeadersArePartOfTheKey() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024, 60_000);
+        String url = server.url("/headers").toString();
+        server.enqueue(new MockResponse.Builder().body("json").build());
+        server.enqueue(new MockResponse.Builder().body("xml").build());
+
+        assertEquals(cache.getAsString(client, url, new Header[] { new BasicHeader("Accept", "application/json") }), "json");
+        assertEquals(cache.getAsString(client, url, new Header[] { new BasicHeader("Accept", "text/xml") }), "xml");
+        assertEquals(cache.getAsString(client, url, new Header[] { new BasicHeader("Accept", "application/json") }), "json");
+        assertEquals(server.getRequestCount(), 2);
+    }
+
+    @Test
+    public void testStaleResponsesAreRevalidated() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024, 0);
+        String url = server.url("/etag").toString();
+        server.enqueue(new MockResponse.Builder().body("original").setHeader("ETag", "\"v1\"")
+                .setHeader("Last-Modified", "Wed, 21 Oct 2015 07:28:00 GMT").build());
+        server.enqueue(new MockResponse.Builder().code(304).build());
+
+        assertEquals(cache.getAsString(client, url, null), "original");
+        assertEquals(cache.getAsString(client, url, null), "original");
+
+        server.takeRequest(1, TimeUnit.SECONDS);
+        RecordedRequest revalidation = server.takeRequest(1, TimeUnit.SECONDS);
+        assertEquals(revalidation.getHeaders().get("If-None-Match"), "\"v1\"");
+        assertEquals(revalidation.getHeaders().get("If-Modified-Since"), "Wed, 21 Oct 2015 07:28:00 GMT");
+    }
+
+    @Test
+    public void testStaleResponsesWithoutValidatorsAreFetchedAgain() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024, 0);
+        String url = server.url("/stale").toString();
+        server.enqueue(new MockResponse.Builder().body("first").build());
+        server.enqueue(new MockResponse.Builder().body("second").build());
+
+        assertEquals(cache.getAsString(client, url, null), "first");
+        assertEquals(cache.getAsString(client, url, null), "second");
+        RecordedRequest first = server.takeRequest(1, TimeUnit.SECONDS);
+        RecordedRequest second = server.takeRequest(1, TimeUnit.SECONDS);
+        assertNull(first.getHeaders().get("If-None-Match"));
+        assertNull(second.getHeaders().get("If-None-Match"));
+    }
+
+    @Test
+    public void testErrorsAreNotCached() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024, 60_000);
+        String url = server.url("/error").toString();
+        server.enqueue(new MockResponse.Builder().code(404).body("missing").build());
+        server.enqueue(new MockResponse.Builder().body("found").build());
+
+        assertThrows(IOException.class, () -> cache.getAsString(client, url, null));
+        assertEquals(cache.getAsString(client, url, null), "found");
+        assertEquals(cache.getSize(), dir.listFiles()[0].length());
+    }
+
+    @Test
+    public void testResponsesToRequestsWithCredentialsAreNotStored() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1024 * 1024, 60_000);
+        String url = server.url("/private").toString();
+        server.enqueue(new MockResponse.Builder().body("first").build());
+        server.enqueue(new MockResponse.Builder().body("second").build());
+        Header[] headers = new Header[] { new BasicHeader("Authorization", "Bearer secret") };
+
+        assertEquals(cache.getAsString(client, url, headers), "first");
+        assertEquals(cache.getAsString(client, url, headers), "second");
+        assertEquals(dir.listFiles().length, 0);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedResponsesAreEvicted() throws Exception {
+        HttpResponseCache cache = new HttpResponseCache(dir, 1000, 60_000);
+        String body = "x".repeat(300);
+        for (int i = 0; i < 5; i++) {
+            server.enqueue(new MockResponse.Builder().body(body).build());
+            cache.getAsString(client, server.url("/large" + i).toString(), null);
+        }
+
+        assertTrue(cache.getSize() <= 1000, "cache too large: " + cache.getSize());
+        assertTrue(dir.listFiles().length < 5);
+        assertEquals(new HttpResponseCache(dir, 1000, 60_000).getSize(), cache.getSize());
+    }
+}
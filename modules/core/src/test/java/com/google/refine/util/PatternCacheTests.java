@@ -0,0 +1,38 @@
+
+package com.google.refine.util;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertThrows;
+
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.testng.annotations.Test;
+
+public class PatternCacheTests {
+
+    @Test
+    public void testPatternsAreReused() {
+        Pattern pattern = PatternCache.get("[a-z]+");
+
+        assertEquals(pattern.pattern(), "[a-z]+");
+        assertSame(PatternCache.get("[a-z]+"), pattern);
+    }
+
+    @Test
+    public void testFlagsArePartOfTheKey() {
+        Pattern caseSensitive = PatternCache.get("abc");
+        Pattern caseInsensitive = PatternCache.get("abc", Pattern.CASE_INSENSITIVE);
+
+        assertNotSame(caseInsensitive, caseSensitive);
+        assertEquals(caseInsensitive.flags(), Pattern.CASE_INSENSITIVE);
+        assertSame(PatternCache.get("abc", Pattern.CASE_INSENSITIVE), caseInsensitive);
+    }
+
+    @Test
+    public void testInvalidPattern() {
+        assertThrows(PatternSyntaxException.class, () -> PatternCache.get("("));
+    }
+}
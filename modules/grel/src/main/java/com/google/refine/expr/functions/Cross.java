@@ -33,7 +33,9 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
 
 package com.google.refine.expr.functions;
 
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.google.refine.LookupCacheManager;
 import com.google.refine.LookupCacheManager.ProjectLookup;
@@ -56,6 +58,9 @@ public class Cross implements Function {
     @Deprecated
     public static final String INDEX_COLUMN_NAME = LookupCacheManager.INDEX_COLUMN_NAME;
 
+    // not a valid variable name, so that it cannot clash with the variables of expressions
+    private static final String PROJECT_IDS_BINDING = "cross:projectIDs";
+
     @Override
     public Object call(Properties bindings, Object[] args) {
         if (1 <= args.length && args.length <= 3) {
@@ -78,7 +83,7 @@ public class Cross implements Function {
             if (v != null && targetProjectName instanceof String && targetColumnName instanceof String) {
                 try {
                     targetProjectID = isCurrentProject ? ((Project) bindings.get("project")).id
-                            : ProjectManager.singleton.getProjectID((String) targetProjectName);
+                            : getProjectID(bindings, (String) targetProjectName);
                 } catch (GetProjectIDException e) {
                     return new EvalError(e.getMessage());
                 }
@@ -101,6 +106,25 @@ public class Cross implements Function {
         return new EvalError(EvalErrorMessage.fun_cross_expects_value_project_column(ControlFunctionRegistry.getFunctionName(this)));
     }
 
+    /**
+     * Resolves the name of a project, caching its id in the bindings so that it is only resolved once for all rows the
+     * expression is evaluated on.
+     */
+    private static long getProjectID(Properties bindings, String projectName) throws GetProjectIDException {
+        @SuppressWarnings("unchecked")
+        Map<String, Long> projectIDs = (Map<String, Long>) bindings.get(PROJECT_IDS_BINDING);
+        if (projectIDs == null) {
+            projectIDs = new ConcurrentHashMap<>();
+            bindings.put(PROJECT_IDS_BINDING, projectIDs);
+        }
+        Long projectID = projectIDs.get(projectName);
+        if (projectID == null) {
+            projectID = ProjectManager.singleton.getProjectID(projectName);
+            projectIDs.put(projectName, projectID);
+        }
+        return projectID;
+    }
+
     @Override
     public String getDescription() {
         return FunctionDescription.fun_cross();
@@ -115,4 +139,10 @@ public class Cross implements Function {
     public String getReturns() {
         return "array";
     }
+
+    // neither pure nor deterministic, as it reads the rows of the target project, which can be another project
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -99,4 +99,11 @@ public class FacetCount implements Function {
     public String getReturns() {
         return "number";
     }
+
+    // not pure, as it counts the values of a column of the project, nor thread-safe, as the facet is computed once and
+    // stored in the column
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
 }
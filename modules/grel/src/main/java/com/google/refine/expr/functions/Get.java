@@ -43,10 +43,10 @@ import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.expr.HasFields;
 import com.google.refine.expr.HasFieldsList;
 import com.google.refine.expr.util.JsonValueConverter;
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
 
-public class Get implements Function {
+public class Get implements PureFunction {
 
     @Override
     public Object call(Properties bindings, Object[] args) {
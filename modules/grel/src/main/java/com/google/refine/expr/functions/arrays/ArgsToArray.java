@@ -35,10 +35,10 @@ package com.google.refine.expr.functions.arrays;
 
 import java.util.Properties;
 
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
 
-public class ArgsToArray implements Function {
+public class ArgsToArray implements PureFunction {
 
     @Override
     public Object call(Properties bindings, Object[] args) {
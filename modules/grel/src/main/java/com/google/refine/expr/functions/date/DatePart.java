@@ -46,10 +46,10 @@ import java.util.TimeZone;
 import com.google.refine.expr.EvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
 import com.google.refine.grel.EvalErrorMessage;
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
 
-public class DatePart implements Function {
+public class DatePart implements PureFunction {
 
     @Override
     public Object call(Properties bindings, Object[] args) {
@@ -37,10 +37,10 @@ import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
 
-public class Contains implements Function {
+public class Contains implements PureFunction {
 
     @Override
     public Object call(Properties bindings, Object[] args) {
@@ -10,11 +10,11 @@ import com.optimaize.langdetect.i18n.LdLocale;
 import com.google.refine.expr.EvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
 import com.google.refine.grel.EvalErrorMessage;
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
 import com.google.refine.util.DetectLanguageUtils;
 
-public class DetectLanguage implements Function {
+public class DetectLanguage implements PureFunction {
 
     /**
      * Detects the language of the given string and provides the language code.
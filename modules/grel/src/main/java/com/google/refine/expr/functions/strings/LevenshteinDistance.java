@@ -40,9 +40,9 @@ import com.google.refine.clustering.knn.VicinoDistance;
 import com.google.refine.expr.EvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
 import com.google.refine.grel.EvalErrorMessage;
-import com.google.refine.grel.Function;
+import com.google.refine.grel.PureFunction;
 
-public class LevenshteinDistance implements Function {
+public class LevenshteinDistance implements PureFunction {
 
     /**
      * Calculate the number of edits required to make one value match another.
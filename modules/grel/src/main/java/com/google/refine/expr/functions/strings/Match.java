@@ -40,10 +40,11 @@ import java.util.regex.Pattern;
 import com.google.refine.expr.EvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
 import com.google.refine.grel.EvalErrorMessage;
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
+import com.google.refine.util.PatternCache;
 
-public class Match implements Function {
+public class Match implements PureFunction {
 
     @Override
     public Object call(Properties bindings, Object[] args) {
@@ -53,7 +54,7 @@ public class Match implements Function {
 
             if (s != null && p != null && (p instanceof String || p instanceof Pattern)) {
 
-                Pattern pattern = (p instanceof String) ? Pattern.compile((String) p) : (Pattern) p;
+                Pattern pattern = (p instanceof String) ? PatternCache.get((String) p) : (Pattern) p;
 
                 Matcher matcher = pattern.matcher(s.toString());
 
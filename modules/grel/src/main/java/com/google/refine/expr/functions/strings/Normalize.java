@@ -7,10 +7,10 @@ import java.util.regex.Pattern;
 
 import com.google.refine.expr.EvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
 
-public class Normalize implements Function {
+public class Normalize implements PureFunction {
 
     public static final Pattern DIACRITICS_AND_FRIENDS = Pattern
             // Lm = modifier letter, Sk = modifier symbol
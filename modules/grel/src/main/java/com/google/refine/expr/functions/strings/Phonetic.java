@@ -132,4 +132,15 @@ public class Phonetic implements Function {
     public String getReturns() {
         return "string";
     }
+
+    // not thread-safe, as the legacy encoders are created lazily
+    @Override
+    public boolean isPure() {
+        return true;
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
 }
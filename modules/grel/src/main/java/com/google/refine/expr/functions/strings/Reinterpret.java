@@ -114,4 +114,15 @@ public class Reinterpret implements Function {
     public String getReturns() {
         return "string";
     }
+
+    // not pure, as the source encoding defaults to the one of the project
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
 }
@@ -7,11 +7,11 @@ import java.util.Properties;
 import com.google.refine.expr.EvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
 import com.google.refine.grel.EvalErrorMessage;
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
 import com.google.refine.util.StringUtils;
 
-public class ReplaceEach implements Function {
+public class ReplaceEach implements PureFunction {
 
     /**
      * Replace each occurrence of a substring in a string with another substring.
@@ -40,10 +40,10 @@ import com.google.common.base.CharMatcher;
 import com.google.refine.expr.EvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
 import com.google.refine.grel.EvalErrorMessage;
-import com.google.refine.grel.Function;
 import com.google.refine.grel.FunctionDescription;
+import com.google.refine.grel.PureFunction;
 
-public class Trim implements Function {
+public class Trim implements PureFunction {
 
     @Override
     public Object call(Properties bindings, Object[] args) {
@@ -35,6 +35,7 @@ package com.google.refine.grel;
 
 import java.util.Properties;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -62,4 +63,34 @@ public interface Control {
 
     @JsonProperty("returns")
     public String getReturns();
+
+    /**
+     * Whether the result of the control only depends on the values of its arguments, evaluated with the variables it
+     * binds. Controls are not assumed to be: those which qualify must override this method, or implement
+     * {@link PureControl}.
+     */
+    @JsonIgnore
+    default public boolean isPure() {
+        return false;
+    }
+
+    /**
+     * Whether the control returns the same result when called again with the same arguments on the same project, unlike
+     * controls which read the clock, random numbers, other projects or the workspace preferences. Controls are not
+     * assumed to be: those which qualify must override this method.
+     */
+    @JsonIgnore
+    default public boolean isDeterministic() {
+        return false;
+    }
+
+    /**
+     * Whether the control can be called by several threads at the same time, each of them with its own bindings, unlike
+     * controls which keep mutable state. Controls are not assumed to be, so that those which do not declare it are only
+     * evaluated on one thread: those which qualify must override this method.
+     */
+    @JsonIgnore
+    default public boolean isThreadSafe() {
+        return false;
+    }
 }
@@ -35,6 +35,7 @@ package com.google.refine.grel;
 
 import java.util.Properties;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonInclude.Include;
 import com.fasterxml.jackson.annotation.JsonProperty;
@@ -58,4 +59,34 @@ public interface Function {
 
     @JsonProperty("returns")
     public String getReturns();
+
+    /**
+     * Whether the result of the function only depends on its arguments. Functions are not assumed to be, so that
+     * functions which do not declare it are never folded or memoized: those which qualify must override this method, or
+     * implement {@link PureFunction}.
+     */
+    @JsonIgnore
+    default public boolean isPure() {
+        return false;
+    }
+
+    /**
+     * Whether the function returns the same result when called again with the same arguments on the same project,
+     * unlike functions which read the clock, random numbers, other projects or the workspace preferences. Functions are
+     * not assumed to be: those which qualify must override this method.
+     */
+    @JsonIgnore
+    default public boolean isDeterministic() {
+        return false;
+    }
+
+    /**
+     * Whether the function can be called by several threads at the same time, each of them with its own bindings,
+     * unlike functions which keep mutable state. Functions are not assumed to be, so that those which do not declare it
+     * are only evaluated on one thread: those which qualify must override this method.
+     */
+    @JsonIgnore
+    default public boolean isThreadSafe() {
+        return false;
+    }
 }
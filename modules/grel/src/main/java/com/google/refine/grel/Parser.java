@@ -35,11 +35,14 @@ package com.google.refine.grel;
 
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Properties;
 import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.LanguageSpecificParser;
 import com.google.refine.expr.ParsingException;
+import com.google.refine.expr.functions.strings.Match;
 import com.google.refine.grel.Scanner.NumberToken;
 import com.google.refine.grel.Scanner.RegexToken;
 import com.google.refine.grel.Scanner.StringToken;
@@ -47,12 +50,14 @@ import com.google.refine.grel.Scanner.Token;
 import com.google.refine.grel.Scanner.TokenType;
 import com.google.refine.grel.ast.ArrayExpr;
 import com.google.refine.grel.ast.BracketedExpr;
+import com.google.refine.grel.ast.CompiledExpr;
 import com.google.refine.grel.ast.ControlCallExpr;
 import com.google.refine.grel.ast.FieldAccessorExpr;
 import com.google.refine.grel.ast.FunctionCallExpr;
 import com.google.refine.grel.ast.LiteralExpr;
 import com.google.refine.grel.ast.OperatorCallExpr;
 import com.google.refine.grel.ast.VariableExpr;
+import com.google.refine.util.PatternCache;
 
 public class Parser {
 
@@ -61,7 +66,8 @@ public class Parser {
         @Override
         public Evaluable parse(String source, String languagePrefix) throws ParsingException {
             Parser parser = new Parser(source);
-            return parser.getExpression();
+            Evaluable expression = parser.getExpression();
+            return CompiledExpr.isEnabled() ? CompiledExpr.compile(expression) : expression;
         }
     };
 
@@ -184,7 +190,7 @@ public class Parser {
             RegexToken t = (RegexToken) _token;
 
             try {
-                Pattern pattern = Pattern.compile(_token.text, t.caseInsensitive ? Pattern.CASE_INSENSITIVE : 0);
+                Pattern pattern = PatternCache.get(_token.text, t.caseInsensitive ? Pattern.CASE_INSENSITIVE : 0);
                 eval = new LiteralExpr(pattern, t.fullSource());
                 next(false);
             } catch (Exception e) {
@@ -238,7 +244,7 @@ public class Parser {
                     }
                     eval = new ControlCallExpr(argsA, c, text);
                 } else {
-                    eval = new FunctionCallExpr(makeArray(args), f, text, false);
+                    eval = new FunctionCallExpr(compileConstantRegex(f, makeArray(args)), f, text, false);
                 }
             }
         } else if (_token.type == TokenType.Delimiter && _token.text.equals("(")) {
@@ -285,7 +291,7 @@ public class Parser {
                     List<Evaluable> args = parseExpressionList(")");
                     args.add(0, eval);
 
-                    eval = new FunctionCallExpr(makeArray(args), f, identifier, true);
+                    eval = new FunctionCallExpr(compileConstantRegex(f, makeArray(args)), f, identifier, true);
                 } else {
                     eval = new FieldAccessorExpr(eval, identifier);
                 }
@@ -304,6 +310,26 @@ public class Parser {
         return eval;
     }
 
+    /**
+     * Compiles the regular expression given as a string literal to {@link Match} once, instead of at each evaluation.
+     * Invalid regular expressions are left as strings, so that they are reported when the expression is evaluated, as
+     * before.
+     */
+    protected Evaluable[] compileConstantRegex(Function f, Evaluable[] args) {
+        if (f != null && f.getClass() == Match.class && args.length == 2 && args[1] instanceof LiteralExpr) {
+            Object regex = args[1].evaluate(new Properties());
+            if (regex instanceof String) {
+                try {
+                    // the source of the literal is kept, so the expression is printed as it was written
+                    args[1] = new LiteralExpr(PatternCache.get((String) regex), args[1].toString());
+                } catch (PatternSyntaxException e) {
+                    // left as is
+                }
+            }
+        }
+        return args;
+    }
+
     /*
      * <expression-list> := <empty> | <expression> ( "," <expression> )*
      *
@@ -0,0 +1,29 @@
+
+package com.google.refine.grel;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A control whose result only depends on the values of its arguments, evaluated with the variables it binds, and which
+ * keeps no mutable state, such as if or forEach.
+ */
+public interface PureControl extends Control {
+
+    @Override
+    @JsonIgnore
+    default public boolean isPure() {
+        return true;
+    }
+
+    @Override
+    @JsonIgnore
+    default public boolean isDeterministic() {
+        return true;
+    }
+
+    @Override
+    @JsonIgnore
+    default public boolean isThreadSafe() {
+        return true;
+    }
+}
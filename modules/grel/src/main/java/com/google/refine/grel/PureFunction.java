@@ -0,0 +1,29 @@
+
+package com.google.refine.grel;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+/**
+ * A function whose result only depends on its arguments and which keeps no mutable state, such as most string and math
+ * functions. Calls to it can be folded when their arguments are constant, memoized and evaluated in parallel.
+ */
+public interface PureFunction extends Function {
+
+    @Override
+    @JsonIgnore
+    default public boolean isPure() {
+        return true;
+    }
+
+    @Override
+    @JsonIgnore
+    default public boolean isDeterministic() {
+        return true;
+    }
+
+    @Override
+    @JsonIgnore
+    default public boolean isThreadSafe() {
+        return true;
+    }
+}
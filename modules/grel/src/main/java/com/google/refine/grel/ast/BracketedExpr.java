@@ -8,6 +8,7 @@ import java.util.Properties;
 import java.util.Set;
 
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.Purity;
 
 /**
  * An AST node which represents a bracketed expression. This is introduced to enable faithful printing of a parsed
@@ -40,6 +41,21 @@ public class BracketedExpr extends GrelExpr {
         return new BracketedExpr(inner.renameColumnDependencies(substitutions));
     }
 
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        return inner.getVariableDependencies();
+    }
+
+    @Override
+    public Purity getPurity() {
+        return inner.getPurity();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return inner.isThreadSafe();
+    }
+
     @Override
     public String toString() {
         return "(" + inner + ")";
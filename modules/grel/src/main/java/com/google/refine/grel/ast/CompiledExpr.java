@@ -0,0 +1,332 @@
+
+package com.google.refine.grel.ast;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+
+import com.google.common.base.CharMatcher;
+
+import com.google.refine.ProjectManager;
+import com.google.refine.expr.EvalError;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.EvaluationContext;
+import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.Purity;
+import com.google.refine.expr.functions.Length;
+import com.google.refine.expr.functions.strings.ToLowercase;
+import com.google.refine.expr.functions.strings.ToUppercase;
+import com.google.refine.expr.functions.strings.Trim;
+import com.google.refine.grel.Control;
+import com.google.refine.grel.Function;
+
+/**
+ * A GREL expression compiled to a tree of closures, which evaluates faster than walking the abstract syntax tree.
+ * <p>
+ * Compilation resolves once what the interpreter looks up at every evaluation: sub-expressions which do not read their
+ * bindings are folded into constants, standard variables are read from their slot in an {@link EvaluationContext},
+ * operators are dispatched on their symbol once, and a few common string functions are applied directly to string
+ * arguments. Function and control calls otherwise go through the same {@link Function} and {@link Control} objects as
+ * the interpreter, so results are identical. All other methods are delegated to the parsed expression.
+ */
+public class CompiledExpr implements Evaluable {
+
+    public static final String PREFERENCE_KEY = "grel.compilation";
+
+    // operators which have a fast path on integral arguments, in the order of the opcodes below
+    private static final List<String> INTEGRAL_OPERATORS = List.of("+", "-", "*", ">", ">=", "<", "<=", "==", "!=");
+
+    private final Evaluable _expr;
+    private final Evaluable _compiled;
+
+    /**
+     * GREL expressions are compiled unless disabled in the workspace preferences, in which case the parsed expressions
+     * are interpreted.
+     */
+    public static boolean isEnabled() {
+        return ProjectManager.singleton == null
+                || ProjectManager.singleton.getPreferenceStore().getBoolean(PREFERENCE_KEY, true);
+    }
+
+    /**
+     * @param expr
+     *            a parsed GREL expression
+     * @return the compiled expression
+     */
+    public static CompiledExpr compile(Evaluable expr) {
+        if (expr instanceof CompiledExpr) {
+            return (CompiledExpr) expr;
+        }
+        return new CompiledExpr(expr, compileNode(expr));
+    }
+
+    private CompiledExpr(Evaluable expr, Evaluable compiled) {
+        _expr = expr;
+        _compiled = compiled;
+    }
+
+    /**
+     * @return the expression as parsed
+     */
+    public Evaluable getExpression() {
+        return _expr;
+    }
+
+    @Override
+    public Object evaluate(Properties bindings) {
+        return _compiled.evaluate(bindings);
+    }
+
+    @Override
+    public String getSource() {
+        return _expr.getSource();
+    }
+
+    @Override
+    public String getLanguagePrefix() {
+        return _expr.getLanguagePrefix();
+    }
+
+    @Override
+    public Optional<Set<String>> getColumnDependencies(Optional<String> baseColumn) {
+        return _expr.getColumnDependencies(baseColumn);
+    }
+
+    @Override
+    public Evaluable renameColumnDependencies(Map<String, String> substitutions) {
+        return compile(_expr.renameColumnDependencies(substitutions));
+    }
+
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        return _expr.getVariableDependencies();
+    }
+
+    @Override
+    public Purity getPurity() {
+        return _expr.getPurity();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return _expr.isThreadSafe();
+    }
+
+    @Override
+    public String toString() {
+        return _expr.toString();
+    }
+
+    @Override
+    public int hashCode() {
+        return _expr.hashCode();
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof CompiledExpr && _expr.equals(((CompiledExpr) obj)._expr);
+    }
+
+    private static Evaluable compileNode(Evaluable expr) {
+        if (expr instanceof LiteralExpr) {
+            Object value = ((LiteralExpr) expr)._value;
+            return bindings -> value;
+        } else if (expr instanceof GrelExpr && expr.getPurity() == Purity.CONSTANT) {
+            Optional<Evaluable> folded = fold(expr);
+            if (folded.isPresent()) {
+                return folded.get();
+            }
+        }
+
+        if (expr instanceof VariableExpr) {
+            String name = ((VariableExpr) expr)._name;
+            int slot = EvaluationContext.slotOf(name);
+            if (slot >= 0) {
+                return bindings -> bindings instanceof EvaluationContext ? ((EvaluationContext) bindings).getSlot(slot)
+                        : bindings.get(name);
+            }
+            return bindings -> bindings.get(name);
+        } else if (expr instanceof BracketedExpr) {
+            return compileNode(((BracketedExpr) expr).inner);
+        } else if (expr instanceof FieldAccessorExpr) {
+            Evaluable inner = compileNode(((FieldAccessorExpr) expr)._inner);
+            String fieldName = ((FieldAccessorExpr) expr)._fieldName;
+            return bindings -> FieldAccessorExpr.getField(inner.evaluate(bindings), fieldName, bindings);
+        } else if (expr instanceof OperatorCallExpr) {
+            return compileOperator((OperatorCallExpr) expr);
+        } else if (expr instanceof FunctionCallExpr) {
+            return compileFunction((FunctionCallExpr) expr);
+        } else if (expr instanceof ControlCallExpr) {
+            return compileControl((ControlCallExpr) expr);
+        }
+        // not a GREL expression: interpreted
+        return expr;
+    }
+
+    /**
+     * Evaluates an expression which does not read its bindings, if its value can be shared between evaluations.
+     */
+    private static Optional<Evaluable> fold(Evaluable expr) {
+        Object value;
+        try {
+            value = expr.evaluate(new Properties());
+        } catch (RuntimeException e) {
+            // such as a division by zero, which must be raised at every evaluation
+            return Optional.empty();
+        }
+        // arrays, lists and JSON nodes are mutable and must be created again for each evaluation
+        if (value == null || value instanceof String || value instanceof Number || value instanceof Boolean
+                || value instanceof OffsetDateTime) {
+            return Optional.of(bindings -> value);
+        }
+        return Optional.empty();
+    }
+
+    private static Evaluable[] compileArguments(Evaluable[] args) {
+        Evaluable[] compiled = new Evaluable[args.length];
+        for (int i = 0; i != args.length; i++) {
+            compiled[i] = compileNode(args[i]);
+        }
+        return compiled;
+    }
+
+    private static Evaluable compileOperator(OperatorCallExpr expr) {
+        Evaluable[] args = compileArguments(expr._args);
+        int opcode = INTEGRAL_OPERATORS.indexOf(expr._op);
+        if (args.length != 2) {
+            return bindings -> {
+                Object[] values = new Object[args.length];
+                for (int i = 0; i < args.length; i++) {
+                    Object v = args[i].evaluate(bindings);
+                    if (ExpressionUtils.isError(v)) {
+                        return v;
+                    }
+                    values[i] = v;
+                }
+                return expr.operate(values);
+            };
+        }
+
+        Evaluable left = args[0];
+        Evaluable right = args[1];
+        return bindings -> {
+            Object l = left.evaluate(bindings);
+            if (ExpressionUtils.isError(l)) {
+                return l;
+            }
+            Object r = right.evaluate(bindings);
+            if (ExpressionUtils.isError(r)) {
+                return r;
+            }
+            if (opcode >= 0 && isIntegral(l) && isIntegral(r)) {
+                long n1 = ((Number) l).longValue();
+                long n2 = ((Number) r).longValue();
+                switch (opcode) {
+                    case 0:
+                        return n1 + n2;
+                    case 1:
+                        return n1 - n2;
+                    case 2:
+                        return n1 * n2;
+                    case 3:
+                        return n1 > n2;
+                    case 4:
+                        return n1 >= n2;
+                    case 5:
+                        return n1 < n2;
+                    case 6:
+                        return n1 <= n2;
+                    case 7:
+                        return n1 == n2;
+                    default:
+                        return n1 != n2;
+                }
+            }
+            return expr.operate(new Object[] { l, r });
+        };
+    }
+
+    private static boolean isIntegral(Object n) {
+        return n instanceof Long || n instanceof Integer;
+    }
+
+    private static Evaluable compileFunction(FunctionCallExpr expr) {
+        Function function = expr._function;
+        Evaluable[] args = compileArguments(expr._args);
+
+        if (args.length == 1) {
+            Evaluable arg = args[0];
+            java.util.function.Function<String, Object> stringFunction = getStringFunction(function);
+            if (stringFunction != null) {
+                return bindings -> {
+                    Object v = arg.evaluate(bindings);
+                    if (v instanceof String) {
+                        return stringFunction.apply((String) v);
+                    } else if (ExpressionUtils.isError(v)) {
+                        return v;
+                    }
+                    return call(function, bindings, new Object[] { v });
+                };
+            }
+        }
+
+        return bindings -> {
+            Object[] values = new Object[args.length];
+            for (int i = 0; i < args.length; i++) {
+                Object v = args[i].evaluate(bindings);
+                if (ExpressionUtils.isError(v)) {
+                    return v;
+                }
+                values[i] = v;
+            }
+            return call(function, bindings, values);
+        };
+    }
+
+    /**
+     * @return the computation done by a function on a single string argument, if it is one of the common string
+     *         functions, or null otherwise
+     */
+    private static java.util.function.Function<String, Object> getStringFunction(Function function) {
+        // subclasses, such as those registered by extensions, could behave differently
+        Class<?> functionClass = function.getClass();
+        if (functionClass == Trim.class) {
+            return s -> CharMatcher.whitespace().trimFrom(s);
+        } else if (functionClass == ToLowercase.class) {
+            return String::toLowerCase;
+        } else if (functionClass == ToUppercase.class) {
+            return String::toUpperCase;
+        } else if (functionClass == Length.class) {
+            return String::length;
+        }
+        return null;
+    }
+
+    private static Object call(Function function, Properties bindings, Object[] values) {
+        try {
+            return function.call(bindings, values);
+        } catch (Exception e) {
+            return new EvalError(e);
+        }
+    }
+
+    private static Evaluable compileControl(ControlCallExpr expr) {
+        Control control = expr._control;
+        Evaluable[] args = new Evaluable[expr._args.length];
+        for (int i = 0; i != args.length; i++) {
+            Evaluable arg = expr._args[i];
+            // controls read the names of the variables they bind from the variable expressions
+            args[i] = arg instanceof VariableExpr ? arg : compile(arg);
+        }
+        return bindings -> {
+            try {
+                return control.call(bindings, args);
+            } catch (Exception e) {
+                return new EvalError(e.toString());
+            }
+        };
+    }
+}
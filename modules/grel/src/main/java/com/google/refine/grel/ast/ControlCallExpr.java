@@ -43,6 +43,7 @@ import java.util.Set;
 
 import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.Purity;
 import com.google.refine.grel.Control;
 
 /**
@@ -109,6 +110,31 @@ public class ControlCallExpr extends GrelExpr {
         return new ControlCallExpr(translatedArgs, _control, _controlName);
     }
 
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        if (!_control.isPure()) {
+            return Optional.empty();
+        }
+        // this includes the names of the variables bound by the control, such as "v" in "forEach(a, v, v.trim())"
+        return getVariableDependencies(_args);
+    }
+
+    @Override
+    public Purity getPurity() {
+        Purity purity = Purity.CONSTANT;
+        if (!_control.isDeterministic()) {
+            purity = Purity.NON_DETERMINISTIC;
+        } else if (!_control.isPure()) {
+            purity = Purity.PROJECT_DEPENDENT;
+        }
+        return getPurity(purity, _args);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return _control.isThreadSafe() && isThreadSafe(_args);
+    }
+
     @Override
     public String toString() {
         StringBuffer sb = new StringBuffer();
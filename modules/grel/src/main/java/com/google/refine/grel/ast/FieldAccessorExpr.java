@@ -46,6 +46,7 @@ import com.fasterxml.jackson.databind.node.ObjectNode;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.expr.HasFields;
+import com.google.refine.expr.Purity;
 import com.google.refine.expr.util.JsonValueConverter;
 
 /**
@@ -64,15 +65,21 @@ public class FieldAccessorExpr extends GrelExpr {
 
     @Override
     public Object evaluate(Properties bindings) {
-        Object o = _inner.evaluate(bindings);
+        return getField(_inner.evaluate(bindings), _fieldName, bindings);
+    }
+
+    /**
+     * Reads a field of the value of an expression.
+     */
+    static Object getField(Object o, String fieldName, Properties bindings) {
         if (ExpressionUtils.isError(o)) {
             return o; // bubble the error up
         } else if (o == null) {
             return null;
         } else if (o instanceof HasFields) {
-            return ((HasFields) o).getField(_fieldName, bindings);
+            return ((HasFields) o).getField(fieldName, bindings);
         } else if (o instanceof ObjectNode) {
-            JsonNode value = ((ObjectNode) o).get(_fieldName);
+            JsonNode value = ((ObjectNode) o).get(fieldName);
             return JsonValueConverter.convert(value);
         } else {
             return null;
@@ -106,6 +113,25 @@ public class FieldAccessorExpr extends GrelExpr {
         return new FieldAccessorExpr(_inner.renameColumnDependencies(substitutions), _fieldName);
     }
 
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        return _inner.getVariableDependencies();
+    }
+
+    @Override
+    public Purity getPurity() {
+        // "row.record" gives access to other rows
+        if ("record".equals(_fieldName)) {
+            return Purity.PROJECT_DEPENDENT.combine(_inner.getPurity());
+        }
+        return _inner.getPurity();
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return _inner.isThreadSafe();
+    }
+
     @Override
     public String toString() {
         return _inner.toString() + "." + _fieldName;
@@ -48,6 +48,7 @@ import org.apache.commons.lang3.Validate;
 import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.Purity;
 import com.google.refine.expr.functions.Get;
 import com.google.refine.grel.Function;
 
@@ -121,7 +122,10 @@ public class FunctionCallExpr extends GrelExpr {
             String columnName = ((LiteralExpr) _args[1])._value.toString();
             return Optional.of(Collections.singleton(columnName));
         }
-        // TODO distinguish functions which are "pure" and those which access external data, like cross or facetCount
+        // functions which access external data, like cross or facetCount, can depend on any column
+        if (!_function.isPure()) {
+            return Optional.empty();
+        }
         Set<String> dependencies = new HashSet<>();
         for (Evaluable ev : _args) {
             Optional<Set<String>> deps = ev.getColumnDependencies(baseColumn);
@@ -133,6 +137,31 @@ public class FunctionCallExpr extends GrelExpr {
         return Optional.of(dependencies);
     }
 
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        // impure functions read the bindings directly
+        if (!_function.isPure()) {
+            return Optional.empty();
+        }
+        return getVariableDependencies(_args);
+    }
+
+    @Override
+    public Purity getPurity() {
+        Purity purity = Purity.CONSTANT;
+        if (!_function.isDeterministic()) {
+            purity = Purity.NON_DETERMINISTIC;
+        } else if (!_function.isPure()) {
+            purity = Purity.PROJECT_DEPENDENT;
+        }
+        return getPurity(purity, _args);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return _function.isThreadSafe() && isThreadSafe(_args);
+    }
+
     @Override
     public String toString() {
         StringBuffer sb = new StringBuffer();
@@ -1,10 +1,14 @@
 
 package com.google.refine.grel.ast;
 
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.MetaParser;
+import com.google.refine.expr.Purity;
 
 abstract class GrelExpr implements Evaluable {
 
@@ -21,4 +25,52 @@ abstract class GrelExpr implements Evaluable {
     // make sure all subclasses implement this method
     @Override
     public abstract Evaluable renameColumnDependencies(Map<String, String> substitutions);
+
+    // make sure all subclasses classify themselves, as the default is the least useful classification
+    @Override
+    public abstract Purity getPurity();
+
+    @Override
+    public abstract boolean isThreadSafe();
+
+    @Override
+    public abstract Optional<Set<String>> getVariableDependencies();
+
+    /**
+     * @return the least predictable of the given classification and those of the arguments
+     */
+    static Purity getPurity(Purity purity, Evaluable[] args) {
+        for (Evaluable arg : args) {
+            purity = purity.combine(arg.getPurity());
+        }
+        return purity;
+    }
+
+    /**
+     * @return the union of the variables read by the arguments, or {@link Optional#empty()} if one of them could not be
+     *         analyzed
+     */
+    static Optional<Set<String>> getVariableDependencies(Evaluable[] args) {
+        Set<String> variables = new HashSet<>();
+        for (Evaluable arg : args) {
+            Optional<Set<String>> deps = arg.getVariableDependencies();
+            if (deps.isEmpty()) {
+                return Optional.empty();
+            }
+            variables.addAll(deps.get());
+        }
+        return Optional.of(variables);
+    }
+
+    /**
+     * @return whether all arguments can be evaluated concurrently
+     */
+    static boolean isThreadSafe(Evaluable[] args) {
+        for (Evaluable arg : args) {
+            if (!arg.isThreadSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -43,6 +43,7 @@ import java.util.Set;
 import com.fasterxml.jackson.databind.node.TextNode;
 
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.Purity;
 
 /**
  * An abstract syntax tree node encapsulating a literal value.
@@ -85,6 +86,21 @@ public class LiteralExpr extends GrelExpr {
         return this;
     }
 
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        return Optional.of(Collections.emptySet());
+    }
+
+    @Override
+    public Purity getPurity() {
+        return Purity.CONSTANT;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public String toString() {
         if (_source != null) {
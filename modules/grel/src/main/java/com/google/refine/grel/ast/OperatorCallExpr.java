@@ -44,6 +44,7 @@ import java.util.Set;
 
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
+import com.google.refine.expr.Purity;
 
 /**
  * An abstract syntax tree node encapsulating an operator call, such as "+".
@@ -68,7 +69,13 @@ public class OperatorCallExpr extends GrelExpr {
             }
             args[i] = v;
         }
+        return operate(args);
+    }
 
+    /**
+     * Applies the operator to the values of its arguments, none of which is an error.
+     */
+    Object operate(Object[] args) {
         if (args.length == 2) {
             if (args[0] != null && args[1] != null) {
                 if (isIntegral(args[0]) && isIntegral(args[1])) {
@@ -229,6 +236,21 @@ public class OperatorCallExpr extends GrelExpr {
         return new OperatorCallExpr(translatedArgs, _op);
     }
 
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        return getVariableDependencies(_args);
+    }
+
+    @Override
+    public Purity getPurity() {
+        return getPurity(Purity.CONSTANT, _args);
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return isThreadSafe(_args);
+    }
+
     @Override
     public String toString() {
         StringBuffer sb = new StringBuffer();
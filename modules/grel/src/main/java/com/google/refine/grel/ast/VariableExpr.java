@@ -40,6 +40,7 @@ import java.util.Properties;
 import java.util.Set;
 
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.Purity;
 
 /**
  * An abstract syntax tree node encapsulating the retrieval of a variable's content.
@@ -76,6 +77,25 @@ public class VariableExpr extends GrelExpr {
         return this;
     }
 
+    @Override
+    public Optional<Set<String>> getVariableDependencies() {
+        return Optional.of(Collections.singleton(_name));
+    }
+
+    @Override
+    public Purity getPurity() {
+        // the project and the record of the row give access to other rows
+        if ("project".equals(_name) || "record".equals(_name)) {
+            return Purity.PROJECT_DEPENDENT;
+        }
+        return Purity.PURE;
+    }
+
+    @Override
+    public boolean isThreadSafe() {
+        return true;
+    }
+
     @Override
     public String toString() {
         return _name;
@@ -44,13 +44,13 @@ import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.expr.util.JsonValueConverter;
-import com.google.refine.grel.Control;
 import com.google.refine.grel.ControlDescription;
 import com.google.refine.grel.ControlEvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
+import com.google.refine.grel.PureControl;
 import com.google.refine.grel.ast.VariableExpr;
 
-public class Filter implements Control {
+public class Filter implements PureControl {
 
     @Override
     public String checkArguments(Evaluable[] args) {
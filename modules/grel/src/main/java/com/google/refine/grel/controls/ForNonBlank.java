@@ -37,13 +37,13 @@ import java.util.Properties;
 
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
-import com.google.refine.grel.Control;
 import com.google.refine.grel.ControlDescription;
 import com.google.refine.grel.ControlEvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
+import com.google.refine.grel.PureControl;
 import com.google.refine.grel.ast.VariableExpr;
 
-public class ForNonBlank implements Control {
+public class ForNonBlank implements PureControl {
 
     @Override
     public String checkArguments(Evaluable[] args) {
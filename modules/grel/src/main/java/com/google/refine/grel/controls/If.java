@@ -37,12 +37,12 @@ import java.util.Properties;
 
 import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
-import com.google.refine.grel.Control;
 import com.google.refine.grel.ControlDescription;
 import com.google.refine.grel.ControlEvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
+import com.google.refine.grel.PureControl;
 
-public class If implements Control {
+public class If implements PureControl {
 
     @Override
     public String checkArguments(Evaluable[] args) {
@@ -37,11 +37,11 @@ import java.util.Properties;
 
 import com.google.refine.expr.EvalError;
 import com.google.refine.expr.Evaluable;
-import com.google.refine.grel.Control;
 import com.google.refine.grel.ControlEvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
+import com.google.refine.grel.PureControl;
 
-abstract class IsTest implements Control {
+abstract class IsTest implements PureControl {
 
     @Override
     public String checkArguments(Evaluable[] args) {
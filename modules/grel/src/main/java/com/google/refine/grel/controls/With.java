@@ -36,13 +36,13 @@ package com.google.refine.grel.controls;
 import java.util.Properties;
 
 import com.google.refine.expr.Evaluable;
-import com.google.refine.grel.Control;
 import com.google.refine.grel.ControlDescription;
 import com.google.refine.grel.ControlEvalError;
 import com.google.refine.grel.ControlFunctionRegistry;
+import com.google.refine.grel.PureControl;
 import com.google.refine.grel.ast.VariableExpr;
 
-public class With implements Control {
+public class With implements PureControl {
 
     @Override
     public String checkArguments(Evaluable[] args) {
@@ -22,13 +22,8 @@ public class DetectLanguageUtils {
 
     public static Optional<LdLocale> detect(String text) throws IOException {
 
-        // load the language profiles
-        if (languageProfiles.isEmpty()) {
-            languageProfiles = new LanguageProfileReader().readAllBuiltIn();
-        }
-
         // build language detector
-        LanguageDetector languageDetector = LanguageDetectorBuilder.create(NgramExtractors.standard()).withProfiles(languageProfiles)
+        LanguageDetector languageDetector = LanguageDetectorBuilder.create(NgramExtractors.standard()).withProfiles(getLanguageProfiles())
                 .build();
 
         // create a text object factory
@@ -40,4 +35,13 @@ public class DetectLanguageUtils {
 
         return lang;
     }
+
+    // synchronized as expressions can be evaluated concurrently
+    private static synchronized List<LanguageProfile> getLanguageProfiles() throws IOException {
+        // load the language profiles
+        if (languageProfiles.isEmpty()) {
+            languageProfiles = new LanguageProfileReader().readAllBuiltIn();
+        }
+        return languageProfiles;
+    }
 }
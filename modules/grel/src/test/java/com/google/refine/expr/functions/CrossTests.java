@@ -48,6 +48,8 @@ import com.google.refine.grel.GrelTestBase;
 import com.google.refine.model.Cell;
 import com.google.refine.model.Project;
 import com.google.refine.model.Row;
+import com.google.refine.model.changes.CellChange;
+import com.google.refine.model.changes.MassCellChange;
 
 /**
  * Test cases for cross function.
@@ -155,6 +157,65 @@ public class CrossTests extends GrelTestBase {
         assertEquals(address, "50 Broadway Ave.");
     }
 
+    @Test
+    public void crossFunctionAfterCellChange() throws Exception {
+        assertEquals(((HasFieldsListImpl) invoke("cross", "anne", "My Address Book", "friend")).size(), 1);
+
+        CellChange change = new CellChange(3, 0, projectAddress.rows.get(3).getCell(0), new Cell("john", null));
+        change.apply(projectAddress);
+        assertEquals(((HasFieldsListImpl) invoke("cross", "anne", "My Address Book", "friend")).size(), 0);
+        HasFieldsListImpl johns = (HasFieldsListImpl) invoke("cross", "john", "My Address Book", "friend");
+        assertEquals(johns.size(), 3);
+        // the rows are returned in order
+        assertEquals(((WrappedRow) johns.get(1)).rowIndex, 2);
+        assertEquals(((WrappedRow) johns.get(2)).rowIndex, 3);
+
+        change.revert(projectAddress);
+        assertEquals(((HasFieldsListImpl) invoke("cross", "anne", "My Address Book", "friend")).size(), 1);
+        assertEquals(((HasFieldsListImpl) invoke("cross", "john", "My Address Book", "friend")).size(), 2);
+    }
+
+    private int[] crossRowIndices(String value) {
+        HasFieldsListImpl rows = (HasFieldsListImpl) invoke("cross", value, "My Address Book", "friend");
+        return rows.stream().mapToInt(row -> ((WrappedRow) row).rowIndex).toArray();
+    }
+
+    private CellChange friendChange(int row, String oldValue, String newValue) {
+        return new CellChange(row, 0, new Cell(oldValue, null), new Cell(newValue, null));
+    }
+
+    @Test
+    public void crossFunctionAfterMassCellChange() throws Exception {
+        assertEquals(crossRowIndices("john"), new int[] { 0, 2 });
+
+        MassCellChange change = new MassCellChange(new CellChange[] {
+                friendChange(0, "john", "mary"),
+                friendChange(2, "john", "mary"),
+                friendChange(3, "anne", "mary") }, "friend", false);
+        change.apply(projectAddress);
+        assertEquals(crossRowIndices("mary"), new int[] { 0, 1, 2, 3 });
+        assertEquals(crossRowIndices("john"), new int[0]);
+        assertEquals(crossRowIndices("anne"), new int[0]);
+
+        change.revert(projectAddress);
+        assertEquals(crossRowIndices("mary"), new int[] { 1 });
+        assertEquals(crossRowIndices("john"), new int[] { 0, 2 });
+        assertEquals(crossRowIndices("anne"), new int[] { 3 });
+    }
+
+    @Test
+    public void crossFunctionAfterSeveralChangesOfTheSameRow() throws Exception {
+        assertEquals(crossRowIndices("anne"), new int[] { 3 });
+
+        // the last change of the row wins, as for the cell itself
+        new MassCellChange(new CellChange[] {
+                friendChange(3, "anne", "john"),
+                friendChange(3, "john", "mary") }, "friend", false).apply(projectAddress);
+        assertEquals(crossRowIndices("mary"), new int[] { 1, 3 });
+        assertEquals(crossRowIndices("john"), new int[] { 0, 2 });
+        assertEquals(crossRowIndices("anne"), new int[0]);
+    }
+
     @Test
     // lookup the row with index 0 in the current project
     public void crossFunctionOneArgumentTest() throws Exception {
@@ -54,6 +54,7 @@ import com.google.refine.expr.Evaluable;
 import com.google.refine.expr.ExpressionUtils;
 import com.google.refine.expr.MetaParser;
 import com.google.refine.expr.ParsingException;
+import com.google.refine.expr.Purity;
 import com.google.refine.model.Project;
 
 public class GrelTests extends GrelTestBase {
@@ -258,8 +259,9 @@ public class GrelTests extends GrelTestBase {
                 { "cells", null },
                 // this could be analyzed too, but we will never reach completeness anyway!
                 { "get(cells, 'foo'+'bar')", null },
-                // TODO this should fail to extract any dependencies because facetCount is not a pure function
-                // { "facetCount(value, 'value', 'col')", null },
+                // facetCount reads other columns of the project
+                { "facetCount(value, 'value', 'col')", null },
+                { "value.cross('other', 'key')", null },
         };
         for (String[] test : tests) {
             Evaluable eval = MetaParser.parse("grel:" + test[0]);
@@ -271,6 +273,76 @@ public class GrelTests extends GrelTestBase {
         }
     }
 
+    @Test
+    public void testPurity() throws ParsingException {
+        String tests[][] = {
+                { "1 + 2", "CONSTANT" },
+                { "'a'.toUppercase()", "CONSTANT" },
+                { "(value + 'a').trim()", "PURE" },
+                { "forEach(value.split(','), v, v.trim())", "PURE" },
+                { "row.record.cells.foo.value", "PROJECT_DEPENDENT" },
+                { "facetCount(value, 'value', 'col')", "PROJECT_DEPENDENT" },
+                { "value.cross('other', 'key')", "NON_DETERMINISTIC" },
+                { "if(isBlank(value), now(), value)", "NON_DETERMINISTIC" },
+                { "random()", "NON_DETERMINISTIC" },
+        };
+        for (String[] test : tests) {
+            Evaluable eval = MetaParser.parse("grel:" + test[0]);
+            Assert.assertEquals(eval.getPurity(), Purity.valueOf(test[1]), "for expression: " + test[0]);
+        }
+    }
+
+    @Test
+    public void testVariableDependencies() throws ParsingException {
+        String tests[][] = {
+                { "'a'", "" },
+                { "value.replace(/a+/, 'b').toDate()", "value" },
+                { "value + rowIndex", "rowIndex,value" },
+                { "cells.foo.value", "cells" },
+                { "forEach(value.split(','), v, v.trim())", "v,value" },
+                { "facetCount(value, 'value', 'col')", null },
+        };
+        for (String[] test : tests) {
+            Evaluable eval = MetaParser.parse("grel:" + test[0]);
+            Optional<Set<String>> expected = test[1] == null ? Optional.empty()
+                    : Optional.of(Arrays.asList(test[1].split(",")).stream()
+                            .filter(s -> !s.isEmpty()).collect(Collectors.toSet()));
+            Assert.assertEquals(eval.getVariableDependencies(), expected, "for expression: " + test[0]);
+        }
+    }
+
+    @Test
+    public void testThreadSafety() throws ParsingException {
+        Assert.assertTrue(MetaParser.parse("grel:value.split(',').join(';')").isThreadSafe());
+        Assert.assertTrue(MetaParser.parse("grel:value.cross('other', 'key')").isThreadSafe());
+        Assert.assertFalse(MetaParser.parse("grel:if(value > 1, facetCount(value, 'value', 'col'), 0)").isThreadSafe());
+    }
+
+    @Test
+    public void testUndeclaredFunctionsAreNotAssumedPure() throws ParsingException {
+        ControlFunctionRegistry.registerFunction("undeclaredFunction", new Function() {
+
+            @Override
+            public Object call(Properties bindings, Object[] args) {
+                return args[0];
+            }
+
+            @Override
+            public String getDescription() {
+                return "returns its argument";
+            }
+
+            @Override
+            public String getReturns() {
+                return "object";
+            }
+        });
+
+        Evaluable eval = MetaParser.parse("grel:undeclaredFunction('a')");
+        Assert.assertEquals(eval.getPurity(), Purity.NON_DETERMINISTIC);
+        Assert.assertFalse(eval.isThreadSafe());
+    }
+
     @Test
     public void testGetSource() throws ParsingException {
         // integration test for getSource()
@@ -344,6 +416,20 @@ public class GrelTests extends GrelTestBase {
         }
     }
 
+    @Test
+    public void testConstantRegexIsCompiledOnce() throws ParsingException {
+        bindings.put("value", "ab12");
+        Evaluable evaluable = MetaParser.parse("grel:value.match('([a-z]+)([0-9]+)')");
+
+        Assert.assertEquals(evaluable.getSource(), "value.match('([a-z]+)([0-9]+)')");
+        Assert.assertEquals(evaluable.toString(), "value.match('([a-z]+)([0-9]+)')");
+        Assert.assertEquals((String[]) evaluable.evaluate(bindings), new String[] { "ab", "12" });
+
+        // invalid regular expressions are still reported at evaluation time
+        evaluable = MetaParser.parse("grel:value.match('(')");
+        Assert.assertTrue(evaluable.evaluate(bindings) instanceof EvalError);
+    }
+
     @Test
     public void testGetters() throws ParsingException {
         Evaluable evaluable = MetaParser.parse("grel:value + \" foo\"");
@@ -0,0 +1,97 @@
+
+package com.google.refine.grel.ast;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotSame;
+import static org.testng.Assert.assertTrue;
+
+import java.util.Properties;
+
+import org.testng.annotations.Test;
+
+import com.google.refine.expr.EvalError;
+import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.ParsingException;
+import com.google.refine.grel.Parser;
+import com.google.refine.util.ParsingUtilities;
+
+public class CompiledExprTest {
+
+    private Properties bindings(Object value) {
+        Properties bindings = new Properties();
+        if (value != null) {
+            bindings.put("value", value);
+        }
+        return bindings;
+    }
+
+    private void assertSameResults(String source, Object... values) throws Exception {
+        Evaluable interpreted = new Parser(source).getExpression();
+        CompiledExpr compiled = CompiledExpr.compile(interpreted);
+        assertEquals(compiled.getSource(), interpreted.getSource());
+        for (Object value : values) {
+            Object expected = interpreted.evaluate(bindings(value));
+            Object actual = compiled.evaluate(bindings(value));
+            if (expected instanceof EvalError) {
+                assertTrue(actual instanceof EvalError, "for expression: " + source + " on " + value);
+            } else {
+                // compare the serializations, as arrays and JSON nodes do not implement equals
+                assertEquals(ParsingUtilities.mapper.writeValueAsString(actual),
+                        ParsingUtilities.mapper.writeValueAsString(expected), "for expression: " + source + " on " + value);
+            }
+        }
+    }
+
+    @Test
+    public void testResultsMatchInterpreter() throws Exception {
+        String[] sources = {
+                "value",
+                "value + 1",
+                "value * 2 - 3",
+                "value / 2",
+                "value > 3",
+                "value == 4",
+                "value + 'x'",
+                "'a' + 'b' + value",
+                "value.trim().toUppercase()",
+                "toLowercase(value)",
+                "value.length()",
+                "length(value.split(' '))",
+                "(value + ' ').trim()",
+                "if(value > 3, 'big', 'small')",
+                "forEach([1, 2, 3], v, v * value)",
+                "with(value, x, x + x)",
+                "value.foo",
+                "isBlank(value)",
+                "value.toNumber() + 1.5",
+        };
+        for (String source : sources) {
+            assertSameResults(source, 1L, 4L, 2.5, " Foo Bar ", "", null, true);
+        }
+    }
+
+    @Test
+    public void testConstantsAreFolded() throws ParsingException {
+        CompiledExpr compiled = CompiledExpr.compile(new Parser("'a' + 'b'").getExpression());
+
+        assertEquals(compiled.evaluate(new Properties()), "ab");
+        // the folded value is returned as is
+        assertTrue(compiled.evaluate(new Properties()) == compiled.evaluate(bindings("c")));
+    }
+
+    @Test
+    public void testArraysAreNotShared() throws ParsingException {
+        CompiledExpr compiled = CompiledExpr.compile(new Parser("[1, 2]").getExpression());
+
+        assertNotSame(compiled.evaluate(new Properties()), compiled.evaluate(new Properties()));
+    }
+
+    @Test
+    public void testEquality() throws ParsingException {
+        Evaluable first = CompiledExpr.compile(new Parser("value.trim()").getExpression());
+        Evaluable second = CompiledExpr.compile(new Parser("value.trim()").getExpression());
+
+        assertEquals(first, second);
+        assertEquals(first.hashCode(), second.hashCode());
+    }
+}
@@ -14,6 +14,7 @@ import java.util.stream.Collectors;
 import org.testng.annotations.BeforeMethod;
 
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.Purity;
 
 /**
  * Base class to test expression classes. Contains utilities to test column dependency extraction.
@@ -61,6 +62,19 @@ public class ExprTestBase {
                 .thenReturn(set());
         when(constant.renameColumnDependencies(any()))
                 .thenReturn(constant);
+
+        when(constant.getPurity()).thenReturn(Purity.CONSTANT);
+        when(currentColumn.getPurity()).thenReturn(Purity.PURE);
+        when(twoColumns.getPurity()).thenReturn(Purity.PURE);
+        when(unanalyzable.getPurity()).thenReturn(Purity.NON_DETERMINISTIC);
+        when(constant.isThreadSafe()).thenReturn(true);
+        when(currentColumn.isThreadSafe()).thenReturn(true);
+        when(twoColumns.isThreadSafe()).thenReturn(true);
+
+        when(constant.getVariableDependencies()).thenReturn(set());
+        when(currentColumn.getVariableDependencies()).thenReturn(set("value"));
+        when(twoColumns.getVariableDependencies()).thenReturn(set("cells"));
+        when(unanalyzable.getVariableDependencies()).thenReturn(Optional.empty());
     }
 
     protected Optional<Set<String>> set(String... strings) {
@@ -4,23 +4,29 @@ package com.google.refine.grel.ast;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertThrows;
+import static org.testng.Assert.assertTrue;
 
 import java.util.Optional;
 
-import org.testng.annotations.BeforeTest;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.Purity;
 import com.google.refine.grel.Function;
 
 public class FunctionCallExprTest extends ExprTestBase {
 
     protected Function function;
 
-    @BeforeTest
+    @BeforeMethod
     public void setUpFunction() {
         function = mock(Function.class);
+        when(function.isPure()).thenReturn(true);
+        when(function.isDeterministic()).thenReturn(true);
+        when(function.isThreadSafe()).thenReturn(true);
     }
 
     @Test
@@ -64,4 +70,32 @@ public class FunctionCallExprTest extends ExprTestBase {
         assertEquals(ev.renameColumnDependencies(sampleRename),
                 new FunctionCallExpr(new Evaluable[] { currentColumnRenamed, unanalyzable }, function, "fun", false));
     }
+
+    @Test
+    public void testPurity() {
+        Evaluable ev = new FunctionCallExpr(new Evaluable[] { constant }, function, "fun", false);
+        assertEquals(ev.getPurity(), Purity.CONSTANT);
+        assertTrue(ev.isThreadSafe());
+
+        ev = new FunctionCallExpr(new Evaluable[] { constant, currentColumn }, function, "fun", false);
+        assertEquals(ev.getPurity(), Purity.PURE);
+
+        ev = new FunctionCallExpr(new Evaluable[] { currentColumn, unanalyzable }, function, "fun", false);
+        assertEquals(ev.getPurity(), Purity.NON_DETERMINISTIC);
+        assertFalse(ev.isThreadSafe());
+    }
+
+    @Test
+    public void testImpureFunction() {
+        when(function.isPure()).thenReturn(false);
+        when(function.isThreadSafe()).thenReturn(false);
+        Evaluable ev = new FunctionCallExpr(new Evaluable[] { constant, currentColumn }, function, "fun", false);
+        // the function can read any column of the project
+        assertEquals(ev.getColumnDependencies(baseColumn), Optional.empty());
+        assertEquals(ev.getPurity(), Purity.PROJECT_DEPENDENT);
+        assertFalse(ev.isThreadSafe());
+
+        when(function.isDeterministic()).thenReturn(false);
+        assertEquals(ev.getPurity(), Purity.NON_DETERMINISTIC);
+    }
 }
@@ -9,6 +9,7 @@ import java.util.Optional;
 import org.testng.annotations.Test;
 
 import com.google.refine.expr.Evaluable;
+import com.google.refine.expr.Purity;
 
 public class VariableExprTest extends ExprTestBase {
 
@@ -48,4 +49,12 @@ public class VariableExprTest extends ExprTestBase {
         assertEquals(ev.getColumnDependencies(baseColumn), set());
         assertEquals(ev.renameColumnDependencies(Map.of("someColumn", "newColumn")), ev);
     }
+
+    @Test
+    public void testPurity() {
+        assertEquals(new VariableExpr("value").getPurity(), Purity.PURE);
+        assertEquals(new VariableExpr("cells").getPurity(), Purity.PURE);
+        assertEquals(new VariableExpr("record").getPurity(), Purity.PROJECT_DEPENDENT);
+        assertEquals(new VariableExpr("project").getPurity(), Purity.PROJECT_DEPENDENT);
+    }
 }